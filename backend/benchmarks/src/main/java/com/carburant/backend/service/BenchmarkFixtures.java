@@ -0,0 +1,54 @@
+package com.carburant.backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.utils.FleetDataGenerator;
+
+/**
+ * Reproducible inputs of the benchmarks, from FleetDataGenerator with a fixed seed: two runs
+ * (or two commits) measure the same workbook and the same records.
+ */
+public final class BenchmarkFixtures {
+
+    public static final long SEED = 20240101L;
+    public static final String REGION = "Tunis";
+    public static final int YEAR = 2024;
+    public static final String SHEET = FleetDataGenerator.SHEETS.get(FleetDataGenerator.CAMION);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Workbook with a sheet of truck rows over twelve months, with the noise, formulas and
+     * currency strings of FleetDataGenerator
+     * @param rows Number of vehicle rows (rounded up to a multiple of twelve)
+     * @return Bytes of the .xlsx file
+     */
+    public static byte[] workbook(int rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trucks(rows).writeWorkbook(REGION, YEAR, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Truck records over the months of a year
+     * @param count Number of records
+     * @return Records with kilometrage, tonnage and consumption set
+     */
+    public static List<VehicleRecord> records(int count) {
+        return trucks(count).records().subList(0, count);
+    }
+
+    private static FleetDataGenerator trucks(int rows) {
+        return new FleetDataGenerator(FleetDataGenerator.Options.builder()
+            .seed(SEED)
+            .fleetSize((rows + 11) / 12)
+            .months(12)
+            .vehicleTypes(List.of(FleetDataGenerator.CAMION))
+            .absenceRate(0)
+            .build());
+    }
+}
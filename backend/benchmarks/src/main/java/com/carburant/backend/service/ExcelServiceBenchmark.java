@@ -0,0 +1,115 @@
+package com.carburant.backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.carburant.backend.utils.IngestionMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Workbook extraction: the whole pipeline on workbooks of growing size, and the per-cell parsing
+ * and header detection it repeats for every row.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ExcelServiceBenchmark {
+
+    /** The full extraction of one sheet, workbook opening included */
+    @State(Scope.Benchmark)
+    public static class WorkbookState {
+
+        @Param({ "1000", "10000", "100000" })
+        public int rows;
+
+        ExcelService excelService;
+        byte[] workbook;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            excelService = new ExcelService(new IngestionMetrics(new SimpleMeterRegistry()));
+            workbook = BenchmarkFixtures.workbook(rows);
+        }
+    }
+
+    /** Resolved rows of a 1,000-row sheet, to measure the cell helpers alone */
+    @State(Scope.Benchmark)
+    public static class CellState {
+
+        ExcelService excelService;
+        List<ExcelService.CellData> header;
+        List<List<ExcelService.CellData>> rows;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            excelService = new ExcelService(new IngestionMetrics(new SimpleMeterRegistry()));
+            try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(BenchmarkFixtures.workbook(1000)))) {
+                FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+                List<List<ExcelService.CellData>> sheet = excelService.resolveSheetData(
+                    workbook.getSheet(BenchmarkFixtures.SHEET), evaluator, new DataFormatter(true));
+                header = sheet.get(0);
+                rows = sheet.subList(1, sheet.size());
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ExcelService.ExtractionResult extractDataFromInputStream(WorkbookState state) throws IOException {
+        return state.excelService.extractDataFromInputStream(
+            new ByteArrayInputStream(state.workbook), BenchmarkFixtures.SHEET);
+    }
+
+    /** Numeric columns of every row (litres, TEP, km, tonnes, IPE) */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void safeGetNumericValue(CellState state, Blackhole blackhole) {
+        for (List<ExcelService.CellData> row : state.rows) {
+            for (int column = 3; column <= 8; column++) {
+                if (column != 5) {
+                    blackhole.consume(state.excelService.safeGetNumericValue(row, column));
+                }
+            }
+        }
+    }
+
+    /** Cost column of every row, one value in ten being a "6,368.16 TND" string */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void extractCurrencyValue(CellState state, Blackhole blackhole) {
+        for (List<ExcelService.CellData> row : state.rows) {
+            blackhole.consume(state.excelService.extractCurrencyValue(row, 5));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object findColumnIndices(CellState state) {
+        return state.excelService.findColumnIndices(state.header, BenchmarkFixtures.SHEET);
+    }
+}
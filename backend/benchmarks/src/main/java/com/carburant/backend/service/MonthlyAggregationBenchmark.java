@@ -0,0 +1,75 @@
+package com.carburant.backend.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.utils.IngestionMetrics;
+import com.carburant.backend.utils.RequestCoalescer;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Monthly aggregation of VehicleService over records already loaded: the MongoDB find is replaced by
+ * the fixture list so only the grouping in the service is measured.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MonthlyAggregationBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int records;
+
+    private MongoClient mongoClient;
+    private VehicleService vehicleService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<VehicleRecord> fixture = BenchmarkFixtures.records(records);
+        // The client connects lazily and is never used: find is answered from the fixture
+        mongoClient = MongoClients.create();
+        MongoTemplate mongoTemplate = new MongoTemplate(mongoClient, "benchmark") {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> find(Query query, Class<T> entityClass) {
+                return (List<T>) fixture;
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        vehicleService = new VehicleService(null, null, mongoTemplate, new RequestCoalescer(meterRegistry),
+            event -> { }, new IngestionMetrics(meterRegistry), null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> monthlyAggregation() {
+        return vehicleService.getMonthlyAggregatedData("Camion", "2024", null, null);
+    }
+}
@@ -0,0 +1,75 @@
+package com.carburant.backend.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.carburant.backend.model.VehicleRegression;
+import com.carburant.backend.utils.FleetRegressionCalculator.VehicleSeries;
+
+/**
+ * Fit of the per-vehicle baselines of a fleet of 36-month series, MongoDB excluded, on a fork/join
+ * pool of the given parallelism (0 = number of processors)
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class FleetRegressionBenchmark {
+
+    @Param({ "1000", "5000" })
+    public int vehicles;
+
+    @Param({ "1", "0" })
+    public int parallelism;
+
+    private FleetRegressionCalculator calculator;
+    private List<VehicleSeries> fleet;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        calculator = new FleetRegressionCalculator();
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        Random random = new Random(42);
+        fleet = new ArrayList<>(vehicles);
+        for (int v = 0; v < vehicles; v++) {
+            VehicleSeries series = new VehicleSeries("Camions", "V" + v);
+            double kilometrageCoef = 0.2 + (v % 10) * 0.01;
+            for (int month = 0; month < 36; month++) {
+                double km = 2000 + random.nextDouble() * 6000;
+                double tonnes = random.nextDouble() * 300;
+                series.add(km, tonnes, 80 + kilometrageCoef * km + 0.5 * tonnes + random.nextGaussian() * 5);
+            }
+            fleet.add(series);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<VehicleRegression> fitAll() {
+        return calculator.fitAll(fleet, pool);
+    }
+}
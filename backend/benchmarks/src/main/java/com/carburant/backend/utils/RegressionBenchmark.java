@@ -0,0 +1,50 @@
+package com.carburant.backend.utils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.carburant.backend.model.RegressionResult;
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.service.BenchmarkFixtures;
+
+/**
+ * Regression fit (accumulation, solve and inference statistics) for a growing number of records
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RegressionBenchmark {
+
+    @Param({ "100", "1000", "10000", "100000" })
+    public int n;
+
+    private RegressionUtils regressionUtils;
+    private List<VehicleRecord> records;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        regressionUtils = new RegressionUtils();
+        records = BenchmarkFixtures.records(n);
+    }
+
+    @Benchmark
+    public RegressionResult performRegression() {
+        return regressionUtils.performRegression(records, "Camion");
+    }
+}
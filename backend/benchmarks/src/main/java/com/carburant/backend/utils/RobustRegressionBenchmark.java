@@ -0,0 +1,70 @@
+package com.carburant.backend.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.model.dto.RobustRegressionReport;
+import com.carburant.backend.service.BenchmarkFixtures;
+
+/**
+ * IRLS against the OLS pass it is compared with, on the same in-memory columns: olsPass accumulates and
+ * solves, irls runs the whole robust fit, its own OLS pass included (costRatio of the report)
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RobustRegressionBenchmark {
+
+    @Param({ "10000", "200000" })
+    public int n;
+
+    @Param({ RobustRegressionReport.METHOD_HUBER, RobustRegressionReport.METHOD_TUKEY })
+    public String method;
+
+    private RobustRegression robustRegression;
+    private RegressionSample sample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        robustRegression = new RobustRegression();
+        sample = new RegressionSample();
+        for (VehicleRecord record : BenchmarkFixtures.records(n)) {
+            if (RegressionAccumulator.isUsable(record)) {
+                sample.add(record.getKilometrage(), record.getProduitsTonnes(), record.getConsommationL());
+            }
+        }
+    }
+
+    @Benchmark
+    public RegressionAccumulator.Fit olsPass() {
+        double[] kilometrage = sample.kilometrage();
+        double[] tonnage = sample.tonnage();
+        double[] consommation = sample.consommation();
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        for (int i = 0; i < sample.size(); i++) {
+            accumulator.add(kilometrage[i], tonnage[i], consommation[i]);
+        }
+        return accumulator.fit();
+    }
+
+    @Benchmark
+    public RobustRegressionReport irls() {
+        return robustRegression.fit(sample, method, 0);
+    }
+}
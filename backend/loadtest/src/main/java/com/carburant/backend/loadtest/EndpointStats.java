@@ -0,0 +1,69 @@
+package com.carburant.backend.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies and errors of one endpoint of the traffic mix
+ */
+class EndpointStats {
+
+    /** Latencies above one minute are recorded as one minute */
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final String name;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void record(long startNanos, boolean success) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        latencies.recordValue(Math.min(Math.max(micros, 1), MAX_MICROS));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    /** Forget the warm-up requests */
+    void reset() {
+        latencies.reset();
+        errors.reset();
+    }
+
+    /**
+     * @param seconds Length of the measurement
+     * @return Requests, errors, throughput (req/s) and latency percentiles (ms)
+     */
+    Map<String, Object> summary(double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoint", name);
+        summary.put("requests", latencies.getTotalCount());
+        summary.put("errors", errors.sum());
+        summary.put("throughput", round(latencies.getTotalCount() / seconds));
+        summary.put("p50Ms", millis(latencies.getValueAtPercentile(50)));
+        summary.put("p95Ms", millis(latencies.getValueAtPercentile(95)));
+        summary.put("p99Ms", millis(latencies.getValueAtPercentile(99)));
+        summary.put("maxMs", millis(latencies.getMaxValue()));
+        return summary;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
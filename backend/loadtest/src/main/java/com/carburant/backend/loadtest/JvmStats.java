@@ -0,0 +1,80 @@
+package com.carburant.backend.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap and GC activity of the JVM during the measurement. The backend, the harness and the MongoDB
+ * stand-in share the JVM, so the figures include the stand-in's documents and the client threads.
+ */
+class JvmStats {
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "loadtest-heap-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, long[]> gcAtStart = new HashMap<>();
+    private long peakUsed;
+    private long usedSum;
+    private long samples;
+
+    /** Start sampling the heap and take the GC counters as the baseline */
+    synchronized void start() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcAtStart.put(gc.getName(), new long[] { gc.getCollectionCount(), gc.getCollectionTime() });
+        }
+        sampler.scheduleAtFixedRate(this::sample, 0, 500, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void sample() {
+        long used = memory.getHeapMemoryUsage().getUsed();
+        peakUsed = Math.max(peakUsed, used);
+        usedSum += used;
+        samples++;
+    }
+
+    /**
+     * Stop sampling
+     * @param seconds Length of the measurement
+     * @return Heap (MB) and, per collector, collections and pause time during the measurement
+     */
+    synchronized Map<String, Object> stop(double seconds) {
+        sampler.shutdownNow();
+        Map<String, Object> heap = new LinkedHashMap<>();
+        heap.put("maxMb", megabytes(memory.getHeapMemoryUsage().getMax()));
+        heap.put("peakUsedMb", megabytes(peakUsed));
+        heap.put("averageUsedMb", megabytes(samples > 0 ? usedSum / samples : 0));
+
+        List<Map<String, Object>> collectors = new ArrayList<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long[] start = gcAtStart.getOrDefault(gc.getName(), new long[2]);
+            long timeMs = gc.getCollectionTime() - start[1];
+            Map<String, Object> collector = new LinkedHashMap<>();
+            collector.put("name", gc.getName());
+            collector.put("collections", gc.getCollectionCount() - start[0]);
+            collector.put("timeMs", timeMs);
+            collector.put("timePercent", Math.round(timeMs / (seconds * 10.0) * 100) / 100.0);
+            collectors.add(collector);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("heap", heap);
+        stats.put("gc", collectors);
+        return stats;
+    }
+
+    private static long megabytes(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+}
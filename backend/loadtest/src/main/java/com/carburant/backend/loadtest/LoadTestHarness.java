@@ -0,0 +1,137 @@
+package com.carburant.backend.loadtest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.carburant.backend.BackendApplication;
+import com.carburant.backend.utils.FleetDataGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * Load test of the backend, runnable offline on one machine: starts an in-memory MongoDB stand-in
+ * (mongo-java-server), loads generated fleet data into it, boots the backend on a random port in
+ * the same JVM and replays the traffic mix of TrafficMix. Reports throughput and latency
+ * percentiles per endpoint, and heap and GC activity, on the console and as JSON.
+ */
+public class LoadTestHarness {
+
+    private static final String DATABASE = "analyse_vehicules";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Files.createDirectories(options.getOut());
+        System.out.println("Load test: " + options);
+
+        MongoServer mongoServer = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = mongoServer.bind();
+        String mongoUri = "mongodb://" + address.getHostString() + ":" + address.getPort() + "/" + DATABASE;
+
+        ConfigurableApplicationContext context = null;
+        try {
+            FleetDataGenerator seedData = new FleetDataGenerator(options.seedData());
+            try (MongoClient client = MongoClients.create(mongoUri)) {
+                seedData.bulkLoad(new MongoTemplate(client, DATABASE), 1000);
+            }
+            System.out.println("Loaded " + seedData.getRecordCount() + " records into the MongoDB stand-in");
+
+            // As command line arguments, which take precedence over application.properties
+            String[] backendArgs = backendProperties(mongoUri, options.getOut()).entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+            context = new SpringApplicationBuilder(BackendApplication.class).run(backendArgs);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI baseUri = URI.create("http://localhost:" + port + "/api/");
+            System.out.println("Backend started on " + baseUri);
+
+            TrafficMix traffic = new TrafficMix(baseUri, options, new FleetDataGenerator(options.uploadData()));
+            JvmStats jvmStats = new JvmStats();
+            traffic.start();
+            Thread.sleep(options.getWarmupSeconds() * 1000L);
+            traffic.resetStats();
+            jvmStats.start();
+            long start = System.nanoTime();
+            Thread.sleep(options.getDurationSeconds() * 1000L);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Map<String, Object> jvm = jvmStats.stop(seconds);
+            traffic.stop();
+
+            report(options, seedData.getRecordCount(), seconds, traffic.getStats(), jvm);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            mongoServer.shutdownNow();
+        }
+        // HTTP client and stand-in threads would keep the JVM alive
+        System.exit(0);
+    }
+
+    /**
+     * Backend configuration for the test: the stand-in as database, quiet logs, no scheduled jobs
+     * and no explain of slow queries (not supported by the stand-in)
+     */
+    private static Map<String, Object> backendProperties(String mongoUri, Path out) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.data.mongodb.uri", mongoUri);
+        properties.put("server.port", "0");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.carburant.backend", "WARN");
+        properties.put("logging.level.com.carburant.backend.controller", "WARN");
+        properties.put("logging.level.com.carburant.backend.service", "WARN");
+        properties.put("logging.level.org.springframework.data.mongodb", "WARN");
+        properties.put("logging.level.org.springframework.web", "WARN");
+        properties.put("logging.level.de.bwaldvogel", "ERROR");
+        properties.put("logging.file.name", out.resolve("backend.log").toString());
+        properties.put("app.precalcul.active", "false");
+        properties.put("app.regression.recalcul-nocturne.active", "false");
+        properties.put("app.mongo.requetes-lentes.expliquer", "false");
+        properties.put("app.rapports.repertoire", out.resolve("rapports").toString());
+        properties.put("app.rapports.cache.repertoire", out.resolve("rapports").resolve("cache").toString());
+        return properties;
+    }
+
+    private static void report(LoadTestOptions options, int records, double seconds, List<EndpointStats> stats,
+            Map<String, Object> jvm) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("options", options.toString());
+        report.put("records", records);
+        report.put("durationSeconds", Math.round(seconds * 10) / 10.0);
+        List<Map<String, Object>> endpoints = stats.stream().map(s -> s.summary(seconds)).toList();
+        report.put("endpoints", endpoints);
+        report.putAll(jvm);
+
+        System.out.println();
+        System.out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s%n",
+            "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map<String, Object> endpoint : endpoints) {
+            System.out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s%n", endpoint.get("endpoint"), endpoint.get("requests"),
+                endpoint.get("errors"), endpoint.get("throughput"), endpoint.get("p50Ms"), endpoint.get("p95Ms"),
+                endpoint.get("p99Ms"), endpoint.get("maxMs"));
+        }
+        System.out.println("Heap: " + jvm.get("heap"));
+        System.out.println("GC: " + jvm.get("gc"));
+
+        Path file = options.getOut().resolve("loadtest-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("Report: " + file);
+    }
+}
@@ -0,0 +1,139 @@
+package com.carburant.backend.loadtest;
+
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+
+import com.carburant.backend.utils.FleetDataGenerator;
+
+/**
+ * Command line options of the load test
+ */
+class LoadTestOptions {
+
+    private int users = 50;
+    private int uploaders = 1;
+    private int analysts = 2;
+    private int warmupSeconds = 20;
+    private int durationSeconds = 60;
+    private long thinkMillis = 1000;
+    private long uploadPauseMillis = 5000;
+    private long analystPauseMillis = 3000;
+    private long seed = 42;
+    private int fleetSize = 200;
+    private int months = 12;
+    private YearMonth start = YearMonth.of(2024, 1);
+    private List<String> regions = List.of("Tunis", "Sfax", "Sousse");
+    private List<String> vehicleTypes = List.of(FleetDataGenerator.CAMION, FleetDataGenerator.VOITURE,
+        FleetDataGenerator.MINIBUS, FleetDataGenerator.CHARIOT);
+    private Path out = Path.of("target", "loadtest");
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--users" -> options.users = Integer.parseInt(value);
+                case "--uploaders" -> options.uploaders = Integer.parseInt(value);
+                case "--analysts" -> options.analysts = Integer.parseInt(value);
+                case "--warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                case "--duration" -> options.durationSeconds = Integer.parseInt(value);
+                case "--think-ms" -> options.thinkMillis = Long.parseLong(value);
+                case "--upload-pause-ms" -> options.uploadPauseMillis = Long.parseLong(value);
+                case "--analyst-pause-ms" -> options.analystPauseMillis = Long.parseLong(value);
+                case "--seed" -> options.seed = Long.parseLong(value);
+                case "--fleet" -> options.fleetSize = Integer.parseInt(value);
+                case "--months" -> options.months = Integer.parseInt(value);
+                case "--start" -> options.start = YearMonth.parse(value);
+                case "--regions" -> options.regions = List.of(value.split(","));
+                case "--types" -> options.vehicleTypes = List.of(value.split(","));
+                case "--out" -> options.out = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        return options;
+    }
+
+    /** Options of the data loaded before the test */
+    FleetDataGenerator.Options seedData() {
+        return FleetDataGenerator.Options.builder()
+            .seed(seed)
+            .fleetSize(fleetSize)
+            .months(months)
+            .start(start)
+            .regions(regions)
+            .vehicleTypes(vehicleTypes)
+            .build();
+    }
+
+    /** Options of the workbook the uploaders save, in a region of its own */
+    FleetDataGenerator.Options uploadData() {
+        return FleetDataGenerator.Options.builder()
+            .seed(seed + 1)
+            .fleetSize(Math.max(fleetSize / 4, 10))
+            .months(Math.min(months, 12))
+            .start(YearMonth.of(start.getYear(), 1))
+            .regions(List.of("Charge"))
+            .vehicleTypes(vehicleTypes)
+            .build();
+    }
+
+    int getUsers() {
+        return users;
+    }
+
+    int getUploaders() {
+        return uploaders;
+    }
+
+    int getAnalysts() {
+        return analysts;
+    }
+
+    int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    long getThinkMillis() {
+        return thinkMillis;
+    }
+
+    long getUploadPauseMillis() {
+        return uploadPauseMillis;
+    }
+
+    long getAnalystPauseMillis() {
+        return analystPauseMillis;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    YearMonth getStart() {
+        return start;
+    }
+
+    List<String> getVehicleTypes() {
+        return vehicleTypes;
+    }
+
+    Path getOut() {
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("users=%d uploaders=%d analysts=%d warmup=%ds duration=%ds think=%dms seed=%d "
+            + "fleet=%d months=%d start=%s regions=%s types=%s", users, uploaders, analysts, warmupSeconds,
+            durationSeconds, thinkMillis, seed, fleetSize, months, start, regions, vehicleTypes);
+    }
+}
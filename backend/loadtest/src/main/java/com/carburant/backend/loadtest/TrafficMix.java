@@ -0,0 +1,210 @@
+package com.carburant.backend.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.carburant.backend.utils.FleetDataGenerator;
+
+/**
+ * Virtual users replaying the traffic of the application: dashboard users reading aggregations,
+ * uploaders saving workbook sheets, and analysts fitting regressions. Each user loops over its
+ * requests with a think time until stopped.
+ */
+class TrafficMix {
+
+    /** A request of the mix, with its weight among the requests of its user type */
+    private record Step(String name, int weight, Request request) {
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        HttpRequest build(Random random);
+    }
+
+    private static final String BOUNDARY = "loadtest-boundary";
+
+    private final URI baseUri;
+    private final LoadTestOptions options;
+    private final HttpClient client;
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private final List<Step> dashboardSteps = new ArrayList<>();
+    private final List<Step> uploadSteps = new ArrayList<>();
+    private final List<Step> regressionSteps = new ArrayList<>();
+    private final ExecutorService users;
+    private volatile boolean running;
+
+    TrafficMix(URI baseUri, LoadTestOptions options, FleetDataGenerator uploads) throws IOException {
+        this.baseUri = baseUri;
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        this.users = Executors.newFixedThreadPool(options.getUsers() + options.getUploaders() + options.getAnalysts());
+
+        String year = String.valueOf(options.getStart().getYear());
+        // Cars and minibuses carry no tonnage: their regression is singular and answers with an error
+        List<String> regressionTypes = options.getVehicleTypes().stream()
+            .filter(type -> FleetDataGenerator.CAMION.equals(type) || FleetDataGenerator.CHARIOT.equals(type))
+            .toList();
+        List<String> fittedTypes = regressionTypes.isEmpty() ? options.getVehicleTypes() : regressionTypes;
+        dashboard("monthly-aggregation all", 4, "records/monthly-aggregation?vehicleType=all&year=" + year);
+        dashboard("monthly-aggregation type", 3, random -> "records/monthly-aggregation?vehicleType="
+            + pick(random, options.getVehicleTypes()) + "&year=" + year);
+        dashboard("performance", 2, random -> "records/performance?type=" + pick(random, options.getVehicleTypes()));
+        dashboard("records", 1, random -> "records?type=" + pick(random, options.getVehicleTypes()) + "&year=" + year);
+        dashboard("regression type", 2, random -> "regression/type/" + pick(random, fittedTypes));
+        dashboard("monthly-totals", 1, random -> "regression/monthly-totals/" + pick(random, fittedTypes));
+        dashboard("stream monthly-aggregation", 1, "stream/records/monthly-aggregation?vehicleType=all&year=" + year);
+
+        // Uploads replace the sheets of a dedicated region, so the volume of data stays constant
+        ByteArrayOutputStream workbook = new ByteArrayOutputStream();
+        String uploadRegion = uploads.getRegions().get(0);
+        int uploadYear = uploads.getYears(uploadRegion).iterator().next();
+        uploads.writeWorkbook(uploadRegion, uploadYear, workbook);
+        byte[] workbookBytes = workbook.toByteArray();
+        uploadSteps.add(new Step("upload save", 1, random -> {
+            String type = pick(random, uploads.getOptions().getVehicleTypes());
+            return post("save", multipart(workbookBytes, Map.of(
+                "sheetName", FleetDataGenerator.SHEETS.get(type),
+                "year", String.valueOf(uploadYear),
+                "region", uploadRegion,
+                "vehicleType", type,
+                "replaceExisting", "true")));
+        }));
+
+        regressionSteps.add(new Step("regression perform", 3, random -> post(
+            "regression/perform/" + pick(random, fittedTypes), HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.noBody()))));
+        regressionSteps.add(new Step("regression fleet", 1, random -> post(
+            "regression/fleet?type=" + pick(random, fittedTypes), HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.noBody()))));
+
+        for (List<Step> steps : List.of(dashboardSteps, uploadSteps, regressionSteps)) {
+            steps.forEach(step -> stats.put(step.name(), new EndpointStats(step.name())));
+        }
+    }
+
+    /** Start every virtual user */
+    void start() {
+        running = true;
+        for (int i = 0; i < options.getUsers(); i++) {
+            startUser(dashboardSteps, options.getThinkMillis(), options.getSeed() + i);
+        }
+        for (int i = 0; i < options.getUploaders(); i++) {
+            startUser(uploadSteps, options.getUploadPauseMillis(), options.getSeed() + 1000 + i);
+        }
+        for (int i = 0; i < options.getAnalysts(); i++) {
+            startUser(regressionSteps, options.getAnalystPauseMillis(), options.getSeed() + 2000 + i);
+        }
+    }
+
+    /** End of the warm-up: forget what was recorded so far */
+    void resetStats() {
+        stats.values().forEach(EndpointStats::reset);
+    }
+
+    /** Stop the users, waiting for their requests in flight */
+    void stop() throws InterruptedException {
+        running = false;
+        users.shutdown();
+        users.awaitTermination(2, TimeUnit.MINUTES);
+    }
+
+    List<EndpointStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    private void startUser(List<Step> steps, long pauseMillis, long seed) {
+        int totalWeight = steps.stream().mapToInt(Step::weight).sum();
+        users.execute(() -> {
+            Random random = new Random(seed);
+            while (running) {
+                Step step = steps.get(steps.size() - 1);
+                int draw = random.nextInt(totalWeight);
+                for (Step candidate : steps) {
+                    draw -= candidate.weight();
+                    if (draw < 0) {
+                        step = candidate;
+                        break;
+                    }
+                }
+                send(step, random);
+                try {
+                    // Think time of +/- 50% around the configured pause
+                    Thread.sleep(pauseMillis / 2 + (pauseMillis > 0 ? random.nextLong(pauseMillis) : 0));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+    }
+
+    private void send(Step step, Random random) {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            HttpResponse<byte[]> response = client.send(step.request().build(random), HttpResponse.BodyHandlers.ofByteArray());
+            success = response.statusCode() < 400;
+        } catch (IOException e) {
+            success = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        stats.get(step.name()).record(start, success);
+    }
+
+    private void dashboard(String name, int weight, String path) {
+        dashboard(name, weight, random -> path);
+    }
+
+    private void dashboard(String name, int weight, Function<Random, String> path) {
+        dashboardSteps.add(new Step(name, weight, random -> HttpRequest.newBuilder(baseUri.resolve(path.apply(random)))
+            .timeout(Duration.ofMinutes(1))
+            .header("Accept", "application/json")
+            .GET()
+            .build()));
+    }
+
+    private HttpRequest post(String path, HttpRequest.Builder builder) {
+        return builder.uri(baseUri.resolve(path)).timeout(Duration.ofMinutes(1)).build();
+    }
+
+    private static HttpRequest.Builder multipart(byte[] file, Map<String, String> fields) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        fields.forEach((name, value) -> write(body, "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\""
+            + name + "\"\r\n\r\n" + value + "\r\n"));
+        write(body, "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"fleet.xlsx\"\r\n"
+            + "Content-Type: application/vnd.openxmlformats-officedocument.spreadsheetml.sheet\r\n\r\n");
+        body.writeBytes(file);
+        write(body, "\r\n--" + BOUNDARY + "--\r\n");
+        return HttpRequest.newBuilder()
+            .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String pick(Random random, List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
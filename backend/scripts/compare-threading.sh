@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# Compare throughput and p99 latency of the platform-thread and virtual-thread configurations.
+#
+# Requirements: Java 21, a running MongoDB with data loaded, ApacheBench (ab).
+# Usage: scripts/compare-threading.sh [concurrency] [requests]
+set -euo pipefail
+
+CONCURRENCY=${1:-50}
+REQUESTS=${2:-2000}
+PORT=${PORT:-8080}
+BASE_URL="http://localhost:${PORT}/api"
+ENDPOINTS=(
+  "/records/monthly-aggregation?vehicleType=all"
+  "/records/performance?type=all"
+  "/records?year=2024"
+  "/regression/type/Camion"
+)
+
+cd "$(dirname "$0")/.."
+mvn -B -q -Pjava21 -DskipTests package
+JAR=$(ls target/backend-*.jar | grep -v -e original -e -lib.jar | head -1)
+
+run_mode() {
+  local mode=$1
+  local profile_arg=""
+  if [ "$mode" = "virtual" ]; then
+    profile_arg="--spring.profiles.active=virtual"
+  fi
+
+  java -jar "$JAR" --server.port="$PORT" $profile_arg > "target/threading-${mode}.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" RETURN
+
+  until curl -sf "${BASE_URL}/actuator/health" > /dev/null; do sleep 1; done
+
+  for endpoint in "${ENDPOINTS[@]}"; do
+    # Warm-up pass, not reported
+    ab -q -n 200 -c "$CONCURRENCY" "${BASE_URL}${endpoint}" > /dev/null 2>&1 || true
+    local out
+    out=$(ab -q -n "$REQUESTS" -c "$CONCURRENCY" "${BASE_URL}${endpoint}" 2>/dev/null)
+    local rps p99
+    rps=$(echo "$out" | awk '/Requests per second/ {print $4}')
+    p99=$(echo "$out" | awk '$1 == "99%" {print $2}')
+    printf "%-9s %-50s %10s req/s %8s ms p99\n" "$mode" "$endpoint" "$rps" "$p99"
+  done
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+echo "Concurrency: ${CONCURRENCY}, requests per endpoint: ${REQUESTS}"
+run_mode platform
+run_mode virtual
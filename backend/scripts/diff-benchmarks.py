@@ -0,0 +1,70 @@
+#!/usr/bin/env python3
+"""Compare two JMH JSON result files (see run-benchmarks.sh).
+
+A benchmark is reported as a regression when its score moved in the bad direction by more than
+the threshold and the two error intervals (99.9%) do not overlap. Exits with 1 on a regression.
+
+Usage: scripts/diff-benchmarks.py BASELINE.json CANDIDATE.json [--threshold PERCENT]
+"""
+import argparse
+import json
+import math
+import sys
+
+# Modes where a lower score is better; throughput ("thrpt") is the other way round
+LOWER_IS_BETTER = {"avgt", "sample", "ss"}
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = {}
+        for entry in json.load(f):
+            params = ",".join(f"{k}={v}" for k, v in sorted((entry.get("params") or {}).items()))
+            key = (".".join(entry["benchmark"].split(".")[-2:]), params, entry["mode"])
+            metric = entry["primaryMetric"]
+            # A single measurement iteration has no error interval ("NaN")
+            error = metric.get("scoreError")
+            if not isinstance(error, (int, float)) or math.isnan(error):
+                error = 0.0
+            results[key] = (metric["score"], error, metric["scoreUnit"])
+        return results
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Compare two JMH JSON result files")
+    parser.add_argument("baseline")
+    parser.add_argument("candidate")
+    parser.add_argument("--threshold", type=float, default=5.0,
+                        help="change in percent below which a difference is ignored (default 5)")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    candidate = load(args.candidate)
+    regressions = 0
+
+    print(f"{'Benchmark':<55} {'Params':<20} {'Baseline':>14} {'Candidate':>14} {'Change':>9}  Unit")
+    for key in sorted(baseline.keys() | candidate.keys()):
+        name, params, mode = key
+        if key not in baseline or key not in candidate:
+            side = "candidate only" if key in candidate else "baseline only"
+            print(f"{name:<55} {params:<20} {side:>39}")
+            continue
+        base_score, base_error, unit = baseline[key]
+        score, error, _ = candidate[key]
+        change = (score - base_score) / base_score * 100 if base_score else 0.0
+        worse = change > 0 if mode in LOWER_IS_BETTER else change < 0
+        overlap = abs(score - base_score) <= base_error + error
+        flag = ""
+        if abs(change) >= args.threshold and not overlap:
+            flag = "REGRESSION" if worse else "improved"
+            regressions += 1 if worse else 0
+        print(f"{name:<55} {params:<20} {base_score:>14.3f} {score:>14.3f} {change:>+8.1f}%  {unit} {flag}")
+
+    if regressions:
+        print(f"\n{regressions} regression(s) above {args.threshold:g}%")
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+# Generate synthetic fleet data (workbooks, CSV or a bulk load into vehicle_data) with FleetDataGenerator.
+#
+# Requirements: Java 17+, Maven. A running MongoDB for --format mongo.
+# Usage: scripts/generate-fleet-data.sh [options]
+#   e.g. scripts/generate-fleet-data.sh --fleet 200 --months 24 --regions Tunis,Sfax,Sousse --out target/fleet
+#        scripts/generate-fleet-data.sh --format mongo --mongo-uri mongodb://localhost:27017 --database analyse_vehicules
+# Options are listed in the Javadoc of FleetDataGenerator.main.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=$(ls target/backend-*.jar 2>/dev/null | grep -v -e original -e -lib.jar | head -1 || true)
+if [ -z "$JAR" ]; then
+  mvn -B -q -DskipTests package
+  JAR=$(ls target/backend-*.jar | grep -v -e original -e -lib.jar | head -1)
+fi
+
+java -cp "$JAR" -Dloader.main=com.carburant.backend.utils.FleetDataGenerator \
+  org.springframework.boot.loader.launch.PropertiesLauncher "$@"
@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# Run the JMH benchmarks and save the results under target/jmh/<commit>.json, for diff-benchmarks.py.
+#
+# Requirements: Java 17+, Maven.
+# Usage: scripts/run-benchmarks.sh [JMH options]
+#   e.g. scripts/run-benchmarks.sh ExcelServiceBenchmark -p rows=1000,10000
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+mvn -B -q -DskipTests install
+mvn -B -q -f benchmarks/pom.xml package
+
+REV=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+if [ -n "$(git status --porcelain 2>/dev/null)" ]; then
+  REV="${REV}-dirty"
+fi
+mkdir -p target/jmh
+OUT="target/jmh/${REV}.json"
+
+java -jar benchmarks/target/benchmarks.jar -rf json -rff "$OUT" "$@"
+echo "Results: ${OUT}"
@@ -0,0 +1,15 @@
+#!/usr/bin/env bash
+# Load test of the backend against an in-process MongoDB stand-in (no database or network needed once
+# the Maven dependencies are in the local repository). Reports go to target/loadtest/.
+#
+# Requirements: Java 17+, Maven.
+# Usage: scripts/run-loadtest.sh [options]
+#   e.g. scripts/run-loadtest.sh --users 50 --uploaders 1 --analysts 2 --duration 120
+# JVM options of the run (backend, harness and stand-in share it) come from JAVA_OPTS.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+mvn -B -q -DskipTests install
+mvn -B -q -f loadtest/pom.xml package
+
+java ${JAVA_OPTS:--Xmx2g} -jar loadtest/target/loadtest.jar --out target/loadtest "$@"
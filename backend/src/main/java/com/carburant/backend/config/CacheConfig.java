@@ -0,0 +1,96 @@
+package com.carburant.backend.config;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import com.carburant.backend.utils.RequestCost;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+/**
+ * Enables the Caffeine caches declared in application.properties
+ * (spring.cache.cache-names / spring.cache.caffeine.spec).
+ * Entries are invalidated by CacheInvalidationListener when data changes.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /** Cache for aggregates derived from vehicle records */
+    public static final String VEHICLE_DATA_CACHE = "vehicleData";
+
+    /** Cache for stored regression results */
+    public static final String REGRESSION_RESULTS_CACHE = "regressionResults";
+
+    /**
+     * Rebuilds the caches from spring.cache.caffeine.spec with a statistics counter that also counts
+     * the hits and misses of the current request (RequestCost). The global statistics (cache.gets
+     * metrics) are kept, whether or not the spec contains recordStats.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> requestCostCacheCustomizer(CacheProperties cacheProperties) {
+        return cacheManager -> {
+            String spec = cacheProperties.getCaffeine().getSpec();
+            // recordStats can only be set once: it is replaced by the counter below
+            String specWithoutStats = spec == null ? "" : Arrays.stream(spec.split(","))
+                .map(String::trim)
+                .filter(option -> !option.isEmpty() && !"recordStats".equals(option))
+                .collect(Collectors.joining(","));
+            Caffeine<Object, Object> builder = StringUtils.hasText(specWithoutStats)
+                ? Caffeine.from(CaffeineSpec.parse(specWithoutStats)) : Caffeine.newBuilder();
+            cacheManager.setCaffeine(builder.recordStats(RequestCostStatsCounter::new));
+        };
+    }
+
+    /**
+     * Caffeine statistics counter forwarding hits and misses to the cost of the current request
+     */
+    static class RequestCostStatsCounter implements StatsCounter {
+
+        private final ConcurrentStatsCounter delegate = new ConcurrentStatsCounter();
+
+        @Override
+        public void recordHits(int count) {
+            delegate.recordHits(count);
+            RequestCost.recordCache(count, 0);
+        }
+
+        @Override
+        public void recordMisses(int count) {
+            delegate.recordMisses(count);
+            RequestCost.recordCache(0, count);
+        }
+
+        @Override
+        public void recordLoadSuccess(long loadTime) {
+            delegate.recordLoadSuccess(loadTime);
+        }
+
+        @Override
+        public void recordLoadFailure(long loadTime) {
+            delegate.recordLoadFailure(loadTime);
+        }
+
+        @Override
+        public void recordEviction(int weight, RemovalCause cause) {
+            delegate.recordEviction(weight, cause);
+        }
+
+        @Override
+        public CacheStats snapshot() {
+            return delegate.snapshot();
+        }
+    }
+}
@@ -83,6 +83,7 @@ public class CorsConfig {
         // Add exposed headers if needed
         config.addExposedHeader("Access-Control-Allow-Origin");
         config.addExposedHeader("Access-Control-Allow-Credentials");
+        config.addExposedHeader(RequestCostFilter.SERVER_TIMING);
         
         // Apply this configuration to all paths
         source.registerCorsConfiguration("/**", config);
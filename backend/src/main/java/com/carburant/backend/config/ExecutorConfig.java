@@ -0,0 +1,152 @@
+package com.carburant.backend.config;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.carburant.backend.utils.RequestCost;
+
+/**
+ * Configuration of the executors used to offload blocking work (MongoDB, POI).
+ * With the "virtual" profile on Java 21 (spring.threads.virtual.enabled=true), request handling
+ * and these executors run on virtual threads; otherwise bounded platform thread pools are used.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    private final Environment environment;
+
+    @Value("${app.executeurs.ingestion.taille-pool:4}")
+    private int ingestionPoolSize;
+
+    @Value("${app.executeurs.ingestion.capacite-file:100}")
+    private int ingestionQueueCapacity;
+
+    @Value("${app.executeurs.regression.taille-pool:4}")
+    private int regressionPoolSize;
+
+    @Value("${app.executeurs.regression.capacite-file:100}")
+    private int regressionQueueCapacity;
+
+    @Value("${app.executeurs.rapports.taille-pool:2}")
+    private int reportPoolSize;
+
+    @Value("${app.executeurs.rapports.capacite-file:50}")
+    private int reportQueueCapacity;
+
+    @Value("${app.executeurs.precalcul.taille-pool:2}")
+    private int precomputePoolSize;
+
+    @Value("${app.executeurs.precalcul.capacite-file:100}")
+    private int precomputeQueueCapacity;
+
+    @Value("${app.executeurs.virtuel.limite-concurrence:64}")
+    private int virtualConcurrencyLimit;
+
+    @Value("${app.executeurs.flotte.parallelisme:0}")
+    private int fleetParallelism;
+
+    public ExecutorConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Default application executor (MVC async requests such as streamed exports, @Async).
+     * Declared here because Spring Boot backs off its own one as soon as another Executor bean exists.
+     * A streamed body written on it counts for the cost of its request.
+     */
+    @Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+    @Primary
+    public AsyncTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder,
+            SimpleAsyncTaskExecutorBuilder simpleAsyncTaskExecutorBuilder) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return simpleAsyncTaskExecutorBuilder.taskDecorator(RequestCost::propagate).build();
+        }
+        return threadPoolTaskExecutorBuilder.taskDecorator(RequestCost::propagate).build();
+    }
+
+    /**
+     * Executor for ingestion work (file storage, record persistence)
+     */
+    @Bean(name = "ingestionExecutor")
+    public AsyncTaskExecutor ingestionExecutor() {
+        return createExecutor("ingestion-", ingestionPoolSize, ingestionQueueCapacity);
+    }
+
+    /**
+     * Executor for regression computations
+     */
+    @Bean(name = "regressionExecutor")
+    public AsyncTaskExecutor regressionExecutor() {
+        return createExecutor("regression-", regressionPoolSize, regressionQueueCapacity);
+    }
+
+    /**
+     * Executor for report generation jobs, kept small so report rendering cannot starve the other work
+     */
+    @Bean(name = "reportExecutor")
+    public AsyncTaskExecutor reportExecutor() {
+        return createExecutor("report-", reportPoolSize, reportQueueCapacity);
+    }
+
+    /**
+     * Executor for the month-end pre-computation steps, small so warming caches off-peak leaves
+     * MongoDB to the requests still coming in
+     */
+    @Bean(name = "precomputeExecutor")
+    public AsyncTaskExecutor precomputeExecutor() {
+        return createExecutor("precompute-", precomputePoolSize, precomputeQueueCapacity);
+    }
+
+    /**
+     * Fork/join pool for CPU-bound fleet-wide computations (per-vehicle regressions, model validation).
+     * Kept apart from the common pool so parallel streams elsewhere are not slowed down.
+     */
+    @Bean(name = "fleetRegressionPool", destroyMethod = "shutdown")
+    public ForkJoinPool fleetRegressionPool() {
+        int parallelism = fleetParallelism > 0 ? fleetParallelism : Runtime.getRuntime().availableProcessors();
+        logger.info("Fleet regression fork/join pool parallelism: {}", parallelism);
+        return new ForkJoinPool(parallelism);
+    }
+
+    private AsyncTaskExecutor createExecutor(String threadNamePrefix, int poolSize, int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // One virtual thread per task, the concurrency limit protects the MongoDB connection pool
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(virtualConcurrencyLimit);
+            executor.setTaskDecorator(RequestCost::propagate);
+            logger.info("Executor {} uses virtual threads (concurrency limit {})", threadNamePrefix, virtualConcurrencyLimit);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        // Offloaded work counts for the cost of the request that submitted it
+        executor.setTaskDecorator(RequestCost::propagate);
+        // Initialized by the container (InitializingBean), which also shuts it down with the context
+        logger.info("Executor {} uses platform threads (pool size {}, queue {})", threadNamePrefix, poolSize, queueCapacity);
+        return executor;
+    }
+}
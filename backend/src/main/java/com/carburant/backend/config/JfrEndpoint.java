@@ -0,0 +1,175 @@
+package com.carburant.backend.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Actuator endpoint running a bounded JDK Flight Recorder recording on demand:
+ * POST /actuator/jfr starts it (durationSeconds, maxSizeMb, settings "default" or "profile"),
+ * GET /actuator/jfr reports its state, DELETE /actuator/jfr stops it and returns the .jfr file.
+ * The recording stops by itself at the end of its duration; one recording at a time.
+ * Not exposed by default: the "profilage" profile exposes it on a loopback-only management port,
+ * since a recording holds the environment and JVM arguments, credentials included.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class JfrEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrEndpoint.class);
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+        .withZone(ZoneId.systemDefault());
+
+    private final long maxDurationSeconds;
+    private final long maxSizeMb;
+    private final Path directory;
+
+    private Recording recording;
+    private Path recordingFile;
+
+    public JfrEndpoint(
+            @Value("${app.jfr.duree-max-secondes:300}") long maxDurationSeconds,
+            @Value("${app.jfr.taille-max-mo:100}") long maxSizeMb,
+            @Value("${app.jfr.repertoire:jfr}") String directory) {
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.maxSizeMb = maxSizeMb;
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * State of the current (or last) recording
+     */
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("maxDurationSeconds", maxDurationSeconds);
+        status.put("maxSizeMb", maxSizeMb);
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("state", recording.getState().name());
+        status.put("name", recording.getName());
+        status.put("startTime", recording.getStartTime() != null ? recording.getStartTime().toString() : null);
+        status.put("durationSeconds", recording.getDuration() != null ? recording.getDuration().getSeconds() : null);
+        status.put("file", recordingFile.toString());
+        status.put("bytes", recording.getSize());
+        return status;
+    }
+
+    /**
+     * Starts a recording, bounded by app.jfr.duree-max-secondes and app.jfr.taille-max-mo
+     * @param durationSeconds Duration, the maximum by default
+     * @param maxSizeMb Size on disk above which the oldest data is dropped, the maximum by default
+     * @param settings JFR settings: "default" (about 1% overhead, by default) or "profile" (more detail)
+     */
+    @WriteOperation
+    public synchronized Map<String, Object> start(@Nullable Long durationSeconds, @Nullable Long maxSizeMb,
+            @Nullable String settings) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new InvalidEndpointRequestException("A recording is already running",
+                "A recording is already running: stop it first");
+        }
+        long duration = durationSeconds != null ? durationSeconds : maxDurationSeconds;
+        long size = maxSizeMb != null ? maxSizeMb : this.maxSizeMb;
+        if (duration <= 0 || duration > maxDurationSeconds || size <= 0 || size > this.maxSizeMb) {
+            throw new InvalidEndpointRequestException("Recording out of bounds",
+                "durationSeconds must be in 1.." + maxDurationSeconds + " and maxSizeMb in 1.." + this.maxSizeMb);
+        }
+        String settingsName = settings != null ? settings : "default";
+        if (!"default".equals(settingsName) && !"profile".equals(settingsName)) {
+            throw new InvalidEndpointRequestException("Unknown settings: " + settingsName,
+                "settings must be \"default\" or \"profile\"");
+        }
+
+        closeRecording();
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve("carburant-" + FILE_TIMESTAMP.format(Instant.now()) + ".jfr");
+            Recording newRecording = new Recording(Configuration.getConfiguration(settingsName));
+            newRecording.setName("carburant-" + settingsName);
+            newRecording.setToDisk(true);
+            newRecording.setDuration(Duration.ofSeconds(duration));
+            newRecording.setMaxSize(size * 1024 * 1024);
+            newRecording.setDestination(file);
+            newRecording.start();
+            recording = newRecording;
+            recordingFile = file;
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Could not start the JFR recording: " + e.getMessage(), e);
+        }
+        logger.info("JFR recording started ({} settings, {} s, {} MB max) to {}", settingsName, duration, size,
+            recordingFile);
+        return status();
+    }
+
+    /**
+     * Stops the recording if it is still running and returns its file
+     */
+    @DeleteOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> stop() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            logger.info("JFR recording stopped, {} bytes written to {}", recording.getSize(), recordingFile);
+        }
+        if (!Files.exists(recordingFile)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(recordingFile), WebEndpointResponse.STATUS_OK);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    /**
+     * Releases the previous recording and deletes its file: only the last recording is kept on disk
+     */
+    private void closeRecording() {
+        if (recording == null) {
+            return;
+        }
+        recording.close();
+        try {
+            Files.deleteIfExists(recordingFile);
+        } catch (IOException e) {
+            logger.warn("Could not delete the previous JFR recording {}: {}", recordingFile, e.getMessage());
+        }
+        recording = null;
+        recordingFile = null;
+    }
+}
@@ -5,11 +5,19 @@ import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.IndexInfo;
 import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Component;
 
+import com.carburant.backend.model.RegressionResult;
+
 import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 public class MongoDBInitializer {
@@ -21,11 +29,12 @@ public class MongoDBInitializer {
     @PostConstruct
     public void init() {
         createCollectionsIfNotExist();
+        migrateRegressionResults();
         createIndexes();
     }
 
     private void createCollectionsIfNotExist() {
-        List<String> collections = Arrays.asList("vehicle_data", "regression_results", "files");
+        List<String> collections = Arrays.asList("vehicle_data", "regression_results", RegressionResult.HISTORY_COLLECTION, "files");
         
         collections.forEach(collection -> {
             if (!mongoTemplate.collectionExists(collection)) {
@@ -37,6 +46,42 @@ public class MongoDBInitializer {
         });
     }
 
+    /**
+     * Keep a single current regression result per (type, scope) before the unique index is created:
+     * older versions saved a new document on every regression, the superseded ones are moved to history
+     */
+    private void migrateRegressionResults() {
+        try {
+            Map<String, List<RegressionResult>> resultsByKey = mongoTemplate.findAll(RegressionResult.class).stream()
+                .collect(Collectors.groupingBy(result -> result.getType() + "|" + result.getScope()));
+
+            int moved = 0;
+            for (List<RegressionResult> results : resultsByKey.values()) {
+                if (results.size() < 2) {
+                    continue;
+                }
+                // Most recently computed first, documents without timestamp by descending ID
+                List<RegressionResult> ordered = results.stream()
+                    .sorted(Comparator.comparing(RegressionResult::getComputedAt,
+                                Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+                        .thenComparing(RegressionResult::getId, Comparator.nullsLast(Comparator.<String>reverseOrder())))
+                    .toList();
+                for (RegressionResult superseded : ordered.subList(1, ordered.size())) {
+                    // Copy to history before removing, so a failure in between leaves a duplicate, not a loss
+                    mongoTemplate.insert(superseded.toBuilder().id(null).build(), RegressionResult.HISTORY_COLLECTION);
+                    mongoTemplate.remove(new Query(Criteria.where("_id").is(superseded.getId())), RegressionResult.class);
+                    moved++;
+                }
+            }
+
+            if (moved > 0) {
+                System.out.println("Moved " + moved + " superseded regression results to " + RegressionResult.HISTORY_COLLECTION);
+            }
+        } catch (Exception e) {
+            System.err.println("Error migrating regression results: " + e.getMessage());
+        }
+    }
+
     private void createIndexes() {
         try {
             // Indexes for vehicle_data
@@ -47,6 +92,8 @@ public class MongoDBInitializer {
 
             // Indexes for regression_results
             createIndexIfNotExists("regression_results", "type_asc", "type");
+            createIndexIfNotExists("regression_results", "type_scope_unique", true, "type", "scope");
+            createIndexIfNotExists(RegressionResult.HISTORY_COLLECTION, "type_scope_computedAt", "type", "scope", "computedAt");
 
             // Indexes for files
             createIndexIfNotExists("files", "vehicleType_asc", "vehicleType");
@@ -60,6 +107,10 @@ public class MongoDBInitializer {
     }
 
     private void createIndexIfNotExists(String collectionName, String indexName, String... fields) {
+        createIndexIfNotExists(collectionName, indexName, false, fields);
+    }
+
+    private void createIndexIfNotExists(String collectionName, String indexName, boolean unique, String... fields) {
         try {
             IndexOperations indexOps = mongoTemplate.indexOps(collectionName);
             List<IndexInfo> indexInfoList = indexOps.getIndexInfo();
@@ -81,6 +132,9 @@ public class MongoDBInitializer {
                     index.on(field, org.springframework.data.domain.Sort.Direction.ASC);
                 }
                 index.named(indexName);
+                if (unique) {
+                    index.unique();
+                }
                 indexOps.ensureIndex(index);
                 System.out.println("Created index " + indexName + " on collection " + collectionName);
             } else {
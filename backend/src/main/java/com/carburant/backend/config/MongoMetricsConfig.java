@@ -0,0 +1,21 @@
+package com.carburant.backend.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.carburant.backend.utils.MongoQueryMetrics;
+
+/**
+ * Registers the query shape listener on the MongoDB clients (blocking and reactive)
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.mongo.metriques.active", havingValue = "true", matchIfMissing = true)
+public class MongoMetricsConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer queryMetricsCustomizer(MongoQueryMetrics mongoQueryMetrics) {
+        return settings -> settings.addCommandListener(mongoQueryMetrics);
+    }
+}
@@ -0,0 +1,194 @@
+package com.carburant.backend.config;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.carburant.backend.utils.RequestCost;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Accounts the cost of each request (RequestCost) and reports it in a Server-Timing response header,
+ * shown by the browser devtools (Network > Timing), and in a log line whose fields are also put in the
+ * MDC (picked up as fields by logging.structured.format.*). The header is added when the response
+ * starts being written, or when the handler returns: the work done while streaming the body is only in
+ * the log. For async requests (StreamingResponseBody, DeferredResult) the line is logged when the async
+ * processing completes, so it includes the body written on the MVC executor.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "app.cout-requetes.active", havingValue = "true", matchIfMissing = true)
+public class RequestCostFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCostFilter.class);
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    @Value("${app.cout-requetes.seuil-journal-ms:500}")
+    private long logThresholdMillis = 500;
+
+    @Value("${app.cout-requetes.timing-allow-origin:*}")
+    private String timingAllowOrigin = "*";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestCost cost = RequestCost.begin();
+        ServerTimingResponse timedResponse = new ServerTimingResponse(response, cost, timingAllowOrigin);
+        try {
+            chain.doFilter(request, timedResponse);
+        } finally {
+            RequestCost.end();
+            timedResponse.addServerTiming();
+            if (request.isAsyncStarted()) {
+                // The async dispatch is not filtered: log once the async processing is over
+                request.getAsyncContext().addListener(new CostLogListener(request, response, cost));
+            } else {
+                log(request, response, cost);
+            }
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, RequestCost cost) {
+        long millis = cost.elapsedNanos() / 1_000_000;
+        boolean slow = millis >= logThresholdMillis;
+        if (!(slow ? logger.isInfoEnabled() : logger.isDebugEnabled())) {
+            return;
+        }
+        Map<String, String> fields = cost.logFields();
+        fields.forEach(MDC::put);
+        try {
+            String costFields = fields.entrySet().stream()
+                .map(field -> field.getKey() + "=" + field.getValue())
+                .collect(Collectors.joining(" "));
+            if (slow) {
+                logger.info("Request cost {} {} {}: {}", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), costFields);
+            } else {
+                logger.debug("Request cost {} {} {}: {}", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), costFields);
+            }
+        } finally {
+            fields.keySet().forEach(MDC::remove);
+        }
+    }
+
+    /**
+     * Logs the cost of an async request when it completes (onComplete also follows an error or a timeout)
+     */
+    private class CostLogListener implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final RequestCost cost;
+
+        CostLogListener(HttpServletRequest request, HttpServletResponse response, RequestCost cost) {
+            this.request = request;
+            this.response = response;
+            this.cost = cost;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            log(request, response, cost);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Async restarted from a dispatch: listeners have to be registered again
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    /**
+     * Adds the Server-Timing header just before the response is committed, once the handler has done
+     * its work, and at the latest when the filter returns
+     */
+    private static class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestCost cost;
+        private final String timingAllowOrigin;
+        private boolean added;
+
+        ServerTimingResponse(HttpServletResponse response, RequestCost cost, String timingAllowOrigin) {
+            super(response);
+            this.cost = cost;
+            this.timingAllowOrigin = timingAllowOrigin;
+        }
+
+        void addServerTiming() {
+            if (added || isCommitted()) {
+                return;
+            }
+            added = true;
+            setHeader(SERVER_TIMING, cost.serverTiming());
+            if (!timingAllowOrigin.isEmpty()) {
+                // Lets cross-origin pages read the timings through the Resource Timing API
+                setHeader("Timing-Allow-Origin", timingAllowOrigin);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
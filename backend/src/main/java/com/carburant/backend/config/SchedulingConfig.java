@@ -0,0 +1,12 @@
+package com.carburant.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the scheduled jobs (nightly regression recompute)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,41 @@
+package com.carburant.backend.config;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.carburant.backend.utils.MongoQueryMetrics;
+
+/**
+ * Actuator endpoint listing the slowest MongoDB query shapes (/actuator/slowqueries?limit=10&sort=mean)
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueriesEndpoint {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final MongoQueryMetrics mongoQueryMetrics;
+
+    public SlowQueriesEndpoint(MongoQueryMetrics mongoQueryMetrics) {
+        this.mongoQueryMetrics = mongoQueryMetrics;
+    }
+
+    /**
+     * @param limit Number of shapes, 10 by default
+     * @param sort "mean" (default), "max" or "total" latency
+     */
+    @ReadOperation
+    public List<Map<String, Object>> slowestShapes(@Nullable Integer limit, @Nullable String sort) {
+        try {
+            return mongoQueryMetrics.getSlowestShapes(limit != null ? limit : DEFAULT_LIMIT, sort);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.carburant.backend.controller;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.carburant.backend.model.PrecomputeRun;
+import com.carburant.backend.service.PrecomputeService;
+
+/**
+ * Controller for the month-end pre-computation ledger
+ */
+@RestController
+@RequestMapping("/precompute")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"}, allowCredentials = "true")
+public class PrecomputeController {
+
+    private final PrecomputeService precomputeService;
+
+    @Autowired
+    public PrecomputeController(PrecomputeService precomputeService) {
+        this.precomputeService = precomputeService;
+    }
+
+    /**
+     * Get the pre-computation runs
+     * @return One run per month, most recent month first
+     */
+    @GetMapping("/runs")
+    public ResponseEntity<List<PrecomputeRun>> getRuns() {
+        return ResponseEntity.ok(precomputeService.getRuns());
+    }
+
+    /**
+     * Pre-compute a month now, whether it is due or not
+     * @param month Month (yyyy-MM)
+     * @return The run with the outcome of each step, 409 if the month is already being computed
+     */
+    @PostMapping("/runs/{month}")
+    public ResponseEntity<?> runMonth(@PathVariable String month) {
+        YearMonth yearMonth;
+        try {
+            yearMonth = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid month, expected yyyy-MM: " + month));
+        }
+        return precomputeService.runMonth(yearMonth)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "A precompute run is already in progress")));
+    }
+}
@@ -0,0 +1,109 @@
+package com.carburant.backend.controller;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.carburant.backend.model.RegressionResult;
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.service.ReactiveVehicleService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variants of the dashboard read endpoints.
+ * Responses are streamed as NDJSON when the client sends "Accept: application/x-ndjson",
+ * otherwise they are returned as a regular JSON array.
+ */
+@RestController
+@RequestMapping("/stream")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"}, allowCredentials = "true")
+public class ReactiveDashboardController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveDashboardController.class);
+    private final ReactiveVehicleService reactiveVehicleService;
+
+    @Autowired
+    public ReactiveDashboardController(ReactiveVehicleService reactiveVehicleService) {
+        this.reactiveVehicleService = reactiveVehicleService;
+    }
+
+    /**
+     * Stream vehicle records with optional filters
+     * @param type Optional vehicle type to filter by
+     * @param mois Optional month to filter by
+     * @param matricule Optional vehicle registration number to filter by
+     * @param year Optional year to filter by
+     * @param region Optional region to filter by
+     * @return Stream of vehicle records
+     */
+    @GetMapping(value = "/records", produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public Flux<VehicleRecord> streamRecords(
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "mois", required = false) String mois,
+            @RequestParam(value = "matricule", required = false) String matricule,
+            @RequestParam(value = "year", required = false) String year,
+            @RequestParam(value = "region", required = false) String region) {
+        logger.info("Streaming records - type: {}, mois: {}, matricule: {}, year: {}, region: {}",
+                    type, mois, matricule, year, region);
+        return reactiveVehicleService.streamRecords(type, year, mois, matricule, region);
+    }
+
+    /**
+     * Stream monthly aggregated data
+     * @param vehicleType Vehicle type
+     * @param year Year
+     * @param dateFrom Start date
+     * @param dateTo End date
+     * @return Stream of monthly aggregated data
+     */
+    @GetMapping(value = "/records/monthly-aggregation", produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public Flux<Map<String, Object>> streamMonthlyAggregatedData(
+            @RequestParam(value = "vehicleType", required = false) String vehicleType,
+            @RequestParam(value = "year", required = false) String year,
+            @RequestParam(value = "dateFrom", required = false) String dateFrom,
+            @RequestParam(value = "dateTo", required = false) String dateTo) {
+        logger.info("Streaming monthly aggregation - vehicleType: {}, year: {}, dateFrom: {}, dateTo: {}",
+                    vehicleType, year, dateFrom, dateTo);
+        return reactiveVehicleService.getMonthlyAggregatedData(
+            vehicleType != null && !vehicleType.equals("all") ? vehicleType : null,
+            year,
+            dateFrom,
+            dateTo
+        );
+    }
+
+    /**
+     * Stream vehicle performance data
+     * @param type Vehicle type
+     * @return Stream of vehicles with their performance metrics
+     */
+    @GetMapping(value = "/records/performance", produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public Flux<Map<String, Object>> streamVehiclePerformanceData(@RequestParam("type") String type) {
+        logger.info("Streaming performance data for type: {}", type);
+        return reactiveVehicleService.getVehiclePerformanceData(type);
+    }
+
+    /**
+     * Get the most recent regression result for a vehicle type
+     * @param type Vehicle type
+     * @return Regression result or 404 if not found
+     */
+    @GetMapping("/regression/type/{type}")
+    public Mono<ResponseEntity<RegressionResult>> getRegressionByType(@PathVariable String type) {
+        return reactiveVehicleService.getRegressionResultByType(type)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -1,5 +1,6 @@
 package com.carburant.backend.controller;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -8,6 +9,7 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,12 +20,26 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.HttpStatus;
 
+import com.carburant.backend.model.OutlierRecord;
 import com.carburant.backend.model.RegressionResult;
 import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.model.VehicleRegression;
+import com.carburant.backend.model.dto.FleetRegressionReport;
+import com.carburant.backend.model.dto.RegressionBatchReport;
+import com.carburant.backend.service.FleetRegressionService;
+import com.carburant.backend.service.ModelValidationService;
+import com.carburant.backend.service.OutlierService;
+import com.carburant.backend.service.PredictionService;
 import com.carburant.backend.service.RegressionService;
+import com.carburant.backend.service.RobustRegressionService;
 import com.carburant.backend.service.VehicleService;
+import com.carburant.backend.utils.MonthUtils;
+import com.carburant.backend.utils.RegressionPredictor;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * Controller for handling regression operations
@@ -37,61 +53,56 @@ public class RegressionController {
     private static final Logger logger = LoggerFactory.getLogger(RegressionController.class);
     private final VehicleService vehicleService;
     private final RegressionService regressionService;
+    private final FleetRegressionService fleetRegressionService;
+    private final PredictionService predictionService;
+    private final ModelValidationService modelValidationService;
+    private final OutlierService outlierService;
+    private final RobustRegressionService robustRegressionService;
     
     @Autowired
-    private com.carburant.backend.repository.RegressionRepository regressionRepository;
-    
-    @Autowired
-    private com.carburant.backend.utils.RegressionUtils regressionUtils;
-
-    @Autowired
-    public RegressionController(VehicleService vehicleService, RegressionService regressionService) {
+    public RegressionController(VehicleService vehicleService, RegressionService regressionService,
+            FleetRegressionService fleetRegressionService, PredictionService predictionService,
+            ModelValidationService modelValidationService, OutlierService outlierService,
+            RobustRegressionService robustRegressionService) {
         this.vehicleService = vehicleService;
         this.regressionService = regressionService;
+        this.fleetRegressionService = fleetRegressionService;
+        this.predictionService = predictionService;
+        this.modelValidationService = modelValidationService;
+        this.outlierService = outlierService;
+        this.robustRegressionService = robustRegressionService;
     }
 
     /**
      * Perform regression analysis on data of a specific vehicle type
      * @param type Vehicle type (sheet name)
      * @param forceRecalculate Whether to force recalculation even if results exist
+     * @param excludeOutliers Whether to fit without the records flagged as outliers (stored under scope "outliers=excluded")
      * @return RegressionResult containing the regression equation and metrics
      */
     @GetMapping("/monthly-totals/{type}")
-    public ResponseEntity<?> getMonthlyTotals(@PathVariable String type, @RequestParam(required = false) boolean force) {
-        logger.info("Getting monthly totals for type: {}, force: {}", type, force);
+    public ResponseEntity<?> getMonthlyTotals(@PathVariable String type, @RequestParam(required = false) boolean force,
+            @RequestParam(required = false) boolean excludeOutliers) {
+        logger.info("Getting monthly totals for type: {}, force: {}, excludeOutliers: {}", type, force, excludeOutliers);
+        if (excludeOutliers && isAllTypes(type)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "excludeOutliers requires a vehicle type"));
+        }
         
         try {
-            // Get all records for this type - handle the case where type="all" specially
-            List<VehicleRecord> records;
-            if ("all".equalsIgnoreCase(type)) {
-                records = vehicleService.getAllRecords();
-                logger.info("Retrieved all records for monthly totals, count: {}", records.size());
-            } else {
-                records = vehicleService.getRecordsByType(type);
-                logger.info("Retrieved records for type {}, count: {}", type, records.size());
-            }
-            
-            if (records.isEmpty()) {
-                logger.warn("No records found for type: {}", type);
+            // Fit from the sufficient statistics maintained on ingest (only valid records are accumulated),
+            // type="all" merges the statistics of every type
+            RegressionResult result;
+            try {
+                result = regressionService.fitFromStatistics(type, excludeOutliers);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Cannot fit regression for type {}: {}", type, e.getMessage());
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "No records found for type: " + type));
+                        .body(Map.of("error", e.getMessage()));
             }
             
-            // Validate data before regression
-            records = validateAndCleanData(records);
-            
-            if (records.isEmpty()) {
-                logger.warn("No valid records found for regression after data cleaning for type: {}", type);
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Map.of("error", "No valid records found for regression after data cleaning"));
-            }
-            
-            // Perform regression
-            RegressionResult result = regressionUtils.performRegression(records, type);
-            
             try {
                 // Save the new regression result (don't try to update existing ones to avoid conflicts)
-                RegressionResult savedResult = regressionRepository.save(result);
+                RegressionResult savedResult = regressionService.storeRegressionResult(result);
                 
                 // Log the regression result
                 logger.info("Regression result for type {}: {}", type, savedResult);
@@ -109,24 +120,6 @@ public class RegressionController {
         }
     }
     
-    /**
-     * Validates and cleans data before regression analysis
-     * @param records The records to validate and clean
-     * @return Cleaned list of records suitable for regression
-     */
-    private List<VehicleRecord> validateAndCleanData(List<VehicleRecord> records) {
-        if (records == null || records.isEmpty()) {
-            return List.of();
-        }
-        
-        // Remove records with missing or invalid data
-        return records.stream()
-            .filter(record -> record.getConsommationL() > 0)
-            .filter(record -> record.getKilometrage() > 0)
-            .filter(record -> true) // All records should have tonnage, but we don't filter on it
-            .collect(Collectors.toList());
-    }
-
     /**
      * Get all regression results
      * @return List of all regression results
@@ -141,44 +134,31 @@ public class RegressionController {
      * This endpoint is called by the frontend to generate regression equations
      * 
      * @param type Vehicle type (sheet name)
+     * @param excludeOutliers Whether to fit without the records flagged as outliers (stored under scope "outliers=excluded")
      * @return RegressionResult containing the regression equation and metrics
      */
     @PostMapping("/perform/{type}")
-    public ResponseEntity<?> performRegression(@PathVariable String type) {
-        logger.info("Performing regression for type: {}", type);
+    public ResponseEntity<?> performRegression(@PathVariable String type, @RequestParam(required = false) boolean excludeOutliers) {
+        logger.info("Performing regression for type: {}, excludeOutliers: {}", type, excludeOutliers);
+        if (excludeOutliers && isAllTypes(type)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "excludeOutliers requires a vehicle type"));
+        }
         
         try {
-            // Get all records for this type - handle the case where type="all" specially
-            List<VehicleRecord> records;
-            if ("all".equalsIgnoreCase(type)) {
-                records = vehicleService.getAllRecords();
-                logger.info("Retrieved all records for regression, count: {}", records.size());
-            } else {
-                records = vehicleService.getRecordsByType(type);
-                logger.info("Retrieved records for type {}, count: {}", type, records.size());
-            }
-            
-            if (records.isEmpty()) {
-                logger.warn("No records found for type: {}", type);
+            // Fit from the sufficient statistics maintained on ingest (only valid records are accumulated),
+            // type="all" merges the statistics of every type
+            RegressionResult result;
+            try {
+                result = regressionService.fitFromStatistics(type, excludeOutliers);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Cannot fit regression for type {}: {}", type, e.getMessage());
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "No records found for type: " + type));
+                        .body(Map.of("error", e.getMessage()));
             }
             
-            // Validate data before regression
-            records = validateAndCleanData(records);
-            
-            if (records.isEmpty()) {
-                logger.warn("No valid records found for regression after data cleaning for type: {}", type);
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Map.of("error", "No valid records found for regression after data cleaning"));
-            }
-            
-            // Perform regression
-            RegressionResult result = regressionUtils.performRegression(records, type);
-            
             try {
                 // Save the new regression result (don't try to update existing ones to avoid conflicts)
-                RegressionResult savedResult = regressionRepository.save(result);
+                RegressionResult savedResult = regressionService.storeRegressionResult(result);
                 
                 // Log the regression result
                 logger.info("Regression result for type {}: {}", type, savedResult);
@@ -196,6 +176,256 @@ public class RegressionController {
         }
     }
     
+    /**
+     * Perform regression analysis for all vehicle types concurrently
+     * 
+     * @param force Whether to force recalculation even if results exist
+     * @return Report with the result, status and latency of each type
+     */
+    @PostMapping("/perform-all")
+    public ResponseEntity<RegressionBatchReport> performRegressionForAllTypes(@RequestParam(required = false) boolean force) {
+        logger.info("Performing regression for all types, force: {}", force);
+        return ResponseEntity.ok(regressionService.performRegressionForAllTypesConcurrently(force));
+    }
+    
+    /**
+     * Fit the regression of a slice of the data (any combination of type, region, year and vehicle).
+     * The fit is computed from the stored partition statistics and is not saved.
+     * 
+     * @param type Optional vehicle type ("all" or absent for every type)
+     * @param region Optional region
+     * @param year Optional year
+     * @param matricule Optional vehicle registration number
+     * @param excludeOutliers Whether to fit without the records flagged as outliers (requires a type)
+     * @return RegressionResult of the slice
+     */
+    @GetMapping("/slice")
+    public ResponseEntity<?> getSliceRegression(
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "region", required = false) String region,
+            @RequestParam(value = "year", required = false) String year,
+            @RequestParam(value = "matricule", required = false) String matricule,
+            @RequestParam(value = "excludeOutliers", required = false) boolean excludeOutliers) {
+        logger.info("Fitting regression for slice - type: {}, region: {}, year: {}, matricule: {}",
+                    type, region, year, matricule);
+        if (excludeOutliers && isAllTypes(type)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "excludeOutliers requires a vehicle type"));
+        }
+        
+        try {
+            return ResponseEntity.ok(regressionService.fitSlice(type, region, year, matricule, excludeOutliers));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            // Typically too few records or constant tonnage in the slice
+            logger.warn("Could not fit regression for slice: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("error", "Regression cannot be fitted on this slice: " + rootMessage(e)));
+        }
+    }
+    
+    /**
+     * Whether a type parameter selects every type (outliers are only detected per type)
+     */
+    private boolean isAllTypes(String type) {
+        return type == null || type.isEmpty() || "all".equalsIgnoreCase(type);
+    }
+
+    /**
+     * Message of the innermost cause of an exception
+     */
+    private String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+    
+    /**
+     * Fit and store a consumption baseline for every vehicle of a type
+     * 
+     * @param type Optional vehicle type ("all" or absent for the whole fleet)
+     * @return Report with counts, timings and throughput
+     */
+    @PostMapping("/fleet")
+    public ResponseEntity<?> runFleetRegression(@RequestParam(value = "type", required = false) String type) {
+        logger.info("Running fleet regression for type: {}", type);
+        
+        try {
+            FleetRegressionReport report = fleetRegressionService.runFleetRegression(type);
+            return ResponseEntity.ok(report);
+        } catch (Exception e) {
+            logger.error("Error running fleet regression for type: {}", type, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error running fleet regression: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get the stored vehicle baselines
+     * 
+     * @param type Optional vehicle type ("all" or absent for the whole fleet)
+     * @return List of vehicle baselines
+     */
+    @GetMapping("/fleet")
+    public ResponseEntity<List<VehicleRegression>> getVehicleRegressions(
+            @RequestParam(value = "type", required = false) String type) {
+        return ResponseEntity.ok(fleetRegressionService.getVehicleRegressions(type));
+    }
+    
+    /**
+     * Get the stored baselines of a vehicle
+     * 
+     * @param matricule Vehicle registration number
+     * @return List of vehicle baselines (one per vehicle type) or 404 if none
+     */
+    @GetMapping("/fleet/{matricule}")
+    public ResponseEntity<List<VehicleRegression>> getVehicleRegressionsByMatricule(@PathVariable String matricule) {
+        List<VehicleRegression> results = fleetRegressionService.getVehicleRegressionsByMatricule(matricule);
+        if (results.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(results);
+    }
+    
+    /**
+     * Predict the consumption of a batch of rows from the regression of a vehicle type.
+     * The body is a JSON array or newline-delimited JSON (application/x-ndjson) of rows giving
+     * kilometrage and tonnage (and optionally the actual consommation), or the id of a stored record.
+     * Each output row has the prediction, the residual when the actual consumption is known and the
+     * prediction interval; the response uses the same format as the request.
+     * 
+     * @param type Vehicle type
+     * @param confidence Confidence level of the prediction intervals (default 0.95)
+     * @param request HTTP request, its body is parsed as a stream
+     * @return Streamed predictions
+     */
+    @PostMapping(value = "/{type}/predict",
+            consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<?> predict(@PathVariable String type,
+            @RequestParam(value = "confidence", required = false, defaultValue = "0.95") double confidence,
+            HttpServletRequest request) {
+        if (!(confidence > 0 && confidence < 1)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Confidence must be between 0 and 1"));
+        }
+        
+        RegressionPredictor predictor;
+        try {
+            predictor = predictionService.getPredictor(type, confidence);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("error", "Regression cannot be fitted for type " + type + ": " + e.getMessage()));
+        }
+        
+        RegressionPredictor.Batch batch;
+        long start = System.nanoTime();
+        try {
+            batch = predictionService.readBatch(request.getInputStream());
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid prediction input: " + e.getMessage()));
+        }
+        long parsed = System.nanoTime();
+        predictor.predict(batch);
+        long predicted = System.nanoTime();
+        logger.info("Predicted {} rows for type: {} (parse {} µs, predict {} µs)",
+                    batch.size(), type, (parsed - start) / 1_000, (predicted - parsed) / 1_000);
+        
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+        StreamingResponseBody body = output -> predictionService.writeBatch(batch, ndjson, output);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+    
+    /**
+     * Validate the regression of a vehicle type by k-fold cross-validation and bootstrap resampling,
+     * run in parallel on the fork/join pool. Nothing is stored.
+     * 
+     * @param type Vehicle type
+     * @param year Optional year the records are restricted to
+     * @param folds Number of cross-validation folds (default 10)
+     * @param resamples Number of bootstrap resamples (default 1000)
+     * @param confidence Level of the bootstrap intervals (default 0.95)
+     * @param seed Random seed (default 42), the same seed gives the same report
+     * @return Out-of-sample MSE and coefficient stability intervals
+     */
+    @PostMapping("/{type}/validate")
+    public ResponseEntity<?> validateRegression(@PathVariable String type,
+            @RequestParam(value = "year", required = false) String year,
+            @RequestParam(value = "folds", required = false, defaultValue = "10") int folds,
+            @RequestParam(value = "resamples", required = false, defaultValue = "1000") int resamples,
+            @RequestParam(value = "confidence", required = false, defaultValue = "0.95") double confidence,
+            @RequestParam(value = "seed", required = false, defaultValue = "42") long seed) {
+        logger.info("Validating regression for type: {}, year: {}, folds: {}, resamples: {}", type, year, folds, resamples);
+        
+        try {
+            return ResponseEntity.ok(modelValidationService.validate(type, year, folds, resamples, confidence, seed));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            logger.warn("Could not validate regression for type {}: {}", type, e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("error", "Regression cannot be fitted for type " + type + ": " + rootMessage(e)));
+        }
+    }
+    
+    /**
+     * Fit the robust regression of a vehicle type by iteratively reweighted least squares, warm-started
+     * from the OLS solution, and store it under the scope "robust=&lt;method&gt;"
+     * 
+     * @param type Vehicle type
+     * @param method Weight function, "huber" (default) or "tukey"
+     * @param tuning Optional cutoff in units of the residual scale (defaults 1.345 for Huber, 4.685 for Tukey)
+     * @return Robust result with convergence diagnostics and iteration timings
+     */
+    @PostMapping("/{type}/robust")
+    public ResponseEntity<?> performRobustRegression(@PathVariable String type,
+            @RequestParam(value = "method", required = false, defaultValue = "huber") String method,
+            @RequestParam(value = "tuning", required = false, defaultValue = "0") double tuning) {
+        logger.info("Performing robust regression for type: {}, method: {}", type, method);
+        
+        try {
+            return ResponseEntity.ok(robustRegressionService.fit(type, method, tuning));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            logger.warn("Could not fit robust regression for type {}: {}", type, e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("error", "Regression cannot be fitted for type " + type + ": " + rootMessage(e)));
+        }
+    }
+    
+    /**
+     * Detect the outliers of a vehicle type in one pass over its records and store the flagged records
+     * 
+     * @param type Vehicle type
+     * @return Summary of the detection (counts per reason, metric statistics, timings)
+     */
+    @PostMapping("/{type}/outliers")
+    public ResponseEntity<?> detectOutliers(@PathVariable String type) {
+        try {
+            return ResponseEntity.ok(outlierService.detect(type));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get the records of a vehicle type flagged by the last outlier detection
+     * 
+     * @param type Vehicle type
+     * @return Flagged records with their reasons and scores
+     */
+    @GetMapping("/{type}/outliers")
+    public ResponseEntity<List<OutlierRecord>> getOutliers(@PathVariable String type) {
+        return ResponseEntity.ok(outlierService.getOutliers(type));
+    }
+    
     /**
      * Get regression result by vehicle type
      * 
@@ -207,36 +437,29 @@ public class RegressionController {
         logger.info("Getting regression result for type: {}", type);
         
         try {
-            // First try to get all results using the findAllByType method
-            try {
-                List<RegressionResult> results = regressionRepository.findAllByType(type);
-                
-                if (!results.isEmpty()) {
-                    // Return the most recent result (assuming it's the most relevant)
-                    logger.info("Found {} regression results for type: {}, returning the most recent one", results.size(), type);
-                    return ResponseEntity.ok(results.get(0));
-                }
-            } catch (Exception e) {
-                logger.warn("Error using findAllByType for type: {}, falling back to findAll", type);
-                // Fallback: get all results and filter manually
-                List<RegressionResult> allResults = regressionRepository.findAll();
-                List<RegressionResult> filteredResults = allResults.stream()
-                    .filter(result -> type.equals(result.getType()))
-                    .collect(Collectors.toList());
-                
-                if (!filteredResults.isEmpty()) {
-                    logger.info("Found {} regression results for type: {} using fallback method", filteredResults.size(), type);
-                    return ResponseEntity.ok(filteredResults.get(0));
-                }
-            }
-            
-            logger.info("No regression result found for type: {}", type);
-            return ResponseEntity.notFound().build();
+            // (type, scope) is unique, so the current result of the type is a single document
+            return regressionService.getRegressionResultByType(type)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> {
+                        logger.info("No regression result found for type: {}", type);
+                        return ResponseEntity.notFound().build();
+                    });
         } catch (Exception e) {
             logger.error("Error getting regression result for type: {}", type, e);
             return ResponseEntity.internalServerError().build();
         }
     }
+    
+    /**
+     * Get the previous regression results of a vehicle type, most recent first
+     * 
+     * @param type Vehicle type
+     * @return List of superseded regression results
+     */
+    @GetMapping("/type/{type}/history")
+    public ResponseEntity<List<RegressionResult>> getRegressionHistory(@PathVariable String type) {
+        return ResponseEntity.ok(regressionService.getRegressionHistory(type));
+    }
 
     /**
      * Get regression result by ID
@@ -359,7 +582,7 @@ public class RegressionController {
                             try {
                                 if (!recordsList.isEmpty() && recordsList.get(0).getMois() != null) {
                                     String monthName = recordsList.get(0).getMois().trim();
-                                    int monthValue = getMonthValue(monthName);
+                                    int monthValue = MonthUtils.monthNumber(monthName);
                                     metrics.put("monthNumeric", (double) monthValue);
                                 }
                             } catch (Exception e) {
@@ -398,66 +621,4 @@ public class RegressionController {
             return ResponseEntity.internalServerError().build();
         }
     }
-
-    /**
-     * Convert French month name to numeric month value (1-12)
-     * This helps with proper sorting of monthly data
-     * 
-     * @param monthName French month name
-     * @return Month number (1-12) or 0 if not recognized
-     */
-    private int getMonthValue(String monthName) {
-        if (monthName == null || monthName.isEmpty()) {
-            return 0;
-        }
-        
-        // Normalize month name for comparison
-        String normalizedMonth = monthName.trim().toLowerCase();
-        
-        // Map French month names to numeric values
-        switch (normalizedMonth) {
-            case "janvier": return 1;
-            case "février": 
-            case "fevrier": return 2;
-            case "mars": return 3;
-            case "avril": return 4;
-            case "mai": return 5;
-            case "juin": return 6;
-            case "juillet": return 7;
-            case "août": 
-            case "aout": return 8;
-            case "septembre": return 9;
-            case "octobre": return 10;
-            case "novembre": return 11;
-            case "décembre": 
-            case "decembre": return 12;
-            default:
-                // Handle numeric month formats like "01", "02", etc.
-                try {
-                    int monthNum = Integer.parseInt(normalizedMonth);
-                    if (monthNum >= 1 && monthNum <= 12) {
-                        return monthNum;
-                    }
-                } catch (NumberFormatException e) {
-                    // Not a numeric month, continue with pattern matching
-                }
-                
-                // Handle abbreviated month names or partial matches
-                if (normalizedMonth.startsWith("jan")) return 1;
-                if (normalizedMonth.startsWith("fév") || normalizedMonth.startsWith("fev")) return 2;
-                if (normalizedMonth.startsWith("mar")) return 3;
-                if (normalizedMonth.startsWith("avr")) return 4;
-                if (normalizedMonth.startsWith("mai")) return 5;
-                if (normalizedMonth.startsWith("juin")) return 6;
-                if (normalizedMonth.startsWith("juil")) return 7;
-                if (normalizedMonth.startsWith("aoû") || normalizedMonth.startsWith("aou")) return 8;
-                if (normalizedMonth.startsWith("sep")) return 9;
-                if (normalizedMonth.startsWith("oct")) return 10;
-                if (normalizedMonth.startsWith("nov")) return 11;
-                if (normalizedMonth.startsWith("déc") || normalizedMonth.startsWith("dec")) return 12;
-                
-                logger.warn("Unrecognized month name: {}", monthName);
-                return 0;
-        }
-    }
-}
\ No newline at end of file
+}
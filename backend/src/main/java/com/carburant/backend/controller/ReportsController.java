@@ -1,13 +1,28 @@
 package com.carburant.backend.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import com.carburant.backend.model.ReportJob;
+import com.carburant.backend.service.ReportService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * Controller for handling report generation and management
@@ -17,86 +32,123 @@ import java.util.UUID;
 @CrossOrigin(origins = "http://localhost:3000", allowCredentials = "true")
 public class ReportsController {
 
-    private final List<Map<String, Object>> reports = new ArrayList<>();
+    private static final Logger logger = LoggerFactory.getLogger(ReportsController.class);
+
+    private static final MediaType XLSX = MediaType.parseMediaType(
+        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+    private static final MediaType CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    // Request attributes of the Tomcat sendfile support
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ReportService reportService;
+
+    @Autowired
+    public ReportsController(ReportService reportService) {
+        this.reportService = reportService;
+    }
 
     /**
-     * Generate a report
-     * @param params Report parameters including type, startDate, endDate, and format
-     * @return Report ID
+     * Queue the generation of a report; it is rendered in the background
+     * @param params Report parameters: type (monthly, ipe-ranking or ser), vehicleType, startDate, endDate
+     *               (yyyy-MM-dd) and format (xlsx or csv)
+     * @return 202 with the pending job, whose status is polled on /reports/{id}
      */
     @PostMapping("/generate")
-    public ResponseEntity<String> generateReport(@RequestBody Map<String, Object> params) {
+    public ResponseEntity<?> generateReport(@RequestBody Map<String, Object> params) {
         try {
-            // Extract parameters
-            String type = (String) params.get("type");
-            String startDate = (String) params.get("startDate");
-            String endDate = (String) params.get("endDate");
-            String format = params.containsKey("format") ? (String) params.get("format") : "pdf";
-            
-            // Generate a unique ID for the report
-            String reportId = UUID.randomUUID().toString();
-            
-            // Create a report object
-            Map<String, Object> report = new HashMap<>();
-            report.put("id", reportId);
-            report.put("type", type);
-            report.put("startDate", startDate);
-            report.put("endDate", endDate);
-            report.put("format", format);
-            report.put("createdAt", System.currentTimeMillis());
-            report.put("name", "Report_" + type + "_" + startDate + "_" + endDate + "." + format);
-            
-            // Add the report to the list
-            reports.add(report);
-            
-            return ResponseEntity.ok(reportId);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("Failed to generate report: " + e.getMessage());
+            ReportJob job = reportService.submit(stringParam(params, "type"), stringParam(params, "vehicleType"),
+                stringParam(params, "startDate"), stringParam(params, "endDate"), stringParam(params, "format"));
+            return ResponseEntity.accepted().location(URI.create("/api/reports/" + job.getId())).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            logger.warn("Report rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
         }
     }
 
     /**
      * Get all reports
-     * @return List of reports
+     * @return List of report jobs, most recent first
      */
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getReports() {
-        return ResponseEntity.ok(reports);
+    public ResponseEntity<List<ReportJob>> getReports() {
+        return ResponseEntity.ok(reportService.getJobs());
     }
 
     /**
-     * Delete a report
+     * Get a report job
+     * @param id Report ID
+     * @return The job with its status
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportJob> getReport(@PathVariable String id) {
+        return reportService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Delete a report and its file
      * @param id Report ID
      * @return Success status
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteReport(@PathVariable String id) {
-        boolean removed = reports.removeIf(report -> report.get("id").equals(id));
-        if (removed) {
+        if (reportService.delete(id)) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
 
     /**
-     * Download a report
+     * Download a report. Range requests are supported (206 Partial Content), so an interrupted
+     * download of a large report can be resumed. Whole-file downloads are handed to the connector's
+     * sendfile when available (FileChannel.transferTo from the page cache, no copy through the JVM).
      * @param id Report ID
-     * @return Report download URL or content
+     * @return The report file, 409 while it is not generated yet
      */
     @GetMapping("/{id}/download")
-    public ResponseEntity<String> downloadReport(@PathVariable String id) {
-        // Find the report
-        Map<String, Object> report = reports.stream()
-                .filter(r -> r.get("id").equals(id))
-                .findFirst()
-                .orElse(null);
-        
-        if (report == null) {
+    public ResponseEntity<?> downloadReport(@PathVariable String id, HttpServletRequest request) throws IOException {
+        ReportJob job = reportService.getJob(id).orElse(null);
+        if (job == null) {
             return ResponseEntity.notFound().build();
         }
-        
-        // In a real implementation, this would generate a download URL or return the file content
-        // For this example, we'll just return a mock URL
-        return ResponseEntity.ok("/api/downloads/" + report.get("name"));
+        if (!ReportJob.STATUS_COMPLETED.equals(job.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Report is " + job.getStatus()
+                        + (job.getError() != null ? ": " + job.getError() : "")));
+        }
+        Path artifact = reportService.getArtifact(job);
+        if (!Files.isReadable(artifact)) {
+            return ResponseEntity.status(HttpStatus.GONE).body(Map.of("error", "Report file is no longer available"));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(ReportJob.FORMAT_CSV.equals(job.getFormat()) ? CSV : XLSX)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(job.getName(), StandardCharsets.UTF_8).build().toString())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag("\"" + job.getId() + "-" + job.getSizeBytes() + "\"");
+
+        if (request.getHeader(HttpHeaders.RANGE) == null
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file after the headers; nothing goes through the response stream
+            long size = Files.size(artifact);
+            request.setAttribute(SENDFILE_FILENAME, artifact.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return response.contentLength(size).build();
+        }
+        return response.body(new FileSystemResource(artifact));
+    }
+
+    private String stringParam(Map<String, Object> params, String name) {
+        Object value = params.get(name);
+        return value != null ? value.toString() : null;
     }
 }
@@ -4,10 +4,13 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -29,11 +32,14 @@ public class UploadController {
     private static final Logger logger = LoggerFactory.getLogger(UploadController.class);
     private final VehicleService vehicleService;
     private final FileService fileService;
+    private final AsyncTaskExecutor ingestionExecutor;
 
     @Autowired
-    public UploadController(VehicleService vehicleService, FileService fileService) {
+    public UploadController(VehicleService vehicleService, FileService fileService,
+            @Qualifier("ingestionExecutor") AsyncTaskExecutor ingestionExecutor) {
         this.vehicleService = vehicleService;
         this.fileService = fileService;
+        this.ingestionExecutor = ingestionExecutor;
     }
 
     /**
@@ -188,37 +194,55 @@ public class UploadController {
             logger.info("Saving data for sheet: {}, vehicle type: {}, year: {}, month: {}, region: {}, replaceExisting: {}", 
                     sheetName, typeToUse, year, month, region, replaceExisting);
             
-            // First process and cache the file if not already done
-            vehicleService.processAndCacheFile(file);
-            
-            // Extract data from the cached file
-            List<VehicleRecord> records = vehicleService.extractDataFromCache(sheetName);
-            
-            FileDocument savedFile = null;
-            int yearInt = 0;
-            
+            int yearInt;
             try {
-                // Store file in MongoDB with the user-selected year
                 yearInt = Integer.parseInt(year);
-                savedFile = fileService.storeFile(file, typeToUse, yearInt, region);
-                logger.info("File stored in MongoDB with ID: {} for year: {}", savedFile.getId(), year);
             } catch (NumberFormatException e) {
                 logger.error("Invalid year format: {}", year, e);
                 return ResponseEntity.badRequest().body(Map.of(
                     "success", false,
                     "message", "Invalid year format: " + year
                 ));
-            } catch (Exception e) {
-                logger.error("Failed to save file to MongoDB", e);
-                // Continue with saving records even if MongoDB storage failed
             }
             
-            // Save the records to the database with the user-selected year
-            // Make sure we're using the same year value that was provided by the user
-            int savedCount = vehicleService.saveRecords(records, typeToUse, year, month, replaceExisting, region);
+            // First process and cache the file if not already done
+            vehicleService.processAndCacheFile(file);
+            
+            // Store the original file in MongoDB on the ingestion executor while the records are extracted and saved
+            CompletableFuture<FileDocument> storedFile = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fileService.storeFile(file, typeToUse, yearInt, region);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, ingestionExecutor);
+            
+            int savedCount;
+            try {
+                // Extract data from the cached file
+                List<VehicleRecord> records = vehicleService.extractDataFromCache(sheetName);
+                
+                // Save the records to the database with the user-selected year
+                // Make sure we're using the same year value that was provided by the user
+                savedCount = vehicleService.saveRecords(records, typeToUse, year, month, replaceExisting, region);
+            } catch (IOException | RuntimeException e) {
+                // The store still reads the upload, whose temp file goes away with the request:
+                // wait for it, then remove the file document that no record refers to
+                discardStoredFile(storedFile);
+                throw e;
+            }
             
             logger.info("Saved {} records for {}/{} in region {}", savedCount, year, month, region);
             
+            FileDocument savedFile = null;
+            try {
+                savedFile = storedFile.join();
+                logger.info("File stored in MongoDB with ID: {} for year: {}", savedFile.getId(), year);
+            } catch (Exception e) {
+                logger.error("Failed to save file to MongoDB", e);
+                // Continue with the response even if MongoDB storage failed
+            }
+            
             // Update MongoDB file metadata with the record count if file was stored
             if (savedFile != null) {
                 try {
@@ -247,4 +271,21 @@ public class UploadController {
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
         }
     }
+
+    /**
+     * Wait for a file store started for records that could not be saved, and delete the stored file
+     */
+    private void discardStoredFile(CompletableFuture<FileDocument> storedFile) {
+        FileDocument orphan;
+        try {
+            orphan = storedFile.join();
+        } catch (Exception e) {
+            return; // Nothing stored
+        }
+        try {
+            fileService.discardFile(orphan.getId());
+        } catch (Exception e) {
+            logger.error("Failed to delete stored file {} after the records failed to save", orphan.getId(), e);
+        }
+    }
 }
\ No newline at end of file
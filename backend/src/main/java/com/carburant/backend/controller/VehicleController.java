@@ -6,6 +6,9 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,8 +21,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.service.ExportService;
 import com.carburant.backend.service.VehicleService;
 
 @RestController
@@ -28,11 +33,13 @@ import com.carburant.backend.service.VehicleService;
 public class VehicleController {
 
     private final VehicleService vehicleService;
+    private final ExportService exportService;
     private static final Logger logger = LoggerFactory.getLogger(VehicleController.class);
 
     @Autowired
-    public VehicleController(VehicleService vehicleService) {
+    public VehicleController(VehicleService vehicleService, ExportService exportService) {
         this.vehicleService = vehicleService;
+        this.exportService = exportService;
     }
 
     /**
@@ -139,6 +146,55 @@ public class VehicleController {
         return ResponseEntity.ok(vehicleService.getAllRecords());
     }
 
+    /**
+     * Export the current (possibly edited) vehicle records as CSV or XLSX
+     * The file is streamed from a MongoDB cursor, so large exports run in bounded memory
+     * @param format Export format: csv or xlsx
+     * @param type Optional vehicle type to filter by
+     * @param year Optional year to filter by
+     * @param mois Optional month to filter by
+     * @param matricule Optional vehicle registration number to filter by
+     * @param region Optional region to filter by
+     * @return Streamed export file
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportRecords(
+            @RequestParam(value = "format", required = false, defaultValue = "xlsx") String format,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "year", required = false) String year,
+            @RequestParam(value = "mois", required = false) String mois,
+            @RequestParam(value = "matricule", required = false) String matricule,
+            @RequestParam(value = "region", required = false) String region) {
+        
+        logger.info("Exporting records - format: {}, type: {}, year: {}, mois: {}, matricule: {}, region: {}", 
+                    format, type, year, mois, matricule, region);
+        
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"xlsx".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unsupported export format: " + format));
+        }
+        
+        Query query = exportService.buildQuery(type, year, mois, matricule, region);
+        String filename = "export_" + (type != null && !type.isEmpty() ? type : "all")
+                + (year != null && !year.isEmpty() ? "_" + year : "")
+                + (csv ? ".csv" : ".xlsx");
+        
+        StreamingResponseBody body = out -> {
+            if (csv) {
+                exportService.writeCsv(query, out);
+            } else {
+                exportService.writeXlsx(query, out);
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(csv
+                        ? MediaType.parseMediaType("text/csv; charset=UTF-8")
+                        : MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .body(body);
+    }
+
     /**
      * Get monthly aggregated data for a specific vehicle type
      * @param vehicleType Vehicle type
@@ -0,0 +1,32 @@
+package com.carburant.backend.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after a regression result has been saved or deleted
+ */
+public class RegressionResultChangedEvent extends ApplicationEvent {
+
+    private final String type;
+
+    /**
+     * @param source The publisher
+     * @param type Vehicle type of the regression result, null when unknown
+     */
+    public RegressionResultChangedEvent(Object source, String type) {
+        super(source);
+        this.type = type;
+    }
+
+    /**
+     * Vehicle type of the changed regression result, null when unknown
+     */
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return "RegressionResultChangedEvent[type=" + (type != null ? type : "unknown") + "]";
+    }
+}
@@ -0,0 +1,101 @@
+package com.carburant.backend.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.carburant.backend.model.VehicleRecord;
+
+/**
+ * Published after vehicle records have been created, updated or deleted.
+ * Listeners use the affected vehicle types to invalidate derived data (caches, statistics).
+ */
+public class VehicleDataChangedEvent extends ApplicationEvent {
+
+    private final Set<String> types;
+    private final List<VehicleRecord> removedRecords;
+    private final List<VehicleRecord> addedRecords;
+
+    /**
+     * Change whose exact content is unknown (e.g. bulk deletion)
+     * @param source The publisher
+     * @param types Vehicle types whose records changed; empty when the affected types are unknown
+     */
+    public VehicleDataChangedEvent(Object source, Collection<String> types) {
+        this(source, types, null, null);
+    }
+
+    /**
+     * Change made of known record removals and additions (an update is a removal of the previous version plus an addition)
+     * @param source The publisher
+     * @param removedRecords Records as they were before being deleted or replaced
+     * @param addedRecords Records as they are after being inserted or updated
+     */
+    public VehicleDataChangedEvent(Object source, List<VehicleRecord> removedRecords, List<VehicleRecord> addedRecords) {
+        this(source, typesOf(removedRecords, addedRecords), List.copyOf(removedRecords), List.copyOf(addedRecords));
+    }
+
+    private VehicleDataChangedEvent(Object source, Collection<String> types,
+            List<VehicleRecord> removedRecords, List<VehicleRecord> addedRecords) {
+        super(source);
+        Set<String> affected = new LinkedHashSet<>();
+        if (types != null) {
+            types.stream().filter(Objects::nonNull).forEach(affected::add);
+        }
+        this.types = Collections.unmodifiableSet(affected);
+        this.removedRecords = removedRecords;
+        this.addedRecords = addedRecords;
+    }
+
+    private static Set<String> typesOf(List<VehicleRecord> removedRecords, List<VehicleRecord> addedRecords) {
+        Set<String> types = new LinkedHashSet<>();
+        removedRecords.forEach(record -> types.add(record.getType()));
+        addedRecords.forEach(record -> types.add(record.getType()));
+        return types;
+    }
+
+    /**
+     * Vehicle types whose records changed
+     */
+    public Set<String> getTypes() {
+        return types;
+    }
+
+    /**
+     * Whether the removed and added records are known, so derived data can be updated incrementally
+     */
+    public boolean hasRecordChanges() {
+        return removedRecords != null && addedRecords != null;
+    }
+
+    /**
+     * Records removed by the change, null when unknown
+     */
+    public List<VehicleRecord> getRemovedRecords() {
+        return removedRecords;
+    }
+
+    /**
+     * Records added by the change, null when unknown
+     */
+    public List<VehicleRecord> getAddedRecords() {
+        return addedRecords;
+    }
+
+    /**
+     * Whether the change may concern every vehicle type
+     */
+    public boolean affectsAllTypes() {
+        return types.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "VehicleDataChangedEvent[types=" + (types.isEmpty() ? "all" : types) + "]";
+    }
+}
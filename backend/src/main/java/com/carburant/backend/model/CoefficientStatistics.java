@@ -0,0 +1,22 @@
+package com.carburant.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Inference statistics of one regression coefficient, stored on the regression result
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoefficientStatistics {
+    private double estimate;        // Coefficient value
+    private double standardError;   // Standard error of the estimate
+    private double tStatistic;      // estimate / standardError
+    private double pValue;          // Two-sided Student-t p-value of estimate = 0
+    private double lowerBound;      // Lower bound of the confidence interval
+    private double upperBound;      // Upper bound of the confidence interval
+}
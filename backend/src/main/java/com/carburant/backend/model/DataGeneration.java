@@ -0,0 +1,27 @@
+package com.carburant.backend.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Generation counter of the vehicle records of one type, incremented on every change.
+ * Derived results stamped with an older generation are stale.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "data_generations")
+public class DataGeneration {
+    @Id
+    private String id;                  // Vehicle type
+    private long generation;
+    private LocalDateTime lastChanged;
+}
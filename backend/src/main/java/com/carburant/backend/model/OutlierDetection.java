@@ -0,0 +1,53 @@
+package com.carburant.backend.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last outlier detection run of a vehicle type. Its data generation tells whether the flagged
+ * records (outlier_records) still match the data.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "outlier_detections")
+public class OutlierDetection {
+
+    @Id
+    private String id;                          // Vehicle type
+    private String type;                        // Vehicle type
+    private long records;                       // Records scanned
+    private int flagged;                        // Records flagged
+    private Map<String, Integer> reasonCounts;  // Flagged records per reason
+    private Map<String, MetricSummary> metrics; // Summary of kilometrage, tonnage and consommation
+    private long dataGeneration;                // Data generation of the type the detection ran on
+    private LocalDateTime detectedAt;
+    private long scanMillis;                    // Time of the cursor pass
+    private long classifyMillis;                // Time to score the records
+    private long saveMillis;                    // Time to persist the flagged records
+    private long wallMillis;                    // Total duration
+
+    /**
+     * Streaming summary of one metric
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MetricSummary {
+        private long count;
+        private double mean;                    // Welford mean
+        private double standardDeviation;       // Welford sample standard deviation
+        private double median;                  // Median estimated from the reservoir sketch
+        private double mad;                     // Median absolute deviation estimated from the sketch
+    }
+}
@@ -0,0 +1,55 @@
+package com.carburant.backend.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vehicle record flagged by the outlier detection of its type, with the reasons it was flagged
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "outlier_records")
+public class OutlierRecord {
+
+    /** Kilometrage far from the median of the type */
+    public static final String REASON_KILOMETRAGE = "KILOMETRAGE";
+    /** Tonnage far from the median of the type */
+    public static final String REASON_TONNAGE = "TONNAGE";
+    /** Consumption far from the median of the type */
+    public static final String REASON_CONSOMMATION = "CONSOMMATION";
+    /** Large studentized residual of the regression */
+    public static final String REASON_RESIDUAL = "RESIDUAL";
+    /** High leverage on the regression (unusual kilometrage/tonnage combination) */
+    public static final String REASON_LEVERAGE = "LEVERAGE";
+
+    @Id
+    private String id;                      // Id of the vehicle record
+    @Indexed
+    private String type;                    // Vehicle type (sheet name)
+    private String matricule;               // Vehicle registration number
+    private String mois;                    // Month
+    private String year;                    // Year
+    private String region;                  // Region
+    private double kilometrage;             // Distance in Km
+    private double tonnage;                 // Transported products in Tons
+    private double consommation;            // Consumption in L
+    private List<String> reasons;           // REASON_* constants
+    private double kilometrageScore;        // Robust z-score of the kilometrage
+    private double tonnageScore;            // Robust z-score of the tonnage
+    private double consommationScore;       // Robust z-score of the consumption
+    private double studentizedResidual;     // Residual / (s × √(1 - leverage)), NaN if not fitted
+    private double leverage;                // xᵀ(XᵀX)⁻¹x, NaN if not fitted
+    private long dataGeneration;            // Data generation of the type the detection ran on
+    private LocalDateTime detectedAt;
+}
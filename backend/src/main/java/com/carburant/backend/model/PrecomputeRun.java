@@ -0,0 +1,65 @@
+package com.carburant.backend.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ledger entry of the month-end pre-computation of one month. There is one entry per month, claimed
+ * atomically by the instance that runs it, so a month is computed once and a missed month is caught up.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "precompute_runs")
+public class PrecomputeRun {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    /** Some steps failed; the month is attempted again on the next trigger */
+    public static final String STATUS_PARTIAL = "PARTIAL";
+
+    public static final String TRIGGER_SCHEDULE = "SCHEDULE";
+    public static final String TRIGGER_CATCH_UP = "CATCH_UP";
+    public static final String TRIGGER_MANUAL = "MANUAL";
+
+    @Id
+    private String id;                  // Month (yyyy-MM)
+    private String status;              // RUNNING, COMPLETED or PARTIAL
+    private String trigger;             // SCHEDULE, CATCH_UP or MANUAL
+    private int attempts;               // Runs of this month so far
+    private String instance;            // Host that claimed the run
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private long wallMillis;
+    private long dataGeneration;        // Data generation of all types when the run started
+    private List<StepOutcome> steps;
+    private List<String> reportJobIds;  // Report jobs queued by the run, replaced when the month is run again
+
+    /**
+     * Outcome of one pre-computation step
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StepOutcome {
+
+        public static final String SUCCESS = "SUCCESS";
+        public static final String FAILED = "FAILED";
+
+        private String step;            // rollups, regression or report
+        private String target;          // Vehicle type or report type
+        private String status;          // SUCCESS or FAILED
+        private long durationMillis;
+        private String detail;          // Error message, or the id of a queued report job
+    }
+}
@@ -1,5 +1,8 @@
 package com.carburant.backend.model;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.springframework.data.annotation.Id;
@@ -11,18 +14,63 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "regression_results")
 public class RegressionResult {
+    /** Collection keeping the superseded results, for comparison */
+    public static final String HISTORY_COLLECTION = "regression_results_history";
+
     @Id
     private String id;
     private String type; // Vehicle type (sheet name)
+    private String scope; // Data slice the regression was fitted on (e.g. "region=Nord,year=2024"), null for the whole type
     private String regressionEquation; // Formatted equation (e.g., "Y = 0.1468*X1 + 0.2412*X2 + 305.0161")
     private Map<String, Double> coefficients; // Map of variable names to coefficients
     private double intercept; // Y-intercept
     private double rSquared; // R-squared value
     private double adjustedRSquared; // Adjusted R-squared
     private double mse; // Mean Squared Error
-}
\ No newline at end of file
+    private long sampleSize; // Number of observations fitted
+    private long degreesOfFreedom; // Residual degrees of freedom (n - 3)
+    private double residualStandardError; // sqrt(SSE / degrees of freedom)
+    private double confidenceLevel; // Level of the coefficient confidence intervals (e.g. 0.95)
+    private Map<String, CoefficientStatistics> coefficientStatistics; // Keys "intercept", "kilometrage", "tonnage"
+    private double[] inverseGram; // (XᵀX)⁻¹ row-major 3×3 in the order intercept, kilometrage, tonnage, for prediction intervals
+    private long dataGeneration; // Data generation of the type the result was computed from
+    private LocalDateTime computedAt; // When the result was stored
+
+    /**
+     * Copy whose maps, coefficient statistics and matrix are not shared with this result
+     */
+    public RegressionResult copy() {
+        RegressionResult copy = toBuilder().build();
+        if (coefficients != null) {
+            copy.setCoefficients(new LinkedHashMap<>(coefficients));
+        }
+        if (coefficientStatistics != null) {
+            Map<String, CoefficientStatistics> statistics = new LinkedHashMap<>();
+            coefficientStatistics.forEach((name, value) -> statistics.put(name, value != null ? value.toBuilder().build() : null));
+            copy.setCoefficientStatistics(statistics);
+        }
+        if (inverseGram != null) {
+            copy.setInverseGram(inverseGram.clone());
+        }
+        return copy;
+    }
+
+    /**
+     * Copy whose coefficient maps cannot be modified, for the results kept in the cache
+     */
+    public RegressionResult unmodifiableCopy() {
+        RegressionResult copy = copy();
+        if (copy.coefficients != null) {
+            copy.setCoefficients(Collections.unmodifiableMap(copy.coefficients));
+        }
+        if (copy.coefficientStatistics != null) {
+            copy.setCoefficientStatistics(Collections.unmodifiableMap(copy.coefficientStatistics));
+        }
+        return copy;
+    }
+}
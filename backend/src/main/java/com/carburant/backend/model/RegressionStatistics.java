@@ -0,0 +1,46 @@
+package com.carburant.backend.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Regression sufficient statistics (n, XᵀX, Xᵀy, yᵀy) of one data partition (type, region, year, matricule).
+ * Maintained incrementally when vehicle records change so that regressions can be refitted without reading the records,
+ * and summed over partitions to fit any slice of the data.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "regression_statistics")
+public class RegressionStatistics {
+    @Id
+    private String id;                          // Partition key
+    @Indexed
+    private String type;                        // Vehicle type (sheet name)
+    @Indexed
+    private String region;                      // Region (geographical area)
+    @Indexed
+    private String year;                        // Year of the records
+    @Indexed
+    private String matricule;                   // Vehicle registration number
+    private long n;                             // Number of usable records
+    private double sumKilometrage;              // Σ x1
+    private double sumTonnage;                  // Σ x2
+    private double sumConsommation;             // Σ y
+    private double sumKilometrageSq;            // Σ x1²
+    private double sumKilometrageTonnage;       // Σ x1·x2
+    private double sumTonnageSq;                // Σ x2²
+    private double sumKilometrageConsommation;  // Σ x1·y
+    private double sumTonnageConsommation;      // Σ x2·y
+    private double sumConsommationSq;           // Σ y²
+    private LocalDateTime lastUpdated;
+}
@@ -0,0 +1,60 @@
+package com.carburant.backend.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Report generation job. The state is persisted so jobs survive a restart, and the rendered
+ * artifact is kept on disk until the job is deleted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "report_jobs")
+public class ReportJob {
+
+    /** Monthly consumption totals per type */
+    public static final String TYPE_MONTHLY = "monthly";
+    /** Vehicles ranked by IPE */
+    public static final String TYPE_IPE_RANKING = "ipe-ranking";
+    /** Each record's consumption against the SER regression prediction */
+    public static final String TYPE_SER = "ser";
+
+    public static final String FORMAT_XLSX = "xlsx";
+    public static final String FORMAT_CSV = "csv";
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    private String id;
+    private String type;                // Report type (monthly, ipe-ranking, ser)
+    private String vehicleType;         // Vehicle type, or "all"
+    private String startDate;           // First day of the period (yyyy-MM-dd), optional
+    private String endDate;             // Last day of the period (yyyy-MM-dd), optional
+    private String format;              // xlsx or csv
+    private String name;                // Download file name
+    @Indexed
+    private String status;              // PENDING, RUNNING, COMPLETED or FAILED
+    private String error;               // Failure message
+    private long rows;                  // Rows written
+    private long sizeBytes;             // Artifact size
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private long renderMillis;          // Time to read the data and write the artifact
+    private long dataGeneration;        // Data generation of the vehicle type the report was rendered from
+    private String cacheKey;            // Hash of the parameters and the data generation
+    private boolean cached;             // Served from the report cache without rendering
+}
@@ -0,0 +1,49 @@
+package com.carburant.backend.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-vehicle regression baseline (consommation ~ kilometrage + tonnage) computed by the fleet regression job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "vehicle_regressions")
+public class VehicleRegression {
+
+    /** Fitted with kilometrage and tonnage */
+    public static final String STATUS_FITTED = "FITTED";
+    /** Fitted with kilometrage only (no or constant tonnage) */
+    public static final String STATUS_KILOMETRAGE_ONLY = "KILOMETRAGE_ONLY";
+    /** Not enough usable records */
+    public static final String STATUS_INSUFFICIENT_DATA = "INSUFFICIENT_DATA";
+    /** Records cannot be fitted (constant kilometrage) */
+    public static final String STATUS_SINGULAR = "SINGULAR";
+
+    @Id
+    private String id;                  // type|matricule
+    @Indexed
+    private String type;                // Vehicle type (sheet name)
+    @Indexed
+    private String matricule;           // Vehicle registration number
+    private String status;              // One of the STATUS_* constants
+    private int n;                      // Number of records used
+    private double intercept;
+    private double kilometrageCoef;
+    private double tonnageCoef;
+    private double rSquared;
+    private double mse;                 // Mean Squared Error
+    private double maxAbsResidual;      // Largest deviation of a month from the vehicle's own baseline (L)
+    private int deviatingMonths;        // Months whose residual exceeds 2 residual standard deviations
+    private LocalDateTime fittedAt;
+}
@@ -0,0 +1,28 @@
+package com.carburant.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome and timings of a fleet regression run
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetRegressionReport {
+
+    private String type;                // Vehicle type, "all" for the whole fleet
+    private int vehicles;               // Vehicles processed
+    private int fitted;                 // Vehicles with a baseline (including kilometrage-only fits)
+    private int skipped;                // Vehicles without enough data or with singular data
+    private long records;               // Records read
+    private int parallelism;            // Fork/join parallelism used for the fits
+    private long loadMillis;            // Time to stream the records into per-vehicle arrays
+    private long fitMillis;             // Time to fit all vehicles
+    private long saveMillis;            // Time to persist the baselines
+    private long wallMillis;            // Total duration
+    private double vehiclesPerSecond;   // Fit throughput
+}
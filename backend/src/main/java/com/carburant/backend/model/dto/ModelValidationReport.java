@@ -0,0 +1,53 @@
+package com.carburant.backend.model.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Out-of-sample quality and coefficient stability of the regression of a vehicle type,
+ * estimated by k-fold cross-validation and bootstrap resampling
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModelValidationReport {
+
+    private String type;                // Vehicle type
+    private String year;                // Year the records were restricted to, null for all years
+    private int n;                      // Records used
+    private int folds;                  // Number of cross-validation folds
+    private int resamples;              // Number of bootstrap resamples
+    private int failedResamples;        // Resamples that could not be fitted (singular)
+    private double confidenceLevel;     // Level of the bootstrap intervals
+    private long seed;                  // Random seed, the same seed gives the same report
+    private double inSampleMse;         // MSE of the fit on all records
+    private Double outOfSampleMse;      // MSE of the held-out predictions over all folds, null if no fold could be fitted
+    private List<Double> foldMse;       // Held-out MSE of each fold, null for a fold that could not be fitted
+    private List<CoefficientStability> coefficients;
+    private int parallelism;            // Fork/join parallelism used
+    private long loadMillis;            // Time to stream the records into primitive arrays
+    private long crossValidationMillis; // Time of the cross-validation
+    private long bootstrapMillis;       // Time of the bootstrap
+    private long wallMillis;            // Total duration
+
+    /**
+     * Bootstrap distribution of one coefficient
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CoefficientStability {
+        private String name;            // intercept, kilometrage or tonnage
+        private double estimate;        // Coefficient fitted on all records
+        private Double bootstrapMean;   // Mean over the resamples, null without fitted resample
+        private Double bootstrapStdError; // Standard deviation over the resamples, null without fitted resample
+        private Double lowerBound;      // Percentile interval lower bound, null without fitted resample
+        private Double upperBound;      // Percentile interval upper bound, null without fitted resample
+    }
+}
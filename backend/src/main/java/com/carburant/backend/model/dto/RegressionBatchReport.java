@@ -0,0 +1,50 @@
+package com.carburant.backend.model.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.carburant.backend.model.RegressionResult;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a regression run over several vehicle types
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegressionBatchReport {
+
+    private LocalDateTime startedAt;
+    private long wallMillis;            // Total duration of the run
+    private int succeeded;              // Types with a fitted (or existing) result
+    private int fallback;               // Types where the fit failed and a default result was returned
+    private int failed;                 // Types that raised an error or were rejected
+    private int timedOut;               // Types that did not finish within the per-type timeout
+    private List<TypeOutcome> outcomes;
+
+    /**
+     * Outcome of one vehicle type
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TypeOutcome {
+
+        public static final String SUCCESS = "SUCCESS";
+        public static final String FALLBACK = "FALLBACK";
+        public static final String FAILED = "FAILED";
+        public static final String TIMEOUT = "TIMEOUT";
+
+        private String type;
+        private String status;          // One of SUCCESS, FALLBACK, FAILED, TIMEOUT
+        private long durationMillis;    // From submission to completion (includes queueing)
+        private String error;           // Error message for FAILED and TIMEOUT
+        private RegressionResult result;
+    }
+}
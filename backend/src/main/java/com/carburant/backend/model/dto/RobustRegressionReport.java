@@ -0,0 +1,42 @@
+package com.carburant.backend.model.dto;
+
+import java.util.List;
+
+import com.carburant.backend.model.RegressionResult;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Robust (IRLS) regression of a vehicle type with its convergence diagnostics and timings
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RobustRegressionReport {
+
+    public static final String METHOD_HUBER = "huber";
+    public static final String METHOD_TUKEY = "tukey";
+
+    private String type;                // Vehicle type
+    private String method;              // huber or tukey
+    private double tuningConstant;      // In units of the residual scale (1.345 for Huber, 4.685 for Tukey by default)
+    private int n;                      // Records used
+    private boolean converged;          // Whether the relative change fell below the tolerance
+    private int iterations;             // IRLS iterations run
+    private double finalChange;         // Relative change of the fitted values (or of the scale) at the last iteration
+    private double scale;               // Robust residual scale (1.4826 × MAD of the residuals)
+    private int downweighted;           // Records with a weight below 1
+    private int rejected;               // Records with a weight of 0 (Tukey only)
+    private double[] olsCoefficients;   // Warm start: intercept, kilometrage, tonnage
+    private List<Long> iterationMicros; // Duration of each iteration
+    private long olsMicros;             // Duration of the OLS warm start (one accumulation pass and a solve)
+    private long irlsMicros;            // Duration of the IRLS (scale, iterations and final pass)
+    private double costRatio;           // irlsMicros / olsMicros
+    private long loadMillis;            // Time to stream the records into primitive arrays
+    private long wallMillis;            // Total duration
+    private RegressionResult result;    // Robust result, stored under scope "robust=<method>"
+}
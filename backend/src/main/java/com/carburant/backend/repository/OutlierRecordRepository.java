@@ -0,0 +1,14 @@
+package com.carburant.backend.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.carburant.backend.model.OutlierRecord;
+
+@Repository
+public interface OutlierRecordRepository extends MongoRepository<OutlierRecord, String> {
+    List<OutlierRecord> findByType(String type);
+    void deleteByType(String type);
+}
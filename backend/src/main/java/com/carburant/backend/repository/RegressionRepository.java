@@ -12,4 +12,7 @@ import com.carburant.backend.model.RegressionResult;
 public interface RegressionRepository extends MongoRepository<RegressionResult, String> {
     Optional<RegressionResult> findByType(String type);
     List<RegressionResult> findAllByType(String type);
+    
+    // Current result of a type and scope (unique, see MongoDBInitializer); a null scope is the whole type
+    Optional<RegressionResult> findByTypeAndScope(String type, String scope);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.carburant.backend.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.carburant.backend.model.ReportJob;
+
+@Repository
+public interface ReportJobRepository extends MongoRepository<ReportJob, String> {
+    List<ReportJob> findAllByOrderByCreatedAtDesc();
+    List<ReportJob> findByStatusIn(Collection<String> statuses);
+    Optional<ReportJob> findFirstByCacheKeyAndStatusOrderByCompletedAtDesc(String cacheKey, String status);
+}
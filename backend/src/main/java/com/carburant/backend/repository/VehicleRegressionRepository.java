@@ -0,0 +1,15 @@
+package com.carburant.backend.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.carburant.backend.model.VehicleRegression;
+
+@Repository
+public interface VehicleRegressionRepository extends MongoRepository<VehicleRegression, String> {
+    List<VehicleRegression> findByType(String type);
+    List<VehicleRegression> findByMatricule(String matricule);
+    void deleteByType(String type);
+}
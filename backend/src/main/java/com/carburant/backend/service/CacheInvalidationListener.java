@@ -0,0 +1,93 @@
+package com.carburant.backend.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.carburant.backend.config.CacheConfig;
+import com.carburant.backend.event.RegressionResultChangedEvent;
+import com.carburant.backend.event.VehicleDataChangedEvent;
+
+/**
+ * Evicts cache entries affected by data changes.
+ * Cache keys are lists of the form [operation, type, ...], so only the entries of the changed
+ * vehicle types and the cross-type entries (type null or "all") are removed.
+ */
+@Component
+public class CacheInvalidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+    /** Type used by the Excel import when no sheet-specific data exists, read as a fallback */
+    private static final String FALLBACK_TYPE = "Sheet1";
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public CacheInvalidationListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @EventListener
+    public void onVehicleDataChanged(VehicleDataChangedEvent event) {
+        if (event.affectsAllTypes() || containsIgnoreCase(event.getTypes(), FALLBACK_TYPE)) {
+            clear(CacheConfig.VEHICLE_DATA_CACHE);
+        } else {
+            evict(CacheConfig.VEHICLE_DATA_CACHE, key -> matchesAnyType(key, event.getTypes()));
+        }
+        logger.debug("Invalidated cached vehicle data after {}", event);
+    }
+
+    @EventListener
+    public void onRegressionResultChanged(RegressionResultChangedEvent event) {
+        if (event.getType() == null) {
+            clear(CacheConfig.REGRESSION_RESULTS_CACHE);
+        } else {
+            evict(CacheConfig.REGRESSION_RESULTS_CACHE, key -> matchesAnyType(key, Set.of(event.getType())));
+        }
+        logger.debug("Invalidated cached regression results after {}", event);
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private void evict(String cacheName, Predicate<Object> affected) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof CaffeineCache caffeineCache) {
+            caffeineCache.getNativeCache().asMap().keySet().removeIf(affected);
+        } else if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * A key is affected when it is type-agnostic (no type, type null or "all") or when its type is one of the changed types
+     */
+    private boolean matchesAnyType(Object key, Set<String> types) {
+        if (!(key instanceof List<?> parts) || parts.size() < 2) {
+            return true;
+        }
+        Object keyType = parts.get(1);
+        if (keyType == null || "all".equalsIgnoreCase(keyType.toString())) {
+            return true;
+        }
+        return containsIgnoreCase(types, keyType.toString().trim());
+    }
+
+    private boolean containsIgnoreCase(Set<String> types, String type) {
+        return types.stream().anyMatch(t -> t.trim().equalsIgnoreCase(type));
+    }
+}
@@ -0,0 +1,81 @@
+package com.carburant.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.event.VehicleDataChangedEvent;
+import com.carburant.backend.model.DataGeneration;
+import com.carburant.backend.model.VehicleRecord;
+
+/**
+ * Tracks a generation counter per vehicle type, moved forward whenever its records change.
+ * Regression results are stamped with the generation they were computed from, so a stored result
+ * is reused as long as the generation has not moved.
+ */
+@Service
+public class DataGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataGenerationService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public DataGenerationService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Get the current generation of a vehicle type
+     * @param type Vehicle type, or "all" / null for the whole data set (sum of the type generations)
+     * @return The generation, 0 if the type never changed since tracking started
+     */
+    public long getGeneration(String type) {
+        if (type == null || "all".equalsIgnoreCase(type)) {
+            // Every counter only grows, so their sum moves whenever any type changes
+            return mongoTemplate.findAll(DataGeneration.class).stream()
+                .mapToLong(DataGeneration::getGeneration)
+                .sum();
+        }
+        DataGeneration generation = mongoTemplate.findById(type, DataGeneration.class);
+        return generation != null ? generation.getGeneration() : 0L;
+    }
+
+    /**
+     * Move the generation of a vehicle type forward
+     * @param type Vehicle type
+     * @return The new generation
+     */
+    public long advance(String type) {
+        DataGeneration generation = mongoTemplate.findAndModify(
+            new Query(Criteria.where("_id").is(type)),
+            new Update().inc("generation", 1).set("lastChanged", LocalDateTime.now()),
+            FindAndModifyOptions.options().upsert(true).returnNew(true),
+            DataGeneration.class);
+        return generation != null ? generation.getGeneration() : 0L;
+    }
+
+    @EventListener
+    public void onVehicleDataChanged(VehicleDataChangedEvent event) {
+        if (event.affectsAllTypes()) {
+            // Unknown types: advance every stored type and every other tracked type
+            List<String> storedTypes = mongoTemplate.findDistinct(new Query(), "type", VehicleRecord.class, String.class);
+            storedTypes.forEach(this::advance);
+            mongoTemplate.updateMulti(new Query(Criteria.where("_id").nin(storedTypes)),
+                new Update().inc("generation", 1).set("lastChanged", LocalDateTime.now()), DataGeneration.class);
+        } else {
+            event.getTypes().forEach(this::advance);
+        }
+        logger.debug("Advanced data generation after {}", event);
+    }
+}
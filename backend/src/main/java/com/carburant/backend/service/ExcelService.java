@@ -1,5 +1,6 @@
 package com.carburant.backend.service;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -25,16 +26,22 @@ import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.utils.FlightRecorderEvents;
+import com.carburant.backend.utils.IngestionMetrics;
+import com.carburant.backend.utils.RequestCost;
 
 @Service
 public class ExcelService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExcelService.class);
 
+    private final IngestionMetrics ingestionMetrics;
+
     // Patterns for column recognition in both French and English
     private static final Pattern MONTH_PATTERN = Pattern.compile("(?i).*(mois|month|date|période|period).*");
     private static final Pattern MATRICULE_PATTERN = Pattern.compile("(?i).*(matricule|immatriculation|numéro|véhicule|vehicle|registration|number).*");
@@ -52,6 +59,11 @@ public class ExcelService {
     private static final Pattern CHARIOT_PATTERN = Pattern.compile("(?i).*(chariot|élévateur|elevateur).*");
     private static final Pattern MINIBUS_PATTERN = Pattern.compile("(?i).*(minibus|bus).*");
 
+    @Autowired
+    public ExcelService(IngestionMetrics ingestionMetrics) {
+        this.ingestionMetrics = ingestionMetrics;
+    }
+
     /**
      * Extracts sheet names from an Excel file
      * @param file The uploaded Excel file
@@ -107,157 +119,8 @@ public class ExcelService {
             throw new IllegalArgumentException("Sheet name cannot be empty");
         }
         
-        try (InputStream is = file.getInputStream();
-             Workbook workbook = WorkbookFactory.create(is)) {
-            
-            Sheet sheet = workbook.getSheet(sheetName);
-            if (sheet == null) {
-                logger.error("Sheet not found: {}", sheetName);
-                throw new IllegalArgumentException("Sheet not found: " + sheetName);
-            }
-
-            // Create a formula evaluator to properly evaluate formulas
-            FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
-            
-            // Create a data formatter to properly format cell values considering styles
-            DataFormatter formatter = new DataFormatter(true);
-            
-            // Create a resolved sheet data structure to handle merged cells and formulas
-            List<List<CellData>> resolvedSheet = resolveSheetData(sheet, evaluator, formatter);
-            if (resolvedSheet.isEmpty()) {
-                logger.warn("No data found in sheet: {}", sheetName);
-                return new ExtractionResult(new ArrayList<>(), new TreeMap<>());
-            }
-
-            // Use the first row as header
-            List<CellData> headerRow = resolvedSheet.get(0);
-            logger.info("Processing sheet: {} with {} columns", sheetName, headerRow.size());
-
-            // Find column indices for all required fields
-            ColumnIndices columnIndices = findColumnIndices(headerRow, sheetName);
-            if (!columnIndices.isValid()) {
-                logger.warn("Could not identify all required columns in sheet: {}. Found: {}", 
-                          sheetName, columnIndices);
-                // Continue with best effort - we'll work with what we found
-            }
-            
-            // Process data rows
-            List<VehicleRecord> vehicleRecords = new ArrayList<>();
-            String currentMonth = null;
-            
-            // For monthly totals - using TreeMap for sorted months
-            Map<String, Map<String, Double>> monthlyTotals = new TreeMap<>();
-            
-            // Skip header row
-            for (int i = 1; i < resolvedSheet.size(); i++) {
-                List<CellData> row = resolvedSheet.get(i);
-                if (row == null || row.isEmpty() || isEmptyRow(row)) {
-                    continue;
-                }
-                
-                try {
-                    // Check for month in the month column (which may be merged cells)
-                    if (columnIndices.monthIndex >= 0 && columnIndices.monthIndex < row.size()) {
-                        CellData monthCell = row.get(columnIndices.monthIndex);
-                        if (monthCell != null && monthCell.getValue() != null && !monthCell.getStringValue().isEmpty()) {
-                            currentMonth = monthCell.getStringValue().trim();
-                            logger.debug("Found month: {}", currentMonth);
-                            
-                            // Initialize monthly totals for this month if not already done
-                            initializeMonthlyTotals(monthlyTotals, currentMonth);
-                        }
-                    }
-                    
-                    // Skip rows without matricule (likely headers or empty rows)
-                    if (columnIndices.matriculeIndex < 0 || columnIndices.matriculeIndex >= row.size() ||
-                        row.get(columnIndices.matriculeIndex) == null || 
-                        row.get(columnIndices.matriculeIndex).getValue() == null ||
-                        row.get(columnIndices.matriculeIndex).getStringValue().isEmpty()) {
-                        continue;
-                    }
-                    
-                    // If we still don't have a month, use a default
-                    if (currentMonth == null) {
-                        currentMonth = "Mois non spécifié";
-                        // Initialize monthly totals for the default month if not already done
-                        initializeMonthlyTotals(monthlyTotals, currentMonth);
-                    }
-
-                    // Extract matricule and description (if available)
-                    String matricule = row.get(columnIndices.matriculeIndex).getStringValue().trim();
-                    String description = "";
-                    if (columnIndices.descriptionIndex >= 0 && columnIndices.descriptionIndex < row.size() && 
-                        row.get(columnIndices.descriptionIndex) != null) {
-                        description = row.get(columnIndices.descriptionIndex).getStringValue().trim();
-                    }
-                    
-                    // Check if this is a valid vehicle based on matricule or description
-                    if (!isValidVehicle(matricule, description)) {
-                        logger.debug("Skipping non-vehicle row with matricule: {}", matricule);
-                        continue;
-                    }
-                    
-                    String vehicleType = determineVehicleType(matricule, description);
-                    logger.debug("Processing vehicle: {} (type: {}) for month: {}", matricule, vehicleType, currentMonth);
-                    
-                    // Collect metrics with safe extraction
-                    double consommationL = safeGetNumericValue(row, columnIndices.consommationLIndex);
-                    double consommationTEP = safeGetNumericValue(row, columnIndices.consommationTEPIndex);
-                    double coutDT = extractCurrencyValue(row, columnIndices.coutDTIndex);
-                    double kilometrage = safeGetNumericValue(row, columnIndices.kmIndex);
-                    double produitsTonnes = safeGetNumericValue(row, columnIndices.tonneIndex);
-                    double ipeDirectValue = safeGetNumericValue(row, columnIndices.ipeIndex);
-                    
-                    // Store all raw values for debugging and future use
-                    Map<String, Double> rawValues = new HashMap<>();
-                    if (columnIndices.consommationLIndex >= 0) 
-                        rawValues.put("consommationL", consommationL);
-                    if (columnIndices.consommationTEPIndex >= 0) 
-                        rawValues.put("consommationTEP", consommationTEP);
-                    if (columnIndices.coutDTIndex >= 0) 
-                        rawValues.put("coutDT", coutDT);
-                    if (columnIndices.kmIndex >= 0) 
-                        rawValues.put("kilometrage", kilometrage);
-                    if (columnIndices.tonneIndex >= 0) 
-                        rawValues.put("produitsTonnes", produitsTonnes);
-                    if (columnIndices.ipeIndex >= 0) 
-                        rawValues.put("ipeDirectValue", ipeDirectValue);
-                    
-                    // Create vehicle record builder with extracted values
-                    VehicleRecord.VehicleRecordBuilder recordBuilder = VehicleRecord.builder()
-                        .type(vehicleType) // Use detected vehicle type instead of sheet name
-                        .mois(currentMonth)
-                        .matricule(matricule)
-                        .consommationL(consommationL)
-                        .consommationTEP(consommationTEP)
-                        .coutDT(coutDT)
-                        .kilometrage(kilometrage)
-                        .produitsTonnes(produitsTonnes)
-                        .rawValues(rawValues);
-                    
-                    // Calculate IPE values
-                    calculateIpeValues(recordBuilder, consommationL, kilometrage, produitsTonnes, ipeDirectValue);
-                    
-                    VehicleRecord record = recordBuilder.build();
-                    vehicleRecords.add(record);
-                    
-                    // Update monthly totals
-                    updateMonthlyTotals(monthlyTotals, currentMonth, consommationL, consommationTEP, 
-                                      coutDT, kilometrage, produitsTonnes);
-                } catch (Exception e) {
-                    // Catch any exceptions during row processing to improve robustness
-                    logger.error("Error processing row {} in sheet {}: {}", i, sheetName, e.getMessage());
-                    // Continue with next row
-                }
-            }
-            
-            logger.info("Extracted {} valid vehicle records from sheet {}", vehicleRecords.size(), sheetName);
-            logger.info("Calculated monthly totals for {} months", monthlyTotals.size());
-            
-            return new ExtractionResult(vehicleRecords, monthlyTotals);
-        } catch (Exception e) {
-            logger.error("Error extracting data from sheet {}: {}", sheetName, e.getMessage(), e);
-            throw new IOException("Error processing Excel file: " + e.getMessage(), e);
+        try (InputStream is = file.getInputStream()) {
+            return extract(is, sheetName, IngestionMetrics.SOURCE_UPLOAD);
         }
     }
 
@@ -279,7 +142,25 @@ public class ExcelService {
             throw new IllegalArgumentException("Sheet name cannot be empty");
         }
         
-        try (Workbook workbook = WorkbookFactory.create(inputStream)) {
+        return extract(inputStream, sheetName, IngestionMetrics.SOURCE_CACHE);
+    }
+
+    /**
+     * Extracts the records of a sheet, timing each stage (workbook open, sheet resolution,
+     * header detection, row loop)
+     * @param inputStream The input stream for the Excel file
+     * @param sheetName The name of the sheet to extract data from
+     * @param source Where the workbook comes from (IngestionMetrics.SOURCE_UPLOAD or SOURCE_CACHE)
+     */
+    private ExtractionResult extract(InputStream inputStream, String sheetName, String source) throws IOException {
+        long start = System.nanoTime();
+        long cpuStart = RequestCost.cpuTime();
+        FlightRecorderEvents.WorkbookParse parseEvent = new FlightRecorderEvents.WorkbookParse();
+        parseEvent.begin();
+        CountingInputStream countingStream = new CountingInputStream(inputStream);
+        try (Workbook workbook = WorkbookFactory.create(countingStream)) {
+            ingestionMetrics.recordStage(IngestionMetrics.STAGE_WORKBOOK_OPEN, sheetName, null, start);
+            
             Sheet sheet = workbook.getSheet(sheetName);
             if (sheet == null) {
                 logger.error("Sheet not found: {}", sheetName);
@@ -293,9 +174,21 @@ public class ExcelService {
             DataFormatter formatter = new DataFormatter(true);
             
             // Create a resolved sheet data structure to handle merged cells and formulas
+            long resolveStart = System.nanoTime();
+            FlightRecorderEvents.SheetResolve resolveEvent = new FlightRecorderEvents.SheetResolve();
+            resolveEvent.begin();
             List<List<CellData>> resolvedSheet = resolveSheetData(sheet, evaluator, formatter);
+            ingestionMetrics.recordStage(IngestionMetrics.STAGE_RESOLVE_SHEET, sheetName, null, resolveStart);
+            if (resolveEvent.shouldCommit()) {
+                resolveEvent.sheet = sheetName;
+                resolveEvent.rows = resolvedSheet.size();
+                resolveEvent.columns = resolvedSheet.isEmpty() ? 0 : resolvedSheet.get(0).size();
+                resolveEvent.mergedRegions = sheet.getNumMergedRegions();
+                resolveEvent.commit();
+            }
             if (resolvedSheet.isEmpty()) {
                 logger.warn("No data found in sheet: {}", sheetName);
+                commitParseEvent(parseEvent, sheetName, source, countingStream.getCount(), 0, 0, 0, 0);
                 return new ExtractionResult(new ArrayList<>(), new TreeMap<>());
             }
 
@@ -304,7 +197,9 @@ public class ExcelService {
             logger.info("Processing sheet: {} with {} columns", sheetName, headerRow.size());
 
             // Find column indices for all required fields
+            long headerStart = System.nanoTime();
             ColumnIndices columnIndices = findColumnIndices(headerRow, sheetName);
+            ingestionMetrics.recordStage(IngestionMetrics.STAGE_HEADER_DETECTION, sheetName, null, headerStart);
             if (!columnIndices.isValid()) {
                 logger.warn("Could not identify all required columns in sheet: {}. Found: {}", 
                           sheetName, columnIndices);
@@ -312,7 +207,12 @@ public class ExcelService {
             }
             
             // Process data rows
+            long rowLoopStart = System.nanoTime();
             List<VehicleRecord> vehicleRecords = new ArrayList<>();
+            Map<String, Integer> acceptedByType = new HashMap<>();
+            int rejectedRows = 0;
+            int parseErrors = 0;
+            long rowsRead = 0;
             String currentMonth = null;
             
             // For monthly totals - using TreeMap for sorted months
@@ -324,6 +224,7 @@ public class ExcelService {
                 if (row == null || row.isEmpty() || isEmptyRow(row)) {
                     continue;
                 }
+                rowsRead++;
                 
                 try {
                     // Check for month in the month column (which may be merged cells)
@@ -364,6 +265,7 @@ public class ExcelService {
                     // Check if this is a valid vehicle based on matricule or description
                     if (!isValidVehicle(matricule, description)) {
                         logger.debug("Skipping non-vehicle row with matricule: {}", matricule);
+                        rejectedRows++;
                         continue;
                     }
                     
@@ -410,6 +312,7 @@ public class ExcelService {
                     
                     VehicleRecord record = recordBuilder.build();
                     vehicleRecords.add(record);
+                    acceptedByType.merge(vehicleType, 1, Integer::sum);
                     
                     // Update monthly totals
                     updateMonthlyTotals(monthlyTotals, currentMonth, consommationL, consommationTEP, 
@@ -417,10 +320,17 @@ public class ExcelService {
                 } catch (Exception e) {
                     // Catch any exceptions during row processing to improve robustness
                     logger.error("Error processing row {} in sheet {}: {}", i, sheetName, e.getMessage());
+                    parseErrors++;
                     // Continue with next row
                 }
             }
             
+            ingestionMetrics.recordStage(IngestionMetrics.STAGE_ROW_LOOP, sheetName, null, rowLoopStart);
+            ingestionMetrics.recordRows(sheetName, acceptedByType, rejectedRows, parseErrors, rowsRead, start);
+            ingestionMetrics.recordBytesIn(source, sheetName, countingStream.getCount());
+            commitParseEvent(parseEvent, sheetName, source, countingStream.getCount(), rowsRead, vehicleRecords.size(),
+                rejectedRows, parseErrors);
+            
             logger.info("Extracted {} valid vehicle records from sheet {}", vehicleRecords.size(), sheetName);
             logger.info("Calculated monthly totals for {} months", monthlyTotals.size());
             
@@ -428,6 +338,25 @@ public class ExcelService {
         } catch (Exception e) {
             logger.error("Error extracting data from sheet {}: {}", sheetName, e.getMessage(), e);
             throw new IOException("Error processing Excel file: " + e.getMessage(), e);
+        } finally {
+            RequestCost.recordParseCpu(cpuStart);
+        }
+    }
+
+    /**
+     * Commits the Flight Recorder event of an extraction, when a recording is running
+     */
+    private static void commitParseEvent(FlightRecorderEvents.WorkbookParse event, String sheetName, String source,
+            long bytes, long rowsRead, int records, int rejectedRows, int parseErrors) {
+        if (event.shouldCommit()) {
+            event.sheet = sheetName;
+            event.source = source;
+            event.bytes = bytes;
+            event.rowsRead = rowsRead;
+            event.records = records;
+            event.rejectedRows = rejectedRows;
+            event.parseErrors = parseErrors;
+            event.commit();
         }
     }
 
@@ -556,8 +485,9 @@ public class ExcelService {
     /**
      * Helper method to specifically extract currency values from cells,
      * handling formatting like "100 TND" or "100.5 DT"
+     * (package-private for the benchmarks)
      */
-    private double extractCurrencyValue(List<CellData> row, int index) {
+    double extractCurrencyValue(List<CellData> row, int index) {
         if (index < 0 || index >= row.size() || row.get(index) == null) {
             return 0.0;
         }
@@ -616,8 +546,9 @@ public class ExcelService {
 
     /**
      * Helper method to safely extract numeric values from cells
+     * (package-private for the benchmarks)
      */
-    private double safeGetNumericValue(List<CellData> row, int index) {
+    double safeGetNumericValue(List<CellData> row, int index) {
         if (index < 0 || index >= row.size() || row.get(index) == null) {
             return 0.0;
         }
@@ -677,7 +608,7 @@ public class ExcelService {
     /**
      * Helper class to store column indices
      */
-    private static class ColumnIndices {
+    static class ColumnIndices {
         int monthIndex = -1;
         int matriculeIndex = -1;
         int consommationLIndex = -1;
@@ -707,8 +638,9 @@ public class ExcelService {
 
     /**
      * Finds indices of all required columns
+     * (package-private for the benchmarks)
      */
-    private ColumnIndices findColumnIndices(List<CellData> headerRow, String sheetName) {
+    ColumnIndices findColumnIndices(List<CellData> headerRow, String sheetName) {
         ColumnIndices indices = new ColumnIndices();
         
         // Log headers for debugging
@@ -863,8 +795,9 @@ public class ExcelService {
     /**
      * Resolves sheet data including merged cells and formulas
      * Returns a rectangular matrix of cell data with all merges resolved
+     * (package-private for the benchmarks)
      */
-    private List<List<CellData>> resolveSheetData(Sheet sheet, FormulaEvaluator evaluator, DataFormatter formatter) {
+    List<List<CellData>> resolveSheetData(Sheet sheet, FormulaEvaluator evaluator, DataFormatter formatter) {
         List<List<CellData>> resolvedSheet = new ArrayList<>();
         int maxColumnCount = 0;
         
@@ -944,10 +877,64 @@ public class ExcelService {
         return true;
     }
 
+    /**
+     * Counts the workbook bytes read
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+        private long markedCount;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            super.mark(readlimit);
+            markedCount = count;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            // The file type is sniffed with mark/reset: bytes read again are not counted twice
+            super.reset();
+            count = markedCount;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
     /**
      * Helper class to store cell data with type information
      */
-    private static class CellData {
+    static class CellData {
         private final Object value;
         private final CellType cellType;
         private final boolean isDate;
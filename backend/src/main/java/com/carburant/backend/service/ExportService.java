@@ -0,0 +1,202 @@
+package com.carburant.backend.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.utils.ReportWriter;
+
+/**
+ * Service for exporting vehicle records as CSV or XLSX.
+ * Records are read from a MongoDB cursor and written row by row, so memory use
+ * does not depend on the size of the exported data set.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private static final String[] HEADERS = {
+        "Type", "Matricule", "Mois", "Annee", "Region",
+        "Consommation (L)", "Consommation (TEP)", "Cout (DT)", "Kilometrage (Km)",
+        "Produits (Tonnes)", "IPE (L/100km)", "IPE (L/Tonne.100Km)"
+    };
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.export.fenetre-lignes:100}")
+    private int rowAccessWindow;
+
+    @Value("${app.export.taille-lot-curseur:500}")
+    private int cursorBatchSize;
+
+    @Autowired
+    public ExportService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Build the export query from the optional filters
+     * @param type Optional vehicle type
+     * @param year Optional year
+     * @param mois Optional month
+     * @param matricule Optional vehicle registration number
+     * @param region Optional region
+     * @return Query sorted by type, year, month and matricule
+     */
+    public Query buildQuery(String type, String year, String mois, String matricule, String region) {
+        Query query = new Query();
+
+        if (type != null && !type.isEmpty() && !"all".equalsIgnoreCase(type)) {
+            query.addCriteria(Criteria.where("type").is(type));
+        }
+
+        if (year != null && !year.isEmpty()) {
+            query.addCriteria(Criteria.where("year").is(year));
+        }
+
+        if (mois != null && !mois.isEmpty()) {
+            query.addCriteria(Criteria.where("mois").is(mois));
+        }
+
+        if (matricule != null && !matricule.isEmpty()) {
+            query.addCriteria(Criteria.where("matricule").is(matricule));
+        }
+
+        if (region != null && !region.isEmpty()) {
+            query.addCriteria(Criteria.where("region").is(region));
+        }
+
+        // rawValues is never exported, so don't pull it over the wire
+        query.fields().exclude("rawValues");
+        query.with(Sort.by("type", "year", "mois", "matricule"));
+        query.cursorBatchSize(cursorBatchSize);
+        return query;
+    }
+
+    /**
+     * Write the records matching the query as CSV (UTF-8 with BOM so Excel detects the encoding)
+     * @param query The export query
+     * @param out The response output stream (not closed by this method)
+     * @return Number of exported rows
+     */
+    public long writeCsv(Query query, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+        writer.write(String.join(";", HEADERS));
+        writer.write("\r\n");
+
+        try (Stream<VehicleRecord> records = mongoTemplate.stream(query, VehicleRecord.class)) {
+            var iterator = records.iterator();
+            while (iterator.hasNext()) {
+                VehicleRecord record = iterator.next();
+                writer.write(ReportWriter.csvValue(record.getType()));
+                writer.write(';');
+                writer.write(ReportWriter.csvValue(record.getMatricule()));
+                writer.write(';');
+                writer.write(ReportWriter.csvValue(record.getMois()));
+                writer.write(';');
+                writer.write(ReportWriter.csvValue(record.getYear()));
+                writer.write(';');
+                writer.write(ReportWriter.csvValue(record.getRegion()));
+                writer.write(';');
+                writer.write(Double.toString(record.getConsommationL()));
+                writer.write(';');
+                writer.write(Double.toString(record.getConsommationTEP()));
+                writer.write(';');
+                writer.write(Double.toString(record.getCoutDT()));
+                writer.write(';');
+                writer.write(Double.toString(record.getKilometrage()));
+                writer.write(';');
+                writer.write(Double.toString(record.getProduitsTonnes()));
+                writer.write(';');
+                writer.write(Double.toString(record.getIpeL100km()));
+                writer.write(';');
+                writer.write(Double.toString(record.getIpeL100TonneKm()));
+                writer.write("\r\n");
+                count++;
+            }
+        }
+
+        writer.flush();
+        logger.info("Exported {} records as CSV", count);
+        return count;
+    }
+
+    /**
+     * Write the records matching the query as an XLSX workbook.
+     * Only the last rows of the sheet are kept in memory, older rows are flushed to a temporary file.
+     * @param query The export query
+     * @param out The response output stream (not closed by this method)
+     * @return Number of exported rows
+     */
+    public long writeXlsx(Query query, OutputStream out) throws IOException {
+        long count = 0;
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowAccessWindow);
+        workbook.setCompressTempFiles(true);
+
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Donnees");
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.length; i++) {
+                headerRow.createCell(i).setCellValue(HEADERS[i]);
+            }
+
+            int rowIndex = 1;
+            try (Stream<VehicleRecord> records = mongoTemplate.stream(query, VehicleRecord.class)) {
+                var iterator = records.iterator();
+                while (iterator.hasNext()) {
+                    VehicleRecord record = iterator.next();
+                    Row row = sheet.createRow(rowIndex++);
+                    setString(row.createCell(0), record.getType());
+                    setString(row.createCell(1), record.getMatricule());
+                    setString(row.createCell(2), record.getMois());
+                    setString(row.createCell(3), record.getYear());
+                    setString(row.createCell(4), record.getRegion());
+                    row.createCell(5).setCellValue(record.getConsommationL());
+                    row.createCell(6).setCellValue(record.getConsommationTEP());
+                    row.createCell(7).setCellValue(record.getCoutDT());
+                    row.createCell(8).setCellValue(record.getKilometrage());
+                    row.createCell(9).setCellValue(record.getProduitsTonnes());
+                    row.createCell(10).setCellValue(record.getIpeL100km());
+                    row.createCell(11).setCellValue(record.getIpeL100TonneKm());
+                    count++;
+                }
+            }
+
+            workbook.write(out);
+            out.flush();
+        } finally {
+            // Remove the temporary files backing the flushed rows
+            workbook.dispose();
+            workbook.close();
+        }
+
+        logger.info("Exported {} records as XLSX", count);
+        return count;
+    }
+
+    private void setString(Cell cell, String value) {
+        cell.setCellValue(value != null ? value : "");
+    }
+}
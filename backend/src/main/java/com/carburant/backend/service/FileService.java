@@ -6,13 +6,16 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.carburant.backend.event.VehicleDataChangedEvent;
 import com.carburant.backend.model.FileDocument;
 import com.carburant.backend.repository.FileRepository;
 import com.carburant.backend.repository.VehicleRepository;
 import com.carburant.backend.utils.ExcelHelper;
+import com.carburant.backend.utils.IngestionMetrics;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -32,6 +35,12 @@ public class FileService {
     @Autowired
     private VehicleRepository vehicleRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private IngestionMetrics ingestionMetrics;
+    
     /**
      * Store a file in MongoDB
      * 
@@ -42,6 +51,7 @@ public class FileService {
      * @return The stored file document
      */
     public FileDocument storeFile(MultipartFile file, String vehicleType, int year, String region) throws IOException {
+        long start = System.nanoTime();
         String filename = file.getOriginalFilename();
         log.info("Storing file: {} with size: {} bytes, for region: {}", filename, file.getSize(), region);
         
@@ -63,7 +73,10 @@ public class FileService {
             .active(true)
             .build();
         
-        return fileRepository.save(fileDocument);
+        FileDocument saved = fileRepository.save(fileDocument);
+        ingestionMetrics.recordStage(IngestionMetrics.STAGE_FILE_STORAGE, null, vehicleType, start);
+        ingestionMetrics.recordBytesIn(IngestionMetrics.SOURCE_FILE_STORAGE, null, file.getSize());
+        return saved;
     }
     
     /**
@@ -154,6 +167,17 @@ public class FileService {
         return false;
     }
 
+    /**
+     * Remove a stored file document that no record was saved for (failed upload), leaving the
+     * records of its type, year and region untouched
+     * 
+     * @param id The file ID
+     */
+    public void discardFile(String id) {
+        fileRepository.deleteById(id);
+        log.info("Discarded file with ID {} stored for an upload whose records were not saved", id);
+    }
+
     /**
      * Delete all vehicle records associated with a file
      * 
@@ -174,6 +198,7 @@ public class FileService {
         // Delete records matching the file's metadata
         // The deleteByTypeAndYearAndRegion method returns void, so we can't get the count directly
         vehicleRepository.deleteByTypeAndYearAndRegion(vehicleType, String.valueOf(year), region);
+        eventPublisher.publishEvent(new VehicleDataChangedEvent(this, List.of(vehicleType)));
         log.info("Deleted vehicle records associated with file ID: {}", file.getId());
     }
     
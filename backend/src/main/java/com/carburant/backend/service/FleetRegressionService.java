@@ -0,0 +1,154 @@
+package com.carburant.backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.model.VehicleRegression;
+import com.carburant.backend.model.dto.FleetRegressionReport;
+import com.carburant.backend.repository.VehicleRegressionRepository;
+import com.carburant.backend.utils.FleetRegressionCalculator;
+import com.carburant.backend.utils.FleetRegressionCalculator.VehicleSeries;
+
+/**
+ * Fleet-wide job fitting a consumption baseline per vehicle (matricule), so that vehicles deviating
+ * from their own baseline can be spotted without running hundreds of fits by hand.
+ */
+@Service
+public class FleetRegressionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetRegressionService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final VehicleRegressionRepository vehicleRegressionRepository;
+    private final FleetRegressionCalculator fleetRegressionCalculator;
+    private final ForkJoinPool fleetRegressionPool;
+
+    @Value("${app.regression.flotte.taille-lot-curseur:1000}")
+    private int cursorBatchSize;
+
+    @Autowired
+    public FleetRegressionService(MongoTemplate mongoTemplate,
+            VehicleRegressionRepository vehicleRegressionRepository,
+            FleetRegressionCalculator fleetRegressionCalculator,
+            @Qualifier("fleetRegressionPool") ForkJoinPool fleetRegressionPool) {
+        this.mongoTemplate = mongoTemplate;
+        this.vehicleRegressionRepository = vehicleRegressionRepository;
+        this.fleetRegressionCalculator = fleetRegressionCalculator;
+        this.fleetRegressionPool = fleetRegressionPool;
+    }
+
+    /**
+     * Fit and persist the baseline of every vehicle of a type
+     * @param type Vehicle type, or "all" / null for the whole fleet
+     * @return Report with counts, timings and throughput
+     */
+    public FleetRegressionReport runFleetRegression(String type) {
+        boolean allTypes = type == null || "all".equalsIgnoreCase(type);
+        long start = System.nanoTime();
+
+        // Load: stream only the needed fields into per-vehicle primitive arrays
+        Query query = new Query(Criteria.where("consommationL").gt(0).and("kilometrage").gt(0));
+        if (!allTypes) {
+            query.addCriteria(Criteria.where("type").is(type));
+        }
+        query.fields().include("type", "matricule", "kilometrage", "produitsTonnes", "consommationL");
+        query.cursorBatchSize(cursorBatchSize);
+
+        Map<String, VehicleSeries> seriesByVehicle = new LinkedHashMap<>();
+        long records = 0;
+        try (Stream<VehicleRecord> stream = mongoTemplate.stream(query, VehicleRecord.class)) {
+            for (VehicleRecord record : (Iterable<VehicleRecord>) stream::iterator) {
+                if (record.getMatricule() == null || record.getType() == null) {
+                    continue;
+                }
+                seriesByVehicle
+                    .computeIfAbsent(record.getType() + "|" + record.getMatricule(),
+                        key -> new VehicleSeries(record.getType(), record.getMatricule()))
+                    .add(record.getKilometrage(), record.getProduitsTonnes(), record.getConsommationL());
+                records++;
+            }
+        }
+        long loaded = System.nanoTime();
+
+        // Fit: one independent regression per vehicle on the fork/join pool
+        List<VehicleRegression> results = fleetRegressionCalculator.fitAll(
+            new ArrayList<>(seriesByVehicle.values()), fleetRegressionPool);
+        long fitted = System.nanoTime();
+
+        // Save: replace the previous baselines of the processed types
+        if (allTypes) {
+            vehicleRegressionRepository.deleteAll();
+        } else {
+            vehicleRegressionRepository.deleteByType(type);
+        }
+        if (!results.isEmpty()) {
+            mongoTemplate.insertAll(results);
+        }
+        long saved = System.nanoTime();
+
+        int fittedCount = (int) results.stream()
+            .filter(result -> VehicleRegression.STATUS_FITTED.equals(result.getStatus())
+                || VehicleRegression.STATUS_KILOMETRAGE_ONLY.equals(result.getStatus()))
+            .count();
+        long fitMillis = toMillis(fitted - loaded);
+
+        FleetRegressionReport report = FleetRegressionReport.builder()
+            .type(allTypes ? "all" : type)
+            .vehicles(results.size())
+            .fitted(fittedCount)
+            .skipped(results.size() - fittedCount)
+            .records(records)
+            .parallelism(fleetRegressionPool.getParallelism())
+            .loadMillis(toMillis(loaded - start))
+            .fitMillis(fitMillis)
+            .saveMillis(toMillis(saved - fitted))
+            .wallMillis(toMillis(saved - start))
+            .vehiclesPerSecond(results.size() / Math.max((fitted - loaded) / 1e9, 1e-9))
+            .build();
+
+        logger.info("Fleet regression for type {}: {} vehicles ({} fitted) from {} records in {} ms (load {} ms, fit {} ms, save {} ms)",
+                    report.getType(), report.getVehicles(), report.getFitted(), records,
+                    report.getWallMillis(), report.getLoadMillis(), fitMillis, report.getSaveMillis());
+        return report;
+    }
+
+    /**
+     * Get the stored vehicle baselines
+     * @param type Vehicle type, or "all" / null for the whole fleet
+     * @return List of vehicle baselines
+     */
+    public List<VehicleRegression> getVehicleRegressions(String type) {
+        if (type == null || "all".equalsIgnoreCase(type)) {
+            return vehicleRegressionRepository.findAll();
+        }
+        return vehicleRegressionRepository.findByType(type);
+    }
+
+    /**
+     * Get the stored baselines of a vehicle (one per type it appears in)
+     * @param matricule Vehicle registration number
+     * @return List of vehicle baselines
+     */
+    public List<VehicleRegression> getVehicleRegressionsByMatricule(String matricule) {
+        return vehicleRegressionRepository.findByMatricule(matricule);
+    }
+
+    private long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,104 @@
+package com.carburant.backend.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.model.dto.ModelValidationReport;
+import com.carburant.backend.utils.RegressionAccumulator;
+import com.carburant.backend.utils.RegressionSample;
+import com.carburant.backend.utils.RegressionValidator;
+
+/**
+ * On-demand validation of the SER regression of a vehicle type: out-of-sample error by k-fold
+ * cross-validation and coefficient stability by bootstrap, so baselines are not signed off on R² alone.
+ */
+@Service
+public class ModelValidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelValidationService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final RegressionValidator regressionValidator;
+    private final ForkJoinPool fleetRegressionPool;
+
+    @Value("${app.regression.flotte.taille-lot-curseur:1000}")
+    private int cursorBatchSize;
+
+    @Value("${app.regression.validation.reechantillons-max:10000}")
+    private int maxResamples = 10000;
+
+    @Autowired
+    public ModelValidationService(MongoTemplate mongoTemplate, RegressionValidator regressionValidator,
+            @Qualifier("fleetRegressionPool") ForkJoinPool fleetRegressionPool) {
+        this.mongoTemplate = mongoTemplate;
+        this.regressionValidator = regressionValidator;
+        this.fleetRegressionPool = fleetRegressionPool;
+    }
+
+    /**
+     * Validate the regression of a vehicle type
+     * @param type Vehicle type, or "all" for every type
+     * @param year Optional year the records are restricted to
+     * @param folds Number of cross-validation folds
+     * @param resamples Number of bootstrap resamples
+     * @param confidence Level of the bootstrap intervals
+     * @param seed Random seed
+     * @return The validation report
+     * @throws IllegalArgumentException if the parameters are invalid or the type has no usable records
+     * @throws IllegalStateException if the regression cannot be fitted
+     */
+    public ModelValidationReport validate(String type, String year, int folds, int resamples, double confidence, long seed) {
+        if (resamples > maxResamples) {
+            throw new IllegalArgumentException("At most " + maxResamples + " resamples are allowed, got " + resamples);
+        }
+        long start = System.nanoTime();
+
+        // Load: stream only the needed fields into primitive arrays
+        Query query = new Query(Criteria.where("consommationL").gt(0).and("kilometrage").gt(0));
+        if (type != null && !"all".equalsIgnoreCase(type)) {
+            query.addCriteria(Criteria.where("type").is(type));
+        }
+        if (year != null && !year.isEmpty()) {
+            query.addCriteria(Criteria.where("year").is(year));
+        }
+        query.fields().include("kilometrage", "produitsTonnes", "consommationL");
+        query.cursorBatchSize(cursorBatchSize);
+
+        RegressionSample sample = new RegressionSample();
+        try (Stream<VehicleRecord> stream = mongoTemplate.stream(query, VehicleRecord.class)) {
+            for (VehicleRecord record : (Iterable<VehicleRecord>) stream::iterator) {
+                if (RegressionAccumulator.isUsable(record)) {
+                    sample.add(record.getKilometrage(), record.getProduitsTonnes(), record.getConsommationL());
+                }
+            }
+        }
+        if (sample.size() == 0) {
+            throw new IllegalArgumentException("No valid records found for type: " + type
+                + (year != null && !year.isEmpty() ? " (year=" + year + ")" : ""));
+        }
+        long loaded = System.nanoTime();
+
+        ModelValidationReport report = regressionValidator.validate(sample, folds, resamples, confidence, seed,
+            fleetRegressionPool);
+        report.setType(type);
+        report.setYear(year);
+        report.setLoadMillis((loaded - start) / 1_000_000);
+        report.setWallMillis((System.nanoTime() - start) / 1_000_000);
+
+        logger.info("Validated regression for type: {} on {} records: out-of-sample MSE {} (in-sample {}), {} folds in {} ms, {} resamples in {} ms",
+                    type, report.getN(), report.getOutOfSampleMse(), report.getInSampleMse(),
+                    folds, report.getCrossValidationMillis(), resamples, report.getBootstrapMillis());
+        return report;
+    }
+}
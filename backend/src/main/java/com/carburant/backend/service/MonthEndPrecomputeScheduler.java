@@ -0,0 +1,61 @@
+package com.carburant.backend.service;
+
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.carburant.backend.model.PrecomputeRun;
+
+/**
+ * Off-peak trigger of the month-end pre-computation, and catch-up of the months missed while the
+ * application was down
+ */
+@Component
+@ConditionalOnProperty(name = "app.precalcul.active", havingValue = "true", matchIfMissing = true)
+public class MonthEndPrecomputeScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthEndPrecomputeScheduler.class);
+
+    private final PrecomputeService precomputeService;
+    private final TaskScheduler taskScheduler;
+
+    @Autowired
+    public MonthEndPrecomputeScheduler(PrecomputeService precomputeService, TaskScheduler taskScheduler) {
+        this.precomputeService = precomputeService;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @Scheduled(cron = "${app.precalcul.cron:0 0 3 * * *}")
+    public void precomputeDueMonths() {
+        precomputeService.runDueMonths(PrecomputeRun.TRIGGER_SCHEDULE);
+    }
+
+    /**
+     * Catch up at startup rather than waiting for the next night, on the scheduler thread so the
+     * missed months do not hold up the main thread and the other ready listeners. The catch-up waits
+     * for the steps it submits to the precompute executor, so it must not take one of its threads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        try {
+            taskScheduler.schedule(() -> {
+                try {
+                    precomputeService.runDueMonths(PrecomputeRun.TRIGGER_CATCH_UP);
+                } catch (RuntimeException e) {
+                    logger.error("Month-end precompute catch-up failed", e);
+                }
+            }, Instant.now());
+        } catch (TaskRejectedException e) {
+            logger.warn("Month-end precompute catch-up not started, scheduler unavailable: {}", e.getMessage());
+        }
+    }
+}
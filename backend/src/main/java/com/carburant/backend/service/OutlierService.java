@@ -0,0 +1,220 @@
+package com.carburant.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.model.OutlierDetection;
+import com.carburant.backend.model.OutlierDetection.MetricSummary;
+import com.carburant.backend.model.OutlierRecord;
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.repository.OutlierRecordRepository;
+import com.carburant.backend.utils.OutlierDetector;
+import com.carburant.backend.utils.RegressionAccumulator;
+
+/**
+ * Detects and stores the outlying records of a vehicle type, and removes them from regression statistics
+ * when a fit is requested with outliers excluded.
+ */
+@Service
+public class OutlierService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutlierService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final OutlierRecordRepository outlierRecordRepository;
+    private final OutlierDetector outlierDetector;
+    private final DataGenerationService dataGenerationService;
+
+    @Value("${app.regression.flotte.taille-lot-curseur:1000}")
+    private int cursorBatchSize;
+
+    @Autowired
+    public OutlierService(MongoTemplate mongoTemplate, OutlierRecordRepository outlierRecordRepository,
+            OutlierDetector outlierDetector, DataGenerationService dataGenerationService) {
+        this.mongoTemplate = mongoTemplate;
+        this.outlierRecordRepository = outlierRecordRepository;
+        this.outlierDetector = outlierDetector;
+        this.dataGenerationService = dataGenerationService;
+    }
+
+    /**
+     * Scan the records of a vehicle type in one cursor pass, flag the outliers and replace the stored ones
+     * @param type Vehicle type
+     * @return Summary of the run
+     * @throws IllegalArgumentException if no type is given
+     */
+    public synchronized OutlierDetection detect(String type) {
+        requireType(type);
+        long start = System.nanoTime();
+        // Read before scanning, so a change made during the scan leaves the detection stale
+        long generation = dataGenerationService.getGeneration(type);
+
+        // Scan: same records as the regression statistics (positive consumption and kilometrage, finite values)
+        Query query = new Query(Criteria.where("type").is(type)
+            .and("consommationL").gt(0).and("kilometrage").gt(0));
+        query.fields().include("kilometrage", "produitsTonnes", "consommationL");
+        query.cursorBatchSize(cursorBatchSize);
+
+        OutlierDetector.Scan scan = outlierDetector.newScan();
+        try (Stream<VehicleRecord> stream = mongoTemplate.stream(query, VehicleRecord.class)) {
+            for (VehicleRecord record : (Iterable<VehicleRecord>) stream::iterator) {
+                if (RegressionAccumulator.isUsable(record)) {
+                    scan.add(record.getId(), record.getKilometrage(), record.getProduitsTonnes(), record.getConsommationL());
+                }
+            }
+        }
+        long scanned = System.nanoTime();
+
+        List<OutlierRecord> outliers = outlierDetector.classify(scan);
+        long classified = System.nanoTime();
+
+        // Save: describe the flagged records and replace the previous ones of the type
+        LocalDateTime detectedAt = LocalDateTime.now();
+        describe(outliers);
+        Map<String, Integer> reasonCounts = new TreeMap<>();
+        for (OutlierRecord outlier : outliers) {
+            outlier.setType(type);
+            outlier.setDataGeneration(generation);
+            outlier.setDetectedAt(detectedAt);
+            outlier.getReasons().forEach(reason -> reasonCounts.merge(reason, 1, Integer::sum));
+        }
+        outlierRecordRepository.deleteByType(type);
+        if (!outliers.isEmpty()) {
+            mongoTemplate.insertAll(outliers);
+        }
+
+        Map<String, MetricSummary> metrics = new LinkedHashMap<>();
+        metrics.put("kilometrage", scan.getKilometrageStatistics().toSummary());
+        metrics.put("tonnage", scan.getTonnageStatistics().toSummary());
+        metrics.put("consommation", scan.getConsommationStatistics().toSummary());
+        long saved = System.nanoTime();
+
+        OutlierDetection detection = OutlierDetection.builder()
+            .id(type)
+            .type(type)
+            .records(scan.size())
+            .flagged(outliers.size())
+            .reasonCounts(reasonCounts)
+            .metrics(metrics)
+            .dataGeneration(generation)
+            .detectedAt(detectedAt)
+            .scanMillis(toMillis(scanned - start))
+            .classifyMillis(toMillis(classified - scanned))
+            .saveMillis(toMillis(saved - classified))
+            .wallMillis(toMillis(saved - start))
+            .build();
+        mongoTemplate.save(detection);
+
+        logger.info("Outlier detection for type {}: {} of {} records flagged {} in {} ms (scan {} ms, classify {} ms)",
+                    type, outliers.size(), scan.size(), reasonCounts, detection.getWallMillis(),
+                    detection.getScanMillis(), detection.getClassifyMillis());
+        return detection;
+    }
+
+    /**
+     * Get the last detection run of a vehicle type
+     * @param type Vehicle type
+     * @return The run, if any
+     */
+    public Optional<OutlierDetection> getDetection(String type) {
+        return Optional.ofNullable(mongoTemplate.findById(type, OutlierDetection.class));
+    }
+
+    /**
+     * Get the flagged records of a vehicle type
+     * @param type Vehicle type
+     * @return Flagged records of the last detection run
+     */
+    public List<OutlierRecord> getOutliers(String type) {
+        return outlierRecordRepository.findByType(type);
+    }
+
+    /**
+     * Get the flagged records of a vehicle type, running the detection first if the data changed since the last run
+     * @param type Vehicle type
+     * @return Flagged records matching the current data
+     */
+    public List<OutlierRecord> getCurrentOutliers(String type) {
+        requireType(type);
+        long generation = dataGenerationService.getGeneration(type);
+        boolean fresh = getDetection(type)
+            .map(detection -> detection.getDataGeneration() == generation)
+            .orElse(false);
+        if (!fresh) {
+            detect(type);
+        }
+        return getOutliers(type);
+    }
+
+    /**
+     * Remove the current outliers of a type from regression statistics
+     * @param type Vehicle type
+     * @param statistics Statistics of the type or of a slice of it, updated in place
+     * @param region Optional region of the slice
+     * @param year Optional year of the slice
+     * @param matricule Optional vehicle registration number of the slice
+     * @return Number of records removed
+     * @throws IllegalArgumentException if no type is given
+     */
+    public int excludeOutliers(String type, RegressionAccumulator statistics, String region, String year, String matricule) {
+        int removed = 0;
+        for (OutlierRecord outlier : getCurrentOutliers(type)) {
+            if (matches(region, outlier.getRegion()) && matches(year, outlier.getYear())
+                    && matches(matricule, outlier.getMatricule())) {
+                statistics.remove(outlier.getKilometrage(), outlier.getTonnage(), outlier.getConsommation());
+                removed++;
+            }
+        }
+        logger.debug("Excluded {} outliers from the statistics of type {}", removed, type);
+        return removed;
+    }
+
+    private boolean matches(String filter, String value) {
+        return filter == null || filter.isEmpty() || filter.equals(value);
+    }
+
+    /**
+     * Fill the month, year, region and vehicle of the flagged records (a small subset, read by id)
+     */
+    private void describe(List<OutlierRecord> outliers) {
+        Map<String, OutlierRecord> byId = new LinkedHashMap<>();
+        outliers.forEach(outlier -> byId.put(outlier.getId(), outlier));
+        List<String> ids = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < ids.size(); from += cursorBatchSize) {
+            Query query = new Query(Criteria.where("_id").in(ids.subList(from, Math.min(from + cursorBatchSize, ids.size()))));
+            query.fields().include("matricule", "mois", "year", "region");
+            for (VehicleRecord record : mongoTemplate.find(query, VehicleRecord.class)) {
+                OutlierRecord outlier = byId.get(record.getId());
+                outlier.setMatricule(record.getMatricule());
+                outlier.setMois(record.getMois());
+                outlier.setYear(record.getYear());
+                outlier.setRegion(record.getRegion());
+            }
+        }
+    }
+
+    private void requireType(String type) {
+        if (type == null || type.isEmpty() || "all".equalsIgnoreCase(type)) {
+            throw new IllegalArgumentException("Outlier detection requires a vehicle type");
+        }
+    }
+
+    private long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,337 @@
+package com.carburant.backend.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.model.PrecomputeRun;
+import com.carburant.backend.model.PrecomputeRun.StepOutcome;
+import com.carburant.backend.model.ReportJob;
+import com.carburant.backend.model.dto.RegressionBatchReport;
+import com.carburant.backend.utils.PrecomputeCalendar;
+
+/**
+ * Month-end pre-computation: warms the dashboard rollups, refits the regression of every type and
+ * queues the standard reports of a month, so the month-end rush reads cached results instead of
+ * scanning the records. Each month has an entry in the precompute_runs ledger, claimed atomically,
+ * so several instances or a restart never run a month twice and a missed month is caught up.
+ */
+@Service
+public class PrecomputeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrecomputeService.class);
+
+    static final String STEP_ROLLUPS = "rollups";
+    static final String STEP_REGRESSION = "regression";
+    static final String STEP_REPORT = "report";
+
+    private final MongoTemplate mongoTemplate;
+    private final VehicleService vehicleService;
+    private final RegressionService regressionService;
+    private final ReportService reportService;
+    private final DataGenerationService dataGenerationService;
+    private final AsyncTaskExecutor precomputeExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final String instance = hostName();
+
+    @Value("${app.precalcul.jours-avant-fin-mois:3}")
+    private int daysBeforeMonthEnd = 3;
+
+    @Value("${app.precalcul.rattrapage-mois-max:2}")
+    private int maxCatchUpMonths = 2;
+
+    @Value("${app.precalcul.delai-max-minutes:120}")
+    private long staleRunMinutes = 120;
+
+    @Autowired
+    public PrecomputeService(MongoTemplate mongoTemplate, VehicleService vehicleService,
+            RegressionService regressionService, ReportService reportService,
+            DataGenerationService dataGenerationService,
+            @Qualifier("precomputeExecutor") AsyncTaskExecutor precomputeExecutor) {
+        this.mongoTemplate = mongoTemplate;
+        this.vehicleService = vehicleService;
+        this.regressionService = regressionService;
+        this.reportService = reportService;
+        this.dataGenerationService = dataGenerationService;
+        this.precomputeExecutor = precomputeExecutor;
+    }
+
+    /**
+     * Run every month that is due, oldest first, one at a time: the past months missed while the
+     * application was down, then the current month when it is in its month-end window and has no
+     * run for the current data
+     * @param trigger PrecomputeRun.TRIGGER_SCHEDULE or TRIGGER_CATCH_UP
+     * @return The runs made, empty if nothing was due or a run is already in progress here
+     */
+    public List<PrecomputeRun> runDueMonths(String trigger) {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Month-end precompute already running, {} trigger skipped", trigger);
+            return Collections.emptyList();
+        }
+        try {
+            long generation = dataGenerationService.getGeneration("all");
+            YearMonth current = YearMonth.now();
+            List<YearMonth> due = PrecomputeCalendar.dueMonths(LocalDate.now(), daysBeforeMonthEnd, maxCatchUpMonths,
+                month -> isUpToDate(month, month.equals(current) ? generation : -1));
+            if (due.isEmpty()) {
+                logger.debug("No month due for precompute");
+                return Collections.emptyList();
+            }
+            logger.info("Months due for precompute ({}): {}", trigger, due);
+            List<PrecomputeRun> runs = new ArrayList<>();
+            for (YearMonth month : due) {
+                String monthTrigger = month.equals(current) ? trigger : PrecomputeRun.TRIGGER_CATCH_UP;
+                claim(month, monthTrigger).map(run -> execute(run, month)).ifPresent(runs::add);
+            }
+            return runs;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Run a month now, whether it is due or not
+     * @param month Month to compute
+     * @return The run, empty if the month is already being computed
+     */
+    public Optional<PrecomputeRun> runMonth(YearMonth month) {
+        if (!running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        try {
+            return claim(month, PrecomputeRun.TRIGGER_MANUAL).map(run -> execute(run, month));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Get the ledger, most recent month first
+     */
+    public List<PrecomputeRun> getRuns() {
+        return mongoTemplate.find(new Query().with(Sort.by(Sort.Direction.DESC, "_id")), PrecomputeRun.class);
+    }
+
+    /**
+     * Whether a month has a completed run. A past month needs one completed run; the current month
+     * needs one for the current data (dataGeneration >= 0), as records keep coming in until its end
+     */
+    private boolean isUpToDate(YearMonth month, long dataGeneration) {
+        Criteria criteria = Criteria.where("_id").is(month.toString()).and("status").is(PrecomputeRun.STATUS_COMPLETED);
+        if (dataGeneration >= 0) {
+            criteria = criteria.and("dataGeneration").is(dataGeneration);
+        }
+        return mongoTemplate.exists(new Query(criteria), PrecomputeRun.class);
+    }
+
+    /**
+     * Claim a month in the ledger. A month running elsewhere is only taken over once its run is older
+     * than app.precalcul.delai-max-minutes (instance stopped in the middle of it)
+     * @return The claimed run, empty if another run holds the month
+     */
+    private Optional<PrecomputeRun> claim(YearMonth month, String trigger) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(Criteria.where("_id").is(month.toString()).orOperator(
+            Criteria.where("status").ne(PrecomputeRun.STATUS_RUNNING),
+            Criteria.where("startedAt").lt(now.minusMinutes(staleRunMinutes))));
+        Update update = new Update()
+            .set("status", PrecomputeRun.STATUS_RUNNING)
+            .set("trigger", trigger)
+            .set("instance", instance)
+            .set("startedAt", now)
+            .set("dataGeneration", dataGenerationService.getGeneration("all"))
+            .unset("completedAt")
+            .inc("attempts", 1);
+        try {
+            return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), PrecomputeRun.class));
+        } catch (DuplicateKeyException e) {
+            // The entry exists but does not match: running on another instance
+            logger.info("Precompute of {} is already running elsewhere", month);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Run the steps of a claimed month and record their outcome in the ledger
+     */
+    private PrecomputeRun execute(PrecomputeRun run, YearMonth month) {
+        long start = System.nanoTime();
+        logger.info("Starting precompute of {} ({}, attempt {})", month, run.getTrigger(), run.getAttempts());
+        List<String> types = vehicleService.getStoredVehicleTypes();
+        List<StepOutcome> steps = new ArrayList<>();
+
+        // Dashboard rollups, on the bounded precompute executor
+        String year = String.valueOf(month.getYear());
+        List<CompletableFuture<StepOutcome>> rollups = new ArrayList<>();
+        List<String> rollupTypes = new ArrayList<>();
+        rollupTypes.add("all");
+        rollupTypes.addAll(types);
+        for (String type : rollupTypes) {
+            String aggregationType = "all".equals(type) ? null : type;
+            rollups.add(submitStep(STEP_ROLLUPS, type, () -> {
+                vehicleService.getMonthlyAggregatedData(aggregationType, year, null, null);
+                vehicleService.getMonthlyAggregatedData(aggregationType, null, null, null);
+                vehicleService.getVehiclePerformanceData(type);
+                return null;
+            }));
+        }
+        rollups.forEach(future -> steps.add(future.join()));
+
+        // Regression refits, on the regression executor (types whose data did not change reuse their result)
+        RegressionBatchReport regression = regressionService.performRegressionForTypes(types, false);
+        for (RegressionBatchReport.TypeOutcome outcome : regression.getOutcomes()) {
+            // A fallback (too little data to fit) would fail again on every retry: it does not fail the run
+            boolean failed = RegressionBatchReport.TypeOutcome.FAILED.equals(outcome.getStatus())
+                || RegressionBatchReport.TypeOutcome.TIMEOUT.equals(outcome.getStatus());
+            steps.add(StepOutcome.builder()
+                .step(STEP_REGRESSION)
+                .target(outcome.getType())
+                .status(failed ? StepOutcome.FAILED : StepOutcome.SUCCESS)
+                .durationMillis(outcome.getDurationMillis())
+                .detail(outcome.getStatus() + (outcome.getError() != null ? ": " + outcome.getError() : ""))
+                .build());
+        }
+
+        // Standard reports, queued after the refits so the SER report uses the new regressions;
+        // their steps are recorded once the jobs have finished, so a failed report fails the run
+        deletePreviousReports(run);
+        List<String> reportJobIds = new ArrayList<>();
+        String monthStart = month.atDay(1).toString();
+        String monthEnd = month.atEndOfMonth().toString();
+        List<CompletableFuture<StepOutcome>> reports = new ArrayList<>();
+        reports.add(queueReport(ReportJob.TYPE_MONTHLY, month.withMonth(1).atDay(1).toString(), monthEnd, reportJobIds));
+        reports.add(queueReport(ReportJob.TYPE_IPE_RANKING, monthStart, monthEnd, reportJobIds));
+        reports.add(queueReport(ReportJob.TYPE_SER, monthStart, monthEnd, reportJobIds));
+        reports.forEach(future -> steps.add(future.join()));
+
+        boolean allSucceeded = steps.stream().allMatch(step -> StepOutcome.SUCCESS.equals(step.getStatus()));
+        run.setStatus(allSucceeded ? PrecomputeRun.STATUS_COMPLETED : PrecomputeRun.STATUS_PARTIAL);
+        run.setCompletedAt(LocalDateTime.now());
+        run.setWallMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        run.setSteps(steps);
+        run.setReportJobIds(reportJobIds);
+        mongoTemplate.save(run);
+
+        logger.info("Precompute of {} {} in {} ms ({} steps, {} failed)", month, run.getStatus(), run.getWallMillis(),
+                    steps.size(), steps.stream().filter(step -> !StepOutcome.SUCCESS.equals(step.getStatus())).count());
+        return run;
+    }
+
+    /**
+     * Run a step on the precompute executor, never completing exceptionally
+     */
+    private CompletableFuture<StepOutcome> submitStep(String step, String target, Supplier<String> work) {
+        long submitted = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> outcome(step, target, submitted, work), precomputeExecutor);
+        } catch (RuntimeException e) {
+            // Executor saturated
+            return CompletableFuture.completedFuture(failure(step, target, submitted, e.getMessage()));
+        }
+    }
+
+    /**
+     * Queue a report and give the outcome of its job once it has finished (at most app.precalcul.delai-max-minutes),
+     * never completing exceptionally
+     */
+    private CompletableFuture<StepOutcome> queueReport(String reportType, String startDate, String endDate,
+            List<String> reportJobIds) {
+        long submitted = System.nanoTime();
+        ReportJob queued;
+        try {
+            queued = reportService.submit(reportType, "all", startDate, endDate, ReportJob.FORMAT_XLSX);
+        } catch (RuntimeException e) {
+            logger.warn("Precompute step {} for {} failed: {}", STEP_REPORT, reportType, e.getMessage());
+            return CompletableFuture.completedFuture(failure(STEP_REPORT, reportType, submitted, e.getMessage()));
+        }
+        String jobId = queued.getId();
+        reportJobIds.add(jobId);
+        return reportService.whenDone(jobId)
+            .orTimeout(staleRunMinutes, TimeUnit.MINUTES)
+            .handle((job, error) -> {
+                if (job != null && ReportJob.STATUS_COMPLETED.equals(job.getStatus())) {
+                    return StepOutcome.builder()
+                        .step(STEP_REPORT)
+                        .target(reportType)
+                        .status(StepOutcome.SUCCESS)
+                        .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submitted))
+                        .detail(jobId + (job.isCached() ? " (cached)" : ""))
+                        .build();
+                }
+                String detail = error != null ? "Report job " + jobId + " did not finish within " + staleRunMinutes + " minutes"
+                    : job == null ? "Report job " + jobId + " was deleted"
+                    : "Report job " + jobId + " failed: " + job.getError();
+                logger.warn("Precompute step {} for {} failed: {}", STEP_REPORT, reportType, detail);
+                return failure(STEP_REPORT, reportType, submitted, detail);
+            });
+    }
+
+    private StepOutcome outcome(String step, String target, long started, Supplier<String> work) {
+        try {
+            String detail = work.get();
+            return StepOutcome.builder()
+                .step(step)
+                .target(target)
+                .status(StepOutcome.SUCCESS)
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started))
+                .detail(detail)
+                .build();
+        } catch (RuntimeException e) {
+            logger.warn("Precompute step {} for {} failed: {}", step, target, e.getMessage());
+            return failure(step, target, started, e.getMessage());
+        }
+    }
+
+    private StepOutcome failure(String step, String target, long started, String detail) {
+        return StepOutcome.builder()
+            .step(step)
+            .target(target)
+            .status(StepOutcome.FAILED)
+            .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started))
+            .detail(detail)
+            .build();
+    }
+
+    /**
+     * Delete the report jobs of the month's previous run; their files stay in the report cache
+     */
+    private void deletePreviousReports(PrecomputeRun run) {
+        if (run.getReportJobIds() != null) {
+            run.getReportJobIds().forEach(reportService::delete);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
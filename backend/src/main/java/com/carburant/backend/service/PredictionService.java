@@ -0,0 +1,241 @@
+package com.carburant.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.model.RegressionResult;
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.utils.RegressionAccumulator;
+import com.carburant.backend.utils.RegressionPredictor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Batch prediction of the consumption of a vehicle type from its regression.
+ * Input rows are parsed with the streaming JSON parser straight into primitive arrays and the output is
+ * written with the streaming generator, so large batches never materialize one object per row.
+ */
+@Service
+public class PredictionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PredictionService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final RegressionService regressionService;
+    private final RegressionStatisticsService regressionStatisticsService;
+    private final DataGenerationService dataGenerationService;
+    private final JsonFactory jsonFactory;
+
+    @Value("${app.regression.prediction.taille-lot-ids:1000}")
+    private int idBatchSize = 1000;
+
+    @Autowired
+    public PredictionService(MongoTemplate mongoTemplate, RegressionService regressionService,
+            RegressionStatisticsService regressionStatisticsService, DataGenerationService dataGenerationService,
+            ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.regressionService = regressionService;
+        this.regressionStatisticsService = regressionStatisticsService;
+        this.dataGenerationService = dataGenerationService;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Build the predictor of a vehicle type from its current regression result, whose persisted (XᵀX)⁻¹
+     * and residual standard error give the prediction intervals without refitting.
+     * When there is no stored result, it is stale or it has no inference statistics (manual or fallback results),
+     * the maintained sufficient statistics are fitted instead; nothing is stored, predicting is a read.
+     * @param type Vehicle type, or "all" for every type
+     * @param confidence Confidence level of the prediction intervals
+     * @return The predictor
+     * @throws IllegalArgumentException if the type has no usable records
+     * @throws IllegalStateException if the regression cannot be fitted
+     */
+    public RegressionPredictor getPredictor(String type, double confidence) {
+        // Stored result, as long as the data it was computed from has not changed
+        Optional<RegressionResult> stored = regressionService.getRegressionResultByType(type);
+        if (stored.isPresent()) {
+            RegressionResult result = stored.get();
+            if (result.getInverseGram() != null && result.getDegreesOfFreedom() > 0
+                    && result.getDataGeneration() == dataGenerationService.getGeneration(type)) {
+                return RegressionPredictor.of(result, confidence);
+            }
+        }
+
+        RegressionAccumulator statistics = regressionStatisticsService.getStatistics(type);
+        if (statistics.isEmpty()) {
+            throw new IllegalArgumentException("No valid records found for type: " + type);
+        }
+        RegressionAccumulator.Fit fit;
+        try {
+            fit = statistics.fit();
+        } catch (IllegalStateException e) {
+            // Types whose tonnage is always 0 only depend on the kilometrage
+            fit = statistics.fitKilometrageOnly();
+        }
+        return RegressionPredictor.of(fit, confidence);
+    }
+
+    /**
+     * Read the rows to predict, either a JSON array or newline-delimited JSON objects.
+     * A row gives kilometrage and tonnage (optionally the actual consommation), or the id of a stored record.
+     * Record ids are resolved in batches once the whole input is read.
+     * @param input Request body
+     * @return The batch
+     * @throws IOException if the input is not valid JSON
+     */
+    public RegressionPredictor.Batch readBatch(InputStream input) throws IOException {
+        RegressionPredictor.Batch batch = new RegressionPredictor.Batch();
+        Map<String, List<Integer>> unresolved = new HashMap<>();
+
+        try (JsonParser parser = jsonFactory.createParser(input)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            // Without an enclosing array the parser reads the NDJSON objects as a sequence of root values
+            while (token != null && token != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a JSON object at " + parser.getCurrentLocation());
+                }
+                readRow(parser, batch, unresolved);
+                token = parser.nextToken();
+            }
+        }
+
+        resolveRecords(batch, unresolved);
+        return batch;
+    }
+
+    private void readRow(JsonParser parser, RegressionPredictor.Batch batch, Map<String, List<Integer>> unresolved)
+            throws IOException {
+        String id = null;
+        double kilometrage = Double.NaN;
+        double tonnage = Double.NaN;
+        double consommation = Double.NaN;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> id = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                case "kilometrage" -> kilometrage = readNumber(parser, value);
+                case "tonnage", "produitsTonnes" -> tonnage = readNumber(parser, value);
+                case "consommation", "consommationL" -> consommation = readNumber(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+
+        // Tonnage defaults to 0 like in the Excel import, the actual consumption stays unknown
+        if (Double.isNaN(tonnage) && !Double.isNaN(kilometrage)) {
+            tonnage = 0.0;
+        }
+        int index = batch.add(id, kilometrage, tonnage, consommation);
+        if (id != null && Double.isNaN(kilometrage)) {
+            unresolved.computeIfAbsent(id, key -> new ArrayList<>(1)).add(index);
+        }
+    }
+
+    private double readNumber(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Double.parseDouble(parser.getText().trim().replace(',', '.'));
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        parser.skipChildren();
+        return Double.NaN;
+    }
+
+    /**
+     * Fill the rows given by record id with the stored kilometrage, tonnage and consumption.
+     * Unknown ids keep NaN inputs and produce empty predictions.
+     */
+    private void resolveRecords(RegressionPredictor.Batch batch, Map<String, List<Integer>> unresolved) {
+        if (unresolved.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(unresolved.keySet());
+        for (int from = 0; from < ids.size(); from += idBatchSize) {
+            Query query = new Query(Criteria.where("_id").in(ids.subList(from, Math.min(from + idBatchSize, ids.size()))));
+            query.fields().include("kilometrage", "produitsTonnes", "consommationL");
+            for (VehicleRecord record : mongoTemplate.find(query, VehicleRecord.class)) {
+                double actual = record.getConsommationL() > 0 ? record.getConsommationL() : Double.NaN;
+                for (int index : unresolved.get(record.getId())) {
+                    batch.set(index, record.getKilometrage(), record.getProduitsTonnes(), actual);
+                }
+            }
+        }
+        logger.debug("Resolved {} record ids for prediction", ids.size());
+    }
+
+    /**
+     * Write the predictions, as a JSON array or as one JSON object per line
+     * @param batch The predicted batch
+     * @param ndjson Whether to write newline-delimited JSON
+     * @param output Response body
+     * @throws IOException if writing fails
+     */
+    public void writeBatch(RegressionPredictor.Batch batch, boolean ndjson, OutputStream output) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(output)) {
+            // The servlet container owns the response stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (ndjson) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                generator.writeStartObject();
+                if (batch.getId(i) != null) {
+                    generator.writeStringField("id", batch.getId(i));
+                }
+                writeNumber(generator, "kilometrage", batch.getKilometrage(i));
+                writeNumber(generator, "tonnage", batch.getTonnage(i));
+                writeNumber(generator, "consommation", batch.getActual(i));
+                writeNumber(generator, "predicted", batch.getPredicted(i));
+                writeNumber(generator, "residual", batch.getResidual(i));
+                writeNumber(generator, "lower", batch.getLower(i));
+                writeNumber(generator, "upper", batch.getUpper(i));
+                generator.writeEndObject();
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private void writeNumber(JsonGenerator generator, String field, double value) throws IOException {
+        if (Double.isFinite(value)) {
+            generator.writeNumberField(field, value);
+        } else {
+            generator.writeNullField(field);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.carburant.backend.service;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.model.RegressionResult;
+import com.carburant.backend.model.VehicleRecord;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking read service for the high fan-out dashboard endpoints.
+ * Uses the reactive MongoDB driver so that waiting on the database does not hold a request thread,
+ * and pushes the grouping work of the blocking VehicleService methods down to MongoDB aggregations.
+ */
+@Service
+public class ReactiveVehicleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveVehicleService.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Value("${app.reactif.taille-lot-curseur:256}")
+    private int cursorBatchSize;
+
+    @Autowired
+    public ReactiveVehicleService(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * Stream vehicle records matching the optional filters.
+     * The cursor batch size bounds how many documents are requested from MongoDB ahead of the subscriber.
+     * @param type Optional vehicle type
+     * @param year Optional year
+     * @param mois Optional month
+     * @param matricule Optional vehicle registration number
+     * @param region Optional region
+     * @return Flux of vehicle records
+     */
+    public Flux<VehicleRecord> streamRecords(String type, String year, String mois, String matricule, String region) {
+        Query query = new Query();
+
+        if (type != null && !type.isEmpty() && !"all".equalsIgnoreCase(type)) {
+            query.addCriteria(Criteria.where("type").is(type));
+        }
+        if (year != null && !year.isEmpty()) {
+            query.addCriteria(Criteria.where("year").is(year));
+        }
+        if (mois != null && !mois.isEmpty()) {
+            query.addCriteria(Criteria.where("mois").is(mois));
+        }
+        if (matricule != null && !matricule.isEmpty()) {
+            query.addCriteria(Criteria.where("matricule").is(matricule));
+        }
+        if (region != null && !region.isEmpty()) {
+            query.addCriteria(Criteria.where("region").is(region));
+        }
+
+        query.cursorBatchSize(cursorBatchSize);
+        return reactiveMongoTemplate.find(query, VehicleRecord.class)
+            .limitRate(cursorBatchSize);
+    }
+
+    /**
+     * Monthly aggregated data, same output as VehicleService.getMonthlyAggregatedData(vehicleType, year, dateFrom, dateTo)
+     * @param vehicleType Optional vehicle type
+     * @param year Optional year
+     * @param dateFrom Optional lower bound on the month
+     * @param dateTo Optional upper bound on the month
+     * @return Flux of monthly aggregates sorted by month
+     */
+    public Flux<Map<String, Object>> getMonthlyAggregatedData(String vehicleType, String year, String dateFrom, String dateTo) {
+        Criteria criteria = new Criteria();
+        List<Criteria> filters = new ArrayList<>();
+
+        if (vehicleType != null && !vehicleType.isEmpty()) {
+            filters.add(Criteria.where("type").is(vehicleType));
+        }
+        if (year != null && !year.isEmpty()) {
+            filters.add(Criteria.where("year").is(year));
+        }
+
+        // Records without a month are skipped, as in the blocking implementation
+        Criteria moisCriteria = Criteria.where("mois").nin(null, "");
+        if (dateFrom != null && !dateFrom.isEmpty()) {
+            moisCriteria = moisCriteria.gte(dateFrom);
+        }
+        if (dateTo != null && !dateTo.isEmpty()) {
+            moisCriteria = moisCriteria.lte(dateTo);
+        }
+        filters.add(moisCriteria);
+        criteria.andOperator(filters);
+
+        Aggregation aggregation = newAggregation(
+            match(criteria),
+            group("mois")
+                .sum("kilometrage").as("kilometrage")
+                .sum("consommationL").as("consommation")
+                .sum("produitsTonnes").as("produitsTonnes")
+                .avg("ipeL100km").as("ipeL100km")
+                .count().as("count"),
+            sort(Sort.Direction.ASC, "_id")
+        ).withOptions(AggregationOptions.builder().cursorBatchSize(cursorBatchSize).build());
+
+        return reactiveMongoTemplate.aggregate(aggregation, VehicleRecord.class, Document.class)
+            .map(document -> {
+                Map<String, Object> monthData = new HashMap<>();
+                monthData.put("month", document.getString("_id"));
+                monthData.put("kilometrage", toDouble(document.get("kilometrage")));
+                monthData.put("consommation", toDouble(document.get("consommation")));
+                monthData.put("produitsTonnes", toDouble(document.get("produitsTonnes")));
+                monthData.put("ipeL100km", toDouble(document.get("ipeL100km")));
+                monthData.put("count", ((Number) document.get("count")).intValue());
+                return monthData;
+            })
+            .doOnComplete(() -> logger.debug("Streamed monthly aggregation for type: {}, year: {}", vehicleType, year));
+    }
+
+    /**
+     * Vehicle performance data, same output as VehicleService.getVehiclePerformanceData(type)
+     * @param type Vehicle type (sheet name)
+     * @return Flux of vehicles with their performance metrics
+     */
+    public Flux<Map<String, Object>> getVehiclePerformanceData(String type) {
+        Aggregation aggregation = newAggregation(
+            match(Criteria.where("type").is(type)),
+            group("matricule")
+                .sum("consommationL").as("consommationTotaleL")
+                .sum("kilometrage").as("kilometrageTotalKm")
+                .sum("produitsTonnes").as("produitsTotalTonnes")
+                .push(new Document("mois", "$mois")
+                    .append("consommationL", "$consommationL")
+                    .append("consommationTEP", "$consommationTEP")
+                    .append("coutDT", "$coutDT")
+                    .append("kilometrage", "$kilometrage")
+                    .append("produitsTonnes", "$produitsTonnes")
+                    .append("ipeL100km", "$ipeL100km")
+                    .append("ipeL100TonneKm", "$ipeL100TonneKm")).as("months")
+        ).withOptions(AggregationOptions.builder().cursorBatchSize(cursorBatchSize).build());
+
+        return reactiveMongoTemplate.aggregate(aggregation, VehicleRecord.class, Document.class)
+            .map(this::toPerformanceData);
+    }
+
+    /**
+     * Get the current regression result for a vehicle type
+     * @param type Vehicle type
+     * @return Mono with the regression result, empty if none exists
+     */
+    public Mono<RegressionResult> getRegressionResultByType(String type) {
+        Query query = new Query(Criteria.where("type").is(type).and("scope").is(null));
+        return reactiveMongoTemplate.findOne(query, RegressionResult.class);
+    }
+
+    private Map<String, Object> toPerformanceData(Document document) {
+        double totalConsommationL = toDouble(document.get("consommationTotaleL"));
+        double totalKilometrage = toDouble(document.get("kilometrageTotalKm"));
+        double totalProduitsTonnes = toDouble(document.get("produitsTotalTonnes"));
+
+        Map<String, Object> vehicleData = new HashMap<>();
+        vehicleData.put("matricule", document.get("_id"));
+        vehicleData.put("consommationTotaleL", totalConsommationL);
+        vehicleData.put("kilometrageTotalKm", totalKilometrage);
+        vehicleData.put("produitsTotalTonnes", totalProduitsTonnes);
+
+        if (totalKilometrage > 0) {
+            double ipeL100km = totalConsommationL / (totalKilometrage / 100);
+            vehicleData.put("ipeL100km", ipeL100km);
+
+            if (totalProduitsTonnes > 0) {
+                double ipeL100TonneKm = ipeL100km * (1 / (totalProduitsTonnes / 1000));
+                vehicleData.put("ipeL100TonneKm", ipeL100TonneKm);
+            }
+        }
+
+        Map<String, Map<String, Double>> monthlyData = new HashMap<>();
+        List<Document> months = document.getList("months", Document.class, List.of());
+        for (Document month : months) {
+            Map<String, Double> metrics = new HashMap<>();
+            metrics.put("consommationL", toDouble(month.get("consommationL")));
+            metrics.put("consommationTEP", toDouble(month.get("consommationTEP")));
+            metrics.put("coutDT", toDouble(month.get("coutDT")));
+            metrics.put("kilometrage", toDouble(month.get("kilometrage")));
+            metrics.put("produitsTonnes", toDouble(month.get("produitsTonnes")));
+            metrics.put("ipeL100km", toDouble(month.get("ipeL100km")));
+            metrics.put("ipeL100TonneKm", toDouble(month.get("ipeL100TonneKm")));
+            monthlyData.put(month.getString("mois"), metrics);
+        }
+        vehicleData.put("monthlyData", monthlyData);
+
+        return vehicleData;
+    }
+
+    private double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+}
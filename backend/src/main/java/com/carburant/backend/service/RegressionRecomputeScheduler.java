@@ -0,0 +1,46 @@
+package com.carburant.backend.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.carburant.backend.model.dto.RegressionBatchReport;
+
+/**
+ * Nightly recompute of the regression of every stored vehicle type
+ */
+@Component
+@ConditionalOnProperty(name = "app.regression.recalcul-nocturne.active", havingValue = "true", matchIfMissing = true)
+public class RegressionRecomputeScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegressionRecomputeScheduler.class);
+
+    private final RegressionService regressionService;
+    private final VehicleService vehicleService;
+
+    @Autowired
+    public RegressionRecomputeScheduler(RegressionService regressionService, VehicleService vehicleService) {
+        this.regressionService = regressionService;
+        this.vehicleService = vehicleService;
+    }
+
+    @Scheduled(cron = "${app.regression.recalcul-nocturne.cron:0 30 2 * * *}")
+    public void recomputeAllTypes() {
+        List<String> types = vehicleService.getStoredVehicleTypes();
+        logger.info("Starting nightly regression recompute for types: {}", types);
+
+        RegressionBatchReport report = regressionService.performRegressionForTypes(types, true);
+
+        logger.info("Nightly regression recompute finished in {} ms: {} succeeded, {} fallback, {} failed, {} timed out",
+                    report.getWallMillis(), report.getSucceeded(), report.getFallback(), report.getFailed(), report.getTimedOut());
+        report.getOutcomes().stream()
+            .filter(outcome -> !RegressionBatchReport.TypeOutcome.SUCCESS.equals(outcome.getStatus()))
+            .forEach(outcome -> logger.warn("Nightly regression for type {}: {} ({})",
+                                            outcome.getType(), outcome.getStatus(), outcome.getError()));
+    }
+}
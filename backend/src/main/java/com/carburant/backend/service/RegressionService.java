@@ -1,20 +1,44 @@
 package com.carburant.backend.service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import com.carburant.backend.config.CacheConfig;
+import com.carburant.backend.event.RegressionResultChangedEvent;
 import com.carburant.backend.model.RegressionResult;
 import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.model.dto.RegressionBatchReport;
+import com.carburant.backend.model.dto.RegressionBatchReport.TypeOutcome;
 import com.carburant.backend.repository.RegressionRepository;
 import com.carburant.backend.repository.VehicleRepository;
+import com.carburant.backend.utils.RegressionAccumulator;
+import com.carburant.backend.utils.RequestCoalescer;
 
 @Service
 public class RegressionService {
@@ -23,6 +47,13 @@ public class RegressionService {
     private final VehicleRepository vehicleRepository;
     private final VehicleService vehicleService;
     private final com.carburant.backend.utils.RegressionUtils regressionUtils;
+    private final RequestCoalescer requestCoalescer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RegressionStatisticsService regressionStatisticsService;
+    private final AsyncTaskExecutor regressionExecutor;
+    private final DataGenerationService dataGenerationService;
+    private final MongoTemplate mongoTemplate;
+    private final OutlierService outlierService;
     private static final Logger logger = LoggerFactory.getLogger(RegressionService.class);
 
     @Autowired
@@ -30,12 +61,32 @@ public class RegressionService {
             RegressionRepository regressionRepository,
             VehicleRepository vehicleRepository,
             VehicleService vehicleService,
-            com.carburant.backend.utils.RegressionUtils regressionUtils) {
+            com.carburant.backend.utils.RegressionUtils regressionUtils,
+            RequestCoalescer requestCoalescer,
+            ApplicationEventPublisher eventPublisher,
+            RegressionStatisticsService regressionStatisticsService,
+            @Qualifier("regressionExecutor") AsyncTaskExecutor regressionExecutor,
+            DataGenerationService dataGenerationService,
+            MongoTemplate mongoTemplate,
+            OutlierService outlierService) {
         this.regressionRepository = regressionRepository;
         this.vehicleRepository = vehicleRepository;
         this.vehicleService = vehicleService;
         this.regressionUtils = regressionUtils;
+        this.requestCoalescer = requestCoalescer;
+        this.eventPublisher = eventPublisher;
+        this.regressionStatisticsService = regressionStatisticsService;
+        this.regressionExecutor = regressionExecutor;
+        this.dataGenerationService = dataGenerationService;
+        this.mongoTemplate = mongoTemplate;
+        this.outlierService = outlierService;
     }
+    
+    @Value("${app.regression.delai-par-type-secondes:60}")
+    private long perTypeTimeoutSeconds = 60;
+    
+    @Value("${app.regression.historique.max-par-type:50}")
+    private int maxHistoryPerType = 50;
 
     /**
      * Perform regression analysis on data of a specific vehicle type
@@ -53,23 +104,124 @@ public class RegressionService {
      * @return RegressionResult containing the regression equation and metrics
      */
     public RegressionResult performRegression(String type, boolean forceRecalculate) {
-        // Check if we already have a regression result for this type
+        // Concurrent identical requests share one fit (and one saved result), each getting its own copy
+        // as callers set fields on the result
+        return requestCoalescer.execute("performRegression", new Object[] { type, forceRecalculate },
+            () -> computeRegression(type, forceRecalculate), RegressionResult::copy);
+    }
+    
+    private RegressionResult computeRegression(String type, boolean forceRecalculate) {
+        // Reuse the stored result as long as the data it was computed from has not changed
         if (!forceRecalculate) {
-            Optional<RegressionResult> existingResult = regressionRepository.findByType(type);
+            Optional<RegressionResult> existingResult = regressionRepository.findByTypeAndScope(type, null);
             if (existingResult.isPresent()) {
-                logger.info("Using existing regression result for type: {}", type);
-                return existingResult.get();
+                long generation = dataGenerationService.getGeneration(type);
+                if (existingResult.get().getDataGeneration() == generation) {
+                    logger.info("Using existing regression result for type: {} (generation {})", type, generation);
+                    return existingResult.get();
+                }
+                logger.info("Stored regression result for type: {} is stale (generation {} -> {})",
+                            type, existingResult.get().getDataGeneration(), generation);
             }
         }
         
-        // If no existing result or force recalculate is true, perform the regression
+        // If no existing result or force recalculate is true, refit from the maintained statistics.
+        // The generation is read before the statistics, so a write in between leaves the result stale
+        // rather than falsely fresh
         logger.info("Performing new regression analysis for type: {}", type);
-        List<VehicleRecord> records = vehicleRepository.findByType(type);
-        if (records.isEmpty()) {
+        long generation = dataGenerationService.getGeneration(type);
+        RegressionAccumulator statistics = regressionStatisticsService.getStatistics(type);
+        if (statistics.isEmpty()) {
             throw new IllegalArgumentException("No data found for vehicle type: " + type);
         }
 
-        return performRegression(records, type);
+        logger.info("Performing regression analysis for type: {} from statistics of {} records", type, statistics.getN());
+        return fitAndStore(type, generation, () -> this.regressionUtils.performRegression(statistics, type));
+    }
+    
+    /**
+     * Fit the regression of a vehicle type from its maintained sufficient statistics, without saving it
+     * @param type Vehicle type (sheet name), or "all" for every type
+     * @return RegressionResult containing the regression equation and metrics
+     * @throws IllegalArgumentException if the type has no usable records
+     */
+    public RegressionResult fitFromStatistics(String type) {
+        return fitFromStatistics(type, false);
+    }
+    
+    /**
+     * Fit the regression of a vehicle type from its maintained sufficient statistics, without saving it
+     * @param type Vehicle type (sheet name), or "all" for every type
+     * @param excludeOutliers Whether to leave out the records flagged by the outlier detection (requires a type)
+     * @return RegressionResult containing the regression equation and metrics, its scope is
+     *         "outliers=excluded" when outliers are left out
+     * @throws IllegalArgumentException if the type has no usable records
+     */
+    public RegressionResult fitFromStatistics(String type, boolean excludeOutliers) {
+        return fitSlice(type, null, null, null, excludeOutliers);
+    }
+    
+    /**
+     * Fit the regression of an arbitrary slice of the data by merging the statistics of its partitions, without saving it
+     * @param type Vehicle type (sheet name), or "all" / null for every type
+     * @param region Optional region
+     * @param year Optional year
+     * @param matricule Optional vehicle registration number
+     * @return RegressionResult of the slice, its scope describes the filters
+     * @throws IllegalArgumentException if the slice has no usable records
+     */
+    public RegressionResult fitSlice(String type, String region, String year, String matricule) {
+        return fitSlice(type, region, year, matricule, false);
+    }
+    
+    /**
+     * Fit the regression of an arbitrary slice of the data by merging the statistics of its partitions, without saving it
+     * @param type Vehicle type (sheet name), or "all" / null for every type
+     * @param region Optional region
+     * @param year Optional year
+     * @param matricule Optional vehicle registration number
+     * @param excludeOutliers Whether to leave out the records flagged by the outlier detection (requires a type)
+     * @return RegressionResult of the slice, its scope describes the filters
+     * @throws IllegalArgumentException if the slice has no usable records
+     */
+    public RegressionResult fitSlice(String type, String region, String year, String matricule, boolean excludeOutliers) {
+        long generation = dataGenerationService.getGeneration(type);
+        RegressionAccumulator statistics = regressionStatisticsService.getStatistics(type, region, year, matricule);
+        if (excludeOutliers) {
+            // The flagged records keep their values, so they are simply subtracted from the sums
+            outlierService.excludeOutliers(type, statistics, region, year, matricule);
+        }
+        String scope = describeScope(region, year, matricule, excludeOutliers);
+        if (statistics.isEmpty()) {
+            throw new IllegalArgumentException("No valid records found for type: " + type
+                + (scope != null ? " (" + scope + ")" : ""));
+        }
+        
+        RegressionResult result = regressionUtils.performRegression(statistics, type != null ? type : "all");
+        result.setScope(scope);
+        result.setDataGeneration(generation);
+        return result;
+    }
+    
+    /**
+     * Describe the slice filters, e.g. "region=Nord,year=2024"
+     * @return The scope, or null when no filter is set
+     */
+    private String describeScope(String region, String year, String matricule, boolean excludeOutliers) {
+        List<String> filters = new ArrayList<>();
+        if (region != null && !region.isEmpty()) {
+            filters.add("region=" + region);
+        }
+        if (year != null && !year.isEmpty()) {
+            filters.add("year=" + year);
+        }
+        if (matricule != null && !matricule.isEmpty()) {
+            filters.add("matricule=" + matricule);
+        }
+        if (excludeOutliers) {
+            filters.add("outliers=excluded");
+        }
+        return filters.isEmpty() ? null : String.join(",", filters);
     }
     
     /**
@@ -86,40 +238,130 @@ public class RegressionService {
      * @return List of regression results for all vehicle types
      */
     public List<RegressionResult> performRegressionForAllTypes(boolean forceRecalculate) {
-        List<String> vehicleTypes = vehicleService.getCachedSheetNames();
-        List<RegressionResult> results = new ArrayList<>();
+        return performRegressionForAllTypesConcurrently(forceRecalculate).getOutcomes().stream()
+            .map(TypeOutcome::getResult)
+            .filter(Objects::nonNull)
+            .toList();
+    }
+    
+    /**
+     * Perform regression analysis for all available vehicle types concurrently
+     * @param forceRecalculate Whether to force recalculation even if results exist
+     * @return Report with the result, status and latency of each type
+     */
+    public RegressionBatchReport performRegressionForAllTypesConcurrently(boolean forceRecalculate) {
+        return performRegressionForTypes(vehicleService.getCachedSheetNames(), forceRecalculate);
+    }
+    
+    /**
+     * Perform regression analysis for several vehicle types concurrently on the regression executor.
+     * A slow or failing type does not delay or fail the others: each type has its own timeout
+     * (app.regression.delai-par-type-secondes) and its own outcome in the report.
+     * @param types Vehicle types
+     * @param forceRecalculate Whether to force recalculation even if results exist
+     * @return Report with the result, status and latency of each type
+     */
+    public RegressionBatchReport performRegressionForTypes(List<String> types, boolean forceRecalculate) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        logger.info("Performing regression for vehicle types: {}, forceRecalculate: {}", types, forceRecalculate);
         
-        logger.info("Performing regression for all vehicle types: {}, forceRecalculate: {}", vehicleTypes, forceRecalculate);
+        List<CompletableFuture<TypeOutcome>> futures = new ArrayList<>();
+        for (String type : types) {
+            futures.add(submitRegression(type, forceRecalculate));
+        }
         
-        for (String type : vehicleTypes) {
-            try {
-                RegressionResult result = performRegression(type, forceRecalculate);
-                results.add(result);
-                logger.info("Successfully processed regression for type: {}", type);
-            } catch (Exception e) {
-                logger.error("Error performing regression for type: {}", type, e);
-                // Continue with other types even if one fails
-            }
+        List<TypeOutcome> outcomes = futures.stream()
+            .map(CompletableFuture::join)
+            .toList();
+        
+        RegressionBatchReport report = RegressionBatchReport.builder()
+            .startedAt(startedAt)
+            .wallMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+            .succeeded(countStatus(outcomes, TypeOutcome.SUCCESS))
+            .fallback(countStatus(outcomes, TypeOutcome.FALLBACK))
+            .failed(countStatus(outcomes, TypeOutcome.FAILED))
+            .timedOut(countStatus(outcomes, TypeOutcome.TIMEOUT))
+            .outcomes(outcomes)
+            .build();
+        
+        logger.info("Regression for {} types finished in {} ms: {} succeeded, {} fallback, {} failed, {} timed out",
+                    types.size(), report.getWallMillis(), report.getSucceeded(), report.getFallback(),
+                    report.getFailed(), report.getTimedOut());
+        return report;
+    }
+    
+    /**
+     * Run the regression of one type on the regression executor, never completing exceptionally
+     */
+    private CompletableFuture<TypeOutcome> submitRegression(String type, boolean forceRecalculate) {
+        long submitted = System.nanoTime();
+        CompletableFuture<RegressionResult> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> performRegression(type, forceRecalculate), regressionExecutor);
+        } catch (RuntimeException e) {
+            // Executor saturated
+            logger.error("Regression for type {} rejected: {}", type, e.getMessage());
+            return CompletableFuture.completedFuture(TypeOutcome.builder()
+                .type(type)
+                .status(TypeOutcome.FAILED)
+                .error("Rejected: " + e.getMessage())
+                .build());
         }
         
-        return results;
+        // The timeout releases the caller; the fit itself keeps running until it returns
+        return future
+            .orTimeout(perTypeTimeoutSeconds, TimeUnit.SECONDS)
+            .handle((result, error) -> {
+                long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submitted);
+                TypeOutcome.TypeOutcomeBuilder outcome = TypeOutcome.builder()
+                    .type(type)
+                    .durationMillis(durationMillis);
+                
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof TimeoutException) {
+                    logger.error("Regression for type {} timed out after {} s", type, perTypeTimeoutSeconds);
+                    return outcome.status(TypeOutcome.TIMEOUT)
+                        .error("Timed out after " + perTypeTimeoutSeconds + " s")
+                        .build();
+                }
+                if (cause != null) {
+                    logger.error("Error performing regression for type: {}", type, cause);
+                    return outcome.status(TypeOutcome.FAILED).error(cause.getMessage()).build();
+                }
+                
+                // A result without ID is the unsaved default returned when the fit fails
+                logger.info("Processed regression for type: {} in {} ms", type, durationMillis);
+                return outcome
+                    .status(result.getId() != null ? TypeOutcome.SUCCESS : TypeOutcome.FALLBACK)
+                    .result(result)
+                    .build();
+            });
+    }
+    
+    private int countStatus(List<TypeOutcome> outcomes, String status) {
+        return (int) outcomes.stream().filter(outcome -> status.equals(outcome.getStatus())).count();
     }
 
     /**
      * Get all regression results
-     * @return List of all regression results
+     * @return Unmodifiable list of all regression results, shared with the cache: copy a result before modifying it
      */
+    @Cacheable(cacheNames = CacheConfig.REGRESSION_RESULTS_CACHE, key = "{'all'}")
     public List<RegressionResult> getAllRegressionResults() {
-        return regressionRepository.findAll();
+        return requestCoalescer.execute("getAllRegressionResults", new Object[0],
+            () -> regressionRepository.findAll().stream().map(RegressionResult::unmodifiableCopy).toList());
     }
 
     /**
      * Get regression result by vehicle type
      * @param type Vehicle type (sheet name)
-     * @return Optional containing the regression result if found
+     * @return Optional containing the regression result if found, shared with the cache: copy it before modifying it
      */
+    @Cacheable(cacheNames = CacheConfig.REGRESSION_RESULTS_CACHE, key = "{'byType', #type}")
     public Optional<RegressionResult> getRegressionResultByType(String type) {
-        return regressionRepository.findByType(type);
+        return requestCoalescer.execute("getRegressionResultByType", new Object[] { type },
+            () -> regressionRepository.findByTypeAndScope(type, null).map(RegressionResult::unmodifiableCopy));
     }
 
     /**
@@ -136,7 +378,90 @@ public class RegressionService {
      * @param id Regression result ID
      */
     public void deleteRegressionResult(String id) {
+        String type = regressionRepository.findById(id).map(RegressionResult::getType).orElse(null);
         regressionRepository.deleteById(id);
+        eventPublisher.publishEvent(new RegressionResultChangedEvent(this, type));
+    }
+    
+    /**
+     * Save a computed regression result as the current result of its type and scope, and notify listeners.
+     * The result it replaces is moved to the history collection.
+     * @param result The regression result to save
+     * @return The saved regression result
+     */
+    public RegressionResult storeRegressionResult(RegressionResult result) {
+        if (result.getComputedAt() == null) {
+            result.setComputedAt(LocalDateTime.now());
+        }
+        
+        RegressionResult savedResult;
+        try {
+            savedResult = replaceCurrentResult(result);
+        } catch (DuplicateKeyException e) {
+            // Another thread stored the first result of this type and scope meanwhile: replace it
+            logger.debug("Concurrent store for type: {}, scope: {}, retrying", result.getType(), result.getScope());
+            savedResult = replaceCurrentResult(result);
+        }
+        
+        eventPublisher.publishEvent(new RegressionResultChangedEvent(this, savedResult.getType()));
+        return savedResult;
+    }
+    
+    /**
+     * Replace the current result of the type and scope in one atomic upsert, then archive the document it replaced:
+     * concurrent stores each archive a distinct previous result
+     */
+    private RegressionResult replaceCurrentResult(RegressionResult result) {
+        result.setId(null);
+        Query currentQuery = new Query(Criteria.where("type").is(result.getType()).and("scope").is(result.getScope()));
+        RegressionResult previousResult = mongoTemplate.findAndReplace(currentQuery, result,
+            FindAndReplaceOptions.options().upsert());
+        if (previousResult != null) {
+            // The replacement keeps the _id of the document it replaced
+            result.setId(previousResult.getId());
+            archiveResult(previousResult);
+        } else {
+            Query idQuery = Query.of(currentQuery);
+            idQuery.fields().include("_id");
+            RegressionResult inserted = mongoTemplate.findOne(idQuery, RegressionResult.class);
+            if (inserted != null) {
+                result.setId(inserted.getId());
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Copy a superseded result to the history collection, keeping the most recent ones per type and scope
+     */
+    private void archiveResult(RegressionResult result) {
+        RegressionResult archived = result.toBuilder().id(null).build();
+        mongoTemplate.insert(archived, RegressionResult.HISTORY_COLLECTION);
+        
+        Query olderResults = historyQuery(result.getType(), result.getScope())
+            .skip(maxHistoryPerType);
+        olderResults.fields().include("_id");
+        List<Object> expiredIds = mongoTemplate.find(olderResults, RegressionResult.class, RegressionResult.HISTORY_COLLECTION)
+            .stream()
+            .map(expired -> (Object) expired.getId())
+            .toList();
+        if (!expiredIds.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(expiredIds)), RegressionResult.HISTORY_COLLECTION);
+        }
+    }
+    
+    /**
+     * Get the superseded results of a vehicle type, most recent first
+     * @param type Vehicle type (sheet name)
+     * @return List of previous regression results
+     */
+    public List<RegressionResult> getRegressionHistory(String type) {
+        return mongoTemplate.find(historyQuery(type, null), RegressionResult.class, RegressionResult.HISTORY_COLLECTION);
+    }
+    
+    private Query historyQuery(String type, String scope) {
+        return new Query(Criteria.where("type").is(type).and("scope").is(scope))
+            .with(Sort.by(Sort.Direction.DESC, "computedAt"));
     }
 
     /**
@@ -145,7 +470,14 @@ public class RegressionService {
      * @param type Vehicle type (sheet name)
      * @return Map with months as keys and regression-specific metrics as values
      */
+    @Cacheable(cacheNames = CacheConfig.VEHICLE_DATA_CACHE, key = "{'regressionMonthlyTotals', #type}")
     public Map<String, Map<String, Double>> getMonthlyTotalsForRegression(String type) {
+        // Concurrent identical requests share one computation
+        return requestCoalescer.execute("regressionMonthlyTotals", new Object[] { type },
+            () -> computeMonthlyTotalsForRegression(type));
+    }
+    
+    private Map<String, Map<String, Double>> computeMonthlyTotalsForRegression(String type) {
         // First normalize the vehicle type to avoid case-sensitivity issues
         String normalizedType = type.trim();
         
@@ -221,17 +553,13 @@ public class RegressionService {
             result.setId(java.util.UUID.randomUUID().toString());
         }
         
-        // Check if we already have a regression for this type and update it if so
-        Optional<RegressionResult> existingResult = getRegressionResultByType(result.getType());
-        if (existingResult.isPresent()) {
-            result.setId(existingResult.get().getId());
-            logger.info("Updating existing regression result for type: {}", result.getType());
-        } else {
-            logger.info("Creating new regression result for type: {}", result.getType());
-        }
+        // A manual result stands for the current data of its type
+        result.setDataGeneration(dataGenerationService.getGeneration(result.getType()));
+        result.setComputedAt(null);
+        logger.info("Saving manual regression result for type: {}", result.getType());
         
-        // Save the result to the repository
-        return regressionRepository.save(result);
+        // Save the result to the repository (replaces the current result of the type, which goes to history)
+        return storeRegressionResult(result);
     }
 
     /**
@@ -239,7 +567,7 @@ public class RegressionService {
      * 
      * @param records List of vehicle records to analyze
      * @param type Vehicle type
-     * @return Regression result
+     * @return Regression result, stamped with the data generation read on entry (records read before it may be newer)
      */
     public RegressionResult performRegression(List<VehicleRecord> records, String type) {
         logger.info("Performing regression analysis for type: {} with {} records", type, records.size());
@@ -256,12 +584,38 @@ public class RegressionService {
                     records.size());
                 // We'll still try to calculate, but with a warning
             }
-            
-            // Check for any potential outliers in the data
-            checkForOutliers(records);
-            
-            // Use the injected RegressionUtils component for proper multiple linear regression
-            RegressionResult result = this.regressionUtils.performRegression(records, type);
+        } catch (Exception e) {
+            logger.error("Error checking regression data", e);
+        }
+        
+        // Use the injected RegressionUtils component for proper multiple linear regression
+        return fitAndStore(type, dataGenerationService.getGeneration(type),
+            () -> this.regressionUtils.performRegression(records, type));
+    }
+    
+    /**
+     * Perform regression analysis from accumulated sufficient statistics
+     * 
+     * @param statistics Statistics of the records to analyze
+     * @param type Vehicle type
+     * @param generation Data generation of the type, read before the statistics
+     * @return Regression result
+     */
+    public RegressionResult performRegression(RegressionAccumulator statistics, String type, long generation) {
+        logger.info("Performing regression analysis for type: {} from statistics of {} records", type, statistics.getN());
+        return fitAndStore(type, generation, () -> this.regressionUtils.performRegression(statistics, type));
+    }
+    
+    /**
+     * Run a fit, validate and save its result, falling back to a default (unsaved) result when it fails
+     * @param generation Data generation stamped on the result, read by the caller before the data it fits
+     */
+    private RegressionResult fitAndStore(String type, long generation, Supplier<RegressionResult> fit) {
+        try {
+            RegressionResult result = fit.get();
+            if (result != null) {
+                result.setDataGeneration(generation);
+            }
             
             // Check for invalid coefficient values
             if (result != null) {
@@ -290,7 +644,7 @@ public class RegressionService {
             
             // Save the result to the repository if it's not null
             if (result != null) {
-                return regressionRepository.save(result);
+                return storeRegressionResult(result);
             } else {
                 logger.warn("Cannot save null regression result");
                 // Create a default result with warning message when regression fails
@@ -343,61 +697,5 @@ public class RegressionService {
         }
     }
     
-    /**
-     * Check for potential outliers in the dataset that might skew regression results
-     * 
-     * @param records Vehicle records to analyze for outliers
-     */
-    private void checkForOutliers(List<VehicleRecord> records) {
-        if (records.size() < 5) {
-            // Need enough data points to reliably detect outliers
-            return;
-        }
-        
-        // Calculate mean and standard deviation for key metrics
-        double sumKm = 0, sumKmSq = 0;
-        double sumTon = 0, sumTonSq = 0;
-        double sumConsommation = 0, sumConsommationSq = 0;
-        
-        for (VehicleRecord record : records) {
-            sumKm += record.getKilometrage();
-            sumKmSq += record.getKilometrage() * record.getKilometrage();
-            
-            sumTon += record.getProduitsTonnes();
-            sumTonSq += record.getProduitsTonnes() * record.getProduitsTonnes();
-            
-            sumConsommation += record.getConsommationL();
-            sumConsommationSq += record.getConsommationL() * record.getConsommationL();
-        }
-        
-        int n = records.size();
-        double meanKm = sumKm / n;
-        double stdDevKm = Math.sqrt((sumKmSq / n) - (meanKm * meanKm));
-        
-        double meanTon = sumTon / n;
-        double stdDevTon = Math.sqrt((sumTonSq / n) - (meanTon * meanTon));
-        
-        double meanConsommation = sumConsommation / n;
-        double stdDevConsommation = Math.sqrt((sumConsommationSq / n) - (meanConsommation * meanConsommation));
-        
-        // Check for outliers (> 3 standard deviations from mean)
-        for (VehicleRecord record : records) {
-            if (Math.abs(record.getKilometrage() - meanKm) > 3 * stdDevKm) {
-                logger.warn("Potential outlier detected: kilometrage = {} (mean = {}, std = {})", 
-                    record.getKilometrage(), meanKm, stdDevKm);
-            }
-            
-            if (Math.abs(record.getProduitsTonnes() - meanTon) > 3 * stdDevTon) {
-                logger.warn("Potential outlier detected: tonnage = {} (mean = {}, std = {})", 
-                    record.getProduitsTonnes(), meanTon, stdDevTon);
-            }
-            
-            if (Math.abs(record.getConsommationL() - meanConsommation) > 3 * stdDevConsommation) {
-                logger.warn("Potential outlier detected: consumption = {} (mean = {}, std = {})", 
-                    record.getConsommationL(), meanConsommation, stdDevConsommation);
-            }
-        }
-    }
-    
     // End of RegressionService class
 }
\ No newline at end of file
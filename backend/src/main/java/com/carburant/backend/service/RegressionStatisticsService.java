@@ -0,0 +1,362 @@
+package com.carburant.backend.service;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.event.VehicleDataChangedEvent;
+import com.carburant.backend.model.RegressionStatistics;
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.utils.RegressionAccumulator;
+
+/**
+ * Maintains the regression sufficient statistics in the regression_statistics collection, one document per
+ * finest-grained partition (type, region, year, matricule). The statistics are additive, so the fit of any
+ * slice (a type, a region, a year, a vehicle or a combination) is obtained by summing its partitions.
+ * Record-level changes are applied as atomic $inc deltas; bulk changes whose records are unknown
+ * rebuild the statistics of the affected types with a single MongoDB aggregation.
+ * A rebuild never runs between a record write and the application of its deltas (see {@link #fenceRecordWrite}),
+ * otherwise the records it counted would be added a second time by the deltas.
+ */
+@Service
+public class RegressionStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegressionStatisticsService.class);
+
+    private static final String ALL_TYPES = "all";
+
+    private final MongoTemplate mongoTemplate;
+
+    /** Shared by record writes until their deltas are applied, exclusive for rebuilds */
+    private final ReadWriteLock rebuildFence = new ReentrantReadWriteLock();
+
+    /** Types ("all" for every type) known to have no usable records, so reading them does not rebuild again */
+    private final Set<String> emptyTypes = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.regression.statistiques.reconstruire-au-demarrage:true}")
+    private boolean rebuildOnStartup;
+
+    @Autowired
+    public RegressionStatisticsService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Get the accumulated statistics of a vehicle type
+     * @param type Vehicle type, or "all" / null for every type
+     * @return The statistics (empty if the type has no usable records)
+     */
+    public RegressionAccumulator getStatistics(String type) {
+        return getStatistics(type, null, null, null);
+    }
+
+    /**
+     * Get the accumulated statistics of a slice of the data by merging its partitions
+     * @param type Vehicle type, or "all" / null for every type
+     * @param region Optional region
+     * @param year Optional year
+     * @param matricule Optional vehicle registration number
+     * @return The statistics (empty if the slice has no usable records)
+     */
+    public RegressionAccumulator getStatistics(String type, String region, String year, String matricule) {
+        Query sliceQuery = sliceQuery(type, region, year, matricule);
+        List<RegressionStatistics> partitions = mongoTemplate.find(sliceQuery, RegressionStatistics.class);
+        if (partitions.isEmpty() && !emptyTypes.contains(typeKey(type))
+                && !mongoTemplate.exists(typeQuery(type), RegressionStatistics.class)) {
+            // Statistics not built yet for this type (e.g. data imported before the store existed)
+            rebuild(type);
+            partitions = mongoTemplate.find(sliceQuery, RegressionStatistics.class);
+        }
+
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        partitions.forEach(partition -> accumulator.merge(toAccumulator(partition)));
+        logger.debug("Merged {} regression statistics partitions for type: {}, region: {}, year: {}, matricule: {}",
+                     partitions.size(), type, region, year, matricule);
+        return accumulator;
+    }
+
+    /**
+     * Run a write of vehicle records together with the publication of its record-level
+     * {@link VehicleDataChangedEvent}, so that no rebuild runs in between: a rebuild either runs before the
+     * write, or after the deltas of the written records were applied and then replaces them.
+     * Must not be called from a rebuild, and the write must not trigger one.
+     * @param write The write, publishing its change event before returning
+     * @return The result of the write
+     */
+    public <T> T fenceRecordWrite(Supplier<T> write) {
+        rebuildFence.readLock().lock();
+        try {
+            return write.get();
+        } finally {
+            rebuildFence.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recompute the statistics of a vehicle type from the records
+     * @param type Vehicle type, or "all" / null for every type
+     * @return The rebuilt statistics
+     */
+    public List<RegressionStatistics> rebuild(String type) {
+        // Waits for the record writes in progress to apply their deltas, and excludes other rebuilds
+        rebuildFence.writeLock().lock();
+        try {
+            return rebuildFenced(type);
+        } finally {
+            rebuildFence.writeLock().unlock();
+        }
+    }
+
+    private List<RegressionStatistics> rebuildFenced(String type) {
+        long start = System.currentTimeMillis();
+
+        Criteria criteria = usableRecordCriteria();
+        if (!isAllTypes(type)) {
+            criteria = criteria.and("type").is(type);
+        }
+
+        Aggregation aggregation = newAggregation(
+            match(criteria),
+            group("type", "region", "year", "matricule")
+                .count().as("n")
+                .sum("kilometrage").as("sumKilometrage")
+                .sum("produitsTonnes").as("sumTonnage")
+                .sum("consommationL").as("sumConsommation")
+                .sum(product("kilometrage", "kilometrage")).as("sumKilometrageSq")
+                .sum(product("kilometrage", "produitsTonnes")).as("sumKilometrageTonnage")
+                .sum(product("produitsTonnes", "produitsTonnes")).as("sumTonnageSq")
+                .sum(product("kilometrage", "consommationL")).as("sumKilometrageConsommation")
+                .sum(product("produitsTonnes", "consommationL")).as("sumTonnageConsommation")
+                .sum(product("consommationL", "consommationL")).as("sumConsommationSq")
+        );
+
+        LocalDateTime now = LocalDateTime.now();
+        List<RegressionStatistics> partitions = mongoTemplate.aggregate(aggregation, VehicleRecord.class, Document.class)
+            .getMappedResults().stream()
+            .map(document -> {
+                Document partition = document.get("_id", Document.class);
+                return RegressionStatistics.builder()
+                    .id(partitionKey(partition.getString("type"), partition.getString("region"),
+                                     partition.getString("year"), partition.getString("matricule")))
+                    .type(partition.getString("type"))
+                    .region(partition.getString("region"))
+                    .year(partition.getString("year"))
+                    .matricule(partition.getString("matricule"))
+                    .n(((Number) document.get("n")).longValue())
+                    .sumKilometrage(toDouble(document.get("sumKilometrage")))
+                    .sumTonnage(toDouble(document.get("sumTonnage")))
+                    .sumConsommation(toDouble(document.get("sumConsommation")))
+                    .sumKilometrageSq(toDouble(document.get("sumKilometrageSq")))
+                    .sumKilometrageTonnage(toDouble(document.get("sumKilometrageTonnage")))
+                    .sumTonnageSq(toDouble(document.get("sumTonnageSq")))
+                    .sumKilometrageConsommation(toDouble(document.get("sumKilometrageConsommation")))
+                    .sumTonnageConsommation(toDouble(document.get("sumTonnageConsommation")))
+                    .sumConsommationSq(toDouble(document.get("sumConsommationSq")))
+                    .lastUpdated(now)
+                    .build();
+            })
+            .filter(partition -> partition.getType() != null)
+            .toList();
+
+        mongoTemplate.remove(typeQuery(type), RegressionStatistics.class);
+        if (!partitions.isEmpty()) {
+            mongoTemplate.insertAll(partitions);
+        }
+        if (isAllTypes(type)) {
+            emptyTypes.clear();
+        }
+        if (partitions.isEmpty()) {
+            emptyTypes.add(typeKey(type));
+        } else {
+            emptyTypes.remove(typeKey(type));
+            emptyTypes.remove(ALL_TYPES);
+        }
+
+        logger.info("Rebuilt regression statistics for type: {} ({} partitions) in {} ms",
+                    isAllTypes(type) ? "all" : type, partitions.size(), System.currentTimeMillis() - start);
+        return partitions;
+    }
+
+    /**
+     * Build the statistics of all types once the application is started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        try {
+            rebuild(null);
+        } catch (Exception e) {
+            logger.warn("Could not build regression statistics at startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Keep the statistics in line with the vehicle records
+     */
+    @EventListener
+    public void onVehicleDataChanged(VehicleDataChangedEvent event) {
+        if (event.hasRecordChanges()) {
+            applyChanges(event.getRemovedRecords(), event.getAddedRecords());
+        } else if (event.affectsAllTypes()) {
+            rebuild(null);
+        } else {
+            event.getTypes().forEach(this::rebuild);
+        }
+    }
+
+    /**
+     * Apply record removals and additions to the stored statistics
+     * @param removedRecords Records removed or replaced
+     * @param addedRecords Records inserted or updated
+     */
+    public synchronized void applyChanges(List<VehicleRecord> removedRecords, List<VehicleRecord> addedRecords) {
+        Map<String, RegressionAccumulator> deltas = new LinkedHashMap<>();
+        Map<String, VehicleRecord> partitionRecords = new LinkedHashMap<>();
+
+        for (VehicleRecord record : removedRecords) {
+            if (RegressionAccumulator.isUsable(record) && record.getType() != null) {
+                deltas.computeIfAbsent(partitionKey(record), key -> new RegressionAccumulator()).remove(record);
+                partitionRecords.put(partitionKey(record), record);
+            }
+        }
+        for (VehicleRecord record : addedRecords) {
+            if (RegressionAccumulator.isUsable(record) && record.getType() != null) {
+                deltas.computeIfAbsent(partitionKey(record), key -> new RegressionAccumulator()).add(record);
+                partitionRecords.put(partitionKey(record), record);
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+        partitionRecords.values().forEach(record -> emptyTypes.remove(record.getType()));
+        emptyTypes.remove(ALL_TYPES);
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RegressionStatistics.class);
+        deltas.forEach((key, delta) -> operations.upsert(
+            new Query(Criteria.where("_id").is(key)),
+            new Update()
+                .set("type", partitionRecords.get(key).getType())
+                .set("region", partitionRecords.get(key).getRegion())
+                .set("year", partitionRecords.get(key).getYear())
+                .set("matricule", partitionRecords.get(key).getMatricule())
+                .set("lastUpdated", now)
+                .inc("n", delta.getN())
+                .inc("sumKilometrage", delta.getSumKilometrage())
+                .inc("sumTonnage", delta.getSumTonnage())
+                .inc("sumConsommation", delta.getSumConsommation())
+                .inc("sumKilometrageSq", delta.getSumKilometrageSq())
+                .inc("sumKilometrageTonnage", delta.getSumKilometrageTonnage())
+                .inc("sumTonnageSq", delta.getSumTonnageSq())
+                .inc("sumKilometrageConsommation", delta.getSumKilometrageConsommation())
+                .inc("sumTonnageConsommation", delta.getSumTonnageConsommation())
+                .inc("sumConsommationSq", delta.getSumConsommationSq())));
+        operations.execute();
+
+        // Partitions whose records were all removed
+        mongoTemplate.remove(new Query(Criteria.where("n").lte(0)), RegressionStatistics.class);
+
+        logger.debug("Applied regression statistics deltas to {} partitions ({} removed, {} added records)",
+                     deltas.size(), removedRecords.size(), addedRecords.size());
+    }
+
+    /**
+     * Partition a record belongs to
+     */
+    private String partitionKey(VehicleRecord record) {
+        return partitionKey(record.getType(), record.getRegion(), record.getYear(), record.getMatricule());
+    }
+
+    private String partitionKey(String type, String region, String year, String matricule) {
+        return String.join("|",
+            type == null ? "" : type,
+            region == null ? "" : region,
+            year == null ? "" : year,
+            matricule == null ? "" : matricule);
+    }
+
+    private Query sliceQuery(String type, String region, String year, String matricule) {
+        List<Criteria> filters = new ArrayList<>();
+        if (!isAllTypes(type)) {
+            filters.add(Criteria.where("type").is(type));
+        }
+        if (region != null && !region.isEmpty()) {
+            filters.add(Criteria.where("region").is(region));
+        }
+        if (year != null && !year.isEmpty()) {
+            filters.add(Criteria.where("year").is(year));
+        }
+        if (matricule != null && !matricule.isEmpty()) {
+            filters.add(Criteria.where("matricule").is(matricule));
+        }
+        return filters.isEmpty() ? new Query() : new Query(new Criteria().andOperator(filters));
+    }
+
+    private Criteria usableRecordCriteria() {
+        return Criteria.where("consommationL").gt(0).and("kilometrage").gt(0);
+    }
+
+    private Query typeQuery(String type) {
+        return isAllTypes(type) ? new Query() : new Query(Criteria.where("type").is(type));
+    }
+
+    private boolean isAllTypes(String type) {
+        return type == null || ALL_TYPES.equalsIgnoreCase(type);
+    }
+
+    private String typeKey(String type) {
+        return isAllTypes(type) ? ALL_TYPES : type;
+    }
+
+    private ArithmeticOperators.Multiply product(String field, String otherField) {
+        return ArithmeticOperators.valueOf(field).multiplyBy(otherField);
+    }
+
+    private RegressionAccumulator toAccumulator(RegressionStatistics statistics) {
+        return new RegressionAccumulator(
+            statistics.getN(),
+            statistics.getSumKilometrage(),
+            statistics.getSumTonnage(),
+            statistics.getSumConsommation(),
+            statistics.getSumKilometrageSq(),
+            statistics.getSumKilometrageTonnage(),
+            statistics.getSumTonnageSq(),
+            statistics.getSumKilometrageConsommation(),
+            statistics.getSumTonnageConsommation(),
+            statistics.getSumConsommationSq());
+    }
+
+    private double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+}
@@ -0,0 +1,622 @@
+package com.carburant.backend.service;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.model.ReportJob;
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.repository.ReportJobRepository;
+import com.carburant.backend.utils.DiskLruCache;
+import com.carburant.backend.utils.MonthUtils;
+import com.carburant.backend.utils.RegressionAccumulator;
+import com.carburant.backend.utils.RegressionPredictor;
+import com.carburant.backend.utils.ReportWriter;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Asynchronous report generation. A job is persisted as PENDING, rendered on the report executor
+ * from MongoDB cursors into a CSV or streamed XLSX file, and kept on disk for download.
+ * Request threads only create the job; jobs left pending or running by a restart are resubmitted.
+ * <p>
+ * Rendered files are also kept in a disk cache keyed by the report parameters and the data generation
+ * of the vehicle type, so a report requested again on unchanged data completes at once, without reading
+ * any record.
+ */
+@Service
+public class ReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ReportJobRepository reportJobRepository;
+    private final PredictionService predictionService;
+    private final DataGenerationService dataGenerationService;
+    private final AsyncTaskExecutor reportExecutor;
+    private DiskLruCache reportCache;
+
+    /** Callers waiting for the end of a job, by job id */
+    private final Map<String, CompletableFuture<ReportJob>> completions = new ConcurrentHashMap<>();
+
+    @Value("${app.rapports.repertoire:rapports}")
+    private String reportDirectory;
+
+    @Value("${app.rapports.niveau-confiance:0.95}")
+    private double confidenceLevel = 0.95;
+
+    @Value("${app.rapports.cache.repertoire:rapports/cache}")
+    private String cacheDirectory;
+
+    @Value("${app.rapports.cache.taille-max-mo:512}")
+    private long cacheMaxMegabytes;
+
+    @Value("${app.export.fenetre-lignes:100}")
+    private int rowAccessWindow;
+
+    @Value("${app.export.taille-lot-curseur:500}")
+    private int cursorBatchSize;
+
+    @Autowired
+    public ReportService(MongoTemplate mongoTemplate, ReportJobRepository reportJobRepository,
+            PredictionService predictionService, DataGenerationService dataGenerationService,
+            @Qualifier("reportExecutor") AsyncTaskExecutor reportExecutor) {
+        this.mongoTemplate = mongoTemplate;
+        this.reportJobRepository = reportJobRepository;
+        this.predictionService = predictionService;
+        this.dataGenerationService = dataGenerationService;
+        this.reportExecutor = reportExecutor;
+    }
+
+    @PostConstruct
+    public void openCache() throws IOException {
+        reportCache = new DiskLruCache(Paths.get(cacheDirectory), cacheMaxMegabytes * 1024 * 1024);
+        logger.info("Report cache: {} files, {} bytes of {} MB", reportCache.getEntryCount(),
+                    reportCache.getTotalBytes(), cacheMaxMegabytes);
+    }
+
+    /**
+     * Create a report job and queue it for rendering
+     * @param type Report type: "monthly" (default), "ipe-ranking" or "ser"
+     * @param vehicleType Vehicle type, or "all" / null for every type
+     * @param startDate Optional first day of the period (yyyy-MM-dd)
+     * @param endDate Optional last day of the period (yyyy-MM-dd)
+     * @param format "xlsx" (default, "excel" is accepted) or "csv"
+     * @return The pending job
+     * @throws IllegalArgumentException if a parameter is invalid
+     * @throws IllegalStateException if the report queue is full
+     */
+    public ReportJob submit(String type, String vehicleType, String startDate, String endDate, String format) {
+        String reportType = normalizeType(type);
+        String reportFormat = normalizeFormat(format);
+        LocalDate start = parseDate(startDate, "startDate");
+        LocalDate end = parseDate(endDate, "endDate");
+        if (start != null && end != null && start.isAfter(end)) {
+            throw new IllegalArgumentException("startDate must not be after endDate");
+        }
+        String vehicles = vehicleType == null || vehicleType.isEmpty() ? "all" : vehicleType;
+
+        ReportJob job = ReportJob.builder()
+            .type(reportType)
+            .vehicleType(vehicles)
+            .startDate(start != null ? start.toString() : null)
+            .endDate(end != null ? end.toString() : null)
+            .format(reportFormat)
+            .name(("Rapport_" + reportType + "_" + vehicles
+                + (start != null ? "_" + start : "") + (end != null ? "_" + end : ""))
+                .replaceAll("[^\\p{L}\\p{N}_.-]", "_") + "." + reportFormat)
+            .status(ReportJob.STATUS_PENDING)
+            .createdAt(LocalDateTime.now())
+            .build();
+        stampGeneration(job);
+
+        Path cached = reportCache.get(job.getCacheKey());
+        if (cached != null && completeFromCache(job, cached)) {
+            return job;
+        }
+        job = reportJobRepository.save(job);
+        enqueue(job);
+        logger.info("Queued report job {} ({}, type {}, {} to {}, {})", job.getId(), reportType, vehicles,
+                    job.getStartDate(), job.getEndDate(), reportFormat);
+        return job;
+    }
+
+    /**
+     * Complete a new job with a cached file of the same report: no record is read
+     * @return false if the cached file could not be linked
+     */
+    private boolean completeFromCache(ReportJob job, Path cached) {
+        job.setId(new ObjectId().toHexString());
+        Path artifact = getArtifact(job);
+        try {
+            Files.createDirectories(artifact.getParent());
+            DiskLruCache.linkOrCopy(cached, artifact);
+            job.setSizeBytes(Files.size(artifact));
+        } catch (IOException e) {
+            logger.warn("Could not reuse cached report {}: {}", job.getCacheKey(), e.getMessage());
+            job.setId(null);
+            return false;
+        }
+        reportJobRepository.findFirstByCacheKeyAndStatusOrderByCompletedAtDesc(job.getCacheKey(), ReportJob.STATUS_COMPLETED)
+            .ifPresent(previous -> job.setRows(previous.getRows()));
+        job.setStatus(ReportJob.STATUS_COMPLETED);
+        job.setCached(true);
+        job.setStartedAt(job.getCreatedAt());
+        job.setCompletedAt(LocalDateTime.now());
+        reportJobRepository.save(job);
+        logger.info("Report job {} served from the cache ({}, type {}, generation {})", job.getId(), job.getType(),
+                    job.getVehicleType(), job.getDataGeneration());
+        return true;
+    }
+
+    /**
+     * Set the data generation the report will be rendered from, and the cache key that goes with it
+     */
+    private void stampGeneration(ReportJob job) {
+        long generation = dataGenerationService.getGeneration(job.getVehicleType());
+        job.setDataGeneration(generation);
+        job.setCacheKey(DiskLruCache.key(job.getType(), job.getVehicleType(), job.getStartDate(), job.getEndDate(),
+            job.getFormat(), generation));
+    }
+
+    /**
+     * Get the report jobs, most recent first
+     */
+    public List<ReportJob> getJobs() {
+        return reportJobRepository.findAllByOrderByCreatedAtDesc();
+    }
+
+    /**
+     * Get a report job
+     * @param id Job id
+     * @return The job, if any
+     */
+    public Optional<ReportJob> getJob(String id) {
+        return reportJobRepository.findById(id);
+    }
+
+    /**
+     * Wait for the end of a job
+     * @param id Job id
+     * @return Completed with the job once it is COMPLETED or FAILED, or with null if the job is deleted
+     *         (waiters are kept in memory: a restart leaves them pending)
+     */
+    public CompletableFuture<ReportJob> whenDone(String id) {
+        CompletableFuture<ReportJob> future = completions.computeIfAbsent(id, key -> new CompletableFuture<>());
+        // The job may have finished before the registration
+        Optional<ReportJob> job = reportJobRepository.findById(id);
+        if (job.isEmpty() || ReportJob.STATUS_COMPLETED.equals(job.get().getStatus())
+                || ReportJob.STATUS_FAILED.equals(job.get().getStatus())) {
+            notifyDone(id, job.orElse(null));
+        }
+        return future;
+    }
+
+    private void notifyDone(String id, ReportJob job) {
+        CompletableFuture<ReportJob> future = completions.remove(id);
+        if (future != null) {
+            future.complete(job);
+        }
+    }
+
+    /**
+     * Get the rendered file of a completed job
+     * @param job The job
+     * @return Path of the artifact
+     */
+    public Path getArtifact(ReportJob job) {
+        return Paths.get(reportDirectory).resolve(job.getId() + "." + job.getFormat());
+    }
+
+    /**
+     * Delete a job and its artifact
+     * @param id Job id
+     * @return false if there is no such job
+     */
+    public boolean delete(String id) {
+        Optional<ReportJob> job = reportJobRepository.findById(id);
+        if (job.isEmpty()) {
+            return false;
+        }
+        reportJobRepository.deleteById(id);
+        try {
+            Files.deleteIfExists(getArtifact(job.get()));
+        } catch (IOException e) {
+            logger.warn("Could not delete the artifact of report job {}: {}", id, e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Resubmit the jobs a restart left pending or running
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        List<ReportJob> interrupted = reportJobRepository.findByStatusIn(
+            List.of(ReportJob.STATUS_PENDING, ReportJob.STATUS_RUNNING));
+        for (ReportJob job : interrupted) {
+            job.setStatus(ReportJob.STATUS_PENDING);
+            job.setStartedAt(null);
+            reportJobRepository.save(job);
+            try {
+                enqueue(job);
+            } catch (IllegalStateException e) {
+                // Marked as failed by enqueue
+            }
+        }
+        if (!interrupted.isEmpty()) {
+            logger.info("Resubmitted {} report jobs interrupted by a restart", interrupted.size());
+        }
+    }
+
+    private void enqueue(ReportJob job) {
+        try {
+            reportExecutor.execute(() -> run(job.getId()));
+        } catch (TaskRejectedException e) {
+            fail(job, "Report queue is full");
+            throw new IllegalStateException("Report queue is full, try again later");
+        }
+    }
+
+    /**
+     * Render a job into its artifact, written to a temporary file first so a download never sees a partial file
+     */
+    private void run(String id) {
+        ReportJob job = reportJobRepository.findById(id).orElse(null);
+        if (job == null) {
+            notifyDone(id, null);
+            return; // Deleted while queued
+        }
+        job.setStatus(ReportJob.STATUS_RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        // The data may have changed while the job was queued: read the generation before rendering
+        stampGeneration(job);
+        reportJobRepository.save(job);
+
+        long start = System.nanoTime();
+        Path artifact = getArtifact(job);
+        Path partial = artifact.resolveSibling(artifact.getFileName() + ".part");
+        try {
+            Files.createDirectories(artifact.getParent());
+            long rows;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                rows = render(job, out);
+            }
+            Files.move(partial, artifact, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            reportCache.put(job.getCacheKey(), artifact);
+
+            if (!reportJobRepository.existsById(id)) {
+                Files.deleteIfExists(artifact); // Deleted while running
+                notifyDone(id, null);
+                return;
+            }
+            job.setStatus(ReportJob.STATUS_COMPLETED);
+            job.setRows(rows);
+            job.setSizeBytes(Files.size(artifact));
+            job.setCompletedAt(LocalDateTime.now());
+            job.setRenderMillis((System.nanoTime() - start) / 1_000_000);
+            reportJobRepository.save(job);
+            logger.info("Report job {} completed: {} rows, {} bytes in {} ms", id, rows, job.getSizeBytes(),
+                        job.getRenderMillis());
+            notifyDone(id, job);
+        } catch (Exception e) {
+            logger.error("Report job {} failed", id, e);
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // Nothing more to clean up
+            }
+            job.setRenderMillis((System.nanoTime() - start) / 1_000_000);
+            fail(job, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private void fail(ReportJob job, String error) {
+        job.setStatus(ReportJob.STATUS_FAILED);
+        job.setError(error);
+        job.setCompletedAt(LocalDateTime.now());
+        reportJobRepository.save(job);
+        notifyDone(job.getId(), job);
+    }
+
+    /**
+     * Render a report
+     * @param job The job describing the report
+     * @param out Destination, not closed
+     * @return Number of data rows
+     */
+    long render(ReportJob job, OutputStream out) throws IOException {
+        Criteria criteria = buildCriteria(job);
+        try (ReportWriter writer = ReportWriter.open(job.getFormat(), sheetName(job.getType()), out, rowAccessWindow)) {
+            switch (job.getType()) {
+                case ReportJob.TYPE_MONTHLY -> writeMonthly(criteria, writer);
+                case ReportJob.TYPE_IPE_RANKING -> writeIpeRanking(criteria, writer);
+                case ReportJob.TYPE_SER -> writeSer(criteria, writer);
+                default -> throw new IllegalArgumentException("Unknown report type: " + job.getType());
+            }
+            writer.finish();
+            return writer.getRows();
+        }
+    }
+
+    /**
+     * Monthly totals per vehicle type, grouped by MongoDB (one row per type, year and month)
+     */
+    private void writeMonthly(Criteria criteria, ReportWriter writer) throws IOException {
+        writer.header("Type", "Annee", "Mois", "Vehicules", "Enregistrements", "Consommation (L)",
+            "Consommation (TEP)", "Cout (DT)", "Kilometrage (Km)", "Produits (Tonnes)", "IPE (L/100km)",
+            "IPE moyen (L/Tonne.100Km)");
+        if (criteria == null) {
+            return;
+        }
+        Aggregation aggregation = newAggregation(
+            match(criteria),
+            group("type", "year", "mois")
+                .addToSet("matricule").as("vehicules")
+                .count().as("count")
+                .sum("consommationL").as("consommationL")
+                .sum("consommationTEP").as("consommationTEP")
+                .sum("coutDT").as("coutDT")
+                .sum("kilometrage").as("kilometrage")
+                .sum("produitsTonnes").as("produitsTonnes")
+                .avg("ipeL100TonneKm").as("ipeL100TonneKm")
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).cursorBatchSize(cursorBatchSize).build());
+
+        // One group per type and month: small enough to sort in memory by month number
+        List<Document> groups = new ArrayList<>();
+        try (Stream<Document> stream = mongoTemplate.aggregateStream(aggregation, VehicleRecord.class, Document.class)) {
+            stream.forEach(groups::add);
+        }
+        groups.sort(Comparator.<Document, String>comparing(group -> key(group, "type"))
+            .thenComparing(group -> key(group, "year"))
+            .thenComparingInt(group -> MonthUtils.monthNumber(key(group, "mois"))));
+
+        for (Document group : groups) {
+            double consommation = toDouble(group.get("consommationL"));
+            double kilometrage = toDouble(group.get("kilometrage"));
+            writer.row(key(group, "type"), key(group, "year"), key(group, "mois"),
+                ((List<?>) group.get("vehicules")).size(), ((Number) group.get("count")).intValue(),
+                consommation, toDouble(group.get("consommationTEP")), toDouble(group.get("coutDT")),
+                kilometrage, toDouble(group.get("produitsTonnes")),
+                kilometrage > 0 ? consommation / kilometrage * 100 : Double.NaN,
+                toDouble(group.get("ipeL100TonneKm")));
+        }
+    }
+
+    /**
+     * Vehicles ranked by IPE over the period, highest (least efficient) first
+     */
+    private void writeIpeRanking(Criteria criteria, ReportWriter writer) throws IOException {
+        writer.header("Rang", "Matricule", "Type", "Enregistrements", "Consommation (L)", "Kilometrage (Km)",
+            "Produits (Tonnes)", "IPE (L/100km)", "IPE moyen (L/Tonne.100Km)");
+        if (criteria == null) {
+            return;
+        }
+        Aggregation aggregation = newAggregation(
+            match(new Criteria().andOperator(criteria, Criteria.where("kilometrage").gt(0))),
+            group("matricule", "type")
+                .count().as("count")
+                .sum("consommationL").as("consommationL")
+                .sum("kilometrage").as("kilometrage")
+                .sum("produitsTonnes").as("produitsTonnes")
+                .avg("ipeL100TonneKm").as("ipeL100TonneKm")
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).cursorBatchSize(cursorBatchSize).build());
+
+        // One group per vehicle of the fleet
+        List<Document> vehicles = new ArrayList<>();
+        try (Stream<Document> stream = mongoTemplate.aggregateStream(aggregation, VehicleRecord.class, Document.class)) {
+            stream.forEach(vehicle -> {
+                vehicle.put("ipe", toDouble(vehicle.get("consommationL")) / toDouble(vehicle.get("kilometrage")) * 100);
+                vehicles.add(vehicle);
+            });
+        }
+        vehicles.sort(Comparator.comparingDouble((Document vehicle) -> vehicle.getDouble("ipe")).reversed());
+
+        int rank = 0;
+        for (Document vehicle : vehicles) {
+            writer.row(++rank, key(vehicle, "matricule"), key(vehicle, "type"), ((Number) vehicle.get("count")).intValue(),
+                toDouble(vehicle.get("consommationL")), toDouble(vehicle.get("kilometrage")),
+                toDouble(vehicle.get("produitsTonnes")), vehicle.getDouble("ipe"), toDouble(vehicle.get("ipeL100TonneKm")));
+        }
+    }
+
+    /**
+     * Each record's consumption against the SER prediction of its type, streamed from a cursor
+     */
+    private void writeSer(Criteria criteria, ReportWriter writer) throws IOException {
+        writer.header("Type", "Matricule", "Annee", "Mois", "Kilometrage (Km)", "Produits (Tonnes)",
+            "Consommation reelle (L)", "Consommation SER (L)", "Ecart (L)", "Ecart (%)",
+            "Borne basse (L)", "Borne haute (L)", "Hors intervalle");
+        if (criteria == null) {
+            return;
+        }
+        Query query = new Query(criteria);
+        query.fields().include("type", "matricule", "year", "mois", "kilometrage", "produitsTonnes", "consommationL");
+        query.with(Sort.by("type", "year", "mois", "matricule"));
+        query.cursorBatchSize(cursorBatchSize);
+
+        // One predictor per type (null when the type cannot be fitted), one reused single-row batch
+        Map<String, Optional<RegressionPredictor>> predictors = new HashMap<>();
+        RegressionPredictor.Batch batch = new RegressionPredictor.Batch();
+        batch.add(null, 0, 0, 0);
+
+        try (Stream<VehicleRecord> stream = mongoTemplate.stream(query, VehicleRecord.class)) {
+            for (VehicleRecord record : (Iterable<VehicleRecord>) stream::iterator) {
+                if (!RegressionAccumulator.isUsable(record)) {
+                    continue;
+                }
+                Optional<RegressionPredictor> predictor = predictors.computeIfAbsent(record.getType(), this::predictor);
+                double actual = record.getConsommationL();
+                double predicted = Double.NaN;
+                double lower = Double.NaN;
+                double upper = Double.NaN;
+                if (predictor.isPresent()) {
+                    batch.set(0, record.getKilometrage(), record.getProduitsTonnes(), actual);
+                    predictor.get().predict(batch);
+                    predicted = batch.getPredicted(0);
+                    lower = batch.getLower(0);
+                    upper = batch.getUpper(0);
+                }
+                double gap = actual - predicted;
+                writer.row(record.getType(), record.getMatricule(), record.getYear(), record.getMois(),
+                    record.getKilometrage(), record.getProduitsTonnes(), actual, predicted, gap,
+                    predicted != 0 ? gap / predicted * 100 : Double.NaN, lower, upper,
+                    Double.isNaN(lower) ? null : (actual < lower || actual > upper ? "Oui" : "Non"));
+            }
+        }
+    }
+
+    private Optional<RegressionPredictor> predictor(String type) {
+        try {
+            return Optional.of(predictionService.getPredictor(type, confidenceLevel));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            logger.warn("No SER prediction for type {} in the report: {}", type, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Criteria of the records of the job: its vehicle type and, when a period is given, the (year, month)
+     * pairs that fall in it. Months are stored as names, so the pairs present in the data are listed by
+     * MongoDB first and matched against the period here.
+     * @return The criteria, or null if no record can match
+     */
+    private Criteria buildCriteria(ReportJob job) {
+        Criteria criteria = "all".equalsIgnoreCase(job.getVehicleType())
+            ? new Criteria()
+            : Criteria.where("type").is(job.getVehicleType());
+        if (job.getStartDate() == null && job.getEndDate() == null) {
+            return criteria;
+        }
+        int from = job.getStartDate() != null ? yearMonth(LocalDate.parse(job.getStartDate())) : Integer.MIN_VALUE;
+        int to = job.getEndDate() != null ? yearMonth(LocalDate.parse(job.getEndDate())) : Integer.MAX_VALUE;
+
+        Map<String, List<String>> monthsByYear = new TreeMap<>();
+        Aggregation periods = newAggregation(match(criteria), group("year", "mois"));
+        for (Document period : mongoTemplate.aggregate(periods, VehicleRecord.class, Document.class)) {
+            String year = key(period, "year");
+            String mois = key(period, "mois");
+            int month = MonthUtils.monthNumber(mois);
+            int yearMonth;
+            try {
+                yearMonth = Integer.parseInt(year.trim()) * 100 + month;
+            } catch (NumberFormatException | NullPointerException e) {
+                continue;
+            }
+            if (month > 0 && yearMonth >= from && yearMonth <= to) {
+                monthsByYear.computeIfAbsent(year, k -> new ArrayList<>()).add(mois);
+            }
+        }
+        if (monthsByYear.isEmpty()) {
+            return null;
+        }
+        List<Criteria> pairs = new ArrayList<>();
+        monthsByYear.forEach((year, months) -> pairs.add(Criteria.where("year").is(year).and("mois").in(months)));
+        return new Criteria().andOperator(criteria, new Criteria().orOperator(pairs));
+    }
+
+    private int yearMonth(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    private String normalizeType(String type) {
+        if (type == null || type.isEmpty()) {
+            return ReportJob.TYPE_MONTHLY;
+        }
+        switch (type.toLowerCase()) {
+            case "monthly":
+            case "mensuel":
+                return ReportJob.TYPE_MONTHLY;
+            case "ipe":
+            case "ipe-ranking":
+                return ReportJob.TYPE_IPE_RANKING;
+            case "ser":
+            case "ser-vs-actual":
+                return ReportJob.TYPE_SER;
+            default:
+                throw new IllegalArgumentException("Unknown report type: " + type + " (monthly, ipe-ranking or ser)");
+        }
+    }
+
+    private String normalizeFormat(String format) {
+        if (format == null || format.isEmpty() || "excel".equalsIgnoreCase(format) || "xlsx".equalsIgnoreCase(format)) {
+            return ReportJob.FORMAT_XLSX;
+        }
+        if ("csv".equalsIgnoreCase(format)) {
+            return ReportJob.FORMAT_CSV;
+        }
+        throw new IllegalArgumentException("Unsupported report format: " + format + " (xlsx or csv)");
+    }
+
+    private LocalDate parseDate(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be a date (yyyy-MM-dd): " + value);
+        }
+    }
+
+    private String sheetName(String type) {
+        switch (type) {
+            case ReportJob.TYPE_IPE_RANKING:
+                return "Classement IPE";
+            case ReportJob.TYPE_SER:
+                return "SER vs reel";
+            default:
+                return "Consommation mensuelle";
+        }
+    }
+
+    private String key(Document group, String field) {
+        Object id = group.get("_id");
+        Object value = id instanceof Document ? ((Document) id).get(field) : group.get(field);
+        return value != null ? value.toString() : null;
+    }
+
+    private double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+}
@@ -0,0 +1,113 @@
+package com.carburant.backend.service;
+
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.carburant.backend.model.RegressionResult;
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.model.dto.RobustRegressionReport;
+import com.carburant.backend.utils.RegressionAccumulator;
+import com.carburant.backend.utils.RegressionSample;
+import com.carburant.backend.utils.RegressionUtils;
+import com.carburant.backend.utils.RequestCost;
+import com.carburant.backend.utils.RobustRegression;
+
+/**
+ * Robust (Huber or Tukey IRLS) regression of a vehicle type, stored next to its OLS result
+ * under the scope "robust=&lt;method&gt;".
+ */
+@Service
+public class RobustRegressionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RobustRegressionService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final RobustRegression robustRegression;
+    private final RegressionUtils regressionUtils;
+    private final RegressionService regressionService;
+    private final DataGenerationService dataGenerationService;
+
+    @Value("${app.regression.flotte.taille-lot-curseur:1000}")
+    private int cursorBatchSize;
+
+    @Autowired
+    public RobustRegressionService(MongoTemplate mongoTemplate, RobustRegression robustRegression,
+            RegressionUtils regressionUtils, RegressionService regressionService,
+            DataGenerationService dataGenerationService) {
+        this.mongoTemplate = mongoTemplate;
+        this.robustRegression = robustRegression;
+        this.regressionUtils = regressionUtils;
+        this.regressionService = regressionService;
+        this.dataGenerationService = dataGenerationService;
+    }
+
+    /**
+     * Fit and store the robust regression of a vehicle type
+     * @param type Vehicle type, or "all" for every type
+     * @param method "huber" or "tukey"
+     * @param tuningConstant Cutoff in units of the residual scale, 0 or less for the method default
+     * @return Report with convergence diagnostics and timings, its result is the stored one
+     * @throws IllegalArgumentException if the method is unknown or the type has no usable records
+     * @throws IllegalStateException if the regression cannot be fitted
+     */
+    public RobustRegressionReport fit(String type, String method, double tuningConstant) {
+        long start = System.nanoTime();
+        // Read before loading, so a change made during the load leaves the result stale
+        long generation = dataGenerationService.getGeneration(type);
+
+        // Load: stream only the needed fields into primitive arrays
+        Query query = new Query(Criteria.where("consommationL").gt(0).and("kilometrage").gt(0));
+        if (type != null && !"all".equalsIgnoreCase(type)) {
+            query.addCriteria(Criteria.where("type").is(type));
+        }
+        query.fields().include("kilometrage", "produitsTonnes", "consommationL");
+        query.cursorBatchSize(cursorBatchSize);
+
+        RegressionSample sample = new RegressionSample();
+        try (Stream<VehicleRecord> stream = mongoTemplate.stream(query, VehicleRecord.class)) {
+            for (VehicleRecord record : (Iterable<VehicleRecord>) stream::iterator) {
+                if (RegressionAccumulator.isUsable(record)) {
+                    sample.add(record.getKilometrage(), record.getProduitsTonnes(), record.getConsommationL());
+                }
+            }
+        }
+        if (sample.size() == 0) {
+            throw new IllegalArgumentException("No valid records found for type: " + type);
+        }
+        long loaded = System.nanoTime();
+
+        long cpuStart = RequestCost.cpuTime();
+        RobustRegressionReport report;
+        try {
+            report = robustRegression.fit(sample, method, tuningConstant);
+        } finally {
+            RequestCost.recordRegressionCpu(cpuStart);
+        }
+        RegressionResult result = report.getResult();
+        result.setType(type);
+        result.setScope("robust=" + report.getMethod());
+        result.setDataGeneration(generation);
+        result.setRegressionEquation(regressionUtils.formatEquation(result.getCoefficients().get("kilometrage"),
+            result.getCoefficients().get("tonnage"), result.getIntercept()));
+        regressionUtils.addInferenceStatistics(result);
+        report.setType(type);
+        report.setResult(regressionService.storeRegressionResult(result));
+        report.setLoadMillis((loaded - start) / 1_000_000);
+        report.setWallMillis((System.nanoTime() - start) / 1_000_000);
+
+        logger.info("Robust regression ({}) for type: {} on {} records: {} after {} iterations (converged: {}), "
+                    + "{} downweighted, {} rejected, IRLS {} µs = {}x OLS, load {} ms",
+                    report.getMethod(), type, report.getN(), result.getRegressionEquation(), report.getIterations(),
+                    report.isConverged(), report.getDownweighted(), report.getRejected(), report.getIrlsMicros(),
+                    String.format("%.1f", report.getCostRatio()), report.getLoadMillis());
+        return report;
+    }
+}
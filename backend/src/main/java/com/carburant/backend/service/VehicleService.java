@@ -3,24 +3,35 @@ package com.carburant.backend.service;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.TreeMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.carburant.backend.config.CacheConfig;
+import com.carburant.backend.event.VehicleDataChangedEvent;
 import com.carburant.backend.model.VehicleRecord;
 import com.carburant.backend.repository.VehicleRepository;
+import com.carburant.backend.utils.FlightRecorderEvents;
+import com.carburant.backend.utils.IngestionMetrics;
+import com.carburant.backend.utils.RequestCoalescer;
 
 @Service
 public class VehicleService {
@@ -29,6 +40,10 @@ public class VehicleService {
     private final VehicleRepository vehicleRepository;
     private final ExcelService excelService;
     private final MongoTemplate mongoTemplate;
+    private final RequestCoalescer requestCoalescer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IngestionMetrics ingestionMetrics;
+    private final RegressionStatisticsService regressionStatisticsService;
     
     // Cache for the uploaded file and its sheet names
     private byte[] cachedFileContent; // Store file content as bytes instead of MultipartFile
@@ -36,10 +51,16 @@ public class VehicleService {
     private List<String> cachedSheetNames;
 
     @Autowired
-    public VehicleService(VehicleRepository vehicleRepository, ExcelService excelService, MongoTemplate mongoTemplate) {
+    public VehicleService(VehicleRepository vehicleRepository, ExcelService excelService, MongoTemplate mongoTemplate,
+            RequestCoalescer requestCoalescer, ApplicationEventPublisher eventPublisher,
+            IngestionMetrics ingestionMetrics, RegressionStatisticsService regressionStatisticsService) {
         this.vehicleRepository = vehicleRepository;
         this.excelService = excelService;
         this.mongoTemplate = mongoTemplate;
+        this.requestCoalescer = requestCoalescer;
+        this.eventPublisher = eventPublisher;
+        this.ingestionMetrics = ingestionMetrics;
+        this.regressionStatisticsService = regressionStatisticsService;
         this.cachedSheetNames = new ArrayList<>();
     }
 
@@ -168,6 +189,21 @@ public class VehicleService {
             return List.of();
         }
         
+        long start = System.nanoTime();
+        FlightRecorderEvents.BulkWrite writeEvent = new FlightRecorderEvents.BulkWrite();
+        writeEvent.begin();
+        try {
+            return persistRecords(records, sheetName, replaceExisting);
+        } finally {
+            ingestionMetrics.recordStage(IngestionMetrics.STAGE_PERSISTENCE, sheetName, sheetName, start);
+            commitWriteEvent(writeEvent, sheetName, null, null, null, replaceExisting, records.size());
+        }
+    }
+    
+    /**
+     * Write the records, replacing the records of the type or updating them by natural key
+     */
+    private List<VehicleRecord> persistRecords(List<VehicleRecord> records, String sheetName, boolean replaceExisting) {
         if (replaceExisting) {
             // Traditional approach: delete all existing records of this type first
             logger.info("Deleting existing records for type: {}", sheetName);
@@ -176,6 +212,7 @@ public class VehicleService {
             // Save all extracted records
             List<VehicleRecord> savedRecords = vehicleRepository.saveAll(records);
             logger.info("Saved {} records to database", savedRecords.size());
+            publishDataChanged(records, sheetName);
             return savedRecords;
         } else {
             // Selective update approach: check for duplicates based on natural keys
@@ -193,6 +230,7 @@ public class VehicleService {
             
             // Process new records
             List<VehicleRecord> recordsToSave = new ArrayList<>();
+            List<VehicleRecord> replacedRecords = new ArrayList<>();
             int updatedCount = 0;
             int newCount = 0;
             
@@ -207,6 +245,7 @@ public class VehicleService {
                     // Update existing record
                     VehicleRecord existingRecord = existingRecordsMap.get(key);
                     record.setId(existingRecord.getId()); // Keep the same ID
+                    replacedRecords.add(existingRecord);
                     updatedCount++;
                 } else {
                     // New record
@@ -216,12 +255,54 @@ public class VehicleService {
             }
             
             // Save all records (updates + new)
-            List<VehicleRecord> savedRecords = vehicleRepository.saveAll(recordsToSave);
+            List<VehicleRecord> savedRecords = regressionStatisticsService.fenceRecordWrite(() -> {
+                List<VehicleRecord> saved = vehicleRepository.saveAll(recordsToSave);
+                publishRecordsChanged(replacedRecords, saved);
+                return saved;
+            });
             logger.info("Saved {} records to database ({} updated, {} new)", savedRecords.size(), updatedCount, newCount);
             return savedRecords;
         }
     }
     
+    /**
+     * Commits the Flight Recorder event of a write of records, when a recording is running
+     */
+    private static void commitWriteEvent(FlightRecorderEvents.BulkWrite event, String type, String year, String month,
+            String region, boolean replaceExisting, int documents) {
+        if (event.shouldCommit()) {
+            event.type = type;
+            event.year = year;
+            event.month = month;
+            event.region = region;
+            event.replaceExisting = replaceExisting;
+            event.documents = documents;
+            event.commit();
+        }
+    }
+
+    /**
+     * Notify listeners that the records of the given types changed
+     * @param records The written records (their types are included)
+     * @param additionalTypes Other affected types (e.g. the type whose records were deleted)
+     */
+    private void publishDataChanged(List<VehicleRecord> records, String... additionalTypes) {
+        Set<String> types = records.stream()
+            .map(VehicleRecord::getType)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        types.addAll(Arrays.asList(additionalTypes));
+        eventPublisher.publishEvent(new VehicleDataChangedEvent(this, types));
+    }
+
+    /**
+     * Notify listeners of record-level changes, so derived statistics can be updated incrementally
+     * @param removedRecords Records as they were before being deleted or replaced
+     * @param addedRecords Records as they are after being saved
+     */
+    private void publishRecordsChanged(List<VehicleRecord> removedRecords, List<VehicleRecord> addedRecords) {
+        eventPublisher.publishEvent(new VehicleDataChangedEvent(this, removedRecords, addedRecords));
+    }
+
     /**
      * Generate a natural key for a vehicle record
      * @param record The vehicle record
@@ -266,6 +347,17 @@ public class VehicleService {
         return cachedSheetNames;
     }
 
+    /**
+     * Get the distinct vehicle types present in the database
+     * @return List of vehicle types
+     */
+    public List<String> getStoredVehicleTypes() {
+        return mongoTemplate.findDistinct(new Query(), "type", VehicleRecord.class, String.class).stream()
+            .filter(type -> type != null && !type.isEmpty())
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
     /**
      * Get all sheet names from uploaded Excel file
      * @param file The uploaded Excel file
@@ -429,13 +521,28 @@ public class VehicleService {
      * @param year Year of the records
      * @param dateFrom Start date for the period
      * @param dateTo End date for the period
-     * @return List of maps representing monthly aggregated data
+     * @return Unmodifiable list of unmodifiable maps representing monthly aggregated data (shared with the cache)
      */
+    @Cacheable(cacheNames = CacheConfig.VEHICLE_DATA_CACHE,
+               key = "{'monthlyAggregation', #vehicleType, #year, #dateFrom, #dateTo}")
     public List<Map<String, Object>> getMonthlyAggregatedData(
             String vehicleType,
             String year,
             String dateFrom,
             String dateTo) {
+        // Concurrent identical requests share one computation
+        return requestCoalescer.execute("getMonthlyAggregatedData",
+            new Object[] { vehicleType, year, dateFrom, dateTo },
+            () -> computeMonthlyAggregatedData(vehicleType, year, dateFrom, dateTo));
+    }
+    
+    private List<Map<String, Object>> computeMonthlyAggregatedData(
+            String vehicleType,
+            String year,
+            String dateFrom,
+            String dateTo) {
+        FlightRecorderEvents.AggregationQuery queryEvent = new FlightRecorderEvents.AggregationQuery();
+        queryEvent.begin();
         
         // Build the query
         Query query = new Query();
@@ -460,6 +567,7 @@ public class VehicleService {
         List<VehicleRecord> records = mongoTemplate.find(query, VehicleRecord.class);
         
         if (records.isEmpty()) {
+            commitAggregationEvent(queryEvent, "monthlyAggregation", vehicleType, year, dateFrom, dateTo, 0, 0);
             return List.of();
         }
         
@@ -494,24 +602,36 @@ public class VehicleService {
             monthData.put("count", (Integer) monthData.get("count") + 1);
         }
         
-        // Calculate averages and format the data
-        return monthlyData.values().stream()
+        // Calculate averages and format the data, unmodifiable since the result is cached
+        List<Map<String, Object>> result = monthlyData.values().stream()
             .map(monthData -> {
                 int count = (Integer) monthData.get("count");
                 if (count > 0) {
                     monthData.put("ipeL100km", (Double) monthData.get("ipeL100km") / count);
                 }
-                return monthData;
+                return Collections.unmodifiableMap(monthData);
             })
-            .collect(Collectors.toList());
+            .toList();
+        commitAggregationEvent(queryEvent, "monthlyAggregation", vehicleType, year, dateFrom, dateTo,
+            records.size(), result.size());
+        return result;
     }
     
     /**
      * Get vehicle performance data for comparison
      * @param type Vehicle type (sheet name)
-     * @return List of vehicles with their performance metrics
+     * @return Unmodifiable list of vehicles with their performance metrics (shared with the cache)
      */
+    @Cacheable(cacheNames = CacheConfig.VEHICLE_DATA_CACHE, key = "{'performance', #type}")
     public List<Map<String, Object>> getVehiclePerformanceData(String type) {
+        // Concurrent identical requests share one computation
+        return requestCoalescer.execute("getVehiclePerformanceData", new Object[] { type },
+            () -> computeVehiclePerformanceData(type));
+    }
+    
+    private List<Map<String, Object>> computeVehiclePerformanceData(String type) {
+        FlightRecorderEvents.AggregationQuery queryEvent = new FlightRecorderEvents.AggregationQuery();
+        queryEvent.begin();
         List<VehicleRecord> records = getRecordsByType(type);
         Map<String, List<VehicleRecord>> recordsByMatricule = records.stream()
             .collect(Collectors.groupingBy(VehicleRecord::getMatricule));
@@ -564,22 +684,49 @@ public class VehicleService {
                 metrics.put("ipeL100km", record.getIpeL100km());
                 metrics.put("ipeL100TonneKm", record.getIpeL100TonneKm());
                 
-                monthlyData.put(month, metrics);
+                // Metrics may be null, so the maps are wrapped rather than copied with Map.copyOf
+                monthlyData.put(month, Collections.unmodifiableMap(metrics));
             }
             
-            vehicleData.put("monthlyData", monthlyData);
-            result.add(vehicleData);
+            vehicleData.put("monthlyData", Collections.unmodifiableMap(monthlyData));
+            result.add(Collections.unmodifiableMap(vehicleData));
         }
         
-        return result;
+        commitAggregationEvent(queryEvent, "performance", type, null, null, null, records.size(), result.size());
+        // The result is cached: callers must not be able to change it for each other
+        return List.copyOf(result);
+    }
+
+    /**
+     * Commits the Flight Recorder event of a dashboard aggregation, when a recording is running
+     */
+    private static void commitAggregationEvent(FlightRecorderEvents.AggregationQuery event, String operation,
+            String type, String year, String dateFrom, String dateTo, int documents, int results) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.type = type;
+            event.year = year;
+            event.dateFrom = dateFrom;
+            event.dateTo = dateTo;
+            event.documents = documents;
+            event.results = results;
+            event.commit();
+        }
     }
 
     /**
      * Get monthly totals for regression analysis
      * @param type Vehicle type (sheet name)
-     * @return Map with months as keys and monthly totals for regression as values
+     * @return Unmodifiable map with months as keys and monthly totals for regression as values (shared with the cache)
      */
+    @Cacheable(cacheNames = CacheConfig.VEHICLE_DATA_CACHE, key = "{'monthlyTotals', #type}")
     public Map<String, Map<String, Double>> getMonthlyTotalsForRegression(String type) {
+        // Concurrent identical requests share one computation
+        return requestCoalescer.execute("getMonthlyTotalsForRegression", new Object[] { type },
+            () -> computeMonthlyTotalsForRegression(type));
+    }
+    
+    private Map<String, Map<String, Double>> computeMonthlyTotalsForRegression(String type) {
         Map<String, Map<String, Double>> monthlyData = getMonthlyAggregatedData(type);
         Map<String, Map<String, Double>> regressionData = new HashMap<>();
         
@@ -619,11 +766,12 @@ public class VehicleService {
                 regressionMetrics.put("costPerKm", costPerKm);
             }
             
-            regressionData.put(month, regressionMetrics);
+            regressionData.put(month, Collections.unmodifiableMap(regressionMetrics));
         }
         
         logger.info("Prepared regression data for {} months of type {}", regressionData.size(), type);
-        return regressionData;
+        // The result is cached: callers must not be able to change it for each other
+        return Collections.unmodifiableMap(regressionData);
     }
     
     /**
@@ -674,7 +822,15 @@ public class VehicleService {
      * @return The saved record
      */
     public VehicleRecord saveRecord(VehicleRecord record) {
-        return vehicleRepository.save(record);
+        // The stored version is replaced (and may belong to another type than the new one)
+        Optional<VehicleRecord> previousRecord = record.getId() != null
+            ? vehicleRepository.findById(record.getId())
+            : Optional.empty();
+        return regressionStatisticsService.fenceRecordWrite(() -> {
+            VehicleRecord savedRecord = vehicleRepository.save(record);
+            publishRecordsChanged(previousRecord.map(List::of).orElse(List.of()), List.of(savedRecord));
+            return savedRecord;
+        });
     }
 
     /**
@@ -687,7 +843,11 @@ public class VehicleService {
         return vehicleRepository.findById(id)
             .map(existingRecord -> {
                 updatedRecord.setId(id);
-                return vehicleRepository.save(updatedRecord);
+                return regressionStatisticsService.fenceRecordWrite(() -> {
+                    VehicleRecord savedRecord = vehicleRepository.save(updatedRecord);
+                    publishRecordsChanged(List.of(existingRecord), List.of(savedRecord));
+                    return savedRecord;
+                });
             })
             .orElseThrow(() -> new IllegalArgumentException("Record not found with id: " + id));
     }
@@ -697,7 +857,12 @@ public class VehicleService {
      * @param id Record ID
      */
     public void deleteRecord(String id) {
-        vehicleRepository.deleteById(id);
+        Optional<VehicleRecord> existingRecord = vehicleRepository.findById(id);
+        regressionStatisticsService.fenceRecordWrite(() -> {
+            vehicleRepository.deleteById(id);
+            existingRecord.ifPresent(record -> publishRecordsChanged(List.of(record), List.of()));
+            return null;
+        });
     }
 
     /**
@@ -739,6 +904,9 @@ public class VehicleService {
         logger.info("Set year to {}, type to {}, and region to {} for all {} records", year, sheetName, region, filteredRecords.size());
         
         // If replace existing is true, delete existing records first
+        long persistStart = System.nanoTime();
+        FlightRecorderEvents.BulkWrite writeEvent = new FlightRecorderEvents.BulkWrite();
+        writeEvent.begin();
         if (replaceExisting) {
             if ("all".equals(month)) {
                 logger.info("Deleting existing records for type: {}, year: {}, and region: {}", sheetName, year, region);
@@ -750,8 +918,24 @@ public class VehicleService {
         }
         
         // Save the filtered records
-        List<VehicleRecord> savedRecords = vehicleRepository.saveAll(filteredRecords);
+        List<VehicleRecord> savedRecords;
+        if (replaceExisting) {
+            savedRecords = vehicleRepository.saveAll(filteredRecords);
+        } else {
+            List<VehicleRecord> recordsToSave = filteredRecords;
+            savedRecords = regressionStatisticsService.fenceRecordWrite(() -> {
+                List<VehicleRecord> saved = vehicleRepository.saveAll(recordsToSave);
+                publishRecordsChanged(List.of(), saved);
+                return saved;
+            });
+        }
+        ingestionMetrics.recordStage(IngestionMetrics.STAGE_PERSISTENCE, sheetName, sheetName, persistStart);
+        commitWriteEvent(writeEvent, sheetName, year, month, region, replaceExisting, savedRecords.size());
         logger.info("Successfully saved {} records", savedRecords.size());
+        if (replaceExisting) {
+            // The deleted records are not known individually
+            publishDataChanged(savedRecords, sheetName);
+        }
         
         return savedRecords.size();
     }
@@ -0,0 +1,189 @@
+package com.carburant.backend.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Files cached in a directory under a total size budget, least recently used evicted first.
+ * Entries are hard links to the cached file when the file system allows it (a copy otherwise), so
+ * caching a rendered file and handing a cached one out costs no data copy. The access order survives
+ * a restart through the files' modification times.
+ */
+public class DiskLruCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskLruCache.class);
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * Open the cache, indexing the files already in the directory
+     * @param directory Cache directory, created if needed
+     * @param maxBytes Size budget
+     */
+    public DiskLruCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(Files::isRegularFile).forEach(files::add);
+        }
+        files.sort(Comparator.comparing(DiskLruCache::lastModified));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(".tmp")) {
+                Files.deleteIfExists(file); // Left by an interrupted put
+                continue;
+            }
+            long size = Files.size(file);
+            entries.put(name, size);
+            totalBytes += size;
+        }
+        evict();
+    }
+
+    /**
+     * Key of a set of parameters
+     * @param parts Parameters, null allowed
+     * @return SHA-256 of the parameters, hex encoded
+     */
+    public static String key(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get a cached file and mark it as most recently used
+     * @param key Entry key
+     * @return The cached file, or null
+     */
+    public synchronized Path get(String key) {
+        if (entries.get(key) == null) { // get, not containsKey: moves the entry to the most recent end
+            misses++;
+            return null;
+        }
+        Path file = directory.resolve(key);
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Removed behind the cache's back
+            totalBytes -= entries.remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return file;
+    }
+
+    /**
+     * Cache a file, evicting the least recently used entries beyond the budget
+     * @param key Entry key
+     * @param source File to cache, left in place
+     * @return The cached file, or null if the file alone exceeds the budget
+     */
+    public Path put(String key, Path source) throws IOException {
+        long size = Files.size(source);
+        if (size > maxBytes) {
+            return null;
+        }
+        Path file = directory.resolve(key);
+        Path temporary = directory.resolve(key + "." + Thread.currentThread().getId() + ".tmp");
+        linkOrCopy(source, temporary);
+        synchronized (this) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Long previous = entries.put(key, size);
+            totalBytes += size - (previous != null ? previous : 0L);
+            evict();
+        }
+        return file;
+    }
+
+    /**
+     * Create a hard link to a file, or a copy when links are not supported
+     * @param source Existing file
+     * @param target New path, replaced if it exists
+     */
+    public static void linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            // Different file stores or no link support
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Remove least recently used entries until the budget is met. Files being read stay readable
+     * until closed (unlinking does not affect open handles)
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                logger.warn("Could not evict cached file {}: {}", eldest.getKey(), e.getMessage());
+            }
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+            logger.debug("Evicted cached file {} ({} bytes)", eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package com.carburant.backend.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.carburant.backend.model.VehicleRecord;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Synthetic fleet data for benchmarks and load tests. From a seed, a fleet size, a number of months
+ * and a list of regions it generates the monthly rows of every vehicle, and writes them as:
+ * <ul>
+ * <li>workbooks laid out like the uploaded ones (one per region and year, one sheet per vehicle type,
+ * months as merged cells, costs partly written as "6,368.16 TND", formulas and noise rows),</li>
+ * <li>a CSV file of the records,</li>
+ * <li>a bulk insert into vehicle_data.</li>
+ * </ul>
+ * The records are those the upload of the workbooks would save, so any output can be checked against
+ * another. The same options always give the same data.
+ */
+public class FleetDataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetDataGenerator.class);
+
+    public static final String CAMION = "Camion";
+    public static final String VOITURE = "Voiture";
+    public static final String MINIBUS = "Minibus";
+    public static final String CHARIOT = "Chariot";
+
+    /** Sheet of each vehicle type in the generated workbooks */
+    public static final Map<String, String> SHEETS = Map.of(
+        CAMION, "Camions", VOITURE, "Voitures", MINIBUS, "Minibus", CHARIOT, "Chariots");
+
+    /** Headers recognized by ExcelService.findColumnIndices, in this order */
+    static final String[] HEADERS = { "Mois", "Matricule", "Désignation", "Consommation (L)",
+        "Consommation (TEP)", "Coût (DT)", "Kilométrage (Km)", "Produits transportés (T)", "IPE (L/100Km)" };
+
+    static final String[] MONTH_NAMES = { "Janvier", "Février", "Mars", "Avril", "Mai", "Juin",
+        "Juillet", "Août", "Septembre", "Octobre", "Novembre", "Décembre" };
+
+    static final String[] CSV_COLUMNS = { "type", "matricule", "mois", "year", "region", "consommationL",
+        "consommationTEP", "coutDT", "kilometrage", "produitsTonnes", "ipeL100km", "ipeL100TonneKm" };
+
+    /** Share of each vehicle type in a fleet */
+    private static final Map<String, Double> TYPE_WEIGHTS = Map.of(CAMION, 0.5, VOITURE, 0.25, MINIBUS, 0.15, CHARIOT, 0.1);
+
+    /** Price of a litre of gasoil (DT) */
+    private static final double FUEL_PRICE = 2.205;
+    /** Tonnes of oil equivalent per litre of gasoil */
+    private static final double TEP_PER_LITRE = 0.00086;
+    private static final String TEP_PER_LITRE_FORMULA = "0.00086";
+
+    /**
+     * What to generate
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Options {
+        @Builder.Default
+        private long seed = 42L;                       // Seed of the random generator
+        @Builder.Default
+        private int fleetSize = 50;                    // Vehicles per region
+        @Builder.Default
+        private int months = 12;                       // Consecutive months generated
+        @Builder.Default
+        private YearMonth start = YearMonth.of(2024, 1); // First month
+        @Builder.Default
+        private List<String> regions = List.of("Tunis"); // Regions, each with its own fleet
+        @Builder.Default
+        private List<String> vehicleTypes = List.of(CAMION, VOITURE, MINIBUS, CHARIOT); // Types in the fleets
+        @Builder.Default
+        private double absenceRate = 0.03;             // Share of months a vehicle has no row
+        @Builder.Default
+        private double currencyTextRate = 0.1;         // Share of costs written as "6,368.16 TND"
+        @Builder.Default
+        private double noiseRate = 0.02;               // Share of blank or non-vehicle rows added
+        @Builder.Default
+        private boolean formulas = true;               // TEP and IPE written as formulas, subtotal rows
+    }
+
+    /** A generated row: the record it gives and how its cells are written */
+    private record GeneratedRow(VehicleRecord record, String description, boolean costAsText, int noiseAfter) {
+    }
+
+    private record Vehicle(String type, String matricule, String description, double litresPer100Km,
+            double monthlyKm, double monthlyTonnes) {
+    }
+
+    private final Options options;
+    /** Rows by region, year, type and month, in generation order */
+    private final Map<String, Map<Integer, Map<String, Map<String, List<GeneratedRow>>>>> rows = new LinkedHashMap<>();
+    private int recordCount;
+
+    public FleetDataGenerator(Options options) {
+        this.options = options;
+        generate();
+    }
+
+    public Options getOptions() {
+        return options;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public List<String> getRegions() {
+        return new ArrayList<>(rows.keySet());
+    }
+
+    /**
+     * @param region Region
+     * @return Years with rows in the region
+     */
+    public Set<Integer> getYears(String region) {
+        return new TreeSet<>(rows.getOrDefault(region, Map.of()).keySet());
+    }
+
+    /**
+     * All the records, as the upload of every sheet of every workbook would save them
+     * @return New record objects at each call (without id)
+     */
+    public List<VehicleRecord> records() {
+        List<VehicleRecord> records = new ArrayList<>(recordCount);
+        forEachRow((region, year, type, row) -> records.add(copy(row.record())));
+        return records;
+    }
+
+    /**
+     * Records of one sheet of one workbook
+     */
+    public List<VehicleRecord> records(String region, int year, String type) {
+        List<VehicleRecord> records = new ArrayList<>();
+        rows.getOrDefault(region, Map.of()).getOrDefault(year, Map.of()).getOrDefault(type, Map.of())
+            .values().forEach(monthRows -> monthRows.forEach(row -> records.add(copy(row.record()))));
+        return records;
+    }
+
+    /**
+     * Write the workbook of a region and a year: one sheet per vehicle type, to be uploaded with the
+     * region, the year and the type of the sheet
+     * @param region Region
+     * @param year Year
+     * @param out Destination of the .xlsx content (not closed)
+     */
+    public void writeWorkbook(String region, int year, OutputStream out) throws IOException {
+        Map<String, Map<String, List<GeneratedRow>>> byType = rows.getOrDefault(region, Map.of()).getOrDefault(year, Map.of());
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(500)) {
+            for (Map.Entry<String, Map<String, List<GeneratedRow>>> typeRows : byType.entrySet()) {
+                if (typeRows.getValue().isEmpty()) {
+                    continue;
+                }
+                writeSheet(workbook.createSheet(SHEETS.get(typeRows.getKey())), typeRows.getValue());
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+
+    /**
+     * Write every workbook in a directory, named fleet-&lt;region&gt;-&lt;year&gt;.xlsx
+     * @return Files written
+     */
+    public List<Path> writeWorkbooks(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        for (String region : getRegions()) {
+            for (int year : getYears(region)) {
+                Path file = directory.resolve("fleet-" + region.replaceAll("[^\\p{L}\\p{N}_-]", "_") + "-" + year + ".xlsx");
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    writeWorkbook(region, year, out);
+                }
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Write all the records as CSV, one column per VehicleRecord field
+     * @param out Destination (not closed)
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write(String.join(",", CSV_COLUMNS));
+        out.write('\n');
+        for (VehicleRecord record : records()) {
+            out.write(String.join(",", csv(record.getType()), csv(record.getMatricule()), csv(record.getMois()),
+                record.getYear(), csv(record.getRegion()), number(record.getConsommationL()),
+                number(record.getConsommationTEP()), number(record.getCoutDT()), number(record.getKilometrage()),
+                number(record.getProduitsTonnes()), number(record.getIpeL100km()), number(record.getIpeL100TonneKm())));
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Insert all the records into vehicle_data
+     * @param mongoTemplate Template of the target database
+     * @param batchSize Records per bulk insert
+     * @return Records inserted
+     */
+    public int bulkLoad(MongoTemplate mongoTemplate, int batchSize) {
+        List<VehicleRecord> records = records();
+        for (int from = 0; from < records.size(); from += batchSize) {
+            List<VehicleRecord> batch = records.subList(from, Math.min(from + batchSize, records.size()));
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, VehicleRecord.class).insert(batch).execute();
+        }
+        logger.info("Inserted {} generated records into vehicle_data", records.size());
+        return records.size();
+    }
+
+    private void generate() {
+        Random random = new Random(options.getSeed());
+        Set<String> matricules = new HashSet<>();
+        for (String region : options.getRegions()) {
+            List<Vehicle> fleet = new ArrayList<>();
+            for (int i = 0; i < options.getFleetSize(); i++) {
+                fleet.add(vehicle(random, pickType(random), matricules));
+            }
+
+            Map<Integer, Map<String, Map<String, List<GeneratedRow>>>> byYear = new LinkedHashMap<>();
+            for (int m = 0; m < options.getMonths(); m++) {
+                YearMonth month = options.getStart().plusMonths(m);
+                String monthName = MONTH_NAMES[month.getMonthValue() - 1];
+                // Seasonal activity: busier in spring and autumn
+                double season = 1 + 0.15 * Math.sin((month.getMonthValue() - 3) * Math.PI / 6);
+                Map<String, Map<String, List<GeneratedRow>>> byType = byYear.computeIfAbsent(month.getYear(), y -> new LinkedHashMap<>());
+                for (String type : options.getVehicleTypes()) {
+                    byType.computeIfAbsent(type, t -> new LinkedHashMap<>());
+                }
+                for (Vehicle vehicle : fleet) {
+                    if (random.nextDouble() < options.getAbsenceRate()) {
+                        continue;
+                    }
+                    VehicleRecord record = monthRecord(random, vehicle, monthName, month.getYear(), region, season);
+                    boolean costAsText = random.nextDouble() < options.getCurrencyTextRate();
+                    int noiseAfter = random.nextDouble() < options.getNoiseRate() ? 1 + random.nextInt(2) : 0;
+                    byType.get(vehicle.type()).computeIfAbsent(monthName, k -> new ArrayList<>())
+                        .add(new GeneratedRow(record, vehicle.description(), costAsText, noiseAfter));
+                    recordCount++;
+                }
+            }
+            rows.put(region, byYear);
+        }
+    }
+
+    /** Type of a new vehicle: half trucks, then cars, minibuses and forklifts */
+    private String pickType(Random random) {
+        List<String> types = options.getVehicleTypes();
+        double total = types.stream().mapToDouble(type -> TYPE_WEIGHTS.getOrDefault(type, 0.1)).sum();
+        double draw = random.nextDouble() * total;
+        for (String type : types) {
+            draw -= TYPE_WEIGHTS.getOrDefault(type, 0.1);
+            if (draw < 0) {
+                return type;
+            }
+        }
+        return types.get(types.size() - 1);
+    }
+
+    private static Vehicle vehicle(Random random, String type, Set<String> matricules) {
+        String matricule;
+        do {
+            switch (type) {
+                case MINIBUS -> matricule = (100000 + random.nextInt(60000)) + " RS";
+                case CHARIOT -> matricule = String.format("CE-%03d", 1 + random.nextInt(999));
+                default -> matricule = (1 + random.nextInt(9999)) + " TU " + (80 + random.nextInt(170));
+            }
+        } while (!matricules.add(matricule));
+
+        return switch (type) {
+            case CAMION -> new Vehicle(type, matricule, random.nextBoolean() ? "Camion benne" : "Camion plateau",
+                28 + random.nextDouble() * 12, 2500 + random.nextDouble() * 6500, 60 + random.nextDouble() * 340);
+            case MINIBUS -> new Vehicle(type, matricule, "Minibus " + (20 + random.nextInt(11)) + " places",
+                12 + random.nextDouble() * 6, 2000 + random.nextDouble() * 4000, 0);
+            case CHARIOT -> new Vehicle(type, matricule, "Chariot élévateur " + (2 + random.nextInt(4)) + "T",
+                15 + random.nextDouble() * 10, 60 + random.nextDouble() * 340, 150 + random.nextDouble() * 650);
+            default -> new Vehicle(type, matricule, "Voiture de service",
+                6 + random.nextDouble() * 4, 800 + random.nextDouble() * 2700, 0);
+        };
+    }
+
+    private static VehicleRecord monthRecord(Random random, Vehicle vehicle, String monthName, int year,
+            String region, double season) {
+        double km = round(vehicle.monthlyKm() * season * (0.8 + random.nextDouble() * 0.4), 2);
+        double tonnes = vehicle.monthlyTonnes() > 0
+            ? round(vehicle.monthlyTonnes() * season * (0.7 + random.nextDouble() * 0.6), 2) : 0;
+        double litres = round(Math.max(1, (km * vehicle.litresPer100Km() / 100 + tonnes * 0.05)
+            * (1 + random.nextGaussian() * 0.03)), 2);
+        double tep = round(litres * TEP_PER_LITRE, 4);
+
+        VehicleRecord record = VehicleRecord.builder()
+            .type(vehicle.type())
+            .matricule(vehicle.matricule())
+            .mois(monthName)
+            .year(String.valueOf(year))
+            .region(region)
+            .consommationL(litres)
+            .consommationTEP(tep)
+            .coutDT(round(litres * FUEL_PRICE, 2))
+            .kilometrage(km)
+            .produitsTonnes(tonnes)
+            .build();
+        // Same IPE as ExcelService.calculateIpeValues: without tonnage it takes the IPE column of the sheet
+        if (litres > 0 && km > 0) {
+            if (tonnes > 0) {
+                record.setIpeL100km(litres / (km / 100));
+                record.setIpeL100TonneKm((litres / (km / 100)) * (1 / (tonnes / 1000)));
+            } else {
+                record.setIpeL100km(round(litres / km * 100, 2));
+            }
+        }
+        return record;
+    }
+
+    private void writeSheet(Sheet sheet, Map<String, List<GeneratedRow>> byMonth) {
+        Row header = sheet.createRow(0);
+        for (int c = 0; c < HEADERS.length; c++) {
+            header.createCell(c).setCellValue(HEADERS[c]);
+        }
+
+        int rowIndex = 1;
+        for (Map.Entry<String, List<GeneratedRow>> month : byMonth.entrySet()) {
+            int firstRow = rowIndex;
+            for (GeneratedRow generated : month.getValue()) {
+                Row row = sheet.createRow(rowIndex);
+                if (rowIndex == firstRow) {
+                    row.createCell(0).setCellValue(month.getKey());
+                }
+                writeVehicleRow(row, generated);
+                rowIndex++;
+                for (int n = 0; n < generated.noiseAfter(); n++) {
+                    writeNoiseRow(sheet.createRow(rowIndex), rowIndex, n);
+                    rowIndex++;
+                }
+            }
+            if (options.isFormulas() && rowIndex > firstRow) {
+                // Subtotal of the month: not a vehicle, rejected by ExcelService.isValidVehicle
+                Row total = sheet.createRow(rowIndex);
+                total.createCell(1).setCellValue("Total " + month.getKey());
+                for (int c = 3; c <= 7; c++) {
+                    String column = String.valueOf((char) ('A' + c));
+                    total.createCell(c).setCellFormula("SUM(" + column + (firstRow + 1) + ":" + column + rowIndex + ")");
+                }
+                rowIndex++;
+            }
+            if (rowIndex - 1 > firstRow) {
+                sheet.addMergedRegion(new CellRangeAddress(firstRow, rowIndex - 1, 0, 0));
+            }
+        }
+    }
+
+    private void writeVehicleRow(Row row, GeneratedRow generated) {
+        VehicleRecord record = generated.record();
+        int excelRow = row.getRowNum() + 1;
+        row.createCell(1).setCellValue(record.getMatricule());
+        row.createCell(2).setCellValue(generated.description());
+        row.createCell(3).setCellValue(record.getConsommationL());
+        if (options.isFormulas()) {
+            row.createCell(4).setCellFormula("ROUND(D" + excelRow + "*" + TEP_PER_LITRE_FORMULA + ",4)");
+        } else {
+            row.createCell(4).setCellValue(record.getConsommationTEP());
+        }
+        Cell cost = row.createCell(5);
+        if (generated.costAsText()) {
+            cost.setCellValue(String.format(Locale.US, "%,.2f TND", record.getCoutDT()));
+        } else {
+            cost.setCellValue(record.getCoutDT());
+        }
+        row.createCell(6).setCellValue(record.getKilometrage());
+        if (record.getProduitsTonnes() > 0) {
+            row.createCell(7).setCellValue(record.getProduitsTonnes());
+        }
+        if (options.isFormulas()) {
+            row.createCell(8).setCellFormula("ROUND(D" + excelRow + "/G" + excelRow + "*100,2)");
+        } else {
+            row.createCell(8).setCellValue(round(record.getIpeL100km(), 2));
+        }
+    }
+
+    /** Rows found in real workbooks between vehicles: blank lines and remarks */
+    private static void writeNoiseRow(Row row, int rowIndex, int n) {
+        if (n == 0) {
+            return; // Blank row
+        }
+        row.createCell(1).setCellValue("N.B.");
+        row.createCell(2).setCellValue("Véhicule en réparation, ligne " + (rowIndex + 1));
+    }
+
+    private void forEachRow(RowConsumer consumer) {
+        rows.forEach((region, byYear) -> byYear.forEach((year, byType) -> byType.forEach((type, byMonth) ->
+            byMonth.values().forEach(monthRows -> monthRows.forEach(row -> consumer.accept(region, year, type, row))))));
+    }
+
+    @FunctionalInterface
+    private interface RowConsumer {
+        void accept(String region, int year, String type, GeneratedRow row);
+    }
+
+    private static VehicleRecord copy(VehicleRecord record) {
+        return VehicleRecord.builder()
+            .type(record.getType())
+            .matricule(record.getMatricule())
+            .mois(record.getMois())
+            .year(record.getYear())
+            .region(record.getRegion())
+            .consommationL(record.getConsommationL())
+            .consommationTEP(record.getConsommationTEP())
+            .coutDT(record.getCoutDT())
+            .kilometrage(record.getKilometrage())
+            .produitsTonnes(record.getProduitsTonnes())
+            .ipeL100km(record.getIpeL100km())
+            .ipeL100TonneKm(record.getIpeL100TonneKm())
+            .build();
+    }
+
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+
+    private static String number(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
+    /**
+     * Command line: generate workbooks, a CSV file or a bulk load.
+     * <pre>
+     * --format xlsx|csv|mongo   (default xlsx)
+     * --out DIR                 Output directory of xlsx and csv (default generated)
+     * --seed N --fleet N --months N --start yyyy-MM --regions A,B --types Camion,Minibus
+     * --noise RATE --currency-text RATE --absence RATE --no-formulas
+     * --mongo-uri URI --database NAME --batch N   (format mongo)
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        Options.OptionsBuilder builder = Options.builder();
+        String format = "xlsx";
+        Path out = Path.of("generated");
+        String mongoUri = "mongodb://localhost:27017";
+        String database = "analyse_vehicules";
+        int batchSize = 1000;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--no-formulas".equals(arg)) {
+                builder.formulas(false);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--format" -> format = value;
+                case "--out" -> out = Path.of(value);
+                case "--seed" -> builder.seed(Long.parseLong(value));
+                case "--fleet" -> builder.fleetSize(Integer.parseInt(value));
+                case "--months" -> builder.months(Integer.parseInt(value));
+                case "--start" -> builder.start(YearMonth.parse(value));
+                case "--regions" -> builder.regions(List.of(value.split(",")));
+                case "--types" -> builder.vehicleTypes(List.of(value.split(",")));
+                case "--noise" -> builder.noiseRate(Double.parseDouble(value));
+                case "--currency-text" -> builder.currencyTextRate(Double.parseDouble(value));
+                case "--absence" -> builder.absenceRate(Double.parseDouble(value));
+                case "--mongo-uri" -> mongoUri = value;
+                case "--database" -> database = value;
+                case "--batch" -> batchSize = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        Options options = builder.build();
+        for (String type : options.getVehicleTypes()) {
+            if (!SHEETS.containsKey(type)) {
+                throw new IllegalArgumentException("Unknown vehicle type: " + type + " (expected one of " + SHEETS.keySet() + ")");
+            }
+        }
+        FleetDataGenerator generator = new FleetDataGenerator(options);
+        switch (format) {
+            case "xlsx" -> generator.writeWorkbooks(out).forEach(System.out::println);
+            case "csv" -> {
+                Files.createDirectories(out);
+                Path file = out.resolve("vehicle_data.csv");
+                try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    generator.writeCsv(writer);
+                }
+                System.out.println(file);
+            }
+            case "mongo" -> {
+                try (MongoClient client = MongoClients.create(mongoUri)) {
+                    generator.bulkLoad(new MongoTemplate(client, database), batchSize);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown format: " + format + " (xlsx, csv or mongo)");
+        }
+        System.out.println(generator.getRecordCount() + " records, seed " + options.getSeed());
+    }
+}
@@ -0,0 +1,161 @@
+package com.carburant.backend.utils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.carburant.backend.model.VehicleRegression;
+
+/**
+ * Fits one regression per vehicle over columnar (primitive array) series, in parallel on a fork/join pool.
+ * Each fit is a single pass to accumulate the sufficient statistics plus a single pass for the residuals.
+ */
+@Component
+public class FleetRegressionCalculator {
+
+    /** Residuals beyond this many residual standard deviations count as deviating months */
+    private static final double DEVIATION_THRESHOLD = 2.0;
+
+    @Value("${app.regression.minimum-points-donnees:3}")
+    private int minimumDataPoints = 3;
+
+    /**
+     * Fit all vehicle series in parallel
+     * @param series Per-vehicle series
+     * @param pool Fork/join pool running the fits
+     * @return One baseline per series, in the same order
+     */
+    public List<VehicleRegression> fitAll(List<VehicleSeries> series, ForkJoinPool pool) {
+        LocalDateTime fittedAt = LocalDateTime.now();
+        try {
+            // A parallel stream started from a pool task runs its subtasks in that pool
+            return pool.submit(() -> IntStream.range(0, series.size())
+                    .parallel()
+                    .mapToObj(i -> fit(series.get(i), fittedAt))
+                    .toList())
+                .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Fleet regression interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Fleet regression failed", e.getCause());
+        }
+    }
+
+    /**
+     * Fit the regression of one vehicle
+     * @param series The vehicle series
+     * @param fittedAt Timestamp stored on the result
+     * @return The vehicle baseline
+     */
+    public VehicleRegression fit(VehicleSeries series, LocalDateTime fittedAt) {
+        VehicleRegression.VehicleRegressionBuilder result = VehicleRegression.builder()
+            .id(series.getType() + "|" + series.getMatricule())
+            .type(series.getType())
+            .matricule(series.getMatricule())
+            .n(series.size())
+            .fittedAt(fittedAt);
+
+        if (series.size() < minimumDataPoints) {
+            return result.status(VehicleRegression.STATUS_INSUFFICIENT_DATA).build();
+        }
+
+        double[] kilometrage = series.kilometrage;
+        double[] tonnage = series.tonnage;
+        double[] consommation = series.consommation;
+        int size = series.size();
+
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        for (int i = 0; i < size; i++) {
+            accumulator.add(kilometrage[i], tonnage[i], consommation[i]);
+        }
+
+        RegressionAccumulator.Fit fit;
+        String status = VehicleRegression.STATUS_FITTED;
+        try {
+            fit = accumulator.fit();
+        } catch (IllegalStateException e) {
+            // Typically utility vehicles whose tonnage is always 0
+            try {
+                fit = accumulator.fitKilometrageOnly();
+                status = VehicleRegression.STATUS_KILOMETRAGE_ONLY;
+            } catch (IllegalStateException singular) {
+                return result.status(VehicleRegression.STATUS_SINGULAR).build();
+            }
+        }
+
+        double[] coefficients = fit.getCoefficients();
+        double residualDeviation = Math.sqrt(fit.getResidualVariance());
+        double maxAbsResidual = 0.0;
+        int deviatingMonths = 0;
+        for (int i = 0; i < size; i++) {
+            double residual = Math.abs(consommation[i] - fit.predict(kilometrage[i], tonnage[i]));
+            maxAbsResidual = Math.max(maxAbsResidual, residual);
+            if (residualDeviation > 0 && residual > DEVIATION_THRESHOLD * residualDeviation) {
+                deviatingMonths++;
+            }
+        }
+
+        return result
+            .status(status)
+            .intercept(coefficients[0])
+            .kilometrageCoef(coefficients[1])
+            .tonnageCoef(coefficients[2])
+            .rSquared(fit.getRSquared())
+            .mse(fit.getMse())
+            .maxAbsResidual(maxAbsResidual)
+            .deviatingMonths(deviatingMonths)
+            .build();
+    }
+
+    /**
+     * Observations of one vehicle stored as growable primitive arrays
+     */
+    public static class VehicleSeries {
+        private final String type;
+        private final String matricule;
+        private double[] kilometrage = new double[16];
+        private double[] tonnage = new double[16];
+        private double[] consommation = new double[16];
+        private int size;
+
+        public VehicleSeries(String type, String matricule) {
+            this.type = type;
+            this.matricule = matricule;
+        }
+
+        /**
+         * Append an observation
+         */
+        public void add(double km, double tonnes, double litres) {
+            if (size == kilometrage.length) {
+                int capacity = size * 2;
+                kilometrage = Arrays.copyOf(kilometrage, capacity);
+                tonnage = Arrays.copyOf(tonnage, capacity);
+                consommation = Arrays.copyOf(consommation, capacity);
+            }
+            kilometrage[size] = km;
+            tonnage[size] = tonnes;
+            consommation[size] = litres;
+            size++;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getMatricule() {
+            return matricule;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
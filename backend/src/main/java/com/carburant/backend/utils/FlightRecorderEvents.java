@@ -0,0 +1,120 @@
+package com.carburant.backend.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events of the backend, shown under "Carburant" in JDK Mission Control.
+ * Each event carries the size of the work (rows, documents, observations) and the keys it was
+ * run for (sheet, type, year, region), so a slow occurrence can be matched to its request.
+ * Events cost nothing while no recording is running: fields are only set when shouldCommit().
+ */
+public final class FlightRecorderEvents {
+
+    private static final String CATEGORY = "Carburant";
+
+    private FlightRecorderEvents() {
+    }
+
+    @Name("com.carburant.WorkbookParse")
+    @Label("Workbook Parse")
+    @Description("Extraction of the vehicle records of one sheet, workbook opening included")
+    @Category({ CATEGORY, "Ingestion" })
+    @StackTrace(false)
+    public static class WorkbookParse extends Event {
+        @Label("Sheet")
+        public String sheet;
+        @Label("Source")
+        public String source;
+        @Label("Bytes Read")
+        @DataAmount
+        public long bytes;
+        @Label("Rows Read")
+        public long rowsRead;
+        @Label("Records")
+        public int records;
+        @Label("Rejected Rows")
+        public int rejectedRows;
+        @Label("Parse Errors")
+        public int parseErrors;
+    }
+
+    @Name("com.carburant.SheetResolve")
+    @Label("Sheet Resolve")
+    @Description("Resolution of the merged cells and formulas of a sheet")
+    @Category({ CATEGORY, "Ingestion" })
+    @StackTrace(false)
+    public static class SheetResolve extends Event {
+        @Label("Sheet")
+        public String sheet;
+        @Label("Rows")
+        public int rows;
+        @Label("Columns")
+        public int columns;
+        @Label("Merged Regions")
+        public int mergedRegions;
+    }
+
+    @Name("com.carburant.BulkWrite")
+    @Label("Bulk Write")
+    @Description("Replacement or upsert of the vehicle records of an upload")
+    @Category({ CATEGORY, "Ingestion" })
+    @StackTrace(false)
+    public static class BulkWrite extends Event {
+        @Label("Type")
+        public String type;
+        @Label("Year")
+        public String year;
+        @Label("Month")
+        public String month;
+        @Label("Region")
+        public String region;
+        @Label("Replace Existing")
+        public boolean replaceExisting;
+        @Label("Documents")
+        public int documents;
+    }
+
+    @Name("com.carburant.RegressionFit")
+    @Label("Regression Fit")
+    @Description("Fit of the consumption regression from accumulated statistics")
+    @Category({ CATEGORY, "Regression" })
+    @StackTrace(false)
+    public static class RegressionFit extends Event {
+        @Label("Type")
+        public String type;
+        @Label("Observations")
+        public long observations;
+        @Label("R Squared")
+        public double rSquared;
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    @Name("com.carburant.AggregationQuery")
+    @Label("Aggregation Query")
+    @Description("Query and grouping of the records behind a dashboard aggregation")
+    @Category({ CATEGORY, "Dashboard" })
+    @StackTrace(false)
+    public static class AggregationQuery extends Event {
+        @Label("Operation")
+        public String operation;
+        @Label("Type")
+        public String type;
+        @Label("Year")
+        public String year;
+        @Label("From")
+        public String dateFrom;
+        @Label("To")
+        public String dateTo;
+        @Label("Documents Read")
+        public int documents;
+        @Label("Results")
+        public int results;
+    }
+}
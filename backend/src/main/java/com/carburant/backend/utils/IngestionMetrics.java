@@ -0,0 +1,145 @@
+package com.carburant.backend.utils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters of the ingestion pipeline (workbook upload, sheet extraction, persistence, file storage),
+ * tagged by sheet and vehicle type so a slow stage can be told apart in production.
+ * Sheet and type names come from the uploaded workbooks: past a maximum number of distinct values
+ * they are reported as "other" to keep the number of time series bounded.
+ */
+@Component
+public class IngestionMetrics {
+
+    public static final String STAGE_WORKBOOK_OPEN = "workbook-open";
+    public static final String STAGE_RESOLVE_SHEET = "resolve-sheet";
+    public static final String STAGE_HEADER_DETECTION = "header-detection";
+    public static final String STAGE_ROW_LOOP = "row-loop";
+    public static final String STAGE_PERSISTENCE = "persistence";
+    public static final String STAGE_FILE_STORAGE = "file-storage";
+
+    public static final String SOURCE_UPLOAD = "upload";
+    public static final String SOURCE_CACHE = "cache";
+    public static final String SOURCE_FILE_STORAGE = "file-storage";
+
+    public static final String ROW_ACCEPTED = "accepted";
+    /** Not a vehicle according to ExcelService.isValidVehicle */
+    public static final String ROW_REJECTED = "rejected";
+    /** Row that raised an exception while being parsed */
+    public static final String ROW_PARSE_ERROR = "parse-error";
+
+    static final String NONE = "none";
+    static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final Set<String> knownTagValues = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.metriques.ingestion.valeurs-tag-max:100}")
+    private int maxTagValues = 100;
+
+    public IngestionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Record the duration of an ingestion stage
+     * @param stage One of the STAGE_ constants
+     * @param sheet Sheet name, or null
+     * @param type Vehicle type, or null
+     * @param startNanos System.nanoTime() when the stage started
+     */
+    public void recordStage(String stage, String sheet, String type, long startNanos) {
+        Timer.builder("app.ingestion.stage")
+            .description("Duration of each ingestion stage")
+            .tag("stage", stage)
+            .tag("sheet", tagValue(sheet))
+            .tag("type", tagValue(type))
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the size of a workbook read or stored
+     * @param source One of the SOURCE_ constants
+     * @param sheet Sheet extracted, or null for the whole workbook
+     * @param bytes Bytes read
+     */
+    public void recordBytesIn(String source, String sheet, long bytes) {
+        DistributionSummary.builder("app.ingestion.bytes.in")
+            .description("Workbook bytes read per ingestion")
+            .baseUnit("bytes")
+            .tag("source", source)
+            .tag("sheet", tagValue(sheet))
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(bytes);
+    }
+
+    /**
+     * Record the rows of a sheet extraction and its throughput
+     * @param sheet Sheet name
+     * @param acceptedByType Rows turned into records, per detected vehicle type
+     * @param rejected Rows rejected as not being a vehicle
+     * @param parseErrors Rows that raised an exception
+     * @param rowsRead Non-empty data rows read
+     * @param startNanos System.nanoTime() when the extraction started (before the workbook was opened)
+     */
+    public void recordRows(String sheet, Map<String, Integer> acceptedByType, int rejected, int parseErrors,
+            long rowsRead, long startNanos) {
+        acceptedByType.forEach((type, count) -> rowCounter(sheet, type, ROW_ACCEPTED).increment(count));
+        if (rejected > 0) {
+            rowCounter(sheet, null, ROW_REJECTED).increment(rejected);
+        }
+        if (parseErrors > 0) {
+            rowCounter(sheet, null, ROW_PARSE_ERROR).increment(parseErrors);
+        }
+
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        if (rowsRead > 0 && seconds > 0) {
+            DistributionSummary.builder("app.ingestion.rows.throughput")
+                .description("Data rows read per second of extraction, workbook opening included")
+                .baseUnit("rows/s")
+                .tag("sheet", tagValue(sheet))
+                .register(meterRegistry)
+                .record(rowsRead / seconds);
+        }
+    }
+
+    private Counter rowCounter(String sheet, String type, String outcome) {
+        return Counter.builder("app.ingestion.rows")
+            .description("Data rows by outcome")
+            .tag("sheet", tagValue(sheet))
+            .tag("type", tagValue(type))
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Tag value of a sheet or type name, "other" once too many distinct names were seen
+     */
+    String tagValue(String name) {
+        if (name == null || name.isBlank()) {
+            return NONE;
+        }
+        if (knownTagValues.contains(name)) {
+            return name;
+        }
+        if (knownTagValues.size() >= maxTagValues) {
+            return OTHER;
+        }
+        knownTagValues.add(name);
+        return name;
+    }
+}
@@ -0,0 +1,457 @@
+package com.carburant.backend.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * MongoDB driver listener measuring every query by shape (command, collection, filter without its
+ * values): latency, documents returned and reply bytes, published to Micrometer and kept per shape for
+ * the slowqueries actuator endpoint. The meters of a shape are registered once and kept with it.
+ * Commands slower than app.mongo.requetes-lentes.seuil-ms are logged with their shape, and the plan
+ * of their shape is explained in the background (at most once per shape and interval) so the log
+ * shows whether an index was used. A sent command cannot be read once its started event returns and
+ * copying every command would cost a copy per round trip, so a slow command only marks its shape:
+ * the next command of that shape is copied and explained. Round trips also count for the cost of
+ * the request that sent them (RequestCost).
+ */
+@Component
+public class MongoQueryMetrics implements CommandListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoQueryMetrics.class);
+
+    /** Commands measured; getMore is attributed to the shape of the command that opened the cursor */
+    private static final Set<String> QUERY_COMMANDS = Set.of(
+        "find", "aggregate", "count", "distinct", "findAndModify", "insert", "update", "delete");
+    private static final Set<String> EXPLAINABLE_COMMANDS = Set.of("find", "aggregate", "count", "distinct");
+    /** Fields of a sent command that the explain command does not accept */
+    private static final Set<String> SESSION_FIELDS = Set.of(
+        "$db", "lsid", "$clusterTime", "$readPreference", "txnNumber", "autocommit", "startTransaction", "readConcern");
+    private static final int MAX_OPEN_CURSORS = 10_000;
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<MongoTemplate> mongoTemplateProvider;
+    private final Map<Integer, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<Long, ShapeStats> openCursors = new ConcurrentHashMap<>();
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(16), runnable -> {
+            Thread thread = new Thread(runnable, "mongo-explain");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+
+    @Value("${app.mongo.requetes-lentes.seuil-ms:200}")
+    private long slowThresholdMillis = 200;
+
+    @Value("${app.mongo.requetes-lentes.expliquer:true}")
+    private boolean explainSlowQueries = true;
+
+    @Value("${app.mongo.requetes-lentes.intervalle-explain-secondes:300}")
+    private long explainIntervalSeconds = 300;
+
+    @Value("${app.mongo.metriques.formes-max:200}")
+    private int maxShapes = 200;
+
+    @Value("${app.mongo.metriques.histogrammes:false}")
+    private boolean publishHistograms = false;
+
+    public MongoQueryMetrics(MeterRegistry meterRegistry, ObjectProvider<MongoTemplate> mongoTemplateProvider) {
+        this.meterRegistry = meterRegistry;
+        this.mongoTemplateProvider = mongoTemplateProvider;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String commandName = event.getCommandName();
+        BsonDocument command = event.getCommand();
+        ShapeStats stats;
+        long cursorId = 0L;
+        if ("getMore".equals(commandName)) {
+            cursorId = command.isInt64("getMore") ? command.getInt64("getMore").getValue() : 0L;
+            stats = openCursors.get(cursorId);
+        } else if (QUERY_COMMANDS.contains(commandName)) {
+            BsonValue collection = command.get(commandName);
+            stats = shapeStats(commandName, collection != null && collection.isString()
+                ? collection.asString().getValue() : "?", command);
+        } else {
+            if ("killCursors".equals(commandName) && command.isArray("cursors")) {
+                command.getArray("cursors").forEach(id -> openCursors.remove(id.asInt64().getValue()));
+            }
+            return;
+        }
+        if (stats == null) {
+            return;
+        }
+        // The command document is only valid during this call: copied only for a shape marked by a slow command
+        BsonDocument explainable = cursorId == 0L && stats.takeExplainRequest() ? command.clone() : null;
+        pending.put(event.getRequestId(), new Pending(stats, commandName, event.getDatabaseName(), cursorId, explainable,
+            RequestCost.current()));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Pending started = pending.remove(event.getRequestId());
+        if (started == null) {
+            return;
+        }
+        BsonDocument reply = event.getResponse();
+        long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        long documents = documentsReturned(started.commandName, reply);
+        long bytes = replyBytes(reply);
+        trackCursor(started, reply);
+        record(started, nanos, documents, bytes, "success");
+        if (started.cost != null) {
+            started.cost.recordMongo(nanos, documents, bytes);
+        }
+
+        if (nanos >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis)) {
+            logger.warn("Slow MongoDB {} on {}: {} ms, {} documents, {} bytes, shape {}", started.commandName,
+                        started.stats.collection, TimeUnit.NANOSECONDS.toMillis(nanos), documents, bytes,
+                        started.stats.shape);
+            if (explainSlowQueries && started.stats.explainable) {
+                started.stats.requestExplain(explainIntervalSeconds);
+            }
+        }
+        if (started.explainable != null) {
+            explain(started);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        Pending started = pending.remove(event.getRequestId());
+        if (started != null) {
+            long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+            record(started, nanos, 0, 0, "error");
+            if (started.cost != null) {
+                started.cost.recordMongo(nanos, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * Shapes ordered by a latency statistic
+     * @param limit Number of shapes
+     * @param sort "mean" (default), "max" or "total"
+     * @return The slowest shapes with their latency, document and byte statistics and last plan
+     */
+    public List<Map<String, Object>> getSlowestShapes(int limit, String sort) {
+        Comparator<ShapeStats.Snapshot> order = switch (sort == null ? "mean" : sort) {
+            case "max" -> Comparator.comparingDouble(ShapeStats.Snapshot::maxMillis);
+            case "total" -> Comparator.comparingDouble(ShapeStats.Snapshot::totalMillis);
+            case "mean" -> Comparator.comparingDouble(ShapeStats.Snapshot::meanMillis);
+            default -> throw new IllegalArgumentException("Unknown sort: " + sort + " (mean, max or total)");
+        };
+        List<ShapeStats.Snapshot> snapshots = new ArrayList<>();
+        shapes.values().forEach(stats -> snapshots.add(stats.snapshot()));
+        return snapshots.stream()
+            .filter(snapshot -> snapshot.calls() > 0)
+            .sorted(order.reversed())
+            .limit(Math.max(limit, 0))
+            .map(ShapeStats.Snapshot::toMap)
+            .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private ShapeStats shapeStats(String commandName, String collection, BsonDocument command) {
+        String shape = QueryShape.of(commandName, command);
+        String key = commandName + " " + collection + " " + shape;
+        ShapeStats stats = shapes.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        if (shapes.size() >= maxShapes) {
+            // Bounded number of time series: further shapes are counted together
+            return shapes.computeIfAbsent(commandName + " " + collection + " other",
+                k -> new ShapeStats(commandName, collection, "other", false));
+        }
+        return shapes.computeIfAbsent(key,
+            k -> new ShapeStats(commandName, collection, shape, EXPLAINABLE_COMMANDS.contains(commandName)));
+    }
+
+    private void record(Pending started, long nanos, long documents, long bytes, String outcome) {
+        ShapeStats stats = started.stats;
+        stats.record(nanos, documents, bytes);
+        CommandMeters meters = stats.meters(started.commandName, this::registerMeters);
+        if ("success".equals(outcome)) {
+            meters.success.record(nanos, TimeUnit.NANOSECONDS);
+            meters.documents.record(documents);
+            meters.bytes.record(bytes);
+        } else {
+            Timer error = meters.error;
+            if (error == null) {
+                // Registering twice returns the same timer, so a race only costs a lookup
+                error = registerTimer(stats, started.commandName, "error");
+                meters.error = error;
+            }
+            error.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Meters of the round trips of a shape sent as the given command (its own command or getMore)
+     */
+    private CommandMeters registerMeters(ShapeStats stats, String commandName) {
+        return new CommandMeters(registerTimer(stats, commandName, "success"),
+            summary("app.mongo.query.documents", "Documents returned or written per round trip", null,
+                stats, commandName),
+            summary("app.mongo.query.bytes", "Reply size per round trip", "bytes", stats, commandName));
+    }
+
+    private Timer registerTimer(ShapeStats stats, String commandName, String outcome) {
+        return Timer.builder("app.mongo.query")
+            .description("MongoDB round trips by query shape")
+            .tag("command", commandName)
+            .tag("collection", stats.collection)
+            .tag("shape", stats.shape)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram(publishHistograms)
+            .register(meterRegistry);
+    }
+
+    private DistributionSummary summary(String name, String description, String baseUnit, ShapeStats stats,
+            String commandName) {
+        return DistributionSummary.builder(name)
+            .description(description)
+            .baseUnit(baseUnit)
+            .tag("command", commandName)
+            .tag("collection", stats.collection)
+            .tag("shape", stats.shape)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Remember the cursors left open so their getMore round trips count for the query's shape
+     */
+    private void trackCursor(Pending started, BsonDocument reply) {
+        if (!reply.isDocument("cursor")) {
+            return;
+        }
+        BsonDocument cursor = reply.getDocument("cursor");
+        long cursorId = cursor.isInt64("id") ? cursor.getInt64("id").getValue() : 0L;
+        if ("getMore".equals(started.commandName)) {
+            if (cursorId == 0L) {
+                openCursors.remove(started.cursorId); // Exhausted
+            }
+        } else if (cursorId != 0L) {
+            if (openCursors.size() >= MAX_OPEN_CURSORS) {
+                openCursors.clear(); // Cursors never exhausted nor killed
+            }
+            openCursors.put(cursorId, started.stats);
+        }
+    }
+
+    private static long documentsReturned(String commandName, BsonDocument reply) {
+        if (reply.isDocument("cursor")) {
+            BsonDocument cursor = reply.getDocument("cursor");
+            String batch = "getMore".equals(commandName) ? "nextBatch" : "firstBatch";
+            return cursor.isArray(batch) ? cursor.getArray(batch).size() : 0;
+        }
+        if (reply.isArray("values")) {
+            return reply.getArray("values").size(); // distinct
+        }
+        if ("findAndModify".equals(commandName)) {
+            return reply.isDocument("value") ? 1 : 0;
+        }
+        if (reply.isNumber("n")) {
+            return reply.getNumber("n").longValue(); // count and writes
+        }
+        return 0;
+    }
+
+    private static long replyBytes(BsonDocument reply) {
+        if (reply instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining(); // What the driver hands over: no encoding needed
+        }
+        return new RawBsonDocument(reply, new BsonDocumentCodec()).getByteBuffer().remaining();
+    }
+
+    private void explain(Pending started) {
+        ShapeStats stats = started.stats;
+        explainExecutor.execute(() -> {
+            MongoTemplate mongoTemplate = mongoTemplateProvider.getIfAvailable();
+            if (mongoTemplate == null) {
+                return;
+            }
+            BsonDocument command = new BsonDocument();
+            started.explainable.forEach((key, value) -> {
+                if (!SESSION_FIELDS.contains(key)) {
+                    command.put(key, value);
+                }
+            });
+            try {
+                BsonDocument explain = mongoTemplate.getMongoDatabaseFactory().getMongoDatabase(started.database)
+                    .runCommand(new BsonDocument("explain", command).append("verbosity", new BsonString("queryPlanner")),
+                                BsonDocument.class);
+                String plan = QueryShape.planSummary(explain);
+                stats.setPlan(plan);
+                logger.warn("Plan of slow MongoDB {} on {} shape {}: {}", stats.command, stats.collection, stats.shape, plan);
+            } catch (RuntimeException e) {
+                logger.debug("Could not explain {} on {}: {}", stats.command, stats.collection, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * A command sent and not answered yet
+     * @param cursorId Cursor read by a getMore, 0 for other commands
+     * @param explainable Copy of the command when its shape is to be explained, null otherwise
+     * @param cost Cost of the request that sent the command, null outside of a request
+     */
+    private record Pending(ShapeStats stats, String commandName, String database, long cursorId,
+            BsonDocument explainable, RequestCost cost) {
+    }
+
+    /**
+     * Meters of a shape for one sent command, the error timer being registered on the first failure
+     */
+    private static class CommandMeters {
+        final Timer success;
+        final DistributionSummary documents;
+        final DistributionSummary bytes;
+        volatile Timer error;
+
+        CommandMeters(Timer success, DistributionSummary documents, DistributionSummary bytes) {
+            this.success = success;
+            this.documents = documents;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Latency, document and byte totals of a query shape, with its meters
+     */
+    private static class ShapeStats {
+        final String command;
+        final String collection;
+        final String shape;
+        final boolean explainable;
+        /** By sent command: the shape's own command, and getMore for the cursors it opens */
+        private final Map<String, CommandMeters> meters = new ConcurrentHashMap<>(4);
+        private long calls;
+        private long totalNanos;
+        private long maxNanos;
+        private long documents;
+        private long bytes;
+        private long lastExplainNanos;
+        private boolean explained;
+        private volatile boolean explainRequested;
+        private volatile String plan;
+
+        ShapeStats(String command, String collection, String shape, boolean explainable) {
+            this.command = command;
+            this.collection = collection;
+            this.shape = shape;
+            this.explainable = explainable;
+        }
+
+        /**
+         * Meters of the round trips sent as the given command, registered on first use
+         */
+        CommandMeters meters(String commandName, BiFunction<ShapeStats, String, CommandMeters> factory) {
+            CommandMeters commandMeters = meters.get(commandName);
+            return commandMeters != null ? commandMeters
+                : meters.computeIfAbsent(commandName, name -> factory.apply(this, name));
+        }
+
+        synchronized void record(long nanos, long documentCount, long byteCount) {
+            calls++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            documents += documentCount;
+            bytes += byteCount;
+        }
+
+        /**
+         * Mark the shape after a slow command, unless it was explained less than an interval ago
+         */
+        synchronized void requestExplain(long intervalSeconds) {
+            if (!explained || System.nanoTime() - lastExplainNanos >= TimeUnit.SECONDS.toNanos(intervalSeconds)) {
+                explainRequested = true;
+            }
+        }
+
+        /**
+         * Claim the explain of a marked shape for the command being sent (a volatile read for the others)
+         * @return true for the one command to copy and explain
+         */
+        boolean takeExplainRequest() {
+            if (!explainRequested) {
+                return false;
+            }
+            synchronized (this) {
+                if (!explainRequested) {
+                    return false;
+                }
+                explainRequested = false;
+                explained = true;
+                lastExplainNanos = System.nanoTime();
+                return true;
+            }
+        }
+
+        void setPlan(String plan) {
+            this.plan = plan;
+        }
+
+        synchronized Snapshot snapshot() {
+            return new Snapshot(command, collection, shape, calls, totalNanos / 1e6, maxNanos / 1e6,
+                calls > 0 ? totalNanos / 1e6 / calls : 0, documents, bytes, plan);
+        }
+
+        record Snapshot(String command, String collection, String shape, long calls, double totalMillis,
+                double maxMillis, double meanMillis, long documents, long bytes, String plan) {
+
+            Map<String, Object> toMap() {
+                Map<String, Object> map = new LinkedHashMap<>();
+                map.put("command", command);
+                map.put("collection", collection);
+                map.put("shape", shape);
+                map.put("calls", calls);
+                map.put("meanMillis", meanMillis);
+                map.put("maxMillis", maxMillis);
+                map.put("totalMillis", totalMillis);
+                map.put("documents", documents);
+                map.put("bytes", bytes);
+                map.put("plan", plan);
+                return map;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.carburant.backend.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Month names as stored in vehicle records ("Janvier", "fév", "03", ...)
+ */
+public final class MonthUtils {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthUtils.class);
+
+    private MonthUtils() {
+    }
+
+    /**
+     * Convert French month name to numeric month value (1-12)
+     * This helps with proper sorting and period filtering of monthly data
+     * 
+     * @param monthName French month name
+     * @return Month number (1-12) or 0 if not recognized
+     */
+    public static int monthNumber(String monthName) {
+        if (monthName == null || monthName.isEmpty()) {
+            return 0;
+        }
+        
+        // Normalize month name for comparison
+        String normalizedMonth = monthName.trim().toLowerCase();
+        
+        // Map French month names to numeric values
+        switch (normalizedMonth) {
+            case "janvier": return 1;
+            case "février": 
+            case "fevrier": return 2;
+            case "mars": return 3;
+            case "avril": return 4;
+            case "mai": return 5;
+            case "juin": return 6;
+            case "juillet": return 7;
+            case "août": 
+            case "aout": return 8;
+            case "septembre": return 9;
+            case "octobre": return 10;
+            case "novembre": return 11;
+            case "décembre": 
+            case "decembre": return 12;
+            default:
+                // Handle numeric month formats like "01", "02", etc.
+                try {
+                    int monthNum = Integer.parseInt(normalizedMonth);
+                    if (monthNum >= 1 && monthNum <= 12) {
+                        return monthNum;
+                    }
+                } catch (NumberFormatException e) {
+                    // Not a numeric month, continue with pattern matching
+                }
+                
+                // Handle abbreviated month names or partial matches
+                if (normalizedMonth.startsWith("jan")) return 1;
+                if (normalizedMonth.startsWith("fév") || normalizedMonth.startsWith("fev")) return 2;
+                if (normalizedMonth.startsWith("mar")) return 3;
+                if (normalizedMonth.startsWith("avr")) return 4;
+                if (normalizedMonth.startsWith("mai")) return 5;
+                if (normalizedMonth.startsWith("juin")) return 6;
+                if (normalizedMonth.startsWith("juil")) return 7;
+                if (normalizedMonth.startsWith("aoû") || normalizedMonth.startsWith("aou")) return 8;
+                if (normalizedMonth.startsWith("sep")) return 9;
+                if (normalizedMonth.startsWith("oct")) return 10;
+                if (normalizedMonth.startsWith("nov")) return 11;
+                if (normalizedMonth.startsWith("déc") || normalizedMonth.startsWith("dec")) return 12;
+                
+                logger.warn("Unrecognized month name: {}", monthName);
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.carburant.backend.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.carburant.backend.model.OutlierDetection.MetricSummary;
+import com.carburant.backend.model.OutlierRecord;
+
+/**
+ * Streaming outlier detection over the records of a vehicle type.
+ * A {@link Scan} is fed once per record (one pass over a cursor): it keeps the values as columnar primitive
+ * arrays, a Welford mean/variance and a bounded reservoir sketch per metric (for the median and the MAD),
+ * and the regression sufficient statistics. {@link #classify(Scan)} then scores every record on its
+ * robust z-scores, and on its studentized residual and leverage with respect to the fit of the scan.
+ */
+@Component
+public class OutlierDetector {
+
+    /** MAD × 1.4826 estimates the standard deviation of normally distributed data */
+    private static final double MAD_SCALE = 1.4826;
+
+    @Value("${app.outliers.seuil-z-robuste:3.5}")
+    private double robustZThreshold = 3.5;
+
+    @Value("${app.outliers.seuil-residu:3.0}")
+    private double residualThreshold = 3.0;
+
+    @Value("${app.outliers.facteur-levier:3.0}")
+    private double leverageFactor = 3.0;
+
+    @Value("${app.outliers.taille-echantillon:4096}")
+    private int sketchCapacity = 4096;
+
+    /**
+     * Start a scan
+     * @return An empty scan
+     */
+    public Scan newScan() {
+        return new Scan(sketchCapacity);
+    }
+
+    /**
+     * Score every record of a scan and return the flagged ones
+     * @param scan The completed scan
+     * @return Flagged records with their values, scores and reasons (id, values and scores only, no metadata)
+     */
+    public List<OutlierRecord> classify(Scan scan) {
+        int n = scan.size;
+        double[] kilometrage = scan.kilometrage;
+        double[] tonnage = scan.tonnage;
+        double[] consommation = scan.consommation;
+
+        double kilometrageMedian = scan.kilometrageStatistics.getMedian();
+        double kilometrageScale = scan.kilometrageStatistics.getRobustScale();
+        double tonnageMedian = scan.tonnageStatistics.getMedian();
+        double tonnageScale = scan.tonnageStatistics.getRobustScale();
+        double consommationMedian = scan.consommationStatistics.getMedian();
+        double consommationScale = scan.consommationStatistics.getRobustScale();
+
+        // Fit of the scanned records, kilometrage only for types without tonnage variance
+        RegressionAccumulator.Fit fit = null;
+        try {
+            fit = scan.accumulator.fit();
+        } catch (IllegalStateException e) {
+            try {
+                fit = scan.accumulator.fitKilometrageOnly();
+            } catch (IllegalStateException singular) {
+                // Only the per-metric scores are available
+            }
+        }
+        boolean fitted = fit != null && fit.getDegreesOfFreedom() > 0 && fit.getResidualVariance() > 0;
+        double b0 = 0, b1 = 0, b2 = 0, g00 = 0, g01 = 0, g02 = 0, g11 = 0, g12 = 0, g22 = 0;
+        double residualDeviation = Double.NaN;
+        double leverageLimit = Double.NaN;
+        if (fitted) {
+            double[] coefficients = fit.getCoefficients();
+            double[][] inverse = fit.getInverseGram();
+            b0 = coefficients[0];
+            b1 = coefficients[1];
+            b2 = coefficients[2];
+            g00 = inverse[0][0];
+            g01 = inverse[0][1];
+            g02 = inverse[0][2];
+            g11 = inverse[1][1];
+            g12 = inverse[1][2];
+            g22 = inverse[2][2];
+            residualDeviation = Math.sqrt(fit.getResidualVariance());
+            leverageLimit = leverageFactor * fit.getParameterCount() / n;
+        }
+
+        List<OutlierRecord> flagged = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double x1 = kilometrage[i];
+            double x2 = tonnage[i];
+            double y = consommation[i];
+            double kilometrageScore = score(x1, kilometrageMedian, kilometrageScale);
+            double tonnageScore = score(x2, tonnageMedian, tonnageScale);
+            double consommationScore = score(y, consommationMedian, consommationScale);
+
+            double leverage = Double.NaN;
+            double studentizedResidual = Double.NaN;
+            if (fitted) {
+                leverage = g00 + 2 * (g01 * x1 + g02 * x2) + g11 * x1 * x1 + 2 * g12 * x1 * x2 + g22 * x2 * x2;
+                double residual = y - (b0 + b1 * x1 + b2 * x2);
+                studentizedResidual = leverage < 1 ? residual / (residualDeviation * Math.sqrt(1 - leverage)) : 0.0;
+            }
+
+            boolean kilometrageOutlier = Math.abs(kilometrageScore) > robustZThreshold;
+            boolean tonnageOutlier = Math.abs(tonnageScore) > robustZThreshold;
+            boolean consommationOutlier = Math.abs(consommationScore) > robustZThreshold;
+            boolean residualOutlier = Math.abs(studentizedResidual) > residualThreshold;
+            boolean leverageOutlier = leverage > leverageLimit;
+            if (!(kilometrageOutlier || tonnageOutlier || consommationOutlier || residualOutlier || leverageOutlier)) {
+                continue;
+            }
+
+            List<String> reasons = new ArrayList<>(2);
+            if (kilometrageOutlier) {
+                reasons.add(OutlierRecord.REASON_KILOMETRAGE);
+            }
+            if (tonnageOutlier) {
+                reasons.add(OutlierRecord.REASON_TONNAGE);
+            }
+            if (consommationOutlier) {
+                reasons.add(OutlierRecord.REASON_CONSOMMATION);
+            }
+            if (residualOutlier) {
+                reasons.add(OutlierRecord.REASON_RESIDUAL);
+            }
+            if (leverageOutlier) {
+                reasons.add(OutlierRecord.REASON_LEVERAGE);
+            }
+            flagged.add(OutlierRecord.builder()
+                .id(scan.ids[i])
+                .kilometrage(x1)
+                .tonnage(x2)
+                .consommation(y)
+                .reasons(reasons)
+                .kilometrageScore(kilometrageScore)
+                .tonnageScore(tonnageScore)
+                .consommationScore(consommationScore)
+                .studentizedResidual(studentizedResidual)
+                .leverage(leverage)
+                .build());
+        }
+        return flagged;
+    }
+
+    /**
+     * Robust z-score, 0 when the metric has no spread
+     */
+    private double score(double value, double median, double scale) {
+        return scale > 0 ? (value - median) / scale : 0.0;
+    }
+
+    /**
+     * State of a one-pass scan over the records of a type
+     */
+    public static class Scan {
+        private String[] ids = new String[256];
+        private double[] kilometrage = new double[256];
+        private double[] tonnage = new double[256];
+        private double[] consommation = new double[256];
+        private int size;
+        private final MetricStatistics kilometrageStatistics;
+        private final MetricStatistics tonnageStatistics;
+        private final MetricStatistics consommationStatistics;
+        private final RegressionAccumulator accumulator = new RegressionAccumulator();
+
+        Scan(int sketchCapacity) {
+            // Distinct seeds so the three reservoirs do not sample the same records
+            kilometrageStatistics = new MetricStatistics(sketchCapacity, 1);
+            tonnageStatistics = new MetricStatistics(sketchCapacity, 2);
+            consommationStatistics = new MetricStatistics(sketchCapacity, 3);
+        }
+
+        /**
+         * Add a record
+         * @param id Record id
+         * @param km Distance in Km
+         * @param tonnes Transported products in Tons
+         * @param litres Consumption in L
+         */
+        public void add(String id, double km, double tonnes, double litres) {
+            if (size == kilometrage.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                kilometrage = Arrays.copyOf(kilometrage, capacity);
+                tonnage = Arrays.copyOf(tonnage, capacity);
+                consommation = Arrays.copyOf(consommation, capacity);
+            }
+            ids[size] = id;
+            kilometrage[size] = km;
+            tonnage[size] = tonnes;
+            consommation[size] = litres;
+            size++;
+            kilometrageStatistics.add(km);
+            tonnageStatistics.add(tonnes);
+            consommationStatistics.add(litres);
+            accumulator.add(km, tonnes, litres);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public MetricStatistics getKilometrageStatistics() {
+            return kilometrageStatistics;
+        }
+
+        public MetricStatistics getTonnageStatistics() {
+            return tonnageStatistics;
+        }
+
+        public MetricStatistics getConsommationStatistics() {
+            return consommationStatistics;
+        }
+    }
+
+    /**
+     * Welford mean and variance plus a reservoir sample of bounded size, from which the median
+     * and the median absolute deviation are estimated (exact while fewer values than the capacity were added)
+     */
+    public static class MetricStatistics {
+        private final double[] reservoir;
+        private long count;
+        private double mean;
+        private double m2;
+        private long randomState;
+        private double median = Double.NaN;
+        private double mad = Double.NaN;
+
+        public MetricStatistics(int capacity, long seed) {
+            this.reservoir = new double[capacity];
+            this.randomState = seed;
+        }
+
+        /**
+         * Add a value
+         */
+        public void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+
+            // Algorithm R: keep each of the count values with probability capacity / count
+            if (count <= reservoir.length) {
+                reservoir[(int) count - 1] = value;
+            } else {
+                long slot = Long.remainderUnsigned(nextRandom(), count);
+                if (slot < reservoir.length) {
+                    reservoir[(int) slot] = value;
+                }
+            }
+            median = Double.NaN;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * Sample standard deviation
+         */
+        public double getStandardDeviation() {
+            return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0;
+        }
+
+        public double getMedian() {
+            computeSketch();
+            return median;
+        }
+
+        public double getMad() {
+            computeSketch();
+            return mad;
+        }
+
+        /**
+         * Robust estimate of the standard deviation (1.4826 × MAD), falling back to the standard deviation
+         * when more than half of the values are equal (MAD = 0)
+         */
+        public double getRobustScale() {
+            double scale = MAD_SCALE * getMad();
+            return scale > 0 ? scale : getStandardDeviation();
+        }
+
+        /**
+         * Summary stored with the detection run
+         */
+        public MetricSummary toSummary() {
+            return MetricSummary.builder()
+                .count(count)
+                .mean(mean)
+                .standardDeviation(getStandardDeviation())
+                .median(getMedian())
+                .mad(getMad())
+                .build();
+        }
+
+        private void computeSketch() {
+            if (!Double.isNaN(median) || count == 0) {
+                return;
+            }
+            int size = (int) Math.min(count, reservoir.length);
+            double[] values = Arrays.copyOf(reservoir, size);
+            Arrays.sort(values);
+            median = medianOfSorted(values);
+            for (int i = 0; i < size; i++) {
+                values[i] = Math.abs(values[i] - median);
+            }
+            Arrays.sort(values);
+            mad = medianOfSorted(values);
+        }
+
+        private static double medianOfSorted(double[] values) {
+            int middle = values.length / 2;
+            return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+        }
+
+        /**
+         * splitmix64
+         */
+        private long nextRandom() {
+            long z = (randomState += 0x9E3779B97F4A7C15L);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
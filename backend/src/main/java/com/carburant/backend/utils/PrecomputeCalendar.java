@@ -0,0 +1,52 @@
+package com.carburant.backend.utils;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Which months the month-end pre-computation has to run for on a given day
+ */
+public final class PrecomputeCalendar {
+
+    private PrecomputeCalendar() {
+    }
+
+    /**
+     * Whether a day falls in the last days of its month
+     * @param date Day
+     * @param daysBeforeEnd Length of the window, the last day of the month included
+     * @return true from the (daysBeforeEnd)th last day of the month to its last day
+     */
+    public static boolean inMonthEndWindow(LocalDate date, int daysBeforeEnd) {
+        int lastDay = date.lengthOfMonth();
+        return date.getDayOfMonth() > lastDay - Math.max(daysBeforeEnd, 1);
+    }
+
+    /**
+     * Months to pre-compute, oldest first: the past months whose window went by without an up-to-date
+     * run (at most maxCatchUpMonths back), then the current month when today is in its window
+     * @param today Current day
+     * @param daysBeforeEnd Length of the month-end window
+     * @param maxCatchUpMonths How many past months are caught up, 0 to catch none up
+     * @param upToDate Whether a month already has an up-to-date run
+     * @return Months due, possibly empty
+     */
+    public static List<YearMonth> dueMonths(LocalDate today, int daysBeforeEnd, int maxCatchUpMonths,
+            Predicate<YearMonth> upToDate) {
+        YearMonth current = YearMonth.from(today);
+        List<YearMonth> due = new ArrayList<>();
+        for (int back = Math.max(maxCatchUpMonths, 0); back >= 1; back--) {
+            YearMonth month = current.minusMonths(back);
+            if (!upToDate.test(month)) {
+                due.add(month);
+            }
+        }
+        if (inMonthEndWindow(today, daysBeforeEnd) && !upToDate.test(current)) {
+            due.add(current);
+        }
+        return due;
+    }
+}
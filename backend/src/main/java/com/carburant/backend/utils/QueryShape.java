@@ -0,0 +1,185 @@
+package com.carburant.backend.utils;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+/**
+ * Shape of a MongoDB command: its filter, sort and pipeline with every value replaced by "?", so the
+ * queries a repository method sends with different values are counted together. Also summarizes
+ * the winning plan of an explain output.
+ */
+public final class QueryShape {
+
+    /** Commands whose shape is the filter ("filter" or "query" field) */
+    private static final Set<String> FILTER_COMMANDS = Set.of("find", "count", "delete", "update", "findAndModify", "distinct");
+
+    private QueryShape() {
+    }
+
+    /**
+     * Shape of a command
+     * @param commandName Command name (find, aggregate, ...)
+     * @param command Command document
+     * @return e.g. "{type:?,year:{$gte:?}} sort{mois:1}" or "[$match{type:?},$group]"
+     */
+    public static String of(String commandName, BsonDocument command) {
+        StringBuilder shape = new StringBuilder();
+        if ("aggregate".equals(commandName)) {
+            BsonValue pipeline = command.get("pipeline");
+            shape.append('[');
+            if (pipeline != null && pipeline.isArray()) {
+                boolean first = true;
+                for (BsonValue stage : pipeline.asArray()) {
+                    if (!first) {
+                        shape.append(',');
+                    }
+                    first = false;
+                    appendStage(shape, stage);
+                }
+            }
+            shape.append(']');
+        } else if (FILTER_COMMANDS.contains(commandName)) {
+            BsonValue filter = command.containsKey("filter") ? command.get("filter") : command.get("query");
+            if ("delete".equals(commandName) || "update".equals(commandName)) {
+                // Bulk writes: the filter of the first statement
+                BsonValue statements = command.get("delete".equals(commandName) ? "deletes" : "updates");
+                if (statements != null && statements.isArray() && !statements.asArray().isEmpty()
+                        && statements.asArray().get(0).isDocument()) {
+                    filter = statements.asArray().get(0).asDocument().get("q");
+                }
+            }
+            appendValue(shape, filter != null ? filter : new BsonDocument());
+            if ("distinct".equals(commandName) && command.isString("key")) {
+                shape.append(" key ").append(command.getString("key").getValue());
+            }
+            BsonValue sort = command.get("sort");
+            if (sort != null && sort.isDocument() && !sort.asDocument().isEmpty()) {
+                shape.append(" sort").append(sort.asDocument().toJson().replace(" ", "").replace("\"", ""));
+            }
+        } else {
+            shape.append('-');
+        }
+        return shape.toString();
+    }
+
+    /**
+     * Summary of the winning plan of an explain output, outermost stage first
+     * @param explain Output of the explain command (find, count, distinct or aggregate)
+     * @return e.g. "FETCH > IXSCAN(type_1)", "COLLSCAN", or null if no plan was found
+     */
+    public static String planSummary(BsonDocument explain) {
+        BsonDocument plan = findDocument(explain, "winningPlan");
+        if (plan == null) {
+            return null;
+        }
+        if (plan.isDocument("queryPlan")) {
+            plan = plan.getDocument("queryPlan"); // Slot-based engine
+        }
+        StringBuilder summary = new StringBuilder();
+        appendPlanStage(summary, plan);
+        return summary.toString();
+    }
+
+    private static void appendStage(StringBuilder shape, BsonValue stage) {
+        if (!stage.isDocument() || stage.asDocument().isEmpty()) {
+            shape.append('?');
+            return;
+        }
+        String name = stage.asDocument().getFirstKey();
+        shape.append(name);
+        if ("$match".equals(name)) {
+            appendValue(shape, stage.asDocument().get(name));
+        }
+    }
+
+    private static void appendValue(StringBuilder shape, BsonValue value) {
+        if (value.isDocument()) {
+            shape.append('{');
+            boolean first = true;
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                if (!first) {
+                    shape.append(',');
+                }
+                first = false;
+                String key = entry.getKey();
+                shape.append(key).append(':');
+                BsonValue nested = entry.getValue();
+                if (("$and".equals(key) || "$or".equals(key) || "$nor".equals(key)) && nested.isArray()) {
+                    appendClauses(shape, nested.asArray());
+                } else if (nested.isDocument()) {
+                    appendValue(shape, nested);
+                } else {
+                    // Scalars, and arrays of values ($in, $nin, $all) whatever their length
+                    shape.append('?');
+                }
+            }
+            shape.append('}');
+        } else {
+            shape.append('?');
+        }
+    }
+
+    private static void appendClauses(StringBuilder shape, BsonArray clauses) {
+        shape.append('[');
+        for (int i = 0; i < clauses.size(); i++) {
+            if (i > 0) {
+                shape.append(',');
+            }
+            appendValue(shape, clauses.get(i));
+        }
+        shape.append(']');
+    }
+
+    private static void appendPlanStage(StringBuilder summary, BsonDocument stage) {
+        summary.append(stage.isString("stage") ? stage.getString("stage").getValue() : "?");
+        if (stage.isString("indexName")) {
+            summary.append('(').append(stage.getString("indexName").getValue()).append(')');
+        }
+        if (stage.isDocument("inputStage")) {
+            summary.append(" > ");
+            appendPlanStage(summary, stage.getDocument("inputStage"));
+        } else if (stage.isArray("inputStages")) {
+            summary.append(" > [");
+            BsonArray inputs = stage.getArray("inputStages");
+            for (int i = 0; i < inputs.size(); i++) {
+                if (i > 0) {
+                    summary.append(", ");
+                }
+                if (inputs.get(i).isDocument()) {
+                    appendPlanStage(summary, inputs.get(i).asDocument());
+                }
+            }
+            summary.append(']');
+        }
+    }
+
+    /**
+     * First document under the given key, depth first (the plan of an aggregation is nested in its stages)
+     */
+    private static BsonDocument findDocument(BsonValue value, String key) {
+        if (value.isDocument()) {
+            BsonDocument document = value.asDocument();
+            if (document.isDocument(key)) {
+                return document.getDocument(key);
+            }
+            for (BsonValue nested : document.values()) {
+                BsonDocument found = findDocument(nested, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        } else if (value.isArray()) {
+            for (BsonValue nested : value.asArray()) {
+                BsonDocument found = findDocument(nested, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,377 @@
+package com.carburant.backend.utils;
+
+import com.carburant.backend.model.VehicleRecord;
+
+/**
+ * Sufficient statistics of the regression consommation = b0 + b1 × kilometrage + b2 × tonnage.
+ * Holds n and the sums making up XᵀX, Xᵀy and yᵀy, so points can be added or removed one at a time
+ * and the model refitted with a 3×3 solve, without going back to the records.
+ */
+public class RegressionAccumulator {
+
+    /** Number of estimated parameters (intercept, kilometrage, tonnage) */
+    public static final int PARAMETER_COUNT = 3;
+
+    private long n;
+    private double sumKilometrage;
+    private double sumTonnage;
+    private double sumConsommation;
+    private double sumKilometrageSq;
+    private double sumKilometrageTonnage;
+    private double sumTonnageSq;
+    private double sumKilometrageConsommation;
+    private double sumTonnageConsommation;
+    private double sumConsommationSq;
+
+    public RegressionAccumulator() {
+    }
+
+    /**
+     * Create an accumulator from stored sums
+     */
+    public RegressionAccumulator(long n, double sumKilometrage, double sumTonnage, double sumConsommation,
+            double sumKilometrageSq, double sumKilometrageTonnage, double sumTonnageSq,
+            double sumKilometrageConsommation, double sumTonnageConsommation, double sumConsommationSq) {
+        this.n = n;
+        this.sumKilometrage = sumKilometrage;
+        this.sumTonnage = sumTonnage;
+        this.sumConsommation = sumConsommation;
+        this.sumKilometrageSq = sumKilometrageSq;
+        this.sumKilometrageTonnage = sumKilometrageTonnage;
+        this.sumTonnageSq = sumTonnageSq;
+        this.sumKilometrageConsommation = sumKilometrageConsommation;
+        this.sumTonnageConsommation = sumTonnageConsommation;
+        this.sumConsommationSq = sumConsommationSq;
+    }
+
+    /**
+     * Whether a record can be used for regression (same rule as the regression endpoints:
+     * positive consumption and kilometrage, finite values)
+     * @param record The vehicle record
+     * @return true if the record contributes to the statistics
+     */
+    public static boolean isUsable(VehicleRecord record) {
+        return record != null
+            && record.getConsommationL() > 0
+            && record.getKilometrage() > 0
+            && Double.isFinite(record.getConsommationL())
+            && Double.isFinite(record.getKilometrage())
+            && Double.isFinite(record.getProduitsTonnes());
+    }
+
+    /**
+     * Add a vehicle record
+     */
+    public void add(VehicleRecord record) {
+        add(record.getKilometrage(), record.getProduitsTonnes(), record.getConsommationL());
+    }
+
+    /**
+     * Remove a previously added vehicle record
+     */
+    public void remove(VehicleRecord record) {
+        remove(record.getKilometrage(), record.getProduitsTonnes(), record.getConsommationL());
+    }
+
+    /**
+     * Add an observation
+     * @param kilometrage Distance in Km (X1)
+     * @param tonnage Transported products in Tons (X2)
+     * @param consommation Consumption in L (Y)
+     */
+    public void add(double kilometrage, double tonnage, double consommation) {
+        update(1, kilometrage, tonnage, consommation);
+    }
+
+    /**
+     * Remove a previously added observation
+     */
+    public void remove(double kilometrage, double tonnage, double consommation) {
+        update(-1, kilometrage, tonnage, consommation);
+    }
+
+    /**
+     * Add the statistics of another accumulator (the sums are associative)
+     * @param other The accumulator to add
+     * @return This accumulator
+     */
+    public RegressionAccumulator merge(RegressionAccumulator other) {
+        n += other.n;
+        sumKilometrage += other.sumKilometrage;
+        sumTonnage += other.sumTonnage;
+        sumConsommation += other.sumConsommation;
+        sumKilometrageSq += other.sumKilometrageSq;
+        sumKilometrageTonnage += other.sumKilometrageTonnage;
+        sumTonnageSq += other.sumTonnageSq;
+        sumKilometrageConsommation += other.sumKilometrageConsommation;
+        sumTonnageConsommation += other.sumTonnageConsommation;
+        sumConsommationSq += other.sumConsommationSq;
+        return this;
+    }
+
+    /**
+     * Clear the statistics, so the accumulator can be reused
+     */
+    public void reset() {
+        n = 0;
+        sumKilometrage = 0;
+        sumTonnage = 0;
+        sumConsommation = 0;
+        sumKilometrageSq = 0;
+        sumKilometrageTonnage = 0;
+        sumTonnageSq = 0;
+        sumKilometrageConsommation = 0;
+        sumTonnageConsommation = 0;
+        sumConsommationSq = 0;
+    }
+
+    private void update(int sign, double x1, double x2, double y) {
+        n += sign;
+        sumKilometrage += sign * x1;
+        sumTonnage += sign * x2;
+        sumConsommation += sign * y;
+        sumKilometrageSq += sign * x1 * x1;
+        sumKilometrageTonnage += sign * x1 * x2;
+        sumTonnageSq += sign * x2 * x2;
+        sumKilometrageConsommation += sign * x1 * y;
+        sumTonnageConsommation += sign * x2 * y;
+        sumConsommationSq += sign * y * y;
+    }
+
+    /**
+     * Fit the regression from the accumulated statistics.
+     * The centered cross products are derived from the raw sums (e.g. Σx1² - n·mean(x1)²), which loses precision
+     * when the spread of a variable is small next to its mean; the raw sums are kept because they can be
+     * merged and updated with plain additions, including $inc deltas in MongoDB.
+     * @return The fitted model
+     * @throws IllegalStateException if there are not enough observations or the predictors are collinear
+     */
+    public Fit fit() {
+        if (n < PARAMETER_COUNT) {
+            throw new IllegalStateException("At least " + PARAMETER_COUNT + " observations are required, got " + n);
+        }
+
+        double meanX1 = sumKilometrage / n;
+        double meanX2 = sumTonnage / n;
+        double meanY = sumConsommation / n;
+
+        // Centered cross products
+        double s11 = sumKilometrageSq - n * meanX1 * meanX1;
+        double s12 = sumKilometrageTonnage - n * meanX1 * meanX2;
+        double s22 = sumTonnageSq - n * meanX2 * meanX2;
+        double s1y = sumKilometrageConsommation - n * meanX1 * meanY;
+        double s2y = sumTonnageConsommation - n * meanX2 * meanY;
+        double syy = sumConsommationSq - n * meanY * meanY;
+
+        double det = s11 * s22 - s12 * s12;
+        if (!(det > 1e-12 * s11 * s22) || !Double.isFinite(det)) {
+            throw new IllegalStateException("Regression matrix is singular (kilometrage and tonnage are collinear or constant)");
+        }
+
+        // Inverse of the centered 2x2 matrix
+        double c11 = s22 / det;
+        double c12 = -s12 / det;
+        double c22 = s11 / det;
+
+        double b1 = c11 * s1y + c12 * s2y;
+        double b2 = c12 * s1y + c22 * s2y;
+        double b0 = meanY - b1 * meanX1 - b2 * meanX2;
+
+        double sse = Math.max(0.0, syy - b1 * s1y - b2 * s2y);
+
+        // (XᵀX)⁻¹ of the uncentered design matrix, derived from the centered inverse
+        double v1 = c11 * meanX1 + c12 * meanX2;
+        double v2 = c12 * meanX1 + c22 * meanX2;
+        double[][] inverse = {
+            { 1.0 / n + meanX1 * v1 + meanX2 * v2, -v1, -v2 },
+            { -v1, c11, c12 },
+            { -v2, c12, c22 }
+        };
+
+        return new Fit(n, PARAMETER_COUNT, new double[] { b0, b1, b2 }, inverse, sse, syy);
+    }
+
+    /**
+     * Fit consommation = b0 + b1 × kilometrage only (tonnage coefficient 0),
+     * for vehicles that carry no load or a constant one
+     * @return The fitted model
+     * @throws IllegalStateException if there are fewer than 2 observations or the kilometrage is constant
+     */
+    public Fit fitKilometrageOnly() {
+        if (n < 2) {
+            throw new IllegalStateException("At least 2 observations are required, got " + n);
+        }
+
+        double meanX1 = sumKilometrage / n;
+        double meanY = sumConsommation / n;
+        double s11 = sumKilometrageSq - n * meanX1 * meanX1;
+        double s1y = sumKilometrageConsommation - n * meanX1 * meanY;
+        double syy = sumConsommationSq - n * meanY * meanY;
+
+        if (!(s11 > 0) || !Double.isFinite(s11)) {
+            throw new IllegalStateException("Regression matrix is singular (kilometrage is constant)");
+        }
+
+        double b1 = s1y / s11;
+        double b0 = meanY - b1 * meanX1;
+        double sse = Math.max(0.0, syy - b1 * s1y);
+
+        double[][] inverse = {
+            { 1.0 / n + meanX1 * meanX1 / s11, -meanX1 / s11, 0.0 },
+            { -meanX1 / s11, 1.0 / s11, 0.0 },
+            { 0.0, 0.0, 0.0 }
+        };
+
+        return new Fit(n, 2, new double[] { b0, b1, 0.0 }, inverse, sse, syy);
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n <= 0;
+    }
+
+    public double getSumKilometrage() {
+        return sumKilometrage;
+    }
+
+    public double getSumTonnage() {
+        return sumTonnage;
+    }
+
+    public double getSumConsommation() {
+        return sumConsommation;
+    }
+
+    public double getSumKilometrageSq() {
+        return sumKilometrageSq;
+    }
+
+    public double getSumKilometrageTonnage() {
+        return sumKilometrageTonnage;
+    }
+
+    public double getSumTonnageSq() {
+        return sumTonnageSq;
+    }
+
+    public double getSumKilometrageConsommation() {
+        return sumKilometrageConsommation;
+    }
+
+    public double getSumTonnageConsommation() {
+        return sumTonnageConsommation;
+    }
+
+    public double getSumConsommationSq() {
+        return sumConsommationSq;
+    }
+
+    /**
+     * Result of a fit: coefficients (intercept, kilometrage, tonnage) and goodness-of-fit figures
+     */
+    public static class Fit {
+        private final long n;
+        private final int parameterCount;
+        private final double[] coefficients;
+        private final double[][] inverseGram;
+        private final double sse;
+        private final double sst;
+
+        Fit(long n, int parameterCount, double[] coefficients, double[][] inverseGram, double sse, double sst) {
+            this.n = n;
+            this.parameterCount = parameterCount;
+            this.coefficients = coefficients;
+            this.inverseGram = inverseGram;
+            this.sse = sse;
+            this.sst = sst;
+        }
+
+        public long getN() {
+            return n;
+        }
+
+        /**
+         * Coefficients in the order intercept, kilometrage, tonnage
+         */
+        public double[] getCoefficients() {
+            return coefficients.clone();
+        }
+
+        /**
+         * (XᵀX)⁻¹, in the same order as the coefficients
+         */
+        public double[][] getInverseGram() {
+            return new double[][] { inverseGram[0].clone(), inverseGram[1].clone(), inverseGram[2].clone() };
+        }
+
+        /**
+         * Number of estimated parameters (3, or 2 for a kilometrage-only fit)
+         */
+        public int getParameterCount() {
+            return parameterCount;
+        }
+
+        /**
+         * Residual degrees of freedom (n - number of parameters)
+         */
+        public long getDegreesOfFreedom() {
+            return n - parameterCount;
+        }
+
+        /**
+         * Predicted consumption
+         * @param kilometrage Distance in Km
+         * @param tonnage Transported products in Tons
+         * @return Predicted consumption in L
+         */
+        public double predict(double kilometrage, double tonnage) {
+            return coefficients[0] + coefficients[1] * kilometrage + coefficients[2] * tonnage;
+        }
+
+        /**
+         * Sum of squared residuals
+         */
+        public double getSse() {
+            return sse;
+        }
+
+        public double getRSquared() {
+            return sst > 0 ? 1 - sse / sst : 0.0;
+        }
+
+        public double getAdjustedRSquared() {
+            long df = getDegreesOfFreedom();
+            return df > 0 ? 1 - (1 - getRSquared()) * (n - 1) / df : getRSquared();
+        }
+
+        /**
+         * Mean squared error (SSE / n)
+         */
+        public double getMse() {
+            return sse / n;
+        }
+
+        /**
+         * Residual variance estimate (SSE / degrees of freedom)
+         */
+        public double getResidualVariance() {
+            long df = getDegreesOfFreedom();
+            return df > 0 ? sse / df : Double.NaN;
+        }
+
+        /**
+         * Standard errors of the coefficients
+         */
+        public double[] getStandardErrors() {
+            double variance = getResidualVariance();
+            double[] errors = new double[PARAMETER_COUNT];
+            for (int i = 0; i < PARAMETER_COUNT; i++) {
+                errors[i] = Math.sqrt(variance * inverseGram[i][i]);
+            }
+            return errors;
+        }
+    }
+}
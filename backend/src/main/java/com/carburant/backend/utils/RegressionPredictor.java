@@ -0,0 +1,229 @@
+package com.carburant.backend.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+import com.carburant.backend.model.RegressionResult;
+
+/**
+ * Evaluates a fitted regression on batches of observations stored as columnar primitive arrays.
+ * Everything depending only on the model (coefficients, (XᵀX)⁻¹, the Student-t quantile) is computed once,
+ * so the per-row loop is plain arithmetic over arrays and allocates nothing.
+ */
+public class RegressionPredictor {
+
+    private final double b0;
+    private final double b1;
+    private final double b2;
+
+    // Upper triangle of (XᵀX)⁻¹, in the order intercept, kilometrage, tonnage
+    private final double g00;
+    private final double g01;
+    private final double g02;
+    private final double g11;
+    private final double g12;
+    private final double g22;
+
+    /** t quantile × residual standard deviation, NaN when no interval can be computed */
+    private final double halfWidthScale;
+
+    /**
+     * Create a predictor
+     * @param coefficients Coefficients in the order intercept, kilometrage, tonnage
+     * @param inverseGram (XᵀX)⁻¹ in the same order, or null if unknown (no intervals)
+     * @param residualVariance Residual variance estimate (SSE / degrees of freedom)
+     * @param degreesOfFreedom Residual degrees of freedom
+     * @param confidence Confidence level of the prediction intervals, e.g. 0.95
+     */
+    public RegressionPredictor(double[] coefficients, double[][] inverseGram, double residualVariance,
+            long degreesOfFreedom, double confidence) {
+        if (!(confidence > 0 && confidence < 1)) {
+            throw new IllegalArgumentException("Confidence must be between 0 and 1, got " + confidence);
+        }
+        this.b0 = coefficients[0];
+        this.b1 = coefficients[1];
+        this.b2 = coefficients[2];
+
+        boolean hasInterval = inverseGram != null && degreesOfFreedom > 0 && Double.isFinite(residualVariance);
+        this.g00 = hasInterval ? inverseGram[0][0] : 0.0;
+        this.g01 = hasInterval ? inverseGram[0][1] : 0.0;
+        this.g02 = hasInterval ? inverseGram[0][2] : 0.0;
+        this.g11 = hasInterval ? inverseGram[1][1] : 0.0;
+        this.g12 = hasInterval ? inverseGram[1][2] : 0.0;
+        this.g22 = hasInterval ? inverseGram[2][2] : 0.0;
+        this.halfWidthScale = hasInterval
+            ? new TDistribution(degreesOfFreedom).inverseCumulativeProbability(0.5 + confidence / 2)
+                * Math.sqrt(residualVariance)
+            : Double.NaN;
+    }
+
+    /**
+     * Create a predictor from a fit
+     * @param fit The fitted model
+     * @param confidence Confidence level of the prediction intervals, e.g. 0.95
+     * @return The predictor
+     */
+    public static RegressionPredictor of(RegressionAccumulator.Fit fit, double confidence) {
+        return new RegressionPredictor(fit.getCoefficients(), fit.getInverseGram(), fit.getResidualVariance(),
+            fit.getDegreesOfFreedom(), confidence);
+    }
+
+    /**
+     * Create a predictor from a stored regression result, using its persisted (XᵀX)⁻¹ and residual standard error
+     * @param result The regression result
+     * @param confidence Confidence level of the prediction intervals, e.g. 0.95
+     * @return The predictor, without intervals if the result has no inference statistics (e.g. manual results)
+     */
+    public static RegressionPredictor of(RegressionResult result, double confidence) {
+        Map<String, Double> coefficients = result.getCoefficients();
+        double[] values = {
+            result.getIntercept(),
+            coefficients != null ? coefficients.getOrDefault("kilometrage", 0.0) : 0.0,
+            coefficients != null ? coefficients.getOrDefault("tonnage", 0.0) : 0.0
+        };
+        double[] flat = result.getInverseGram();
+        double[][] inverseGram = null;
+        if (flat != null && flat.length == 9) {
+            inverseGram = new double[][] {
+                { flat[0], flat[1], flat[2] },
+                { flat[3], flat[4], flat[5] },
+                { flat[6], flat[7], flat[8] }
+            };
+        }
+        double residualStandardError = result.getResidualStandardError();
+        return new RegressionPredictor(values, inverseGram, residualStandardError * residualStandardError,
+            result.getDegreesOfFreedom(), confidence);
+    }
+
+    /**
+     * Whether prediction intervals are available
+     */
+    public boolean hasIntervals() {
+        return !Double.isNaN(halfWidthScale);
+    }
+
+    /**
+     * Compute predictions, residuals and prediction intervals for every row of the batch.
+     * Rows with a missing input (NaN) get NaN outputs, the residual is NaN when the actual value is unknown.
+     * The interval is ŷ ± t × s × √(1 + x₀ᵀ(XᵀX)⁻¹x₀) with x₀ = (1, kilometrage, tonnage).
+     * @param batch The batch, its output arrays are filled in place
+     */
+    public void predict(Batch batch) {
+        int size = batch.size;
+        batch.ensureOutputs();
+        double[] kilometrage = batch.kilometrage;
+        double[] tonnage = batch.tonnage;
+        double[] actual = batch.actual;
+        double[] predicted = batch.predicted;
+        double[] residual = batch.residual;
+        double[] lower = batch.lower;
+        double[] upper = batch.upper;
+
+        for (int i = 0; i < size; i++) {
+            double x1 = kilometrage[i];
+            double x2 = tonnage[i];
+            double y = b0 + b1 * x1 + b2 * x2;
+            // x₀ᵀ(XᵀX)⁻¹x₀ expanded over the symmetric 3×3 matrix
+            double leverage = g00 + 2 * (g01 * x1 + g02 * x2) + g11 * x1 * x1 + 2 * g12 * x1 * x2 + g22 * x2 * x2;
+            double halfWidth = halfWidthScale * Math.sqrt(1 + leverage);
+            predicted[i] = y;
+            residual[i] = actual[i] - y;
+            lower[i] = y - halfWidth;
+            upper[i] = y + halfWidth;
+        }
+    }
+
+    /**
+     * Rows to predict stored as growable primitive arrays, with the outputs filled by {@link #predict(Batch)}
+     */
+    public static class Batch {
+        private String[] ids = new String[64];
+        private double[] kilometrage = new double[64];
+        private double[] tonnage = new double[64];
+        private double[] actual = new double[64];
+        private double[] predicted;
+        private double[] residual;
+        private double[] lower;
+        private double[] upper;
+        private int size;
+
+        /**
+         * Append a row
+         * @param id Optional record id
+         * @param km Distance in Km, NaN if unknown yet
+         * @param tonnes Transported products in Tons, NaN if unknown yet
+         * @param litres Actual consumption in L, NaN if unknown
+         * @return Index of the row
+         */
+        public int add(String id, double km, double tonnes, double litres) {
+            if (size == kilometrage.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                kilometrage = Arrays.copyOf(kilometrage, capacity);
+                tonnage = Arrays.copyOf(tonnage, capacity);
+                actual = Arrays.copyOf(actual, capacity);
+            }
+            ids[size] = id;
+            kilometrage[size] = km;
+            tonnage[size] = tonnes;
+            actual[size] = litres;
+            return size++;
+        }
+
+        /**
+         * Replace the inputs of a row, e.g. once a record id has been resolved
+         */
+        public void set(int index, double km, double tonnes, double litres) {
+            kilometrage[index] = km;
+            tonnage[index] = tonnes;
+            actual[index] = litres;
+        }
+
+        private void ensureOutputs() {
+            if (predicted == null || predicted.length < size) {
+                predicted = new double[size];
+                residual = new double[size];
+                lower = new double[size];
+                upper = new double[size];
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public String getId(int index) {
+            return ids[index];
+        }
+
+        public double getKilometrage(int index) {
+            return kilometrage[index];
+        }
+
+        public double getTonnage(int index) {
+            return tonnage[index];
+        }
+
+        public double getActual(int index) {
+            return actual[index];
+        }
+
+        public double getPredicted(int index) {
+            return predicted[index];
+        }
+
+        public double getResidual(int index) {
+            return residual[index];
+        }
+
+        public double getLower(int index) {
+            return lower[index];
+        }
+
+        public double getUpper(int index) {
+            return upper[index];
+        }
+    }
+}
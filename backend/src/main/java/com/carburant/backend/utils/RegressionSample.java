@@ -0,0 +1,56 @@
+package com.carburant.backend.utils;
+
+import java.util.Arrays;
+
+/**
+ * Observations of the regression consommation = b0 + b1 × kilometrage + b2 × tonnage,
+ * stored as growable primitive columns for the algorithms that pass over the records several times
+ * (cross-validation, bootstrap, robust regression).
+ */
+public class RegressionSample {
+    private double[] kilometrage = new double[256];
+    private double[] tonnage = new double[256];
+    private double[] consommation = new double[256];
+    private int size;
+
+    /**
+     * Append an observation
+     */
+    public void add(double km, double tonnes, double litres) {
+        if (size == kilometrage.length) {
+            int capacity = size * 2;
+            kilometrage = Arrays.copyOf(kilometrage, capacity);
+            tonnage = Arrays.copyOf(tonnage, capacity);
+            consommation = Arrays.copyOf(consommation, capacity);
+        }
+        kilometrage[size] = km;
+        tonnage[size] = tonnes;
+        consommation[size] = litres;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Kilometrage column, valid up to {@link #size()} (the array is not copied)
+     */
+    double[] kilometrage() {
+        return kilometrage;
+    }
+
+    /**
+     * Tonnage column, valid up to {@link #size()}
+     */
+    double[] tonnage() {
+        return tonnage;
+    }
+
+    /**
+     * Consumption column, valid up to {@link #size()}
+     */
+    double[] consommation() {
+        return consommation;
+    }
+}
@@ -2,20 +2,29 @@ package com.carburant.backend.utils;
 
 import java.text.DecimalFormat;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import org.apache.commons.math3.distribution.TDistribution;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.carburant.backend.model.CoefficientStatistics;
 import com.carburant.backend.model.RegressionResult;
 import com.carburant.backend.model.VehicleRecord;
 
 @Component
 public class RegressionUtils {    private static final Logger logger = LoggerFactory.getLogger(RegressionUtils.class);
 
+    /** Coefficient names, in the order of the fitted coefficients */
+    private static final String[] COEFFICIENT_NAMES = { "intercept", "kilometrage", "tonnage" };
+
+    @Value("${app.regression.niveau-confiance:0.95}")
+    private double confidenceLevel = 0.95;
+
     /**
      * Performs multiple linear regression on the given vehicle records
      * @param vehicleRecords List of vehicle records to analyze
@@ -29,38 +38,44 @@ public class RegressionUtils {    private static final Logger logger = LoggerFac
 
         logger.debug("Performing regression for {} with {} records", type, vehicleRecords.size());
 
-        try {
-            // Always perform multiple linear regression with both kilometrage and tonnage
-            // This is important for accurate prediction of fuel consumption
-            int numFeatures = 2;
-            
-            // Create the X and Y matrices for regression
-            double[][] xMatrix = new double[vehicleRecords.size()][numFeatures];
-            double[] yVector = new double[vehicleRecords.size()];
+        // Accumulate the sufficient statistics in a single pass (no design matrix copy)
+        long cpuStart = RequestCost.cpuTime();
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        for (int i = 0; i < vehicleRecords.size(); i++) {
+            VehicleRecord record = vehicleRecords.get(i);
+            accumulator.add(record);
             
-            // No scaling - use raw values to match Excel's calculation
-            // Excel doesn't scale values internally, so we need to ensure our calculations match
-            
-            // Populate the matrices with raw values (no scaling)
-            for (int i = 0; i < vehicleRecords.size(); i++) {
-                VehicleRecord record = vehicleRecords.get(i);
-                yVector[i] = record.getConsommationL(); // Y = Consumption in L
-                xMatrix[i][0] = record.getKilometrage(); // X1 = Kilometrage (no scaling)
-                xMatrix[i][1] = record.getProduitsTonnes(); // X2 = Tonnage (no scaling)
-                
-                // Log some sample data points for debugging
-                if (i < 5) {
-                    logger.debug("Data point {}: X1={}, X2={}, Y={}", 
-                         i, xMatrix[i][0], xMatrix[i][1], yVector[i]);
-                }
+            // Log some sample data points for debugging
+            if (i < 5) {
+                logger.debug("Data point {}: X1={}, X2={}, Y={}", 
+                     i, record.getKilometrage(), record.getProduitsTonnes(), record.getConsommationL());
             }
-            
-            // Perform regression
-            OLSMultipleLinearRegression regression = new OLSMultipleLinearRegression();
-            regression.newSampleData(yVector, xMatrix);
+        }
+        RequestCost.recordRegressionCpu(cpuStart);
+
+        return performRegression(accumulator, type);
+    }
+
+    /**
+     * Performs multiple linear regression from accumulated sufficient statistics
+     * @param accumulator Statistics of the observations to fit
+     * @param type The vehicle type (sheet name)
+     * @return RegressionResult containing the regression equation and metrics
+     */
+    public RegressionResult performRegression(RegressionAccumulator accumulator, String type) {
+        if (accumulator == null || accumulator.isEmpty()) {
+            throw new IllegalArgumentException("Vehicle records cannot be empty");
+        }
 
-            // Get regression parameters
-            double[] coefficients = regression.estimateRegressionParameters();
+        long cpuStart = RequestCost.cpuTime();
+        FlightRecorderEvents.RegressionFit fitEvent = new FlightRecorderEvents.RegressionFit();
+        fitEvent.begin();
+        try {
+            long sampleSize = accumulator.getN();
+
+            // Solve the normal equations (3x3) from XᵀX and Xᵀy
+            RegressionAccumulator.Fit fit = accumulator.fit();
+            double[] coefficients = fit.getCoefficients();
             double intercept = coefficients[0];
             double kilometrageCoef = coefficients[1];
             double tonnageCoef = coefficients[2];
@@ -78,37 +93,23 @@ public class RegressionUtils {    private static final Logger logger = LoggerFac
                 throw new IllegalStateException("Regression resulted in invalid coefficients");
             }
             
-            // Calculate standard errors and p-values (t-statistics)
-            double[] stdErrors = regression.estimateRegressionParametersStandardErrors();
-            double[] tValues = new double[coefficients.length];
-            double[] pValues = new double[coefficients.length];
-            
-            // Calculate t-values and p-values
-            for (int i = 0; i < coefficients.length; i++) {
-                tValues[i] = coefficients[i] / stdErrors[i];
-                // Calculate p-value from t-value (two-tailed test)
-                // Degrees of freedom = n - p - 1 (n = sample size, p = number of predictors)
-                int df = vehicleRecords.size() - numFeatures - 1;
-                // We use a simple approximation for p-value calculation
-                pValues[i] = 2 * (1 - Math.abs(tValues[i]) / Math.sqrt(df + tValues[i] * tValues[i]));
-            }
+            // Inference statistics, computed once per fit and stored with the result
+            long df = fit.getDegreesOfFreedom();
+            double residualStandardError = Math.sqrt(fit.getResidualVariance());
+            Map<String, CoefficientStatistics> coefficientStatistics = computeCoefficientStatistics(fit);
             
             // Log detailed statistics
-            logger.debug("Intercept: {} (p-value: {})", intercept, pValues[0]);
-            logger.debug("Kilometrage coefficient: {} (p-value: {})", kilometrageCoef, pValues[1]);
-            logger.debug("Tonnage coefficient: {} (p-value: {})", tonnageCoef, pValues[2]);
+            logger.debug("Intercept: {} (p-value: {})", intercept, coefficientStatistics.get("intercept").getPValue());
+            logger.debug("Kilometrage coefficient: {} (p-value: {})", kilometrageCoef, coefficientStatistics.get("kilometrage").getPValue());
+            logger.debug("Tonnage coefficient: {} (p-value: {})", tonnageCoef, coefficientStatistics.get("tonnage").getPValue());
             
             // Calculate R-squared and adjusted R-squared
             double rSquared;
             double adjustedRSquared;
             try {
-                // Get R-squared directly from the regression model
-                rSquared = regression.calculateRSquared();
-                
-                // Calculate adjusted R-squared
-                int n = vehicleRecords.size(); // Sample size
-                int p = numFeatures; // Number of predictors (excluding intercept)
-                adjustedRSquared = 1 - ((1 - rSquared) * (n - 1) / (n - p - 1));
+                // R-squared and adjusted R-squared from the residual and total sums of squares
+                rSquared = fit.getRSquared();
+                adjustedRSquared = fit.getAdjustedRSquared();
                 
                 // Format to 4 decimal places to match Excel
                 rSquared = Math.round(rSquared * 10000) / 10000.0;
@@ -122,7 +123,7 @@ public class RegressionUtils {    private static final Logger logger = LoggerFac
             }
             
             // Calculate MSE (Mean Squared Error)
-            double mse = calculateMSE(regression, xMatrix, yVector);
+            double mse = fit.getMse();
             logger.debug("Mean Squared Error: {}", mse);
             
             // Create a map of variable names to coefficients
@@ -130,34 +131,12 @@ public class RegressionUtils {    private static final Logger logger = LoggerFac
             coefficientMap.put("kilometrage", kilometrageCoef);
             coefficientMap.put("tonnage", tonnageCoef);
             
-            // Build the regression equation string
-            StringBuilder equationBuilder = new StringBuilder("Consommation = ");
-            
-            // Format equation with Excel-equivalent precision (4 decimal places, just like Excel's regression output)
-            DecimalFormat equationFormat = new DecimalFormat("0.0000");
-            equationFormat.setGroupingUsed(false); // No thousand separators
-            
-            // First term is always the kilometrage term (no sign needed)
-            equationBuilder.append(equationFormat.format(kilometrageCoef)).append(" × Kilometrage");
-            
-            // Second term is the tonnage term (with appropriate sign)
-            if (tonnageCoef >= 0) {
-                equationBuilder.append(" + ").append(equationFormat.format(tonnageCoef)).append(" × Tonnage");
-            } else {
-                equationBuilder.append(" - ").append(equationFormat.format(Math.abs(tonnageCoef))).append(" × Tonnage");
-            }
-            
-            // Add intercept to equation (with appropriate sign)
-            if (intercept >= 0) {
-                equationBuilder.append(" + ").append(equationFormat.format(intercept));
-            } else {
-                equationBuilder.append(" - ").append(equationFormat.format(Math.abs(intercept)));
-            }
-
-            String equation = equationBuilder.toString();
+            String equation = formatEquation(kilometrageCoef, tonnageCoef, intercept);
             logger.info("Regression equation for {}: {}", type, equation);
             logger.info("Regression coefficients: kilometrage={}, tonnage={}, intercept={}, R²={}", 
                     kilometrageCoef, tonnageCoef, intercept, rSquared);
+            fitEvent.rSquared = rSquared;
+            fitEvent.succeeded = true;
 
             // Build and return the regression result
             return RegressionResult.builder()
@@ -168,29 +147,120 @@ public class RegressionUtils {    private static final Logger logger = LoggerFac
                     .rSquared(rSquared)
                     .adjustedRSquared(adjustedRSquared)
                     .mse(mse)
+                    .sampleSize(sampleSize)
+                    .degreesOfFreedom(df)
+                    .residualStandardError(residualStandardError)
+                    .confidenceLevel(confidenceLevel)
+                    .coefficientStatistics(coefficientStatistics)
+                    .inverseGram(flatten(fit.getInverseGram()))
                     .build();
         } catch (Exception e) {
             logger.error("Error in regression calculation", e);
             throw new RuntimeException("Failed to perform regression analysis", e);
+        } finally {
+            RequestCost.recordRegressionCpu(cpuStart);
+            if (fitEvent.shouldCommit()) {
+                fitEvent.type = type;
+                fitEvent.observations = accumulator.getN();
+                fitEvent.commit();
+            }
         }
     }
-    
+
     /**
-     * Calculate the Mean Squared Error (MSE) for the regression model
+     * Format the regression equation with Excel-equivalent precision
+     * @param kilometrageCoef Kilometrage coefficient
+     * @param tonnageCoef Tonnage coefficient
+     * @param intercept Intercept
+     * @return The equation, e.g. "Consommation = 0.1468 × Kilometrage + 0.2412 × Tonnage + 305.0161"
      */
-    private double calculateMSE(OLSMultipleLinearRegression regression, double[][] x, double[] y) {
-        double[] beta = regression.estimateRegressionParameters();
-        double sumSquaredErrors = 0.0;
+    public String formatEquation(double kilometrageCoef, double tonnageCoef, double intercept) {
+        StringBuilder equationBuilder = new StringBuilder("Consommation = ");
         
-        for (int i = 0; i < x.length; i++) {
-            double predicted = beta[0]; // Intercept
-            for (int j = 0; j < x[i].length; j++) {
-                predicted += beta[j + 1] * x[i][j];
-            }
-            double error = y[i] - predicted;
-            sumSquaredErrors += error * error;
+        // Format equation with Excel-equivalent precision (4 decimal places, just like Excel's regression output)
+        DecimalFormat equationFormat = new DecimalFormat("0.0000");
+        equationFormat.setGroupingUsed(false); // No thousand separators
+        
+        // First term is always the kilometrage term (no sign needed)
+        equationBuilder.append(equationFormat.format(kilometrageCoef)).append(" × Kilometrage");
+        
+        // Second term is the tonnage term (with appropriate sign)
+        if (tonnageCoef >= 0) {
+            equationBuilder.append(" + ").append(equationFormat.format(tonnageCoef)).append(" × Tonnage");
+        } else {
+            equationBuilder.append(" - ").append(equationFormat.format(Math.abs(tonnageCoef))).append(" × Tonnage");
         }
         
-        return sumSquaredErrors / x.length;
+        // Add intercept to equation (with appropriate sign)
+        if (intercept >= 0) {
+            equationBuilder.append(" + ").append(equationFormat.format(intercept));
+        } else {
+            equationBuilder.append(" - ").append(equationFormat.format(Math.abs(intercept)));
+        }
+
+        return equationBuilder.toString();
+    }
+
+    /**
+     * Set the coefficient statistics and confidence level of a result fitted outside {@link #performRegression}
+     * (e.g. a robust fit), from its coefficients, inverse Gram matrix, residual standard error and degrees of freedom
+     * @param result The result, with inverseGram and residualStandardError set
+     */
+    public void addInferenceStatistics(RegressionResult result) {
+        double[] coefficients = {
+            result.getIntercept(),
+            result.getCoefficients().get("kilometrage"),
+            result.getCoefficients().get("tonnage")
+        };
+        double[] inverseGram = result.getInverseGram();
+        double residualStandardError = result.getResidualStandardError();
+        double[] stdErrors = new double[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) {
+            stdErrors[i] = residualStandardError * Math.sqrt(inverseGram[i * coefficients.length + i]);
+        }
+        result.setConfidenceLevel(confidenceLevel);
+        result.setCoefficientStatistics(computeCoefficientStatistics(coefficients, stdErrors, result.getDegreesOfFreedom()));
+    }
+
+    /**
+     * Standard error, t statistic, two-sided Student-t p-value and confidence interval of each coefficient
+     * @param fit The fitted model
+     * @return Statistics keyed by "intercept", "kilometrage" and "tonnage"
+     */
+    private Map<String, CoefficientStatistics> computeCoefficientStatistics(RegressionAccumulator.Fit fit) {
+        return computeCoefficientStatistics(fit.getCoefficients(), fit.getStandardErrors(), fit.getDegreesOfFreedom());
+    }
+
+    private Map<String, CoefficientStatistics> computeCoefficientStatistics(double[] coefficients, double[] stdErrors,
+            long df) {
+        TDistribution distribution = df > 0 ? new TDistribution(df) : null;
+        double criticalValue = distribution != null
+            ? distribution.inverseCumulativeProbability(0.5 + confidenceLevel / 2)
+            : Double.NaN;
+
+        Map<String, CoefficientStatistics> statistics = new LinkedHashMap<>();
+        for (int i = 0; i < coefficients.length; i++) {
+            double tStatistic = coefficients[i] / stdErrors[i];
+            double pValue = distribution != null && !Double.isNaN(tStatistic)
+                ? 2 * distribution.cumulativeProbability(-Math.abs(tStatistic))
+                : Double.NaN;
+            statistics.put(COEFFICIENT_NAMES[i], CoefficientStatistics.builder()
+                .estimate(coefficients[i])
+                .standardError(stdErrors[i])
+                .tStatistic(tStatistic)
+                .pValue(pValue)
+                .lowerBound(coefficients[i] - criticalValue * stdErrors[i])
+                .upperBound(coefficients[i] + criticalValue * stdErrors[i])
+                .build());
+        }
+        return statistics;
+    }
+
+    private double[] flatten(double[][] matrix) {
+        double[] values = new double[matrix.length * matrix.length];
+        for (int i = 0; i < matrix.length; i++) {
+            System.arraycopy(matrix[i], 0, values, i * matrix.length, matrix.length);
+        }
+        return values;
     }
-}
\ No newline at end of file
+}
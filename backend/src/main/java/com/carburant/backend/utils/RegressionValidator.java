@@ -0,0 +1,268 @@
+package com.carburant.backend.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.springframework.stereotype.Component;
+
+import com.carburant.backend.model.dto.ModelValidationReport;
+import com.carburant.backend.model.dto.ModelValidationReport.CoefficientStability;
+
+/**
+ * Estimates the out-of-sample error (k-fold cross-validation) and the coefficient stability (bootstrap)
+ * of the regression consommation = b0 + b1 × kilometrage + b2 × tonnage, in parallel on a fork/join pool.
+ * Both work on the sufficient statistics: a fold is fitted by removing its points from the full
+ * accumulator, and a resample is fitted by accumulating randomly drawn rows, without copying the data.
+ * Random numbers come from a splitmix64 sequence seeded per resample, so the report does not depend
+ * on the parallelism and the same seed gives the same report.
+ */
+@Component
+public class RegressionValidator {
+
+    private static final String[] COEFFICIENT_NAMES = { "intercept", "kilometrage", "tonnage" };
+
+    /** Resamples handled by one task, each task reuses one accumulator */
+    private static final int RESAMPLES_PER_TASK = 32;
+
+    /** splitmix64 increment */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Run the cross-validation and the bootstrap
+     * @param sample The observations
+     * @param folds Number of cross-validation folds (at least 2)
+     * @param resamples Number of bootstrap resamples (0 to skip the bootstrap)
+     * @param confidence Level of the bootstrap percentile intervals, e.g. 0.95
+     * @param seed Random seed
+     * @param pool Fork/join pool running the folds and resamples
+     * @return The report, without type, year and load time
+     * @throws IllegalArgumentException if the parameters do not fit the sample
+     * @throws IllegalStateException if the regression cannot be fitted on the whole sample
+     */
+    public ModelValidationReport validate(RegressionSample sample, int folds, int resamples, double confidence, long seed,
+            ForkJoinPool pool) {
+        int n = sample.size();
+        if (folds < 2 || folds > n) {
+            throw new IllegalArgumentException("Folds must be between 2 and the number of records (" + n + "), got " + folds);
+        }
+        if (resamples < 0) {
+            throw new IllegalArgumentException("Resamples must be positive, got " + resamples);
+        }
+        if (!(confidence > 0 && confidence < 1)) {
+            throw new IllegalArgumentException("Confidence must be between 0 and 1, got " + confidence);
+        }
+
+        RegressionAccumulator total = new RegressionAccumulator();
+        for (int i = 0; i < n; i++) {
+            total.add(sample.kilometrage()[i], sample.tonnage()[i], sample.consommation()[i]);
+        }
+        RegressionAccumulator.Fit fit = total.fit();
+
+        long start = System.nanoTime();
+        double[] foldSse = new double[folds];
+        int[] foldSize = new int[folds];
+        crossValidate(sample, total, folds, seed, foldSse, foldSize, pool);
+        long crossValidated = System.nanoTime();
+
+        double[][] estimates = new double[RegressionAccumulator.PARAMETER_COUNT][resamples];
+        boolean[] failed = new boolean[resamples];
+        bootstrap(sample, resamples, seed, estimates, failed, pool);
+        long bootstrapped = System.nanoTime();
+
+        double sse = 0.0;
+        int held = 0;
+        List<Double> foldMse = new ArrayList<>(folds);
+        for (int f = 0; f < folds; f++) {
+            // A fold that could not be fitted has no MSE (null, as NaN is not valid JSON)
+            foldMse.add(Double.isNaN(foldSse[f]) ? null : foldSse[f] / foldSize[f]);
+            if (!Double.isNaN(foldSse[f])) {
+                sse += foldSse[f];
+                held += foldSize[f];
+            }
+        }
+
+        int failedResamples = 0;
+        for (boolean resampleFailed : failed) {
+            if (resampleFailed) {
+                failedResamples++;
+            }
+        }
+
+        return ModelValidationReport.builder()
+            .n(n)
+            .folds(folds)
+            .resamples(resamples)
+            .failedResamples(failedResamples)
+            .confidenceLevel(confidence)
+            .seed(seed)
+            .inSampleMse(fit.getMse())
+            .outOfSampleMse(held > 0 ? sse / held : null)
+            .foldMse(foldMse)
+            .coefficients(summarize(fit.getCoefficients(), estimates, failed, confidence))
+            .parallelism(pool.getParallelism())
+            .crossValidationMillis((crossValidated - start) / 1_000_000)
+            .bootstrapMillis((bootstrapped - crossValidated) / 1_000_000)
+            .build();
+    }
+
+    /**
+     * Fit each fold's training set (all records minus the fold) and accumulate the squared errors on the fold
+     */
+    private void crossValidate(RegressionSample sample, RegressionAccumulator total, int folds, long seed,
+            double[] foldSse, int[] foldSize, ForkJoinPool pool) {
+        int n = sample.size();
+        int[] order = shuffledIndices(n, seed);
+
+        run(pool, () -> IntStream.range(0, folds).parallel().forEach(f -> {
+            int from = (int) ((long) f * n / folds);
+            int to = (int) ((long) (f + 1) * n / folds);
+            RegressionAccumulator training = new RegressionAccumulator().merge(total);
+            for (int i = from; i < to; i++) {
+                int row = order[i];
+                training.remove(sample.kilometrage()[row], sample.tonnage()[row], sample.consommation()[row]);
+            }
+            foldSize[f] = to - from;
+            try {
+                RegressionAccumulator.Fit fit = training.fit();
+                double sse = 0.0;
+                for (int i = from; i < to; i++) {
+                    int row = order[i];
+                    double residual = sample.consommation()[row] - fit.predict(sample.kilometrage()[row], sample.tonnage()[row]);
+                    sse += residual * residual;
+                }
+                foldSse[f] = sse;
+            } catch (IllegalStateException e) {
+                foldSse[f] = Double.NaN;
+            }
+        }));
+    }
+
+    /**
+     * Fit each resample (n rows drawn with replacement) into the columns of the estimates
+     */
+    private void bootstrap(RegressionSample sample, int resamples, long seed, double[][] estimates, boolean[] failed,
+            ForkJoinPool pool) {
+        int n = sample.size();
+        int tasks = (resamples + RESAMPLES_PER_TASK - 1) / RESAMPLES_PER_TASK;
+
+        run(pool, () -> IntStream.range(0, tasks).parallel().forEach(task -> {
+            // Buffers of the task, reused for each of its resamples
+            RegressionAccumulator accumulator = new RegressionAccumulator();
+            double[] kilometrage = sample.kilometrage();
+            double[] tonnage = sample.tonnage();
+            double[] consommation = sample.consommation();
+
+            int last = Math.min(resamples, (task + 1) * RESAMPLES_PER_TASK);
+            for (int b = task * RESAMPLES_PER_TASK; b < last; b++) {
+                accumulator.reset();
+                long state = mix(seed + b);
+                for (int i = 0; i < n; i++) {
+                    state += GOLDEN_GAMMA;
+                    int row = (int) (((mix(state) >>> 32) * n) >>> 32);
+                    accumulator.add(kilometrage[row], tonnage[row], consommation[row]);
+                }
+                try {
+                    double[] coefficients = accumulator.fit().getCoefficients();
+                    for (int c = 0; c < coefficients.length; c++) {
+                        estimates[c][b] = coefficients[c];
+                    }
+                } catch (IllegalStateException e) {
+                    // Typically a resample without tonnage variance
+                    failed[b] = true;
+                }
+            }
+        }));
+    }
+
+    /**
+     * Mean, standard deviation and percentile interval of the successful resamples of each coefficient
+     */
+    private List<CoefficientStability> summarize(double[] fitted, double[][] estimates, boolean[] failed,
+            double confidence) {
+        List<CoefficientStability> stability = new ArrayList<>(fitted.length);
+        for (int c = 0; c < fitted.length; c++) {
+            double[] values = new double[failed.length];
+            int count = 0;
+            for (int b = 0; b < failed.length; b++) {
+                if (!failed[b]) {
+                    values[count++] = estimates[c][b];
+                }
+            }
+            values = Arrays.copyOf(values, count);
+            Arrays.sort(values);
+
+            // No bootstrap distribution without a fitted resample (or with resamples = 0)
+            Double mean = null;
+            Double stdError = null;
+            Double lower = null;
+            Double upper = null;
+            if (count > 0) {
+                double sum = 0.0;
+                for (double value : values) {
+                    sum += value;
+                }
+                double average = sum / count;
+                mean = average;
+                double squares = 0.0;
+                for (double value : values) {
+                    squares += (value - average) * (value - average);
+                }
+                stdError = count > 1 ? Math.sqrt(squares / (count - 1)) : 0.0;
+                double alpha = (1 - confidence) / 2;
+                lower = values[(int) Math.floor(alpha * (count - 1))];
+                upper = values[(int) Math.ceil((1 - alpha) * (count - 1))];
+            }
+            stability.add(CoefficientStability.builder()
+                .name(COEFFICIENT_NAMES[c])
+                .estimate(fitted[c])
+                .bootstrapMean(mean)
+                .bootstrapStdError(stdError)
+                .lowerBound(lower)
+                .upperBound(upper)
+                .build());
+        }
+        return stability;
+    }
+
+    private int[] shuffledIndices(int n, long seed) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        // Fisher-Yates
+        long state = mix(seed);
+        for (int i = n - 1; i > 0; i--) {
+            state += GOLDEN_GAMMA;
+            int j = (int) (((mix(state) >>> 32) * (i + 1)) >>> 32);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    private void run(ForkJoinPool pool, Runnable work) {
+        try {
+            // A parallel stream started from a pool task runs its subtasks in that pool
+            pool.submit(work).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Model validation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Model validation failed", e.getCause());
+        }
+    }
+
+    /**
+     * splitmix64 finalizer
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,181 @@
+package com.carburant.backend.utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Row-by-row writer of a tabular report as CSV or XLSX. The XLSX writer is an SXSSF workbook that keeps
+ * only the last rows in memory, so the memory use of a report does not depend on its number of rows.
+ * Values are strings, numbers or null; NaN and infinite numbers are written as empty cells.
+ */
+public abstract class ReportWriter implements Closeable {
+
+    protected long rows;
+
+    /**
+     * Open a writer
+     * @param format "csv" or "xlsx"
+     * @param sheetName Sheet name (XLSX only)
+     * @param out Destination, not closed by the writer
+     * @param rowAccessWindow Rows kept in memory by the XLSX writer
+     * @return The writer
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    public static ReportWriter open(String format, String sheetName, OutputStream out, int rowAccessWindow) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return new Csv(out);
+        }
+        if ("xlsx".equalsIgnoreCase(format)) {
+            return new Xlsx(sheetName, out, rowAccessWindow);
+        }
+        throw new IllegalArgumentException("Unsupported report format: " + format + " (xlsx or csv)");
+    }
+
+    /**
+     * Write the header row
+     */
+    public abstract void header(String... titles) throws IOException;
+
+    /**
+     * Write a data row
+     */
+    public abstract void row(Object... values) throws IOException;
+
+    /**
+     * Complete the document (the XLSX workbook is only written out here)
+     */
+    public abstract void finish() throws IOException;
+
+    /**
+     * @return Number of data rows written
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Quote a CSV value when it contains the separator, a quote or a line break
+     */
+    public static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(';') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    /**
+     * Semicolon-separated UTF-8 with BOM, like the data export, so Excel detects the encoding
+     */
+    private static class Csv extends ReportWriter {
+        private final Writer writer;
+
+        Csv(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void header(String... titles) throws IOException {
+            writer.write('\uFEFF');
+            write(titles);
+        }
+
+        @Override
+        public void row(Object... values) throws IOException {
+            write(values);
+            rows++;
+        }
+
+        private void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(';');
+                }
+                Object value = values[i];
+                if (value instanceof Number number) {
+                    double d = number.doubleValue();
+                    if (Double.isFinite(d)) {
+                        writer.write(value instanceof Double || value instanceof Float ? Double.toString(d) : value.toString());
+                    }
+                } else if (value != null) {
+                    writer.write(csvValue(value.toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+            // The destination belongs to the caller
+        }
+    }
+
+    private static class Xlsx extends ReportWriter {
+        private final SXSSFWorkbook workbook;
+        private final SXSSFSheet sheet;
+        private final OutputStream out;
+        private int rowIndex;
+
+        Xlsx(String sheetName, OutputStream out, int rowAccessWindow) {
+            this.workbook = new SXSSFWorkbook(rowAccessWindow);
+            this.workbook.setCompressTempFiles(true);
+            this.sheet = workbook.createSheet(sheetName);
+            this.out = out;
+        }
+
+        @Override
+        public void header(String... titles) {
+            write(titles);
+        }
+
+        @Override
+        public void row(Object... values) {
+            write(values);
+            rows++;
+        }
+
+        private void write(Object[] values) {
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value instanceof Number number) {
+                    double d = number.doubleValue();
+                    if (Double.isFinite(d)) {
+                        row.createCell(i).setCellValue(d);
+                    }
+                } else if (value != null) {
+                    row.createCell(i).setCellValue(value.toString());
+                }
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            workbook.write(out);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Remove the temporary files backing the flushed rows
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.carburant.backend.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Collapses concurrent identical calls onto a single in-flight computation ("single flight").
+ * The first caller for a key computes the result; callers arriving while it is running wait for it
+ * and receive the same result (or the same exception). Nothing is kept once the computation ends.
+ * A shared result is handed to every caller: it must be immutable, or be coalesced with a copy function
+ * so that each waiting caller gets its own instance.
+ */
+@Component
+public class RequestCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, OperationMetrics> metrics = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.coalescence.active:true}")
+    private boolean enabled = true;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Execute the computation, sharing it with concurrent callers using the same operation and arguments
+     * @param operation Name of the coalesced operation (used as metric tag)
+     * @param arguments Arguments identifying the call
+     * @param computation The computation to run, whose result is not modified by any caller
+     * @return The result of the computation
+     */
+    public <T> T execute(String operation, Object[] arguments, Supplier<T> computation) {
+        return execute(operation, arguments, computation, UnaryOperator.identity());
+    }
+
+    /**
+     * Execute the computation, sharing it with concurrent callers using the same operation and arguments,
+     * each waiting caller receiving its own copy of a mutable result
+     * @param operation Name of the coalesced operation (used as metric tag)
+     * @param arguments Arguments identifying the call
+     * @param computation The computation to run
+     * @param copy Copy of the result for each waiting caller (the computing caller gets the original)
+     * @return The result of the computation
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object[] arguments, Supplier<T> computation, UnaryOperator<T> copy) {
+        if (!enabled) {
+            return computation.get();
+        }
+
+        String key = operation + Arrays.deepToString(arguments);
+        OperationMetrics operationMetrics = metrics.computeIfAbsent(operation, OperationMetrics::new);
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            // Another caller is already computing this result: wait for it
+            operationMetrics.followers.increment();
+            operationMetrics.followerCounter.increment();
+            long start = System.nanoTime();
+            try {
+                T shared = (T) existing.join();
+                return shared != null ? copy.apply(shared) : null;
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            } finally {
+                operationMetrics.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        operationMetrics.leaders.increment();
+        operationMetrics.leaderCounter.increment();
+        long start = System.nanoTime();
+        try {
+            T result = computation.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+            operationMetrics.executionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Number of computations currently in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+
+    /**
+     * Meters of a coalesced operation
+     */
+    private class OperationMetrics {
+        final LongAdder leaders = new LongAdder();
+        final LongAdder followers = new LongAdder();
+        final Counter leaderCounter;
+        final Counter followerCounter;
+        final Timer waitTimer;
+        final Timer executionTimer;
+
+        OperationMetrics(String operation) {
+            leaderCounter = Counter.builder("app.coalescence.requests")
+                .description("Coalesced calls by role (leader computes, follower shares the result)")
+                .tag("operation", operation)
+                .tag("role", "leader")
+                .register(meterRegistry);
+            followerCounter = Counter.builder("app.coalescence.requests")
+                .description("Coalesced calls by role (leader computes, follower shares the result)")
+                .tag("operation", operation)
+                .tag("role", "follower")
+                .register(meterRegistry);
+            waitTimer = Timer.builder("app.coalescence.wait")
+                .description("Time followers spent waiting for the in-flight computation")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+            executionTimer = Timer.builder("app.coalescence.execution")
+                .description("Duration of the shared computations")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+            Gauge.builder("app.coalescence.collapse.ratio", this, OperationMetrics::collapseRatio)
+                .description("Share of calls served by another caller's computation")
+                .tag("operation", operation)
+                .register(meterRegistry);
+            logger.debug("Registered coalescing metrics for operation: {}", operation);
+        }
+
+        double collapseRatio() {
+            long total = leaders.sum() + followers.sum();
+            return total == 0 ? 0.0 : (double) followers.sum() / total;
+        }
+    }
+}
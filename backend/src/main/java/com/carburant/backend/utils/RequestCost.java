@@ -0,0 +1,208 @@
+package com.carburant.backend.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of the HTTP request being served: MongoDB round trips (count, time, documents and bytes
+ * read), CPU time spent parsing workbooks and fitting regressions, and cache hits and misses.
+ * The cost is bound to the request thread by RequestCostFilter and follows the tasks submitted to
+ * the application executors (see propagate). Counters are shared by those threads, hence adders.
+ * Outside of a request every static method is a no-op.
+ */
+public final class RequestCost {
+
+    private static final ThreadLocal<RequestCost> CURRENT = new ThreadLocal<>();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+
+    private final long startNanos = System.nanoTime();
+    private final LongAdder mongoRoundTrips = new LongAdder();
+    private final LongAdder mongoNanos = new LongAdder();
+    private final LongAdder mongoDocuments = new LongAdder();
+    private final LongAdder mongoBytes = new LongAdder();
+    private final LongAdder parseCpuNanos = new LongAdder();
+    private final LongAdder regressionCpuNanos = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    /**
+     * Binds a new cost to the current thread
+     * @return The bound cost
+     */
+    public static RequestCost begin() {
+        RequestCost cost = new RequestCost();
+        CURRENT.set(cost);
+        return cost;
+    }
+
+    /** Unbinds the cost of the current thread */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return The cost of the request served by the current thread, null outside of a request
+     */
+    public static RequestCost current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Task decorator running the task with the cost of the submitting thread, so the work offloaded
+     * to an executor counts for the request that submitted it
+     */
+    public static Runnable propagate(Runnable task) {
+        RequestCost cost = CURRENT.get();
+        if (cost == null) {
+            return task;
+        }
+        return () -> {
+            RequestCost previous = CURRENT.get();
+            CURRENT.set(cost);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    /**
+     * CPU time of the current thread, to be passed to recordParseCpu or recordRegressionCpu
+     * @return The thread CPU time in nanoseconds, -1 outside of a request or when not supported
+     */
+    public static long cpuTime() {
+        return CPU_TIME_SUPPORTED && CURRENT.get() != null ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Adds the CPU time used by the current thread since cpuStart to the workbook parsing time
+     * @param cpuStart Value of cpuTime() when parsing started
+     */
+    public static void recordParseCpu(long cpuStart) {
+        RequestCost cost = CURRENT.get();
+        if (cost != null && cpuStart >= 0) {
+            cost.parseCpuNanos.add(THREADS.getCurrentThreadCpuTime() - cpuStart);
+        }
+    }
+
+    /**
+     * Adds the CPU time used by the current thread since cpuStart to the regression time
+     * @param cpuStart Value of cpuTime() when the regression started
+     */
+    public static void recordRegressionCpu(long cpuStart) {
+        RequestCost cost = CURRENT.get();
+        if (cost != null && cpuStart >= 0) {
+            cost.regressionCpuNanos.add(THREADS.getCurrentThreadCpuTime() - cpuStart);
+        }
+    }
+
+    /**
+     * Counts cache lookups of the current request
+     * @param hits Lookups answered from the cache
+     * @param misses Lookups that had to compute the value
+     */
+    public static void recordCache(int hits, int misses) {
+        RequestCost cost = CURRENT.get();
+        if (cost != null) {
+            cost.cacheHits.add(hits);
+            cost.cacheMisses.add(misses);
+        }
+    }
+
+    /**
+     * Counts a MongoDB round trip. Called from the driver listener, which may run on another thread
+     * than the one that sent the command: the cost is the one captured when the command started.
+     */
+    public void recordMongo(long nanos, long documents, long bytes) {
+        mongoRoundTrips.increment();
+        mongoNanos.add(nanos);
+        mongoDocuments.add(documents);
+        mongoBytes.add(bytes);
+    }
+
+    /**
+     * Server-Timing header value, e.g.
+     * {@code mongo;dur=12.4;desc="3 round trips, 1200 documents, 356000 bytes", parse;dur=45.1;desc="CPU",
+     * cache;desc="2 hits, 1 misses", total;dur=80.2}
+     */
+    public String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        header.append("mongo;dur=").append(millis(mongoNanos.sum()))
+            .append(";desc=\"").append(mongoRoundTrips.sum()).append(" round trips, ")
+            .append(mongoDocuments.sum()).append(" documents, ").append(mongoBytes.sum()).append(" bytes\"");
+        if (parseCpuNanos.sum() > 0) {
+            header.append(", parse;dur=").append(millis(parseCpuNanos.sum())).append(";desc=\"CPU\"");
+        }
+        if (regressionCpuNanos.sum() > 0) {
+            header.append(", regression;dur=").append(millis(regressionCpuNanos.sum())).append(";desc=\"CPU\"");
+        }
+        header.append(", cache;desc=\"").append(cacheHits.sum()).append(" hits, ")
+            .append(cacheMisses.sum()).append(" misses\"");
+        header.append(", total;dur=").append(millis(elapsedNanos()));
+        return header.toString();
+    }
+
+    /**
+     * Cost as log fields, in a stable order
+     */
+    public Map<String, String> logFields() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("durationMs", millis(elapsedNanos()));
+        fields.put("mongoRoundTrips", String.valueOf(mongoRoundTrips.sum()));
+        fields.put("mongoMs", millis(mongoNanos.sum()));
+        fields.put("mongoDocuments", String.valueOf(mongoDocuments.sum()));
+        fields.put("mongoBytes", String.valueOf(mongoBytes.sum()));
+        fields.put("parseCpuMs", millis(parseCpuNanos.sum()));
+        fields.put("regressionCpuMs", millis(regressionCpuNanos.sum()));
+        fields.put("cacheHits", String.valueOf(cacheHits.sum()));
+        fields.put("cacheMisses", String.valueOf(cacheMisses.sum()));
+        return fields;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public long getMongoRoundTrips() {
+        return mongoRoundTrips.sum();
+    }
+
+    public long getMongoDocuments() {
+        return mongoDocuments.sum();
+    }
+
+    public long getMongoBytes() {
+        return mongoBytes.sum();
+    }
+
+    public long getParseCpuNanos() {
+        return parseCpuNanos.sum();
+    }
+
+    public long getRegressionCpuNanos() {
+        return regressionCpuNanos.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
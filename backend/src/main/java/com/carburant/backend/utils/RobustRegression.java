@@ -0,0 +1,370 @@
+package com.carburant.backend.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.carburant.backend.model.RegressionResult;
+import com.carburant.backend.model.dto.RobustRegressionReport;
+
+/**
+ * Robust regression consommation = b0 + b1 × kilometrage + b2 × tonnage by iteratively reweighted
+ * least squares (IRLS) with Huber or Tukey bisquare weights, so a few mis-keyed months do not drag the fit.
+ * <p>
+ * The iterations start from the OLS solution, accumulated in one pass over the sample itself so the warm start
+ * and the unweighted sums describe exactly the records being reweighted. The residual scale is 1.4826 × MAD
+ * of the residuals of the previous iteration (of the OLS fit for the first one), estimated on an evenly
+ * spaced sample of at most
+ * {@value #SCALE_SAMPLE_SIZE} residuals so that it costs little next to the residual pass. With Huber
+ * weights only the records beyond the cutoff have a weight below 1, so each iteration subtracts their
+ * weighted share from the full sums instead of re-accumulating every record: an iteration is one residual
+ * pass over the primitive columns. Tukey weights are below 1 everywhere and re-accumulate the weighted
+ * sums at each iteration, which makes them several times costlier.
+ */
+@Component
+public class RobustRegression {
+
+    /** Huber tuning constant (95% efficiency under normal errors) */
+    public static final double HUBER_TUNING = 1.345;
+    /** Tukey bisquare tuning constant (95% efficiency under normal errors) */
+    public static final double TUKEY_TUNING = 4.685;
+
+    private static final double MAD_SCALE = 1.4826;
+    private static final int SCALE_SAMPLE_SIZE = 4096;
+
+    @Value("${app.regression.robuste.iterations-max:50}")
+    private int maxIterations = 50;
+
+    @Value("${app.regression.robuste.tolerance:1e-6}")
+    private double tolerance = 1e-6;
+
+    /**
+     * Fit the robust regression
+     * @param sample The observations
+     * @param method "huber" or "tukey"
+     * @param tuningConstant Cutoff in units of the residual scale, 0 or less for the method default
+     * @return Report with diagnostics and timings, its result has the coefficients, goodness-of-fit figures,
+     *         and the (XᵀWX)⁻¹ and residual standard error of the final weighted fit
+     *         (type, scope, equation and coefficient statistics are left to the caller)
+     * @throws IllegalArgumentException if the method is unknown
+     * @throws IllegalStateException if the regression cannot be fitted (too few records, collinear predictors)
+     */
+    public RobustRegressionReport fit(RegressionSample sample, String method, double tuningConstant) {
+        boolean huber;
+        if (RobustRegressionReport.METHOD_HUBER.equalsIgnoreCase(method)) {
+            huber = true;
+        } else if (RobustRegressionReport.METHOD_TUKEY.equalsIgnoreCase(method)) {
+            huber = false;
+        } else {
+            throw new IllegalArgumentException("Unknown robust regression method: " + method + " (huber or tukey)");
+        }
+        double tuning = tuningConstant > 0 ? tuningConstant : (huber ? HUBER_TUNING : TUKEY_TUNING);
+
+        int n = sample.size();
+        double[] kilometrage = sample.kilometrage();
+        double[] tonnage = sample.tonnage();
+        double[] consommation = sample.consommation();
+
+        // OLS on the same data: warm start, full sums and reference cost
+        long olsStart = System.nanoTime();
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        for (int i = 0; i < n; i++) {
+            accumulator.add(kilometrage[i], tonnage[i], consommation[i]);
+        }
+        RegressionAccumulator.Fit ols = accumulator.fit();
+        long olsNanos = System.nanoTime() - olsStart;
+
+        long irlsStart = System.nanoTime();
+        double[] olsCoefficients = ols.getCoefficients();
+        double b0 = olsCoefficients[0];
+        double b1 = olsCoefficients[1];
+        double b2 = olsCoefficients[2];
+
+        // Robust scale of the OLS residuals, then of the residuals of each iteration
+        double olsScale = Math.sqrt(ols.getResidualVariance());
+        int stride = Math.max(1, n / SCALE_SAMPLE_SIZE);
+        int sampled = (n + stride - 1) / stride;
+        double[] absResiduals = new double[sampled];
+        for (int i = 0, j = 0; i < n; i += stride, j++) {
+            absResiduals[j] = Math.abs(consommation[i] - (b0 + b1 * kilometrage[i] + b2 * tonnage[i]));
+        }
+        double scale = robustScale(absResiduals, sampled, olsScale);
+
+        // Unweighted sums, for the Huber corrections and the convergence measure
+        double sumX1 = accumulator.getSumKilometrage();
+        double sumX2 = accumulator.getSumTonnage();
+        double sumX1Sq = accumulator.getSumKilometrageSq();
+        double sumX1X2 = accumulator.getSumKilometrageTonnage();
+        double sumX2Sq = accumulator.getSumTonnageSq();
+
+        List<Long> iterationMicros = new ArrayList<>();
+        boolean converged = !(scale > 0); // Perfect fit, nothing to reweight
+        double change = 0.0;
+        int iterations = 0;
+        while (!converged && iterations < maxIterations) {
+            long iterationStart = System.nanoTime();
+            double cutoff = tuning * scale;
+            double w, wx1, wx2, wy, wx1x1, wx1x2, wx2x2, wx1y, wx2y;
+            if (huber) {
+                w = n;
+                wx1 = sumX1;
+                wx2 = sumX2;
+                wy = accumulator.getSumConsommation();
+                wx1x1 = sumX1Sq;
+                wx1x2 = sumX1X2;
+                wx2x2 = sumX2Sq;
+                wx1y = accumulator.getSumKilometrageConsommation();
+                wx2y = accumulator.getSumTonnageConsommation();
+            } else {
+                w = wx1 = wx2 = wy = wx1x1 = wx1x2 = wx2x2 = wx1y = wx2y = 0.0;
+            }
+
+            double sse = 0.0;
+            int nextSampled = 0;
+            for (int i = 0; i < n; i++) {
+                double x1 = kilometrage[i];
+                double x2 = tonnage[i];
+                double y = consommation[i];
+                double residual = y - (b0 + b1 * x1 + b2 * x2);
+                sse += residual * residual;
+                double a = Math.abs(residual);
+                if (i == nextSampled) {
+                    absResiduals[nextSampled / stride] = a;
+                    nextSampled += stride;
+                }
+                double c;
+                if (huber) {
+                    if (a <= cutoff) {
+                        continue;
+                    }
+                    // Weight cutoff / |r|: subtract (1 - weight) × the record's terms
+                    c = -(1 - cutoff / a);
+                } else {
+                    if (a >= cutoff) {
+                        continue;
+                    }
+                    double u = residual / cutoff;
+                    c = (1 - u * u) * (1 - u * u);
+                }
+                w += c;
+                wx1 += c * x1;
+                wx2 += c * x2;
+                wy += c * y;
+                wx1x1 += c * x1 * x1;
+                wx1x2 += c * x1 * x2;
+                wx2x2 += c * x2 * x2;
+                wx1y += c * x1 * y;
+                wx2y += c * x2 * y;
+            }
+
+            double[] next = solveWeighted(w, wx1, wx2, wy, wx1x1, wx1x2, wx2x2, wx1y, wx2y);
+            // Relative change of the fitted values: ‖XΔb‖ / ‖r‖, with ‖XΔb‖² = ΔbᵀXᵀXΔb from the unweighted sums
+            double d0 = next[0] - b0;
+            double d1 = next[1] - b1;
+            double d2 = next[2] - b2;
+            double shift = n * d0 * d0 + sumX1Sq * d1 * d1 + sumX2Sq * d2 * d2
+                + 2 * (sumX1 * d0 * d1 + sumX2 * d0 * d2 + sumX1X2 * d1 * d2);
+            change = sse > 0 ? Math.sqrt(Math.max(0.0, shift) / sse) : 0.0;
+            b0 = next[0];
+            b1 = next[1];
+            b2 = next[2];
+            // Scale of the residuals of this iteration's starting coefficients, for the next one
+            double nextScale = robustScale(absResiduals, sampled, olsScale);
+            change = Math.max(change, Math.abs(nextScale - scale) / scale);
+            scale = nextScale;
+            iterations++;
+            converged = change < tolerance;
+            iterationMicros.add((System.nanoTime() - iterationStart) / 1_000);
+        }
+
+        // Final pass: unweighted fit quality, weight counts and weighted sums of the robust coefficients
+        double cutoff = tuning * scale;
+        double sse = 0.0;
+        double weightedSse = 0.0;
+        double w = 0.0, wx1 = 0.0, wx2 = 0.0, wx1x1 = 0.0, wx1x2 = 0.0, wx2x2 = 0.0;
+        int downweighted = 0;
+        int rejected = 0;
+        for (int i = 0; i < n; i++) {
+            double x1 = kilometrage[i];
+            double x2 = tonnage[i];
+            double residual = consommation[i] - (b0 + b1 * x1 + b2 * x2);
+            sse += residual * residual;
+            double a = Math.abs(residual);
+            if (huber ? a > cutoff : a > 0) {
+                downweighted++;
+            }
+            if (!huber && a >= cutoff) {
+                rejected++;
+            }
+            double weight = weight(huber, residual, cutoff);
+            weightedSse += weight * residual * residual;
+            w += weight;
+            wx1 += weight * x1;
+            wx2 += weight * x2;
+            wx1x1 += weight * x1 * x1;
+            wx1x2 += weight * x1 * x2;
+            wx2x2 += weight * x2 * x2;
+        }
+        // Inference of the final weighted least squares fit: (XᵀWX)⁻¹ and Σ w r² / (n - p)
+        long degreesOfFreedom = n - RegressionAccumulator.PARAMETER_COUNT;
+        double[] inverseGram = weightedInverseGram(w, wx1, wx2, wx1x1, wx1x2, wx2x2);
+        double residualStandardError = degreesOfFreedom > 0 ? Math.sqrt(weightedSse / degreesOfFreedom) : Double.NaN;
+        long irlsNanos = System.nanoTime() - irlsStart;
+
+        double meanY = accumulator.getSumConsommation() / n;
+        double sst = accumulator.getSumConsommationSq() - n * meanY * meanY;
+        double rSquared = sst > 0 ? 1 - sse / sst : 0.0;
+        double adjustedRSquared = n > RegressionAccumulator.PARAMETER_COUNT
+            ? 1 - (1 - rSquared) * (n - 1) / (n - RegressionAccumulator.PARAMETER_COUNT)
+            : rSquared;
+
+        Map<String, Double> coefficients = new HashMap<>();
+        coefficients.put("kilometrage", b1);
+        coefficients.put("tonnage", b2);
+        RegressionResult result = RegressionResult.builder()
+            .coefficients(coefficients)
+            .intercept(b0)
+            // Rounded to 4 decimal places like the OLS results
+            .rSquared(Math.round(rSquared * 10000) / 10000.0)
+            .adjustedRSquared(Math.round(adjustedRSquared * 10000) / 10000.0)
+            .mse(sse / n)
+            .sampleSize(n)
+            .degreesOfFreedom(degreesOfFreedom)
+            .residualStandardError(residualStandardError)
+            .inverseGram(inverseGram)
+            .build();
+
+        return RobustRegressionReport.builder()
+            .method(huber ? RobustRegressionReport.METHOD_HUBER : RobustRegressionReport.METHOD_TUKEY)
+            .tuningConstant(tuning)
+            .n(n)
+            .converged(converged)
+            .iterations(iterations)
+            .finalChange(change)
+            .scale(scale)
+            .downweighted(downweighted)
+            .rejected(rejected)
+            .olsCoefficients(olsCoefficients)
+            .iterationMicros(iterationMicros)
+            .olsMicros(olsNanos / 1_000)
+            .irlsMicros(irlsNanos / 1_000)
+            .costRatio((double) irlsNanos / Math.max(olsNanos, 1))
+            .result(result)
+            .build();
+    }
+
+    /**
+     * 1.4826 × the median of the absolute residuals, by quickselect (reorders the array)
+     * @param fallback Scale used when more than half of the residuals are zero
+     */
+    static double robustScale(double[] absResiduals, int n, double fallback) {
+        int k = n / 2;
+        int left = 0;
+        int right = n - 1;
+        while (left < right) {
+            double pivot = absResiduals[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (absResiduals[i] < pivot) {
+                    i++;
+                }
+                while (absResiduals[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    double swap = absResiduals[i];
+                    absResiduals[i] = absResiduals[j];
+                    absResiduals[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+        double scale = MAD_SCALE * absResiduals[k];
+        return scale > 0 ? scale : fallback;
+    }
+
+    /**
+     * IRLS weight of a residual: min(1, cutoff / |r|) for Huber, (1 - (r / cutoff)²)² inside the cutoff for Tukey
+     */
+    private static double weight(boolean huber, double residual, double cutoff) {
+        double a = Math.abs(residual);
+        if (huber) {
+            return a <= cutoff ? 1.0 : cutoff / a;
+        }
+        if (a >= cutoff) {
+            return 0.0;
+        }
+        double u = residual / cutoff;
+        return (1 - u * u) * (1 - u * u);
+    }
+
+    /**
+     * (XᵀWX)⁻¹ row-major 3×3 in the order intercept, kilometrage, tonnage, from the weighted sums,
+     * derived from the inverse of the centered 2×2 matrix like {@link RegressionAccumulator#fit()}
+     */
+    private static double[] weightedInverseGram(double w, double wx1, double wx2,
+            double wx1x1, double wx1x2, double wx2x2) {
+        if (!(w > 0)) {
+            throw new IllegalStateException("All records have a zero weight");
+        }
+        double meanX1 = wx1 / w;
+        double meanX2 = wx2 / w;
+        double s11 = wx1x1 - w * meanX1 * meanX1;
+        double s12 = wx1x2 - w * meanX1 * meanX2;
+        double s22 = wx2x2 - w * meanX2 * meanX2;
+        double det = s11 * s22 - s12 * s12;
+        if (!(det > 1e-12 * s11 * s22) || !Double.isFinite(det)) {
+            throw new IllegalStateException("Weighted regression matrix is singular");
+        }
+        double c11 = s22 / det;
+        double c12 = -s12 / det;
+        double c22 = s11 / det;
+        double v1 = c11 * meanX1 + c12 * meanX2;
+        double v2 = c12 * meanX1 + c22 * meanX2;
+        return new double[] {
+            1.0 / w + meanX1 * v1 + meanX2 * v2, -v1, -v2,
+            -v1, c11, c12,
+            -v2, c12, c22
+        };
+    }
+
+    /**
+     * Solve the weighted normal equations on centered sums
+     * @return Coefficients intercept, kilometrage, tonnage
+     */
+    private double[] solveWeighted(double w, double wx1, double wx2, double wy,
+            double wx1x1, double wx1x2, double wx2x2, double wx1y, double wx2y) {
+        if (!(w > 0)) {
+            throw new IllegalStateException("All records have a zero weight");
+        }
+        double meanX1 = wx1 / w;
+        double meanX2 = wx2 / w;
+        double meanY = wy / w;
+        double s11 = wx1x1 - w * meanX1 * meanX1;
+        double s12 = wx1x2 - w * meanX1 * meanX2;
+        double s22 = wx2x2 - w * meanX2 * meanX2;
+        double s1y = wx1y - w * meanX1 * meanY;
+        double s2y = wx2y - w * meanX2 * meanY;
+
+        double det = s11 * s22 - s12 * s12;
+        if (!(det > 1e-12 * s11 * s22) || !Double.isFinite(det)) {
+            throw new IllegalStateException("Weighted regression matrix is singular");
+        }
+        double b1 = (s22 * s1y - s12 * s2y) / det;
+        double b2 = (s11 * s2y - s12 * s1y) / det;
+        return new double[] { meanY - b1 * meanX1 - b2 * meanX2, b1, b2 };
+    }
+}
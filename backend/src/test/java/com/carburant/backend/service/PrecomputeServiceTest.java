@@ -0,0 +1,150 @@
+package com.carburant.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.carburant.backend.model.PrecomputeRun;
+import com.carburant.backend.model.PrecomputeRun.StepOutcome;
+import com.carburant.backend.model.ReportJob;
+import com.carburant.backend.model.dto.RegressionBatchReport;
+
+class PrecomputeServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private VehicleService vehicleService;
+    private RegressionService regressionService;
+    private ReportService reportService;
+    private PrecomputeService precomputeService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        vehicleService = mock(VehicleService.class);
+        regressionService = mock(RegressionService.class);
+        reportService = mock(ReportService.class);
+        DataGenerationService dataGenerationService = mock(DataGenerationService.class);
+        precomputeService = new PrecomputeService(mongoTemplate, vehicleService, regressionService, reportService,
+            dataGenerationService, new TaskExecutorAdapter(Runnable::run));
+
+        when(vehicleService.getStoredVehicleTypes()).thenReturn(List.of("camions"));
+        when(regressionService.performRegressionForTypes(anyList(), eq(false))).thenReturn(RegressionBatchReport.builder()
+            .outcomes(List.of(RegressionBatchReport.TypeOutcome.builder()
+                .type("camions")
+                .status(RegressionBatchReport.TypeOutcome.SUCCESS)
+                .build()))
+            .build());
+        // Each report job is queued under its report type and completes
+        when(reportService.submit(anyString(), anyString(), anyString(), anyString(), anyString()))
+            .thenAnswer(invocation -> ReportJob.builder()
+                .id(invocation.getArgument(0))
+                .status(ReportJob.STATUS_PENDING)
+                .build());
+        when(reportService.whenDone(anyString())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+            ReportJob.builder().id(invocation.getArgument(0)).status(ReportJob.STATUS_COMPLETED).build()));
+        // The claim succeeds and returns the entry of the queried month
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PrecomputeRun.class)))
+            .thenAnswer(invocation -> {
+                Query query = invocation.getArgument(0);
+                Document set = (Document) ((Update) invocation.getArgument(1)).getUpdateObject().get("$set");
+                return PrecomputeRun.builder()
+                    .id((String) query.getQueryObject().get("_id"))
+                    .status(PrecomputeRun.STATUS_RUNNING)
+                    .trigger((String) set.get("trigger"))
+                    .attempts(1)
+                    .build();
+            });
+    }
+
+    @Test
+    void monthClaimedElsewhereIsNotRun() {
+        doThrow(new DuplicateKeyException("E11000 duplicate key error")).when(mongoTemplate)
+            .findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(PrecomputeRun.class));
+
+        Optional<PrecomputeRun> run = precomputeService.runMonth(YearMonth.of(2025, 5));
+
+        assertTrue(run.isEmpty());
+        verifyNoInteractions(vehicleService, regressionService, reportService);
+        verify(mongoTemplate, never()).save(any());
+    }
+
+    @Test
+    void allStepsSucceededCompletesTheRun() {
+        PrecomputeRun run = precomputeService.runMonth(YearMonth.of(2025, 5)).orElseThrow();
+
+        assertEquals(PrecomputeRun.STATUS_COMPLETED, run.getStatus());
+        // Rollups of all types and of the stored type, one regression, three reports
+        assertEquals(6, run.getSteps().size());
+        assertEquals(List.of(ReportJob.TYPE_MONTHLY, ReportJob.TYPE_IPE_RANKING, ReportJob.TYPE_SER),
+            run.getReportJobIds());
+        verify(mongoTemplate).save(run);
+    }
+
+    @Test
+    void failedReportJobLeavesTheRunPartial() {
+        when(reportService.whenDone(ReportJob.TYPE_SER)).thenReturn(CompletableFuture.completedFuture(
+            ReportJob.builder().id(ReportJob.TYPE_SER).status(ReportJob.STATUS_FAILED).error("disk full").build()));
+
+        PrecomputeRun run = precomputeService.runMonth(YearMonth.of(2025, 5)).orElseThrow();
+
+        assertEquals(PrecomputeRun.STATUS_PARTIAL, run.getStatus());
+        StepOutcome ser = run.getSteps().stream()
+            .filter(step -> PrecomputeService.STEP_REPORT.equals(step.getStep())
+                && ReportJob.TYPE_SER.equals(step.getTarget()))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(StepOutcome.FAILED, ser.getStatus());
+        assertTrue(ser.getDetail().contains("disk full"));
+    }
+
+    @Test
+    void failedRollupLeavesTheRunPartial() {
+        when(vehicleService.getVehiclePerformanceData("camions")).thenThrow(new IllegalStateException("timeout"));
+
+        PrecomputeRun run = precomputeService.runMonth(YearMonth.of(2025, 5)).orElseThrow();
+
+        assertEquals(PrecomputeRun.STATUS_PARTIAL, run.getStatus());
+        assertEquals(1, run.getSteps().stream().filter(step -> StepOutcome.FAILED.equals(step.getStatus())).count());
+    }
+
+    @Test
+    void pastMonthWithoutCompletedRunIsRetried() {
+        // No month has a completed run (e.g. the last run was PARTIAL)
+        when(mongoTemplate.exists(any(Query.class), eq(PrecomputeRun.class))).thenReturn(false);
+
+        List<PrecomputeRun> runs = precomputeService.runDueMonths(PrecomputeRun.TRIGGER_SCHEDULE);
+
+        // The two past months are caught up first, oldest first, under the catch-up trigger
+        YearMonth current = YearMonth.now();
+        assertTrue(runs.size() >= 2);
+        assertEquals(current.minusMonths(2).toString(), runs.get(0).getId());
+        assertEquals(current.minusMonths(1).toString(), runs.get(1).getId());
+        assertEquals(PrecomputeRun.TRIGGER_CATCH_UP, runs.get(0).getTrigger());
+        assertEquals(PrecomputeRun.STATUS_COMPLETED, runs.get(0).getStatus());
+
+        // A PARTIAL entry can be claimed again: only a RUNNING one blocks the claim
+        ArgumentCaptor<Query> claims = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, atLeast(2)).findAndModify(claims.capture(), any(Update.class),
+            any(FindAndModifyOptions.class), eq(PrecomputeRun.class));
+        @SuppressWarnings("unchecked")
+        List<Document> conditions = (List<Document>) claims.getValue().getQueryObject().get("$or");
+        assertEquals(new Document("$ne", PrecomputeRun.STATUS_RUNNING), conditions.get(0).get("status"));
+    }
+}
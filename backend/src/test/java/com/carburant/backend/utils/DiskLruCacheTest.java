@@ -0,0 +1,58 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiskLruCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file(String name, int size) throws Exception {
+        Path file = directory.resolve(name);
+        Files.write(file, new byte[size]);
+        return file;
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondBudget() throws Exception {
+        DiskLruCache cache = new DiskLruCache(directory.resolve("cache"), 250);
+        cache.put("a", file("a.csv", 100));
+        cache.put("b", file("b.csv", 100));
+        assertNotNull(cache.get("a")); // b is now the least recently used
+
+        cache.put("c", file("c.csv", 100));
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(200, cache.getTotalBytes());
+        assertFalse(Files.exists(directory.resolve("cache").resolve("b")));
+        // The rendered files are left in place
+        assertTrue(Files.exists(directory.resolve("b.csv")));
+    }
+
+    @Test
+    void skipsFilesLargerThanBudgetAndReindexesOnReopen() throws Exception {
+        DiskLruCache cache = new DiskLruCache(directory.resolve("cache"), 250);
+        assertNull(cache.put("big", file("big.xlsx", 300)));
+        cache.put("small", file("small.xlsx", 50));
+
+        DiskLruCache reopened = new DiskLruCache(directory.resolve("cache"), 250);
+        assertEquals(1, reopened.getEntryCount());
+        assertEquals(50, reopened.getTotalBytes());
+        assertEquals(50, Files.size(reopened.get("small")));
+    }
+
+    @Test
+    void keyDependsOnEveryPart() {
+        assertEquals(DiskLruCache.key("monthly", "all", null, "csv", 3L), DiskLruCache.key("monthly", "all", null, "csv", 3L));
+        assertNotEquals(DiskLruCache.key("monthly", "all", null, "csv", 3L), DiskLruCache.key("monthly", "all", null, "csv", 4L));
+        assertNotEquals(DiskLruCache.key("ab", "c"), DiskLruCache.key("a", "bc"));
+    }
+}
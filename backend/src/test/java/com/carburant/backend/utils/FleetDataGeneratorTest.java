@@ -0,0 +1,79 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.carburant.backend.model.VehicleRecord;
+import com.carburant.backend.service.ExcelService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FleetDataGeneratorTest {
+
+    @Test
+    void sameSeedGivesTheSameData() throws Exception {
+        FleetDataGenerator.Options options = FleetDataGenerator.Options.builder().seed(7).fleetSize(20).build();
+
+        assertEquals(csv(new FleetDataGenerator(options)), csv(new FleetDataGenerator(options)));
+        options.setSeed(8);
+        assertNotEquals(csv(new FleetDataGenerator(FleetDataGenerator.Options.builder().seed(7).fleetSize(20).build())),
+            csv(new FleetDataGenerator(options)));
+    }
+
+    @Test
+    void generatesEveryVehicleEveryMonthOfEachRegion() {
+        FleetDataGenerator generator = new FleetDataGenerator(FleetDataGenerator.Options.builder()
+            .fleetSize(30).months(6).start(YearMonth.of(2023, 10)).regions(List.of("Tunis", "Sfax")).absenceRate(0)
+            .build());
+        List<VehicleRecord> records = generator.records();
+
+        assertEquals(2 * 30 * 6, records.size());
+        assertEquals(Set.of(2023, 2024), generator.getYears("Sfax"));
+        assertEquals(30 * 3, generator.records("Tunis", 2023, FleetDataGenerator.CAMION).size()
+            + generator.records("Tunis", 2023, FleetDataGenerator.VOITURE).size()
+            + generator.records("Tunis", 2023, FleetDataGenerator.MINIBUS).size()
+            + generator.records("Tunis", 2023, FleetDataGenerator.CHARIOT).size());
+        assertTrue(records.stream().filter(r -> FleetDataGenerator.MINIBUS.equals(r.getType()))
+            .allMatch(r -> r.getMatricule().matches("\\d+ RS")));
+        assertTrue(records.stream().filter(r -> FleetDataGenerator.CAMION.equals(r.getType()))
+            .allMatch(r -> r.getMatricule().matches("\\d+ TU \\d+") && r.getProduitsTonnes() > 0));
+    }
+
+    @Test
+    void workbookSheetsExtractToTheGeneratedRecords() throws Exception {
+        FleetDataGenerator generator = new FleetDataGenerator(FleetDataGenerator.Options.builder()
+            .fleetSize(40).months(3).noiseRate(0.2).currencyTextRate(0.3).build());
+        ByteArrayOutputStream workbook = new ByteArrayOutputStream();
+        generator.writeWorkbook("Tunis", 2024, workbook);
+        ExcelService excelService = new ExcelService(new IngestionMetrics(new SimpleMeterRegistry()));
+
+        for (String type : List.of(FleetDataGenerator.CAMION, FleetDataGenerator.MINIBUS, FleetDataGenerator.CHARIOT)) {
+            List<VehicleRecord> expected = generator.records("Tunis", 2024, type);
+            List<VehicleRecord> extracted = excelService.extractDataFromInputStream(
+                new ByteArrayInputStream(workbook.toByteArray()), FleetDataGenerator.SHEETS.get(type)).getVehicleRecords();
+
+            assertEquals(expected.size(), extracted.size(), type);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getMatricule(), extracted.get(i).getMatricule());
+                assertEquals(expected.get(i).getMois(), extracted.get(i).getMois());
+                assertEquals(expected.get(i).getCoutDT(), extracted.get(i).getCoutDT(), 1e-9);
+                assertEquals(expected.get(i).getConsommationTEP(), extracted.get(i).getConsommationTEP(), 1e-4);
+                assertEquals(expected.get(i).getIpeL100km(), extracted.get(i).getIpeL100km(), 1e-9);
+            }
+        }
+    }
+
+    private static String csv(FleetDataGenerator generator) throws Exception {
+        StringWriter writer = new StringWriter();
+        generator.writeCsv(writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.carburant.backend.model.VehicleRegression;
+import com.carburant.backend.utils.FleetRegressionCalculator.VehicleSeries;
+
+class FleetRegressionCalculatorTest {
+
+    private final FleetRegressionCalculator calculator = new FleetRegressionCalculator();
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void fitsEveryVehicleOfTheFleet() {
+        // 5k vehicles x 36 months, each vehicle with its own kilometrage coefficient
+        Random random = new Random(1);
+        List<VehicleSeries> fleet = new ArrayList<>();
+        for (int v = 0; v < 5000; v++) {
+            VehicleSeries series = new VehicleSeries("Camions", "V" + v);
+            double kilometrageCoef = 0.2 + (v % 10) * 0.01;
+            for (int month = 0; month < 36; month++) {
+                double km = 2000 + random.nextDouble() * 6000;
+                double tonnes = random.nextDouble() * 300;
+                series.add(km, tonnes, 80 + kilometrageCoef * km + 0.5 * tonnes + random.nextGaussian() * 5);
+            }
+            fleet.add(series);
+        }
+
+        List<VehicleRegression> results = calculator.fitAll(fleet, pool);
+
+        assertEquals(5000, results.size());
+        for (int v = 0; v < results.size(); v += 97) {
+            VehicleRegression result = results.get(v);
+            assertEquals("V" + v, result.getMatricule());
+            assertEquals(VehicleRegression.STATUS_FITTED, result.getStatus());
+            assertEquals(36, result.getN());
+            assertEquals(0.2 + (v % 10) * 0.01, result.getKilometrageCoef(), 0.005);
+        }
+    }
+
+    @Test
+    void vehiclesWithoutTonnageAreFittedOnKilometrage() {
+        VehicleSeries series = new VehicleSeries("Voitures", "123TU4567");
+        series.add(1000, 0, 90);
+        series.add(1500, 0, 130);
+        series.add(2000, 0, 170);
+        series.add(2500, 0, 211);
+
+        VehicleRegression result = calculator.fitAll(List.of(series), pool).get(0);
+
+        assertEquals(VehicleRegression.STATUS_KILOMETRAGE_ONLY, result.getStatus());
+        assertEquals(0.0806, result.getKilometrageCoef(), 1e-4);
+        assertEquals(0.0, result.getTonnageCoef());
+    }
+
+    @Test
+    void shortSeriesAreReportedAsInsufficient() {
+        VehicleSeries series = new VehicleSeries("Camions", "X");
+        series.add(1000, 10, 300);
+
+        assertEquals(VehicleRegression.STATUS_INSUFFICIENT_DATA, calculator.fitAll(List.of(series), pool).get(0).getStatus());
+    }
+}
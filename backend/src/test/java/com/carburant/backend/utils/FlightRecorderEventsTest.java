@@ -0,0 +1,93 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.carburant.backend.service.ExcelService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class FlightRecorderEventsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void extractionRecordsParseAndResolveEvents() throws Exception {
+        FleetDataGenerator generator = new FleetDataGenerator(FleetDataGenerator.Options.builder()
+            .fleetSize(12).months(2).vehicleTypes(List.of(FleetDataGenerator.CAMION)).absenceRate(0).build());
+        ByteArrayOutputStream workbook = new ByteArrayOutputStream();
+        generator.writeWorkbook("Tunis", 2024, workbook);
+        ExcelService excelService = new ExcelService(new IngestionMetrics(new SimpleMeterRegistry()));
+        String sheet = FleetDataGenerator.SHEETS.get(FleetDataGenerator.CAMION);
+
+        List<RecordedEvent> events = record(() -> excelService.extractDataFromInputStream(
+            new ByteArrayInputStream(workbook.toByteArray()), sheet));
+
+        RecordedEvent parse = single(events, "com.carburant.WorkbookParse");
+        assertEquals(sheet, parse.getString("sheet"));
+        assertEquals(IngestionMetrics.SOURCE_CACHE, parse.getString("source"));
+        assertEquals(workbook.size(), parse.getLong("bytes"));
+        assertEquals(24, parse.getInt("records"));
+        RecordedEvent resolve = single(events, "com.carburant.SheetResolve");
+        assertEquals(sheet, resolve.getString("sheet"));
+        assertTrue(resolve.getInt("rows") > 24);
+    }
+
+    @Test
+    void regressionRecordsFitEvent() throws Exception {
+        Random random = new Random(3);
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        for (int i = 0; i < 40; i++) {
+            double kilometrage = 5000 + random.nextDouble() * 20000;
+            double tonnage = random.nextDouble() * 800;
+            accumulator.add(kilometrage, tonnage, 100 + 0.3 * kilometrage + 0.2 * tonnage + random.nextGaussian() * 50);
+        }
+
+        List<RecordedEvent> events = record(() -> new RegressionUtils().performRegression(accumulator, "Camion"));
+
+        RecordedEvent fit = single(events, "com.carburant.RegressionFit");
+        assertEquals("Camion", fit.getString("type"));
+        assertEquals(40, fit.getLong("observations"));
+        assertTrue(fit.getBoolean("succeeded"));
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private List<RecordedEvent> record(Action action) throws Exception {
+        Path file = directory.resolve("test.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.carburant.WorkbookParse");
+            recording.enable("com.carburant.SheetResolve");
+            recording.enable("com.carburant.RegressionFit");
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        return events;
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream().filter(e -> name.equals(e.getEventType().getName())).toList();
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestionMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final IngestionMetrics metrics = new IngestionMetrics(registry);
+
+    @Test
+    void countsRowsByOutcomeAndType() {
+        metrics.recordRows("Camions", Map.of("camions", 40, "voitures", 2), 5, 1, 48, System.nanoTime() - 1_000_000);
+
+        assertEquals(40, registry.get("app.ingestion.rows").tags("sheet", "Camions", "type", "camions", "outcome", "accepted")
+            .counter().count());
+        assertEquals(5, registry.get("app.ingestion.rows").tags("outcome", "rejected", "type", "none").counter().count());
+        assertEquals(1, registry.get("app.ingestion.rows").tags("outcome", "parse-error").counter().count());
+        assertEquals(1, registry.get("app.ingestion.rows.throughput").tag("sheet", "Camions").summary().count());
+    }
+
+    @Test
+    void recordsStagesWithTheSameTagKeys() {
+        metrics.recordStage(IngestionMetrics.STAGE_WORKBOOK_OPEN, "Camions", null, System.nanoTime());
+        metrics.recordStage(IngestionMetrics.STAGE_FILE_STORAGE, null, "camions", System.nanoTime());
+
+        assertEquals(1, registry.get("app.ingestion.stage").tags("stage", "workbook-open", "sheet", "Camions", "type", "none")
+            .timer().count());
+        assertEquals(1, registry.get("app.ingestion.stage").tags("stage", "file-storage", "sheet", "none", "type", "camions")
+            .timer().count());
+    }
+
+    @Test
+    void boundsTheNumberOfTagValues() {
+        for (int i = 0; i < 100; i++) {
+            assertEquals("sheet" + i, metrics.tagValue("sheet" + i));
+        }
+        assertEquals("other", metrics.tagValue("sheet100"));
+        assertEquals("sheet7", metrics.tagValue("sheet7"));
+        assertEquals("none", metrics.tagValue(" "));
+    }
+}
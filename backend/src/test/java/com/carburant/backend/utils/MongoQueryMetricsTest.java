@@ -0,0 +1,87 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MongoQueryMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MongoQueryMetrics metrics = new MongoQueryMetrics(registry,
+        new StaticListableBeanFactory().getBeanProvider(MongoTemplate.class));
+    private final ConnectionDescription connection = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    private void roundTrip(int requestId, String command, String json, String reply, long millis) {
+        metrics.commandStarted(new CommandStartedEvent(null, 1, requestId, connection, "analyse", command,
+            BsonDocument.parse(json)));
+        metrics.commandSucceeded(new CommandSucceededEvent(null, 1, requestId, connection, "analyse", command,
+            BsonDocument.parse(reply), millis * 1_000_000));
+    }
+
+    @Test
+    void attributesGetMoreToTheShapeThatOpenedTheCursor() {
+        roundTrip(1, "find", "{find: 'vehicle_data', filter: {type: 'camions'}}",
+            "{cursor: {id: {$numberLong: '42'}, firstBatch: [{a: 1}, {a: 2}]}, ok: 1}", 5);
+        roundTrip(2, "getMore", "{getMore: {$numberLong: '42'}, collection: 'vehicle_data'}",
+            "{cursor: {id: {$numberLong: '0'}, nextBatch: [{a: 3}]}, ok: 1}", 3);
+        roundTrip(3, "find", "{find: 'vehicle_data', filter: {type: 'voitures'}}",
+            "{cursor: {id: {$numberLong: '0'}, firstBatch: []}, ok: 1}", 1);
+
+        List<Map<String, Object>> shapes = metrics.getSlowestShapes(10, "total");
+        assertEquals(1, shapes.size());
+        assertEquals("{type:?}", shapes.get(0).get("shape"));
+        assertEquals(3L, shapes.get(0).get("calls"));
+        assertEquals(3L, shapes.get(0).get("documents"));
+        assertEquals(9.0, (double) shapes.get(0).get("totalMillis"), 1e-9);
+        assertEquals(2, registry.get("app.mongo.query").tags("command", "find", "shape", "{type:?}").timer().count());
+        assertEquals(1, registry.get("app.mongo.query").tags("command", "getMore", "shape", "{type:?}").timer().count());
+        assertTrue(registry.get("app.mongo.query.bytes").tag("command", "find").summary().totalAmount() > 0);
+    }
+
+    @Test
+    void registersTheMetersOfAShapeOnce() {
+        roundTrip(1, "find", "{find: 'vehicle_data', filter: {type: 'camions'}}",
+            "{cursor: {id: {$numberLong: '0'}, firstBatch: [{a: 1}]}, ok: 1}", 2);
+        int meters = registry.getMeters().size();
+        Timer timer = registry.get("app.mongo.query").tags("command", "find", "outcome", "success").timer();
+
+        roundTrip(2, "find", "{find: 'vehicle_data', filter: {type: 'voitures'}}",
+            "{cursor: {id: {$numberLong: '0'}, firstBatch: []}, ok: 1}", 4);
+
+        assertEquals(meters, registry.getMeters().size());
+        assertSame(timer, registry.get("app.mongo.query").tags("command", "find", "outcome", "success").timer());
+        assertEquals(2, timer.count());
+        // No percentile histogram unless app.mongo.metriques.histogrammes is set
+        assertEquals(0, timer.takeSnapshot().histogramCounts().length);
+    }
+
+    @Test
+    void ranksShapesByMeanLatency() {
+        roundTrip(1, "count", "{count: 'vehicle_data', query: {type: 'a'}}", "{n: 10, ok: 1}", 30);
+        roundTrip(2, "aggregate", "{aggregate: 'vehicle_data', pipeline: [{$group: {_id: '$type'}}], cursor: {}}",
+            "{cursor: {id: {$numberLong: '0'}, firstBatch: [{}, {}]}, ok: 1}", 80);
+        roundTrip(3, "count", "{count: 'vehicle_data', query: {type: 'b'}}", "{n: 4, ok: 1}", 60);
+
+        List<Map<String, Object>> shapes = metrics.getSlowestShapes(1, "mean");
+        assertEquals(1, shapes.size());
+        assertEquals("aggregate", shapes.get(0).get("command"));
+        assertEquals("count", metrics.getSlowestShapes(1, "total").get(0).get("command"));
+        assertThrows(IllegalArgumentException.class, () -> metrics.getSlowestShapes(1, "p99"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.carburant.backend.model.OutlierRecord;
+
+class OutlierDetectorTest {
+
+    @Test
+    void flagsMiskeyedRecordsWithReasons() {
+        Random random = new Random(9);
+        OutlierDetector detector = new OutlierDetector();
+        OutlierDetector.Scan scan = detector.newScan();
+        for (int i = 0; i < 2000; i++) {
+            double km = 3000 + random.nextDouble() * 4000;
+            double tonnes = 100 + random.nextDouble() * 200;
+            scan.add("r" + i, km, tonnes, 40 + 0.3 * km + 0.5 * tonnes + random.nextGaussian() * 30);
+        }
+        // Consumption typed with an extra digit, and kilometrage in meters
+        scan.add("litres", 5000, 200, 15400);
+        scan.add("meters", 5_000_000, 200, 1640);
+
+        Map<String, OutlierRecord> flagged = detector.classify(scan).stream()
+            .collect(Collectors.toMap(OutlierRecord::getId, Function.identity()));
+
+        assertTrue(flagged.get("litres").getReasons().containsAll(
+            List.of(OutlierRecord.REASON_CONSOMMATION, OutlierRecord.REASON_RESIDUAL)));
+        assertTrue(flagged.get("meters").getReasons().containsAll(
+            List.of(OutlierRecord.REASON_KILOMETRAGE, OutlierRecord.REASON_LEVERAGE)));
+        // Clean records are rarely flagged (residuals beyond 3 deviations)
+        assertTrue(flagged.size() < 20, "flagged " + flagged.size());
+    }
+
+    @Test
+    void metricStatisticsMatchExactValues() {
+        OutlierDetector.MetricStatistics statistics = new OutlierDetector.MetricStatistics(16, 1);
+        double[] values = { 1e9 + 4, 1e9 + 7, 1e9 + 13, 1e9 + 16, 1e9 + 1 };
+        for (double value : values) {
+            statistics.add(value);
+        }
+
+        // Welford stays exact where sumSq / n - mean² loses every digit
+        assertEquals(1e9 + 8.2, statistics.getMean(), 1e-6);
+        assertEquals(Math.sqrt(38.7), statistics.getStandardDeviation(), 1e-6);
+        assertEquals(1e9 + 7, statistics.getMedian(), 1e-6);
+        assertEquals(6, statistics.getMad(), 1e-6);
+    }
+
+    @Test
+    void reservoirSketchEstimatesMedianOfLargeStream() {
+        OutlierDetector.MetricStatistics statistics = new OutlierDetector.MetricStatistics(4096, 1);
+        for (int i = 0; i < 1_000_000; i++) {
+            statistics.add(i % 1000);
+        }
+        assertEquals(500, statistics.getMedian(), 30);
+        assertEquals(250, statistics.getMad(), 30);
+    }
+}
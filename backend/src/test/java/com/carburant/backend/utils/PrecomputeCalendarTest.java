@@ -0,0 +1,38 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class PrecomputeCalendarTest {
+
+    @Test
+    void windowCoversTheLastDaysOfTheMonth() {
+        assertFalse(PrecomputeCalendar.inMonthEndWindow(LocalDate.of(2025, 2, 25), 3));
+        assertTrue(PrecomputeCalendar.inMonthEndWindow(LocalDate.of(2025, 2, 26), 3));
+        assertTrue(PrecomputeCalendar.inMonthEndWindow(LocalDate.of(2025, 2, 28), 3));
+        assertTrue(PrecomputeCalendar.inMonthEndWindow(LocalDate.of(2025, 1, 31), 0));
+        assertFalse(PrecomputeCalendar.inMonthEndWindow(LocalDate.of(2025, 1, 30), 0));
+    }
+
+    @Test
+    void catchesUpMissedMonthsOldestFirst() {
+        Set<YearMonth> done = Set.of(YearMonth.of(2025, 3));
+        List<YearMonth> due = PrecomputeCalendar.dueMonths(LocalDate.of(2025, 5, 30), 3, 3, done::contains);
+
+        assertEquals(List.of(YearMonth.of(2025, 2), YearMonth.of(2025, 4), YearMonth.of(2025, 5)), due);
+    }
+
+    @Test
+    void currentMonthOnlyDueInItsWindow() {
+        assertEquals(List.of(), PrecomputeCalendar.dueMonths(LocalDate.of(2025, 5, 10), 3, 0, month -> false));
+        assertEquals(List.of(YearMonth.of(2024, 12)),
+            PrecomputeCalendar.dueMonths(LocalDate.of(2025, 1, 10), 3, 1, month -> false));
+        assertEquals(List.of(), PrecomputeCalendar.dueMonths(LocalDate.of(2025, 5, 31), 3, 1, month -> true));
+    }
+}
@@ -0,0 +1,46 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+class QueryShapeTest {
+
+    @Test
+    void replacesFilterValuesKeepingFieldsAndOperators() {
+        BsonDocument find = BsonDocument.parse("{find: 'vehicle_data', filter: {type: 'camions', year: {$gte: '2023'},"
+            + " matricule: {$in: ['1 TU 2', '3 TU 4', '5 TU 6']}}, sort: {mois: 1}, $db: 'analyse'}");
+        BsonDocument other = BsonDocument.parse("{find: 'vehicle_data', filter: {type: 'voitures', year: {$gte: '2021'},"
+            + " matricule: {$in: ['7 TU 8']}}, sort: {mois: 1}}");
+
+        String shape = QueryShape.of("find", find);
+        assertEquals("{type:?,year:{$gte:?},matricule:{$in:?}} sort{mois:1}", shape);
+        assertEquals(shape, QueryShape.of("find", other));
+        assertEquals("{$or:[{type:?},{region:?}]}",
+            QueryShape.of("count", BsonDocument.parse("{count: 'vehicle_data', query: {$or: [{type: 'a'}, {region: 'b'}]}}")));
+    }
+
+    @Test
+    void shapesPipelinesAndBulkWrites() {
+        BsonDocument aggregate = BsonDocument.parse("{aggregate: 'vehicle_data', pipeline: [{$match: {type: 'camions'}},"
+            + " {$group: {_id: '$mois', total: {$sum: '$consommationL'}}}, {$sort: {_id: 1}}], cursor: {}}");
+        assertEquals("[$match{type:?},$group,$sort]", QueryShape.of("aggregate", aggregate));
+
+        BsonDocument delete = BsonDocument.parse("{delete: 'vehicle_data', deletes: [{q: {type: 'camions'}, limit: 0}]}");
+        assertEquals("{type:?}", QueryShape.of("delete", delete));
+        assertEquals("-", QueryShape.of("insert", BsonDocument.parse("{insert: 'vehicle_data', documents: [{a: 1}]}")));
+    }
+
+    @Test
+    void summarizesWinningPlans() {
+        BsonDocument findExplain = BsonDocument.parse("{queryPlanner: {winningPlan: {stage: 'FETCH',"
+            + " inputStage: {stage: 'IXSCAN', indexName: 'type_1_year_1'}}, rejectedPlans: []}}");
+        assertEquals("FETCH > IXSCAN(type_1_year_1)", QueryShape.planSummary(findExplain));
+
+        BsonDocument aggregateExplain = BsonDocument.parse("{stages: [{$cursor: {queryPlanner: {winningPlan:"
+            + " {queryPlan: {stage: 'OR', inputStages: [{stage: 'COLLSCAN'}, {stage: 'IXSCAN', indexName: 'mois_1'}]}}}}}]}");
+        assertEquals("OR > [COLLSCAN, IXSCAN(mois_1)]", QueryShape.planSummary(aggregateExplain));
+        assertNull(QueryShape.planSummary(new BsonDocument()));
+    }
+}
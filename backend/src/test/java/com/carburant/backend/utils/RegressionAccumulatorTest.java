@@ -0,0 +1,84 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import org.junit.jupiter.api.Test;
+
+class RegressionAccumulatorTest {
+
+    @Test
+    void fitMatchesOrdinaryLeastSquares() {
+        Random random = new Random(42);
+        int n = 200;
+        double[][] x = new double[n][2];
+        double[] y = new double[n];
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+
+        for (int i = 0; i < n; i++) {
+            x[i][0] = 5000 + random.nextDouble() * 20000;
+            x[i][1] = random.nextDouble() * 800;
+            y[i] = 120 + 0.28 * x[i][0] + 0.9 * x[i][1] + random.nextGaussian() * 150;
+            accumulator.add(x[i][0], x[i][1], y[i]);
+        }
+
+        OLSMultipleLinearRegression ols = new OLSMultipleLinearRegression();
+        ols.newSampleData(y, x);
+        double[] expected = ols.estimateRegressionParameters();
+        double[] expectedErrors = ols.estimateRegressionParametersStandardErrors();
+
+        RegressionAccumulator.Fit fit = accumulator.fit();
+        assertArrayEquals(expected, fit.getCoefficients(), 1e-6);
+        assertArrayEquals(expectedErrors, fit.getStandardErrors(), 1e-6);
+        assertEquals(ols.calculateRSquared(), fit.getRSquared(), 1e-9);
+        assertEquals(ols.calculateAdjustedRSquared(), fit.getAdjustedRSquared(), 1e-9);
+        assertEquals(ols.calculateResidualSumOfSquares() / n, fit.getMse(), 1e-6);
+    }
+
+    @Test
+    void removingObservationsRestoresPreviousFit() {
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        RegressionAccumulator reference = new RegressionAccumulator();
+        double[][] points = { { 1000, 10, 330 }, { 2500, 40, 790 }, { 1800, 5, 560 }, { 3200, 90, 1020 }, { 900, 60, 310 } };
+        for (double[] point : points) {
+            accumulator.add(point[0], point[1], point[2]);
+            reference.add(point[0], point[1], point[2]);
+        }
+
+        accumulator.add(5000, 20, 9999);
+        accumulator.remove(5000, 20, 9999);
+
+        assertEquals(reference.getN(), accumulator.getN());
+        assertArrayEquals(reference.fit().getCoefficients(), accumulator.fit().getCoefficients(), 1e-9);
+    }
+
+    @Test
+    void mergedAccumulatorsEqualSingleAccumulator() {
+        RegressionAccumulator all = new RegressionAccumulator();
+        RegressionAccumulator first = new RegressionAccumulator();
+        RegressionAccumulator second = new RegressionAccumulator();
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            double km = random.nextDouble() * 10000;
+            double tonnage = random.nextDouble() * 100;
+            double consommation = 50 + 0.3 * km + 2 * tonnage + random.nextGaussian();
+            all.add(km, tonnage, consommation);
+            (i % 2 == 0 ? first : second).add(km, tonnage, consommation);
+        }
+
+        assertArrayEquals(all.fit().getCoefficients(), first.merge(second).fit().getCoefficients(), 1e-9);
+    }
+
+    @Test
+    void constantTonnageIsRejected() {
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        accumulator.add(1000, 0, 300);
+        accumulator.add(2000, 0, 610);
+        accumulator.add(3000, 0, 890);
+        accumulator.add(4000, 0, 1220);
+
+        assertThrows(IllegalStateException.class, accumulator::fit);
+    }
+}
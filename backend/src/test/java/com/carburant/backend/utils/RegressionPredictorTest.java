@@ -0,0 +1,74 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import org.junit.jupiter.api.Test;
+
+class RegressionPredictorTest {
+
+    @Test
+    void predictionIntervalMatchesOrdinaryLeastSquares() {
+        Random random = new Random(7);
+        int n = 120;
+        double[][] x = new double[n][2];
+        double[] y = new double[n];
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        for (int i = 0; i < n; i++) {
+            x[i][0] = 5000 + random.nextDouble() * 20000;
+            x[i][1] = random.nextDouble() * 800;
+            y[i] = 120 + 0.28 * x[i][0] + 0.9 * x[i][1] + random.nextGaussian() * 150;
+            accumulator.add(x[i][0], x[i][1], y[i]);
+        }
+
+        OLSMultipleLinearRegression ols = new OLSMultipleLinearRegression();
+        ols.newSampleData(y, x);
+        double[] beta = ols.estimateRegressionParameters();
+        double[][] inverseGram = ols.estimateRegressionParametersVariance();
+        double variance = ols.estimateErrorVariance();
+
+        RegressionPredictor predictor = RegressionPredictor.of(accumulator.fit(), 0.95);
+        RegressionPredictor.Batch batch = new RegressionPredictor.Batch();
+        batch.add(null, 12000, 300, 3900);
+        batch.add("unknown", 18000, 50, Double.NaN);
+        predictor.predict(batch);
+
+        double[] x0 = { 1, 12000, 300 };
+        double expected = beta[0] + beta[1] * x0[1] + beta[2] * x0[2];
+        // Prediction variance s²(1 + x₀ᵀ(XᵀX)⁻¹x₀)
+        double quadratic = 0;
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                quadratic += x0[i] * inverseGram[i][j] * x0[j];
+            }
+        }
+        double t = new TDistribution(n - 3).inverseCumulativeProbability(0.975);
+        double halfWidth = t * Math.sqrt(variance * (1 + quadratic));
+
+        assertEquals(expected, batch.getPredicted(0), 1e-6);
+        assertEquals(3900 - expected, batch.getResidual(0), 1e-6);
+        assertEquals(expected - halfWidth, batch.getLower(0), 1e-6);
+        assertEquals(expected + halfWidth, batch.getUpper(0), 1e-6);
+        assertTrue(Double.isNaN(batch.getResidual(1)));
+        assertTrue(batch.getLower(1) < batch.getPredicted(1) && batch.getPredicted(1) < batch.getUpper(1));
+    }
+
+    @Test
+    void largeBatchGrowsAndIsFullyPredicted() {
+        RegressionPredictor predictor = new RegressionPredictor(new double[] { 10, 0.3, 1.0 },
+            null, Double.NaN, 0, 0.95);
+        RegressionPredictor.Batch batch = new RegressionPredictor.Batch();
+        for (int i = 0; i < 100_000; i++) {
+            batch.add(null, i, 2, Double.NaN);
+        }
+        predictor.predict(batch);
+
+        assertFalse(predictor.hasIntervals());
+        assertEquals(100_000, batch.size());
+        assertEquals(10 + 0.3 * 99_999 + 2, batch.getPredicted(99_999), 1e-9);
+        assertTrue(Double.isNaN(batch.getUpper(0)));
+    }
+}
@@ -0,0 +1,64 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
+import org.junit.jupiter.api.Test;
+
+import com.carburant.backend.model.CoefficientStatistics;
+import com.carburant.backend.model.RegressionResult;
+
+class RegressionUtilsTest {
+
+    @Test
+    void inferenceStatisticsMatchStudentDistribution() {
+        Random random = new Random(11);
+        int n = 60;
+        double[][] x = new double[n][2];
+        double[] y = new double[n];
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        for (int i = 0; i < n; i++) {
+            x[i][0] = 5000 + random.nextDouble() * 20000;
+            x[i][1] = random.nextDouble() * 800;
+            // Small tonnage effect so its p-value is not simply 0
+            y[i] = 120 + 0.28 * x[i][0] + 0.05 * x[i][1] + random.nextGaussian() * 150;
+            accumulator.add(x[i][0], x[i][1], y[i]);
+        }
+
+        OLSMultipleLinearRegression ols = new OLSMultipleLinearRegression();
+        ols.newSampleData(y, x);
+        double[] beta = ols.estimateRegressionParameters();
+        double[] errors = ols.estimateRegressionParametersStandardErrors();
+        TDistribution distribution = new TDistribution(n - 3);
+        double critical = distribution.inverseCumulativeProbability(0.975);
+
+        RegressionResult result = new RegressionUtils().performRegression(accumulator, "test");
+
+        assertEquals(n, result.getSampleSize());
+        assertEquals(n - 3, result.getDegreesOfFreedom());
+        assertEquals(0.95, result.getConfidenceLevel());
+        assertEquals(ols.estimateRegressionStandardError(), result.getResidualStandardError(), 1e-6);
+        String[] names = { "intercept", "kilometrage", "tonnage" };
+        for (int i = 0; i < 3; i++) {
+            CoefficientStatistics statistics = result.getCoefficientStatistics().get(names[i]);
+            double t = beta[i] / errors[i];
+            assertEquals(errors[i], statistics.getStandardError(), 1e-6);
+            assertEquals(2 * distribution.cumulativeProbability(-Math.abs(t)), statistics.getPValue(), 1e-9);
+            assertEquals(beta[i] - critical * errors[i], statistics.getLowerBound(), 1e-6);
+            assertEquals(beta[i] + critical * errors[i], statistics.getUpperBound(), 1e-6);
+        }
+
+        // Predictions from the persisted statistics equal predictions from the fit itself
+        RegressionPredictor.Batch fromResult = new RegressionPredictor.Batch();
+        RegressionPredictor.Batch fromFit = new RegressionPredictor.Batch();
+        fromResult.add(null, 15000, 400, Double.NaN);
+        fromFit.add(null, 15000, 400, Double.NaN);
+        RegressionPredictor.of(result, 0.9).predict(fromResult);
+        RegressionPredictor.of(accumulator.fit(), 0.9).predict(fromFit);
+        assertEquals(fromFit.getPredicted(0), fromResult.getPredicted(0), 1e-6);
+        assertEquals(fromFit.getUpper(0), fromResult.getUpper(0), 1e-6);
+    }
+}
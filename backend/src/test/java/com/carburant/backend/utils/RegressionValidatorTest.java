@@ -0,0 +1,113 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.carburant.backend.model.dto.ModelValidationReport;
+import com.carburant.backend.model.dto.ModelValidationReport.CoefficientStability;
+
+class RegressionValidatorTest {
+
+    private final RegressionValidator validator = new RegressionValidator();
+
+    @Test
+    void bootstrapAndCrossValidationOnFullYear() {
+        // 250 vehicles × 12 months
+        Random random = new Random(3);
+        RegressionSample sample = new RegressionSample();
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        for (int i = 0; i < 3000; i++) {
+            double km = 2000 + random.nextDouble() * 8000;
+            double tonnes = random.nextDouble() * 400;
+            double litres = 50 + 0.3 * km + 0.8 * tonnes + random.nextGaussian() * 100;
+            sample.add(km, tonnes, litres);
+            accumulator.add(km, tonnes, litres);
+        }
+        double[] standardErrors = accumulator.fit().getStandardErrors();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ModelValidationReport report = validator.validate(sample, 10, 1000, 0.95, 42, pool);
+
+            assertEquals(3000, report.getN());
+            assertEquals(0, report.getFailedResamples());
+            assertEquals(10, report.getFoldMse().size());
+            // Noise variance is 100², the held-out error is close to it and slightly above the in-sample error
+            assertEquals(10000, report.getOutOfSampleMse(), 1000);
+            assertTrue(report.getOutOfSampleMse() > report.getInSampleMse());
+            for (int c = 0; c < 3; c++) {
+                CoefficientStability stability = report.getCoefficients().get(c);
+                assertTrue(stability.getLowerBound() < stability.getEstimate() && stability.getEstimate() < stability.getUpperBound());
+                // The bootstrap spread agrees with the analytical standard error
+                assertEquals(standardErrors[c], stability.getBootstrapStdError(), 0.15 * standardErrors[c]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void sameSeedGivesSameReportWhateverTheParallelism() {
+        Random random = new Random(5);
+        RegressionSample sample = new RegressionSample();
+        for (int i = 0; i < 200; i++) {
+            double km = 1000 + random.nextDouble() * 5000;
+            double tonnes = random.nextDouble() * 100;
+            sample.add(km, tonnes, 20 + 0.25 * km + tonnes + random.nextGaussian() * 40);
+        }
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool multiple = new ForkJoinPool(4);
+        try {
+            ModelValidationReport first = validator.validate(sample, 5, 200, 0.9, 7, single);
+            ModelValidationReport second = validator.validate(sample, 5, 200, 0.9, 7, multiple);
+
+            assertEquals(first.getOutOfSampleMse(), second.getOutOfSampleMse(), 1e-9);
+            assertEquals(first.getCoefficients().get(2).getLowerBound(), second.getCoefficients().get(2).getLowerBound());
+            assertEquals(first.getCoefficients().get(2).getUpperBound(), second.getCoefficients().get(2).getUpperBound());
+        } finally {
+            single.shutdown();
+            multiple.shutdown();
+        }
+    }
+
+    @Test
+    void unfittedFoldsAndSkippedBootstrapAreNull() {
+        // Each fold leaves 2 records, too few to fit
+        RegressionSample sample = new RegressionSample();
+        sample.add(1000, 10, 300);
+        sample.add(2000, 20, 600);
+        sample.add(3000, 5, 950);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            ModelValidationReport report = validator.validate(sample, 3, 0, 0.95, 1, pool);
+
+            assertEquals(3, report.getFoldMse().size());
+            assertTrue(report.getFoldMse().stream().allMatch(mse -> mse == null));
+            assertNull(report.getOutOfSampleMse());
+            CoefficientStability intercept = report.getCoefficients().get(0);
+            assertNull(intercept.getBootstrapMean());
+            assertNull(intercept.getLowerBound());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsMoreFoldsThanRecords() {
+        RegressionSample sample = new RegressionSample();
+        sample.add(1000, 10, 300);
+        sample.add(2000, 20, 600);
+        sample.add(3000, 5, 950);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> validator.validate(sample, 5, 10, 0.95, 1, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
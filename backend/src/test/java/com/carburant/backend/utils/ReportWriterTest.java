@@ -0,0 +1,55 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+class ReportWriterTest {
+
+    @Test
+    void csvQuotesValuesAndLeavesMissingNumbersEmpty() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReportWriter writer = ReportWriter.open("csv", null, out, 10)) {
+            writer.header("Matricule", "Region", "Consommation (L)", "Ecart (%)");
+            writer.row("TU 1234", "Sud; Gabes", 152.5, Double.NaN);
+            writer.row(null, "\"Nord\"", 3, null);
+            writer.finish();
+            assertEquals(2, writer.getRows());
+        }
+
+        assertEquals("\uFEFFMatricule;Region;Consommation (L);Ecart (%)\r\n"
+            + "TU 1234;\"Sud; Gabes\";152.5;\r\n"
+            + ";\"\"\"Nord\"\"\";3;\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void xlsxKeepsEveryRowBeyondTheWindow() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReportWriter writer = ReportWriter.open("xlsx", "Rapport", out, 10)) {
+            writer.header("Rang", "Matricule", "IPE (L/100km)");
+            for (int i = 1; i <= 5000; i++) {
+                writer.row(i, "TU " + i, i / 10.0);
+            }
+            writer.finish();
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Rapport");
+            assertEquals(5000, sheet.getLastRowNum());
+            assertEquals("Matricule", sheet.getRow(0).getCell(1).getStringCellValue());
+            assertEquals("TU 4321", sheet.getRow(4321).getCell(1).getStringCellValue());
+            assertEquals(500.0, sheet.getRow(5000).getCell(2).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void rejectsPdf() {
+        assertThrows(IllegalArgumentException.class, () -> ReportWriter.open("pdf", null, new ByteArrayOutputStream(), 10));
+    }
+}
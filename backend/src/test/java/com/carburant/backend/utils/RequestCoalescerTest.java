@@ -0,0 +1,123 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry);
+
+    @Test
+    void concurrentIdenticalCallsShareOneComputation() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> coalescer.execute("op", new Object[] { "Camion", "2024" }, () -> {
+                    computations.incrementAndGet();
+                    awaitQuietly(release);
+                    return "result";
+                })));
+            }
+
+            // Wait until the seven followers have joined the in-flight computation
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (followerCount() < 7 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("result", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, computations.get());
+        assertEquals(0, coalescer.getInFlightCount());
+        assertEquals(7.0 / 8.0, meterRegistry.get("app.coalescence.collapse.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void waitingCallersGetTheirOwnCopy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> coalescer.execute("op", new Object[] { "Camion" }, () -> {
+                    awaitQuietly(release);
+                    return new ArrayList<>(List.of("result"));
+                }, ArrayList::new)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (followerCount() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            List<List<String>> values = new ArrayList<>();
+            for (Future<List<String>> result : results) {
+                values.add(result.get(5, TimeUnit.SECONDS));
+            }
+            // A caller modifying its result does not change the others'
+            values.get(0).add("modified");
+            for (int i = 1; i < values.size(); i++) {
+                assertEquals(List.of("result"), values.get(i));
+                assertNotSame(values.get(0), values.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void differentArgumentsAreNotCoalesced() {
+        AtomicInteger computations = new AtomicInteger();
+
+        coalescer.execute("op", new Object[] { "Camion" }, computations::incrementAndGet);
+        coalescer.execute("op", new Object[] { "Voiture" }, computations::incrementAndGet);
+
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void failureIsPropagatedAndKeyReleased() {
+        assertThrows(IllegalArgumentException.class, () -> coalescer.execute("op", new Object[] { "x" }, () -> {
+            throw new IllegalArgumentException("boom");
+        }));
+
+        assertEquals(0, coalescer.getInFlightCount());
+        assertEquals("ok", coalescer.execute("op", new Object[] { "x" }, () -> "ok"));
+    }
+
+    private double followerCount() {
+        return meterRegistry.get("app.coalescence.requests").tag("role", "follower").counter().count();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
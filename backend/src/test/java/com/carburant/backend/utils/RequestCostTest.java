@@ -0,0 +1,82 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RequestCostTest {
+
+    @AfterEach
+    void unbind() {
+        RequestCost.end();
+    }
+
+    @Test
+    void nothingIsRecordedOutsideOfARequest() {
+        assertNull(RequestCost.current());
+        assertEquals(-1, RequestCost.cpuTime());
+        RequestCost.recordCache(1, 1);
+        RequestCost.recordParseCpu(0);
+
+        RequestCost cost = RequestCost.begin();
+        assertSame(cost, RequestCost.current());
+        assertEquals(0, cost.getCacheHits());
+        assertEquals(0, cost.getParseCpuNanos());
+    }
+
+    @Test
+    void propagatedTasksCountForTheSubmittingRequest() throws Exception {
+        RequestCost cost = RequestCost.begin();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 4; i++) {
+                executor.execute(RequestCost.propagate(() -> {
+                    RequestCost.recordCache(1, 0);
+                    RequestCost.current().recordMongo(1_000_000, 10, 500);
+                }));
+            }
+            executor.execute(() -> assertNull(RequestCost.current()));
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(4, cost.getCacheHits());
+        assertEquals(4, cost.getMongoRoundTrips());
+        assertEquals(40, cost.getMongoDocuments());
+        assertEquals(2000, cost.getMongoBytes());
+    }
+
+    @Test
+    void serverTimingAndLogFieldsReportTheCost() {
+        RequestCost cost = RequestCost.begin();
+        cost.recordMongo(2_500_000, 120, 4096);
+        cost.recordMongo(500_000, 0, 100);
+        RequestCost.recordCache(2, 1);
+        long cpuStart = RequestCost.cpuTime();
+        double sum = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            sum += Math.sqrt(i);
+        }
+        assertTrue(sum > 0);
+        RequestCost.recordRegressionCpu(cpuStart);
+
+        String header = cost.serverTiming();
+        assertTrue(header.startsWith("mongo;dur=3.0;desc=\"2 round trips, 120 documents, 4196 bytes\""), header);
+        assertTrue(header.contains(", regression;dur="), header);
+        assertFalse(header.contains("parse;"), header);
+        assertTrue(header.contains(", cache;desc=\"2 hits, 1 misses\", total;dur="), header);
+
+        Map<String, String> fields = cost.logFields();
+        assertEquals("2", fields.get("mongoRoundTrips"));
+        assertEquals("3.0", fields.get("mongoMs"));
+        assertEquals("0.0", fields.get("parseCpuMs"));
+        assertEquals("1", fields.get("cacheMisses"));
+    }
+}
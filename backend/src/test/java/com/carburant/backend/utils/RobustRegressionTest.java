@@ -0,0 +1,105 @@
+package com.carburant.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.carburant.backend.model.CoefficientStatistics;
+import com.carburant.backend.model.RegressionResult;
+import com.carburant.backend.model.dto.RobustRegressionReport;
+
+class RobustRegressionTest {
+
+    private final RobustRegression robustRegression = new RobustRegression();
+
+    /**
+     * 5,000 records of consommation = 40 + 0.3 × km + 0.5 × tonnes, 3% of them typed with an extra digit
+     */
+    private RegressionSample contaminatedSample() {
+        Random random = new Random(21);
+        RegressionSample sample = new RegressionSample();
+        for (int i = 0; i < 5000; i++) {
+            double km = 2000 + random.nextDouble() * 6000;
+            double tonnes = random.nextDouble() * 300;
+            double litres = 40 + 0.3 * km + 0.5 * tonnes + random.nextGaussian() * 25;
+            sample.add(km, tonnes, random.nextDouble() < 0.03 ? litres * 10 : litres);
+        }
+        return sample;
+    }
+
+    private RegressionAccumulator accumulate(RegressionSample sample) {
+        RegressionAccumulator accumulator = new RegressionAccumulator();
+        for (int i = 0; i < sample.size(); i++) {
+            accumulator.add(sample.kilometrage()[i], sample.tonnage()[i], sample.consommation()[i]);
+        }
+        return accumulator;
+    }
+
+    @Test
+    void huberSolvesTheEstimatingEquations() {
+        RegressionSample sample = contaminatedSample();
+        RobustRegressionReport report = robustRegression.fit(sample, "huber", 0);
+        RegressionResult result = report.getResult();
+        double b0 = result.getIntercept();
+        double b1 = result.getCoefficients().get("kilometrage");
+        double b2 = result.getCoefficients().get("tonnage");
+
+        assertTrue(report.isConverged());
+        assertTrue(report.getDownweighted() >= 150);
+        assertEquals(0.3, b1, 0.01);
+        assertEquals(0.5, b2, 0.05);
+        // OLS is dragged by the mis-keyed months
+        assertTrue(Math.abs(report.getOlsCoefficients()[1] - 0.3) > 0.05);
+
+        // At the solution Σ ψ(r) x = 0 with ψ(r) = r clipped to ±cutoff
+        double cutoff = report.getTuningConstant() * report.getScale();
+        double[] score = new double[3];
+        double[] km = sample.kilometrage();
+        double[] tonnes = sample.tonnage();
+        double[] litres = sample.consommation();
+        for (int i = 0; i < sample.size(); i++) {
+            double psi = Math.max(-cutoff, Math.min(cutoff, litres[i] - (b0 + b1 * km[i] + b2 * tonnes[i])));
+            score[0] += psi;
+            score[1] += psi * km[i];
+            score[2] += psi * tonnes[i];
+        }
+        assertEquals(0, score[0] / sample.size(), 1e-3 * cutoff);
+        assertEquals(0, score[1] / sample.size(), 1e-3 * cutoff * 5000);
+        assertEquals(0, score[2] / sample.size(), 1e-3 * cutoff * 150);
+    }
+
+    @Test
+    void tukeyRejectsGrossOutliers() {
+        RobustRegressionReport report = robustRegression.fit(contaminatedSample(), "tukey", 0);
+
+        assertTrue(report.isConverged());
+        assertEquals(0.3, report.getResult().getCoefficients().get("kilometrage"), 0.005);
+        assertEquals(40, report.getResult().getIntercept(), 10);
+        assertTrue(report.getRejected() >= 130 && report.getRejected() <= 170, "rejected " + report.getRejected());
+    }
+
+    @Test
+    void keepsInferenceOfTheFinalWeightedFit() {
+        RegressionResult result = robustRegression.fit(contaminatedSample(), "huber", 0).getResult();
+        RegressionResult ols = new RegressionUtils().performRegression(accumulate(contaminatedSample()), "test");
+
+        assertEquals(9, result.getInverseGram().length);
+        assertEquals(4997, result.getDegreesOfFreedom());
+        // The outliers only enter the weighted residual error with their clipped weight
+        assertTrue(result.getResidualStandardError() > 0);
+        assertTrue(ols.getResidualStandardError() > 4 * result.getResidualStandardError());
+
+        new RegressionUtils().addInferenceStatistics(result);
+        CoefficientStatistics kilometrage = result.getCoefficientStatistics().get("kilometrage");
+        assertTrue(kilometrage.getStandardError() > 0);
+        assertTrue(kilometrage.getLowerBound() < 0.3 && kilometrage.getUpperBound() > 0.3);
+        assertTrue(kilometrage.getPValue() < 1e-6);
+    }
+
+    @Test
+    void rejectsUnknownMethod() {
+        assertThrows(IllegalArgumentException.class, () -> robustRegression.fit(contaminatedSample(), "lad", 0));
+    }
+}